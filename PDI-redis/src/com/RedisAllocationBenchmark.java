@@ -0,0 +1,241 @@
+package com;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.util.SafeEncoder;
+
+import com.linalis.pdi.steps.redis.RedisKeyEncoder;
+import com.linalis.pdi.steps.redis.RedisWriter;
+import com.linalis.pdi.steps.redisOutput.RedisOutputBatch;
+import com.linalis.pdi.steps.redisOutput.RedisOutputCounters;
+
+/**
+ * Measures the bytes allocated per row by the work Redis Input and Redis Output do for each row, with the
+ * allocation counter of the thread. No Redis server is needed : the writes go through a Jedis pipeline to an
+ * in-JVM server answering +OK to every command.
+ *
+ * Each path is run once to warm it up, then measured. The paths of the steps before Jedis have to stay under
+ * one byte per row. The writes through the pipeline are only reported : Jedis allocates its Response and the
+ * decoded reply of each command, and the String values are encoded on each row. They are compared with the
+ * same commands sent by Jedis alone, with keys and values already encoded. flushBatch and processRow need
+ * Kettle, and are not measured here.
+ *
+ * Usage : RedisAllocationBenchmark [rows]
+ */
+public class RedisAllocationBenchmark {
+
+	private static final int KEYS = 10000;
+	private static final int BATCH = 100;
+
+	private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	private static String[] keys;
+	private static long sink = 0;
+	private static int failures = 0;
+
+	/**
+	 * The work done for one row
+	 */
+	static abstract class Path {
+		final String name;
+		final boolean checked;
+
+		Path(String name, boolean checked) {
+			this.name = name;
+			this.checked = checked;
+		}
+
+		abstract void row(int i);
+	}
+
+	private static void measure(Path path, int rows) {
+		for (int i = 0; i < rows; i++)
+			path.row(i);
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < rows; i++)
+			path.row(i);
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		double perRow = (double) allocated / rows;
+		boolean failed = path.checked && perRow >= 1;
+		if (failed)
+			failures++;
+		System.out.println(String.format("%-40s %10.2f bytes/row%s", path.name, perRow, failed ? "  FAILED" : ""));
+	}
+
+	/**
+	 * Answers +OK to every command of its first connection
+	 */
+	static class ReplyServer implements Runnable {
+		final ServerSocket server;
+
+		ReplyServer() throws IOException {
+			server = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+		}
+
+		public void run() {
+			try {
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				InputStream in = new BufferedInputStream(socket.getInputStream());
+				// The replies of a pipeline are sent together, once all its commands are read
+				OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+				byte[] ok = "+OK\r\n".getBytes("UTF-8");
+				byte[] skip = new byte[8192];
+				String header;
+				while ((header = readLine(in)) != null) {
+					int count = Integer.parseInt(header.substring(1));
+					for (int i = 0; i < count; i++) {
+						int length = Integer.parseInt(readLine(in).substring(1)) + 2;
+						while (length > 0)
+							length -= in.read(skip, 0, Math.min(length, skip.length));
+					}
+					out.write(ok);
+					if (in.available() == 0)
+						out.flush();
+				}
+			} catch (IOException e) {
+				// Connection closed
+			}
+		}
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n') {
+			if (c < 0)
+				return null;
+			if (c != '\r')
+				line.append((char) c);
+		}
+		return line.toString();
+	}
+
+	public static void main(String[] args) throws Exception {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		if (!threads.isThreadAllocatedMemorySupported()) {
+			System.out.println("The allocation counter of the threads is not supported by this JVM");
+			System.exit(1);
+		}
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		keys = new String[KEYS];
+		for (int i = 0; i < KEYS; i++)
+			keys[i] = "customer:" + (100000 + i);
+		final String[] batchKeys = new String[BATCH];
+		final RedisKeyEncoder encoder = new RedisKeyEncoder(BATCH);
+		final RedisOutputBatch batch = new RedisOutputBatch(BATCH);
+		final RedisOutputCounters counters = new RedisOutputCounters(KEYS, false);
+		final Object value = SafeEncoder.encode("value");
+		final Object[] row = new Object[] { "row" };
+
+		measure(new Path("binary GET key, new array (before)", false) {
+			void row(int i) {
+				sink += SafeEncoder.encode(keys[i % KEYS]).length;
+			}
+		}, rows);
+		measure(new Path("Redis Input binary GET key", true) {
+			void row(int i) {
+				sink += encoder.encode(0, keys[i % KEYS]).length;
+			}
+		}, rows);
+		measure(new Path("Redis Input binary MGET keys", true) {
+			void row(int i) {
+				batchKeys[i % BATCH] = keys[i % KEYS];
+				if (i % BATCH == BATCH - 1)
+					sink += encoder.encodeAll(batchKeys).length;
+			}
+		}, rows);
+		measure(new Path("Redis Output pipelined batch", true) {
+			void row(int i) {
+				batch.add(keys[i % KEYS], value, 0, 20, row);
+				if (i % BATCH == BATCH - 1)
+					batch.clear();
+			}
+		}, rows);
+		measure(new Path("Redis Output counters", true) {
+			void row(int i) {
+				counters.add(keys[i % KEYS], 1L);
+				if (i % KEYS == KEYS - 1)
+					counters.clear();
+			}
+		}, rows);
+
+		ReplyServer server = new ReplyServer();
+		Thread serverThread = new Thread(server, "Reply server");
+		serverThread.setDaemon(true);
+		serverThread.start();
+		final Jedis jedis = new Jedis("127.0.0.1", server.server.getLocalPort());
+		final String[] writeKeys = new String[BATCH];
+		final Object[] writeValues = new Object[BATCH];
+		final long[] ttls = new long[BATCH];
+		final byte[][] encodedKeys = new byte[KEYS][];
+		for (int i = 0; i < KEYS; i++)
+			encodedKeys[i] = SafeEncoder.encode(keys[i]);
+		final byte[] rawValue = SafeEncoder.encode("value");
+		final RedisKeyEncoder writeEncoder = new RedisKeyEncoder(RedisWriter.MSET_MAX_KEYS);
+		final RedisWriter mset = new RedisWriter(RedisWriter.CONDITION_NONE);
+		final RedisWriter setnx = new RedisWriter(RedisWriter.CONDITION_NX);
+
+		measure(new Path("Jedis pipeline SET, encoded (reference)", false) {
+			Pipeline pipeline;
+
+			void row(int i) {
+				if (i % BATCH == 0)
+					pipeline = jedis.pipelined();
+				pipeline.set(encodedKeys[i % KEYS], rawValue);
+				if (i % BATCH == BATCH - 1)
+					pipeline.sync();
+			}
+		}, rows);
+		measure(new Path("Redis Output sendAll MSET, byte[] values", false) {
+			void row(int i) {
+				writeKeys[i % BATCH] = keys[i % KEYS];
+				writeValues[i % BATCH] = rawValue;
+				if (i % BATCH == BATCH - 1) {
+					Pipeline pipeline = jedis.pipelined();
+					mset.sendAll(pipeline, writeEncoder, writeKeys, writeValues, ttls, BATCH);
+					pipeline.sync();
+				}
+			}
+		}, rows);
+		measure(new Path("Redis Output sendAll MSET, String values", false) {
+			void row(int i) {
+				writeKeys[i % BATCH] = keys[i % KEYS];
+				writeValues[i % BATCH] = "value";
+				if (i % BATCH == BATCH - 1) {
+					Pipeline pipeline = jedis.pipelined();
+					mset.sendAll(pipeline, writeEncoder, writeKeys, writeValues, ttls, BATCH);
+					pipeline.sync();
+				}
+			}
+		}, rows);
+		measure(new Path("Redis Output sendAll SET NX, byte[] values", false) {
+			void row(int i) {
+				writeKeys[i % BATCH] = keys[i % KEYS];
+				writeValues[i % BATCH] = rawValue;
+				if (i % BATCH == BATCH - 1) {
+					Pipeline pipeline = jedis.pipelined();
+					setnx.sendAll(pipeline, writeEncoder, writeKeys, writeValues, ttls, BATCH);
+					pipeline.sync();
+				}
+			}
+		}, rows);
+		jedis.close();
+
+		System.out.println(failures == 0 ? "OK" : failures + " path(s) allocate per row");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+}
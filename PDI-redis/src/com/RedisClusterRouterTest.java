@@ -0,0 +1,311 @@
+package com;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import redis.clients.jedis.JedisCluster;
+import redis.clients.util.JedisClusterCRC16;
+
+import com.linalis.pdi.steps.redis.RedisClusterRouter;
+import com.linalis.pdi.steps.redis.RedisEndpoint;
+import com.linalis.pdi.steps.redis.RedisWriter;
+
+/**
+ * Checks the slot grouping and the MOVED / ASK redirections of RedisClusterRouter against two in-JVM
+ * cluster nodes speaking enough RESP for it : CLUSTER SLOTS, GET, SET, ASKING, PING and QUIT.
+ *
+ * Node A serves the slots 0 to 8191, node C the slots 16000 to 16383 and node B the others. After the slot
+ * map is read, a slot of A is migrated to B (A answers MOVED), and another slot of A is being imported by B
+ * (A answers ASK, and B only serves it after ASKING). At the end, C leaves the cluster with its slots.
+ */
+public class RedisClusterRouterTest {
+
+	private static final String HOST = "127.0.0.1";
+
+	private static Node[] nodes;
+
+	/**
+	 * Node serving each slot, as advertised by CLUSTER SLOTS, -1 for the slots not served
+	 */
+	private static final int[] slotOwners = new int[JedisCluster.HASHSLOTS];
+
+	/**
+	 * Slot being imported by B from A, answered with ASK by A
+	 */
+	private static int askSlot = -1;
+
+	private static int failures = 0;
+
+	/**
+	 * A cluster node, each connection served by its own thread
+	 */
+	static class Node implements Runnable {
+		final int index;
+		final String name;
+		final ServerSocket server;
+		final Map<String, String> values = Collections.synchronizedMap(new HashMap<String, String>());
+		/**
+		 * The key commands received, as "GET key", "SET key" or "ASKING"
+		 */
+		final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+		Node(int index, String name) throws IOException {
+			this.index = index;
+			this.name = name;
+			this.server = new ServerSocket(0, 50, InetAddress.getByName(HOST));
+		}
+
+		int getPort() {
+			return server.getLocalPort();
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					final Socket socket = server.accept();
+					Thread connection = new Thread(new Runnable() {
+						public void run() {
+							serve(socket);
+						}
+					}, name + " connection");
+					connection.setDaemon(true);
+					connection.start();
+				}
+			} catch (IOException e) {
+				// Server closed
+			}
+		}
+
+		void serve(Socket socket) {
+			try {
+				InputStream in = new BufferedInputStream(socket.getInputStream());
+				OutputStream out = socket.getOutputStream();
+				boolean asking = false;
+				List<String> command;
+				while ((command = readCommand(in)) != null) {
+					String name = command.get(0).toUpperCase();
+					ByteArrayOutputStream reply = new ByteArrayOutputStream();
+					if ("PING".equals(name))
+						writeLine(reply, "+PONG");
+					else if ("QUIT".equals(name)) {
+						writeLine(reply, "+OK");
+						out.write(reply.toByteArray());
+						break;
+					} else if ("ASKING".equals(name)) {
+						received.add("ASKING");
+						asking = true;
+						writeLine(reply, "+OK");
+					} else if ("CLUSTER".equals(name))
+						writeSlots(reply);
+					else if ("GET".equals(name) || "SET".equals(name)) {
+						String key = command.get(1);
+						received.add(name + " " + key);
+						int slot = JedisClusterCRC16.getSlot(key);
+						if (slot == askSlot && index == 0)
+							writeLine(reply, "-ASK " + slot + " " + HOST + ":" + nodes[1].getPort());
+						else if (slotOwners[slot] != index && !(asking && slot == askSlot))
+							writeLine(reply, "-MOVED " + slot + " " + HOST + ":" + nodes[slotOwners[slot]].getPort());
+						else if ("GET".equals(name))
+							writeBulk(reply, key + "@" + this.name);
+						else {
+							values.put(key, command.get(2));
+							writeLine(reply, "+OK");
+						}
+						asking = false;
+					} else
+						writeLine(reply, "-ERR unknown command '" + name + "'");
+					out.write(reply.toByteArray());
+					out.flush();
+				}
+				socket.close();
+			} catch (IOException e) {
+				// Connection closed by the client
+			}
+		}
+	}
+
+	/**
+	 * @return the arguments of the next command, null at the end of the stream
+	 */
+	private static List<String> readCommand(InputStream in) throws IOException {
+		String header = readLine(in);
+		if (header == null)
+			return null;
+		int count = Integer.parseInt(header.substring(1));
+		List<String> args = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			int length = Integer.parseInt(readLine(in).substring(1));
+			byte[] arg = new byte[length];
+			int read = 0;
+			while (read < length)
+				read += in.read(arg, read, length - read);
+			readLine(in);
+			args.add(new String(arg, "UTF-8"));
+		}
+		return args;
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n') {
+			if (c < 0)
+				return null;
+			if (c != '\r')
+				line.append((char) c);
+		}
+		return line.toString();
+	}
+
+	private static void writeLine(ByteArrayOutputStream out, String line) throws IOException {
+		out.write((line + "\r\n").getBytes("UTF-8"));
+	}
+
+	private static void writeBulk(ByteArrayOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes("UTF-8");
+		writeLine(out, "$" + bytes.length);
+		out.write(bytes);
+		writeLine(out, "");
+	}
+
+	/**
+	 * Writes the CLUSTER SLOTS reply, one range per run of slots served by the same node
+	 */
+	private static void writeSlots(ByteArrayOutputStream out) throws IOException {
+		List<int[]> ranges = new ArrayList<int[]>();
+		int start = 0;
+		for (int slot = 1; slot <= slotOwners.length; slot++) {
+			if (slot == slotOwners.length || slotOwners[slot] != slotOwners[start]) {
+				if (slotOwners[start] >= 0)
+					ranges.add(new int[] { start, slot - 1, slotOwners[start] });
+				start = slot;
+			}
+		}
+		writeLine(out, "*" + ranges.size());
+		for (int[] range : ranges) {
+			writeLine(out, "*3");
+			writeLine(out, ":" + range[0]);
+			writeLine(out, ":" + range[1]);
+			writeLine(out, "*2");
+			writeBulk(out, HOST);
+			writeLine(out, ":" + nodes[range[2]].getPort());
+		}
+	}
+
+	/**
+	 * @return a key of the slot range, other than the given slots
+	 */
+	private static String findKey(String prefix, int from, int to, int... excluded) {
+		for (int i = 0; ; i++) {
+			String key = prefix + i;
+			int slot = JedisClusterCRC16.getSlot(key);
+			boolean free = slot >= from && slot <= to;
+			for (int other : excluded)
+				free &= slot != other;
+			if (free)
+				return key;
+		}
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			failures++;
+			System.out.println("FAILED: " + message);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		nodes = new Node[] { new Node(0, "A"), new Node(1, "B"), new Node(2, "C") };
+		for (Node node : nodes) {
+			Thread thread = new Thread(node, "Node " + node.name);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		for (int slot = 0; slot < slotOwners.length; slot++)
+			slotOwners[slot] = slot < 8192 ? 0 : slot < 16000 ? 1 : 2;
+
+		String movedKey = findKey("moved", 0, 8191);
+		int movedSlot = JedisClusterCRC16.getSlot(movedKey);
+		String askKey = findKey("ask", 0, 8191, movedSlot);
+		String a1 = findKey("a", 0, 8191, movedSlot, JedisClusterCRC16.getSlot(askKey));
+		String a2 = findKey("a" + a1, 0, 8191, movedSlot, JedisClusterCRC16.getSlot(askKey));
+		String b1 = findKey("b", 8192, 15999);
+		String b2 = findKey("b" + b1, 8192, 15999);
+		String c1 = findKey("c", 16000, 16383);
+		String[] keys = { a1, b1, a2, b2, movedKey, askKey };
+
+		RedisClusterRouter router = new RedisClusterRouter(new RedisEndpoint(HOST, nodes[0].getPort(), 0, null));
+		router.open();
+		try {
+			check(router.getMasterPools().size() == 3, "three master pools expected, got " + router.getMasterPools().size());
+
+			// The slot map of the router is now stale : one slot moved to B, another one is being imported by B
+			slotOwners[movedSlot] = 1;
+			askSlot = JedisClusterCRC16.getSlot(askKey);
+
+			Object[] values = router.get(keys, false);
+			String[] expected = { a1 + "@A", b1 + "@B", a2 + "@A", b2 + "@B", movedKey + "@B", askKey + "@B" };
+			check(Arrays.asList(expected).equals(Arrays.asList(values)), "GET values " + Arrays.asList(values));
+			// Each node gets the keys of its slots in one pipeline. The ASK is followed as soon as the replies of A
+			// are read, before the pipeline of B, and the moved key is sent again once the batch is done.
+			check(nodes[0].received.equals(Arrays.asList("GET " + a1, "GET " + a2, "GET " + movedKey, "GET " + askKey)),
+					"keys sent to A " + nodes[0].received);
+			check(nodes[1].received.equals(Arrays.asList("ASKING", "GET " + askKey, "GET " + b1, "GET " + b2, "GET " + movedKey)),
+					"keys sent to B " + nodes[1].received);
+
+			// MOVED updated the slot map, ASK did not
+			nodes[0].received.clear();
+			nodes[1].received.clear();
+			values = router.get(new String[] { movedKey, askKey }, true);
+			check(values[0] instanceof byte[] && new String((byte[]) values[0], "UTF-8").equals(movedKey + "@B"), "binary GET of the moved key");
+			check(nodes[0].received.equals(Arrays.asList("GET " + askKey)), "keys sent to A after MOVED " + nodes[0].received);
+			check(nodes[1].received.equals(Arrays.asList("GET " + movedKey, "ASKING", "GET " + askKey)),
+					"keys sent to B after MOVED " + nodes[1].received);
+
+			// The single key reads follow the same routes
+			check((b1 + "@B").equals(router.get(b1, false)), "single GET of " + b1);
+			check((askKey + "@B").equals(router.get(askKey, false)), "single GET of the asked key");
+			Object single = router.get(movedKey, true);
+			check(single instanceof byte[] && new String((byte[]) single, "UTF-8").equals(movedKey + "@B"), "single binary GET of the moved key");
+
+			// The writes follow the same routes
+			String[] writeValues = new String[keys.length];
+			for (int i = 0; i < keys.length; i++)
+				writeValues[i] = "value" + i;
+			Object[] replies = router.set(keys, writeValues, null, keys.length, new RedisWriter(RedisWriter.CONDITION_NONE));
+			for (int i = 0; i < keys.length; i++)
+				check("OK".equals(replies[i]), "SET reply of " + keys[i] + " " + replies[i]);
+			check(nodes[0].values.keySet().equals(new HashSet<String>(Arrays.asList(a1, a2))), "keys written on A " + nodes[0].values.keySet());
+			check(nodes[1].values.keySet().equals(new HashSet<String>(Arrays.asList(b1, b2, movedKey, askKey))),
+					"keys written on B " + nodes[1].values.keySet());
+
+			// C leaves the cluster, its slots are no longer served and its pool is released
+			check((c1 + "@C").equals(router.get(c1, false)), "single GET of " + c1);
+			for (int slot = 16000; slot < slotOwners.length; slot++)
+				slotOwners[slot] = -1;
+			router.refresh();
+			check(router.getMasterPools().size() == 2, "two master pools expected after C left, got " + router.getMasterPools().size());
+			check(router.getPool(c1) == router.getPool((String) null), "the slots of C fall back to the seed");
+		} finally {
+			router.close();
+		}
+
+		for (Node node : nodes)
+			node.server.close();
+		System.out.println(failures == 0 ? "OK" : failures + " check(s) failed");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+}
@@ -0,0 +1,245 @@
+package com;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import com.linalis.pdi.steps.redis.RedisEndpoint;
+import com.linalis.pdi.steps.redis.RedisPool;
+import com.linalis.pdi.steps.redis.RedisPoolSettings;
+import com.linalis.pdi.steps.redis.RedisWriter;
+import com.linalis.pdi.steps.redisOutput.RedisOutputBatch;
+import com.linalis.pdi.steps.redisOutput.RedisOutputFlusher;
+import com.linalis.pdi.steps.redisOutput.RedisOutputShards;
+
+/**
+ * Measures the write throughput of one Redis Output copy from 1 to 16 connections. No Redis server is needed :
+ * the batches go to an in-JVM server speaking enough RESP for them, which answers +OK to every command.
+ *
+ * The batches are written as Redis Output writes them : with a single connection, a batch is sent by
+ * RedisOutputBatch.send in one pipeline, and with several ones, RedisOutputShards splits it by key hash and
+ * writes its parts in parallel, each one in its own pipeline. The replies are checked.
+ *
+ * The server delays its replies by a round trip, as a network would, without holding the next commands : the
+ * connections only pay off when the writes wait for the network. The commands are not executed, the figures
+ * do not account for the single thread of a real Redis server.
+ *
+ * Usage : RedisConnectionsBenchmark [rows] [pipeline size] [round trip in microseconds]
+ */
+public class RedisConnectionsBenchmark {
+
+	private static final String HOST = "127.0.0.1";
+	private static final int[] CONNECTIONS = { 1, 2, 4, 8, 16 };
+
+	/**
+	 * Answers +OK to every command, each connection served by its own thread and its replies written by another
+	 * one once the round trip is over
+	 */
+	static class ReplyServer implements Runnable {
+		final ServerSocket server;
+		final long roundTripNanos;
+
+		ReplyServer(long roundTripNanos) throws IOException {
+			this.server = new ServerSocket(0, 50, InetAddress.getByName(HOST));
+			this.roundTripNanos = roundTripNanos;
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					final Socket socket = server.accept();
+					socket.setTcpNoDelay(true);
+					Thread connection = new Thread(new Runnable() {
+						public void run() {
+							serve(socket);
+						}
+					}, "Reply server connection");
+					connection.setDaemon(true);
+					connection.start();
+				}
+			} catch (IOException e) {
+				// Server closed
+			}
+		}
+
+		void serve(Socket socket) {
+			final BlockingQueue<Replies> pending = new LinkedBlockingQueue<Replies>();
+			try {
+				final OutputStream out = socket.getOutputStream();
+				Thread writer = new Thread(new Runnable() {
+					public void run() {
+						try {
+							while (true) {
+								Replies replies = pending.take();
+								long wait = replies.due - System.nanoTime();
+								if (wait > 0)
+									LockSupport.parkNanos(wait);
+								replies.bytes.writeTo(out);
+								if (pending.isEmpty())
+									out.flush();
+							}
+						} catch (Exception e) {
+							// Connection closed
+						}
+					}
+				}, "Reply server writer");
+				writer.setDaemon(true);
+				writer.start();
+				InputStream in = new BufferedInputStream(socket.getInputStream());
+				byte[] ok = "+OK\r\n".getBytes("UTF-8");
+				byte[] skip = new byte[8192];
+				ByteArrayOutputStream replies = new ByteArrayOutputStream();
+				String header;
+				while ((header = readLine(in)) != null) {
+					int count = Integer.parseInt(header.substring(1));
+					for (int i = 0; i < count; i++) {
+						int length = Integer.parseInt(readLine(in).substring(1)) + 2;
+						while (length > 0)
+							length -= in.read(skip, 0, Math.min(length, skip.length));
+					}
+					replies.write(ok);
+					// The replies of the commands received together leave together
+					if (in.available() == 0) {
+						pending.put(new Replies(System.nanoTime() + roundTripNanos, replies));
+						replies = new ByteArrayOutputStream();
+					}
+				}
+				writer.interrupt();
+				socket.close();
+			} catch (Exception e) {
+				// Connection closed by the client
+			}
+		}
+	}
+
+	static class Replies {
+		final long due;
+		final ByteArrayOutputStream bytes;
+
+		Replies(long due, ByteArrayOutputStream bytes) {
+			this.due = due;
+			this.bytes = bytes;
+		}
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n') {
+			if (c < 0)
+				return null;
+			if (c != '\r')
+				line.append((char) c);
+		}
+		return line.toString();
+	}
+
+	/**
+	 * Writes a batch or a part of it in one pipeline, as RedisOutput.writePipeline does without transaction
+	 */
+	static class PipelineWriter implements RedisOutputFlusher.BatchWriter {
+		final RedisPool pool;
+		final RedisWriter writer;
+
+		PipelineWriter(RedisPool pool, RedisWriter writer) {
+			this.pool = pool;
+			this.writer = writer;
+		}
+
+		public void write(RedisOutputBatch batch) throws Exception {
+			Jedis jedis = pool.getResource();
+			try {
+				Pipeline pipeline = jedis.pipelined();
+				Response<?>[] responses = batch.send(pipeline, writer);
+				pipeline.sync();
+				batch.setReplies(responses);
+				for (Response<?> response : responses) {
+					if (!"OK".equals(response.get()))
+						throw new IllegalStateException("Unexpected reply " + response.get());
+				}
+			} catch (Exception e) {
+				pool.returnBrokenResource(jedis);
+				throw e;
+			}
+			pool.returnResource(jedis);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		int pipelineSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		long roundTripMicros = args.length > 2 ? Long.parseLong(args[2]) : 200;
+
+		ReplyServer server = new ReplyServer(roundTripMicros * 1000);
+		Thread serverThread = new Thread(server, "Reply server");
+		serverThread.setDaemon(true);
+		serverThread.start();
+
+		String[] keys = new String[rows];
+		for (int i = 0; i < rows; i++)
+			keys[i] = "bench:" + i;
+		StringBuilder value = new StringBuilder();
+		while (value.length() < 100)
+			value.append("value");
+
+		System.out.println(String.format("%d rows, batches of %d rows, round trip of %d us", rows, pipelineSize,
+				roundTripMicros));
+		double base = 0;
+		for (int connections : CONNECTIONS) {
+			RedisEndpoint endpoint = new RedisEndpoint(HOST, server.server.getLocalPort(), 0, null, new RedisPoolSettings(
+					connections, connections, connections, -1, 2000, 10000, false));
+			RedisPool pool = new RedisPool(endpoint);
+			PipelineWriter writer = new PipelineWriter(pool, new RedisWriter(RedisWriter.CONDITION_NONE));
+			RedisOutputShards shards = connections > 1 ? new RedisOutputShards(writer, connections, pipelineSize
+					/ connections + 1, "Redis connection ") : null;
+			try {
+				pool.prepare();
+				// A first run warms up the connections and the code
+				run(writer, shards, keys, Math.min(rows, pipelineSize * 100), pipelineSize, value.toString());
+				long started = System.nanoTime();
+				run(writer, shards, keys, rows, pipelineSize, value.toString());
+				double elapsed = (System.nanoTime() - started) / 1e9;
+				double throughput = rows / elapsed;
+				if (base == 0)
+					base = throughput;
+				System.out.println(String.format("%2d connection(s) : %10.0f rows/s  x%.2f", connections, throughput,
+						throughput / base));
+			} finally {
+				if (shards != null)
+					shards.stop();
+				pool.destroy();
+			}
+		}
+		server.server.close();
+	}
+
+	/**
+	 * Writes the first rows by batches of the pipeline size, on one connection or split over several ones
+	 */
+	private static void run(PipelineWriter writer, RedisOutputShards shards, String[] keys, int rows, int pipelineSize,
+			String value) throws Exception {
+		RedisOutputBatch batch = new RedisOutputBatch(pipelineSize);
+		for (int start = 0; start < rows; start += pipelineSize) {
+			int end = Math.min(rows, start + pipelineSize);
+			for (int i = start; i < end; i++)
+				batch.add(keys[i], value, 0, keys[i].length() + value.length(), null);
+			if (shards != null)
+				shards.write(batch);
+			else
+				writer.write(batch);
+			batch.clear();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+/**
+ * Decides when a batch of writes is sent, from a number of rows that adapts to the size of the values
+ * and to the time taken by the previous flushes.
+ * 
+ * A batch is full when it reaches the row limit or the target payload size. After each flush of a batch
+ * that reached the row limit, the limit is scaled by the ratio between the target latency and the measured
+ * one (at most doubled or halved at once), so that small values get large batches and large or slow ones get smaller batches.
+ * Without targets, the row limit stays the configured one.
+ * 
+ * It is used by a single step copy : the rows are counted by the step, and the row limit may be
+ * adapted by the thread writing the batches.
+ *
+ */
+public class RedisBatchSizer {
+
+	/**
+	 * Highest number of rows in a batch, whatever the targets
+	 */
+	public static final int MAX_ROWS = 100000;
+
+	private final long targetBytes;
+	private final long targetLatencyMillis;
+	private volatile int rowLimit;
+
+	/**
+	 * @param initialRows			the row limit of the first batch
+	 * @param targetBytes			the payload size of a batch, 0 or less for no target
+	 * @param targetLatencyMillis	the time taken by a flush, 0 or less for no target
+	 */
+	public RedisBatchSizer(int initialRows, long targetBytes, long targetLatencyMillis) {
+		this.rowLimit = Math.max(1, Math.min(initialRows, MAX_ROWS));
+		this.targetBytes = targetBytes;
+		this.targetLatencyMillis = targetLatencyMillis;
+	}
+
+	/**
+	 * @return true if the size of the batches follows the targets
+	 */
+	public boolean isAdaptive() {
+		return targetBytes > 0 || targetLatencyMillis > 0;
+	}
+
+	/**
+	 * @return the number of rows of the current batch limit
+	 */
+	public int getRowLimit() {
+		return rowLimit;
+	}
+
+	/**
+	 * @return true if a batch of this number of rows and bytes has to be sent
+	 */
+	public boolean isFull(int rows, long bytes) {
+		return rows >= rowLimit || (targetBytes > 0 && bytes >= targetBytes);
+	}
+
+	/**
+	 * Adapts the row limit to the time taken by the flush of a batch that reached it. The partial batches,
+	 * flushed by the interval, at the end of the input or shrunk by coalescing, tell nothing about the right size.
+	 * 
+	 * @param rows			the number of rows of the batch
+	 * @param elapsedMillis	the time taken by the write that succeeded, without the failed attempts and their delays
+	 */
+	public void flushed(int rows, long elapsedMillis) {
+		int limit = rowLimit;
+		if (targetLatencyMillis <= 0 || rows < limit)
+			return;
+		long scaled = limit * targetLatencyMillis / Math.max(1, elapsedMillis);
+		scaled = Math.max(limit / 2, Math.min(scaled, (long) limit * 2));
+		rowLimit = (int) Math.max(1, Math.min(scaled, MAX_ROWS));
+	}
+}
@@ -0,0 +1,416 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisClusterException;
+import redis.clients.jedis.exceptions.JedisClusterMaxRedirectionsException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Routes the commands of a step to the nodes of a Redis Cluster.
+ * 
+ * The slot map is read with CLUSTER SLOTS from the seed endpoint, and each master node gets
+ * its pool from the registry. Batched GETs and SETs are grouped by node, so that each node
+ * receives its own pipeline. A MOVED reply updates the slot map, which is read again once
+ * per batch, and the key is sent again to its new owner. An ASK reply sends the key once to
+ * the importing node, prefixed with ASKING, without changing the slot map.
+ * 
+ * A router is used by a single step copy, it is not thread safe.
+ *
+ */
+public class RedisClusterRouter {
+
+	/**
+	 * Number of times a batch is sent again after redirections before giving up
+	 */
+	public static final int MAX_REDIRECTIONS = 5;
+
+	private final RedisEndpoint seed;
+
+	/**
+	 * Owner of each hash slot, as "host:port", null for the slots not served
+	 */
+	private final String[] slotNodes = new String[JedisCluster.HASHSLOTS];
+
+	/**
+	 * Endpoints and pools of the known nodes, by "host:port"
+	 */
+	private final HashMap<String, RedisEndpoint> endpoints = new HashMap<String, RedisEndpoint>();
+	private final HashMap<String, RedisPool> pools = new HashMap<String, RedisPool>();
+
+	/**
+	 * Encodes the keys of the binary reads and of the writes. A step only reads, from its own thread, or only
+	 * writes, one batch at a time.
+	 */
+	private final RedisKeyEncoder keyEncoder = new RedisKeyEncoder(1);
+
+	/**
+	 * @param seed the node the slot map is read from. Its database is ignored, a cluster only has the database 0.
+	 */
+	public RedisClusterRouter(RedisEndpoint seed) {
+		this.seed = new RedisEndpoint(seed.getHost(), seed.getPort(), 0, seed.getPassword(), seed.getPoolSettings());
+	}
+
+	/**
+	 * Reads the slot map of the cluster and acquires the pools of its master nodes
+	 * 
+	 * @throws Exception if no node can be reached
+	 */
+	public void open() throws Exception {
+		getPool(seed.getHost(), seed.getPort());
+		refresh();
+	}
+
+	/**
+	 * Releases the pools of all the nodes
+	 */
+	public void close() {
+		for (RedisEndpoint endpoint : endpoints.values())
+			RedisPoolRegistry.release(endpoint);
+		endpoints.clear();
+		pools.clear();
+	}
+
+	/**
+	 * Reads the slot map again, from the first known node that answers. The slots no longer served are
+	 * forgotten, and the pools of the nodes that left the cluster are released, except the one of the seed.
+	 * 
+	 * @throws Exception if no node can be reached
+	 */
+	public void refresh() throws Exception {
+		Exception lastError = null;
+		for (String node : new ArrayList<String>(pools.keySet())) {
+			RedisPool pool = pools.get(node);
+			Jedis jedis = null;
+			List<Object> slots;
+			try {
+				jedis = pool.getResource();
+				slots = jedis.clusterSlots();
+				pool.returnResource(jedis);
+			} catch (Exception e) {
+				if (jedis != null)
+					pool.returnBrokenResource(jedis);
+				lastError = e;
+				continue;
+			}
+			Arrays.fill(slotNodes, null);
+			for (Object range : slots) {
+				List<?> rangeInfo = (List<?>) range;
+				int start = ((Long) rangeInfo.get(0)).intValue();
+				int end = ((Long) rangeInfo.get(1)).intValue();
+				// The master comes first, its replicas are not used
+				List<?> masterInfo = (List<?>) rangeInfo.get(2);
+				String host = SafeEncoder.encode((byte[]) masterInfo.get(0));
+				int port = ((Long) masterInfo.get(1)).intValue();
+				// A node alone in its cluster does not know its own address
+				if (host.length() == 0)
+					host = seed.getHost();
+				getPool(host, port);
+				String owner = getNodeName(host, port);
+				for (int slot = start; slot <= end; slot++)
+					slotNodes[slot] = owner;
+			}
+			releaseLeftNodes();
+			return;
+		}
+		throw lastError != null ? lastError : new JedisClusterException("No reachable node in the cluster " + seed);
+	}
+
+	/**
+	 * @return the pool of the node serving the key, or of the seed node if the key is null
+	 * @throws Exception if the pool of the node can not be acquired
+	 */
+	public RedisPool getPool(String key) throws Exception {
+		String node = key == null ? null : slotNodes[JedisClusterCRC16.getSlot(key)];
+		if (node == null)
+			return getPool(seed.getHost(), seed.getPort());
+		return pools.get(node);
+	}
+
+	/**
+	 * @return the pools of the master nodes, in slot order, or the pool of the seed node if no slot is served
+	 */
+	public List<RedisPool> getMasterPools() {
+		LinkedHashMap<String, RedisPool> masters = new LinkedHashMap<String, RedisPool>();
+		for (String node : slotNodes) {
+			if (node != null && !masters.containsKey(node))
+				masters.put(node, pools.get(node));
+		}
+		if (masters.isEmpty())
+			masters.put(getNodeName(seed.getHost(), seed.getPort()), pools.get(getNodeName(seed.getHost(), seed.getPort())));
+		return new ArrayList<RedisPool>(masters.values());
+	}
+
+	/**
+	 * Gets the values of the keys, with one pipeline per node
+	 * 
+	 * @param keys		the keys to read, not null
+	 * @param binary	true to read the values as byte[], false to read them as strings
+	 * @return the values, in the order of the keys, null for the missing keys
+	 * @throws Exception if a node fails, or if the keys keep being redirected
+	 */
+	public Object[] get(String[] keys, boolean binary) throws Exception {
+		Object[] values = new Object[keys.length];
+		execute(keys, null, null, keys.length, binary, null, values);
+		return values;
+	}
+
+	/**
+	 * Gets the value of one key from the node serving it, without the grouping of the batches
+	 * 
+	 * @param key		the key to read, not null
+	 * @param binary	true to read the value as byte[], false to read it as a string
+	 * @return the value, null if the key is missing
+	 * @throws Exception if a node fails, or if the key keeps being redirected
+	 */
+	public Object get(String key, boolean binary) throws Exception {
+		for (int attempt = 0; attempt <= MAX_REDIRECTIONS; attempt++) {
+			RedisPool pool = getPool(key);
+			Jedis jedis = pool.getResource();
+			try {
+				Object value = binary ? jedis.get(keyEncoder.encode(0, key)) : jedis.get(key);
+				pool.returnResource(jedis);
+				return value;
+			} catch (JedisMovedDataException e) {
+				pool.returnResource(jedis);
+				HostAndPort target = e.getTargetNode();
+				getPool(target.getHost(), target.getPort());
+				slotNodes[e.getSlot()] = getNodeName(target.getHost(), target.getPort());
+				refresh();
+			} catch (JedisAskDataException e) {
+				pool.returnResource(jedis);
+				HostAndPort target = e.getTargetNode();
+				Object[] result = new Object[1];
+				if (ask(getPool(target.getHost(), target.getPort()), key, null, 0, binary, null, result, 0))
+					return result[0];
+			} catch (Exception e) {
+				pool.returnBrokenResource(jedis);
+				throw e;
+			}
+		}
+		throw new JedisClusterMaxRedirectionsException("Too many cluster redirections for the key " + key);
+	}
+
+	/**
+	 * Sets the values of the first keys, with one pipeline per node
+	 * 
+	 * @param keys		the keys to write
+	 * @param values	the values, as String, byte[], or Map of hash fields, in the order of the keys
+	 * @param ttls		the time to live of each key in milliseconds, 0 or less for no expiry, null for no expiry at all
+	 * @param count		the number of keys to write, from the first one
+	 * @param writer	the command writing each value
+	 * @return the replies of the writes, null for the values not written because of their condition,
+	 * and the JedisDataException of the values rejected by their node
+	 * @throws Exception if a node fails, or if the keys keep being redirected
+	 */
+	public Object[] set(String[] keys, Object[] values, long[] ttls, int count, RedisWriter writer) throws Exception {
+		Object[] results = new Object[count];
+		execute(keys, values, ttls, count, false, writer, results);
+		return results;
+	}
+
+	/**
+	 * Sends a GET, or a write when values are given, for each of the first keys, and follows the redirections
+	 */
+	private void execute(String[] keys, Object[] values, long[] ttls, int count, boolean binary, RedisWriter writer, Object[] results)
+			throws Exception {
+		List<Integer> pending = new ArrayList<Integer>(count);
+		for (int i = 0; i < count; i++)
+			pending.add(Integer.valueOf(i));
+
+		for (int attempt = 0; !pending.isEmpty(); attempt++) {
+			if (attempt > MAX_REDIRECTIONS)
+				throw new JedisClusterMaxRedirectionsException("Too many cluster redirections for " + pending.size() + " keys");
+
+			// Grouping the keys by node
+			LinkedHashMap<String, List<Integer>> byNode = new LinkedHashMap<String, List<Integer>>();
+			for (Integer index : pending) {
+				String node = slotNodes[JedisClusterCRC16.getSlot(keys[index.intValue()])];
+				if (node == null)
+					throw new JedisClusterException("No node serves the slot of the key " + keys[index.intValue()]);
+				List<Integer> nodeKeys = byNode.get(node);
+				if (nodeKeys == null) {
+					nodeKeys = new ArrayList<Integer>();
+					byNode.put(node, nodeKeys);
+				}
+				nodeKeys.add(index);
+			}
+
+			List<Integer> moved = new ArrayList<Integer>();
+			for (Map.Entry<String, List<Integer>> entry : byNode.entrySet()) {
+				RedisPool pool = pools.get(entry.getKey());
+				List<Integer> nodeKeys = entry.getValue();
+				List<Response<?>> responses = new ArrayList<Response<?>>(nodeKeys.size());
+				// The commands unknown to the Jedis pipelines are pipelined by the writer, their errors are in their replies
+				Object[] replies = null;
+				Jedis jedis = pool.getResource();
+				try {
+					if (values != null && !writer.isPipelined()) {
+						String[] nodeKeyNames = new String[nodeKeys.size()];
+						Object[] nodeValues = new Object[nodeKeys.size()];
+						for (int i = 0; i < nodeKeyNames.length; i++) {
+							nodeKeyNames[i] = keys[nodeKeys.get(i).intValue()];
+							nodeValues[i] = values[nodeKeys.get(i).intValue()];
+						}
+						replies = writer.writeAll(jedis, nodeKeyNames, nodeValues, nodeKeyNames.length, false);
+					} else {
+						Pipeline pipeline = jedis.pipelined();
+						for (Integer index : nodeKeys) {
+							int i = index.intValue();
+							if (values != null)
+								responses.add(writer.send(pipeline, keyEncoder, keys[i], values[i], ttls == null ? 0 : ttls[i]));
+							else if (binary)
+								responses.add(pipeline.get(keyEncoder.encode(0, keys[i])));
+							else
+								responses.add(pipeline.get(keys[i]));
+						}
+						pipeline.sync();
+					}
+					pool.returnResource(jedis);
+				} catch (Exception e) {
+					pool.returnBrokenResource(jedis);
+					throw e;
+				}
+
+				for (int i = 0; i < nodeKeys.size(); i++) {
+					int index = nodeKeys.get(i).intValue();
+					try {
+						if (replies == null) {
+							try {
+								results[index] = responses.get(i).get();
+							} catch (JedisDataException e) {
+								throw RedisCommands.unwrap(e);
+							}
+						} else if (replies[i] instanceof JedisDataException)
+							throw (JedisDataException) replies[i];
+						else
+							results[index] = replies[i];
+					} catch (JedisMovedDataException e) {
+						HostAndPort target = e.getTargetNode();
+						getPool(target.getHost(), target.getPort());
+						slotNodes[e.getSlot()] = getNodeName(target.getHost(), target.getPort());
+						moved.add(Integer.valueOf(index));
+					} catch (JedisAskDataException e) {
+						HostAndPort target = e.getTargetNode();
+						if (!ask(getPool(target.getHost(), target.getPort()), keys[index], values == null ? null : values[index],
+								ttls == null ? 0 : ttls[index], binary, writer, results, index))
+							moved.add(Integer.valueOf(index));
+					} catch (JedisDataException e) {
+						// A rejected write fails its key only, a failed read fails them all
+						if (values == null)
+							throw e;
+						results[index] = e;
+					}
+				}
+			}
+
+			// Slots are usually migrated by ranges, the whole map is read again
+			if (!moved.isEmpty())
+				refresh();
+			pending = moved;
+		}
+	}
+
+	/**
+	 * Sends one key to the node importing its slot, prefixed with ASKING
+	 * 
+	 * @return false if the node answered with a MOVED, the key has to be sent again
+	 */
+	private boolean ask(RedisPool pool, String key, Object value, long ttlMillis, boolean binary, RedisWriter writer,
+			Object[] results, int index) throws Exception {
+		Jedis jedis = pool.getResource();
+		try {
+			jedis.asking();
+			Object result;
+			if (value != null)
+				result = writer.write(jedis, key, value, ttlMillis);
+			else if (binary)
+				result = jedis.get(keyEncoder.encode(0, key));
+			else
+				result = jedis.get(key);
+			pool.returnResource(jedis);
+			results[index] = result;
+			return true;
+		} catch (JedisMovedDataException e) {
+			pool.returnResource(jedis);
+			return false;
+		} catch (Exception e) {
+			pool.returnBrokenResource(jedis);
+			throw e;
+		}
+	}
+
+	/**
+	 * Releases the pools of the nodes serving no slot, the seed is kept to read the slot map again
+	 */
+	private void releaseLeftNodes() {
+		HashSet<String> owners = new HashSet<String>(Arrays.asList(slotNodes));
+		owners.add(getNodeName(seed.getHost(), seed.getPort()));
+		for (String node : new ArrayList<String>(pools.keySet())) {
+			if (!owners.contains(node)) {
+				RedisPoolRegistry.release(endpoints.remove(node));
+				pools.remove(node);
+			}
+		}
+	}
+
+	/**
+	 * Gets the pool of the node, acquiring it on first use
+	 */
+	private RedisPool getPool(String host, int port) throws Exception {
+		String node = getNodeName(host, port);
+		RedisPool pool = pools.get(node);
+		if (pool == null) {
+			RedisEndpoint endpoint = new RedisEndpoint(host, port, 0, seed.getPassword(), seed.getPoolSettings());
+			pool = RedisPoolRegistry.acquire(endpoint);
+			endpoints.put(node, endpoint);
+			pools.put(node, pool);
+		}
+		return pool;
+	}
+
+	private static String getNodeName(String host, int port) {
+		return host + ":" + port;
+	}
+
+	@Override
+	public String toString() {
+		return "cluster " + seed;
+	}
+}
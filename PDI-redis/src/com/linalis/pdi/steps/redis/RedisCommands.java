@@ -0,0 +1,166 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Sends the commands the Jedis client does not know, such as the stream commands (XADD, XREADGROUP,
+ * XACK, XAUTOCLAIM...), on the connection of a Jedis client.
+ * 
+ * The commands are written on the socket of the connection in the Redis protocol, and their replies
+ * are read with the parser of the client : a bulk or status reply is a byte[], an integer a Long,
+ * a multi-bulk reply a List of replies, a nil reply null, and an error reply is thrown as a
+ * JedisDataException. Several commands can be sent before their replies are read, as in a pipeline.
+ * The client must not hold a pipeline or a transaction of its own at the same time.
+ *
+ */
+public class RedisCommands {
+
+	private static final byte[] CRLF = { '\r', '\n' };
+
+	private RedisCommands() {
+	}
+
+	/**
+	 * Sends a command and reads its reply
+	 */
+	public static Object call(Jedis jedis, Object... args) {
+		send(jedis, args);
+		return read(jedis);
+	}
+
+	/**
+	 * Sends a command without reading its reply
+	 * 
+	 * @param args	the name of the command, then its arguments : String or byte[]
+	 */
+	public static void send(Jedis jedis, Object... args) {
+		ByteArrayOutputStream command = new ByteArrayOutputStream(64);
+		encode(command, args);
+		flush(jedis, command);
+	}
+
+	/**
+	 * Adds a command to the commands to be sent at once with flush
+	 * 
+	 * @param args	the name of the command, then its arguments : String or byte[]
+	 */
+	public static void encode(ByteArrayOutputStream commands, Object... args) {
+		writeLength(commands, '*', args.length);
+		for (Object arg : args) {
+			byte[] bytes = arg instanceof byte[] ? (byte[]) arg : SafeEncoder.encode(String.valueOf(arg));
+			writeLength(commands, '$', bytes.length);
+			commands.write(bytes, 0, bytes.length);
+			commands.write(CRLF, 0, CRLF.length);
+		}
+	}
+
+	/**
+	 * Sends the encoded commands in one write on the connection
+	 */
+	public static void flush(Jedis jedis, ByteArrayOutputStream commands) {
+		try {
+			Client client = jedis.getClient();
+			if (!client.isConnected())
+				client.connect();
+			OutputStream out = client.getSocket().getOutputStream();
+			commands.writeTo(out);
+			out.flush();
+		} catch (IOException e) {
+			throw new JedisConnectionException(e);
+		}
+	}
+
+	/**
+	 * Reads the reply of the oldest command sent and not read yet
+	 */
+	public static Object read(Jedis jedis) {
+		Client client = jedis.getClient();
+		try {
+			return client.getOne();
+		} finally {
+			// The client counts its own pipelined commands, none of them is waiting
+			client.resetPipelinedCount();
+		}
+	}
+
+	/**
+	 * Reads the reply of a command blocking on the server, such as XREADGROUP ... BLOCK,
+	 * without the socket timeout of the connection
+	 */
+	public static Object readBlocking(Jedis jedis) {
+		Client client = jedis.getClient();
+		client.setTimeoutInfinite();
+		try {
+			return read(jedis);
+		} finally {
+			client.rollbackTimeout();
+		}
+	}
+
+	private static void writeLength(ByteArrayOutputStream out, char prefix, int length) {
+		byte[] digits = SafeEncoder.encode(String.valueOf(length));
+		out.write(prefix);
+		out.write(digits, 0, digits.length);
+		out.write(CRLF, 0, CRLF.length);
+	}
+
+	/**
+	 * @return the reply as a string : bulk and status replies are decoded as UTF-8, integers are written in decimal
+	 */
+	public static String toString(Object reply) {
+		if (reply == null)
+			return null;
+		if (reply instanceof byte[])
+			return SafeEncoder.encode((byte[]) reply);
+		return reply.toString();
+	}
+
+	/**
+	 * @return the multi-bulk reply as a list, or an empty list for a nil reply
+	 */
+	/**
+	 * @return the error replied by the server : Response.get() wraps the error replies of a Jedis pipeline
+	 * in another JedisDataException, which hides their type (MOVED, ASK) and prefixes their message
+	 */
+	public static JedisDataException unwrap(JedisDataException e) {
+		return e.getCause() instanceof JedisDataException ? (JedisDataException) e.getCause() : e;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static List<Object> toList(Object reply) {
+		if (reply == null)
+			return Collections.emptyList();
+		return (List<Object>) reply;
+	}
+}
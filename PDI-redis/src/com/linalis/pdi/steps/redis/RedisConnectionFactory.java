@@ -0,0 +1,98 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+import redis.clients.jedis.Jedis;
+
+/**
+ * Opens the connections of a RedisPool.
+ * 
+ * Jedis uses the same timeout to connect and to read the replies : the connections are opened
+ * with the connect timeout, then the socket timeout is applied to the open socket.
+ *
+ */
+public class RedisConnectionFactory implements PooledObjectFactory<Jedis> {
+
+	private final RedisEndpoint endpoint;
+
+	public RedisConnectionFactory(RedisEndpoint endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	public PooledObject<Jedis> makeObject() throws Exception {
+		RedisPoolSettings settings = endpoint.getPoolSettings();
+		Jedis jedis = new Jedis(endpoint.getHost(), endpoint.getPort(), settings.getConnectTimeout());
+		try {
+			jedis.connect();
+			// setTimeout() changes the timeout of the open socket, rollbackTimeout() sets it back
+			// to the timeout given to the constructor : the client timeout is only used when
+			// connecting, so it is updated first
+			jedis.getClient().setTimeout(settings.getSocketTimeout());
+			jedis.getClient().rollbackTimeout();
+			if (endpoint.getPassword() != null)
+				jedis.auth(endpoint.getPassword());
+			if (endpoint.getDatabase() != 0)
+				jedis.select(endpoint.getDatabase());
+		} catch (Exception e) {
+			jedis.close();
+			throw e;
+		}
+		return new DefaultPooledObject<Jedis>(jedis);
+	}
+
+	public void destroyObject(PooledObject<Jedis> pooledJedis) throws Exception {
+		Jedis jedis = pooledJedis.getObject();
+		if (jedis.isConnected()) {
+			try {
+				try {
+					jedis.quit();
+				} catch (Exception e) {
+				}
+				jedis.disconnect();
+			} catch (Exception e) {
+			}
+		}
+	}
+
+	public boolean validateObject(PooledObject<Jedis> pooledJedis) {
+		try {
+			Jedis jedis = pooledJedis.getObject();
+			return jedis.isConnected() && "PONG".equals(jedis.ping());
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	public void activateObject(PooledObject<Jedis> pooledJedis) throws Exception {
+		// A step may have left another database selected
+		Jedis jedis = pooledJedis.getObject();
+		if (jedis.getDB().longValue() != endpoint.getDatabase())
+			jedis.select(endpoint.getDatabase());
+	}
+
+	public void passivateObject(PooledObject<Jedis> pooledJedis) throws Exception {
+	}
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.variables.VariableSpace;
+
+import redis.clients.jedis.Protocol;
+
+/**
+ * Connects the Redis steps to their server from their settings : the endpoint with its pool settings,
+ * then the cluster router, or the pool of the server shared through the registry.
+ *
+ */
+public class RedisConnections {
+
+	private RedisConnections() {
+	}
+
+	/**
+	 * @param meta	the connection settings of the step
+	 * @param space	the variables of the step
+	 * @return the endpoint of the server, with the pool settings
+	 * @throws NumberFormatException if the port or the database is not an int
+	 */
+	public static RedisEndpoint getEndpoint(RedisConnectionMeta meta, VariableSpace space) {
+		// We make sure that the port and the base are ints before getting the pool
+		int port = Integer.parseInt(space.environmentSubstitute(meta.getPort()));
+		String base = space.environmentSubstitute(meta.getBase());
+		int database = Const.isEmpty(base) ? Protocol.DEFAULT_DATABASE : Integer.parseInt(base);
+		RedisPoolSettings poolSettings = new RedisPoolSettings(
+				Const.toInt(space.environmentSubstitute(meta.getPoolMaxTotal()), RedisPoolSettings.DEFAULT_MAX_TOTAL),
+				Const.toInt(space.environmentSubstitute(meta.getPoolMaxIdle()), RedisPoolSettings.DEFAULT_MAX_IDLE),
+				Const.toInt(space.environmentSubstitute(meta.getPoolMinIdle()), RedisPoolSettings.DEFAULT_MIN_IDLE),
+				Const.toLong(space.environmentSubstitute(meta.getPoolMaxWait()), RedisPoolSettings.DEFAULT_MAX_WAIT),
+				Const.toInt(space.environmentSubstitute(meta.getConnectTimeout()), RedisPoolSettings.DEFAULT_CONNECT_TIMEOUT),
+				Const.toInt(space.environmentSubstitute(meta.getSocketTimeout()), RedisPoolSettings.DEFAULT_SOCKET_TIMEOUT),
+				meta.isTestOnBorrow());
+		return new RedisEndpoint(space.environmentSubstitute(meta.getHostname()), port,
+				database, space.environmentSubstitute(meta.getPassword()), poolSettings);
+	}
+
+	/**
+	 * @return the router of the cluster the endpoint belongs to, with one pool per master node,
+	 * closed again when it can't be opened
+	 */
+	public static RedisClusterRouter openCluster(RedisEndpoint endpoint) throws Exception {
+		RedisClusterRouter cluster = new RedisClusterRouter(endpoint);
+		try {
+			cluster.open();
+		} catch (Exception e) {
+			cluster.close();
+			throw e;
+		}
+		return cluster;
+	}
+}
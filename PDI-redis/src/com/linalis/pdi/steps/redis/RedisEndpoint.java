@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+/**
+ * Identifies a Redis server and the way to connect to it : host, port, database, password
+ * and pool settings.
+ * 
+ * Two steps using equal endpoints share the same connection pool.
+ * 
+ * @see RedisPoolRegistry
+ *
+ */
+public class RedisEndpoint {
+
+	private final String host;
+	private final int port;
+	private final int database;
+	private final String password;
+	private final RedisPoolSettings poolSettings;
+
+	/**
+	 * @param host		the server host name
+	 * @param port		the server port
+	 * @param database	the database selected by the pooled connections
+	 * @param password	the password, null or empty if the server does not require authentication
+	 */
+	public RedisEndpoint(String host, int port, int database, String password) {
+		this(host, port, database, password, new RedisPoolSettings());
+	}
+
+	/**
+	 * @param host			the server host name
+	 * @param port			the server port
+	 * @param database		the database selected by the pooled connections
+	 * @param password		the password, null or empty if the server does not require authentication
+	 * @param poolSettings	the sizing and timeouts of the connection pool
+	 */
+	public RedisEndpoint(String host, int port, int database, String password, RedisPoolSettings poolSettings) {
+		this.host = host;
+		this.port = port;
+		this.database = database;
+		this.password = password == null || password.length() == 0 ? null : password;
+		this.poolSettings = poolSettings;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public int getDatabase() {
+		return database;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public RedisPoolSettings getPoolSettings() {
+		return poolSettings;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof RedisEndpoint))
+			return false;
+		RedisEndpoint other = (RedisEndpoint) obj;
+		return port == other.port && database == other.database
+				&& equals(host, other.host) && equals(password, other.password)
+				&& equals(poolSettings, other.poolSettings);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = host == null ? 0 : host.hashCode();
+		result = 31 * result + port;
+		result = 31 * result + database;
+		result = 31 * result + (password == null ? 0 : password.hashCode());
+		result = 31 * result + (poolSettings == null ? 0 : poolSettings.hashCode());
+		return result;
+	}
+
+	/**
+	 * The password is left out, as the endpoint ends up in log messages
+	 */
+	@Override
+	public String toString() {
+		return host + ":" + port + "/" + database;
+	}
+
+	private static boolean equals(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Packs the fields of a row into a flat JSON object, and reads them back.
+ * 
+ * Numbers and booleans are written as JSON numbers and booleans, all the other values as JSON strings.
+ * When read, every value is given back as a string (null for a JSON null), to be converted
+ * to the type of its field. Nested objects and arrays are given back as their JSON text.
+ *
+ */
+public class RedisJson {
+
+	private RedisJson() {
+	}
+
+	/**
+	 * Writes the names and values as a JSON object
+	 * 
+	 * @param names		the names of the entries
+	 * @param values	the values : null, Long, Double, BigDecimal, Boolean, or String
+	 */
+	public static String toJson(String[] names, Object[] values) {
+		StringBuilder json = new StringBuilder(names.length * 16 + 2);
+		json.append('{');
+		for (int i = 0; i < names.length; i++) {
+			if (i > 0)
+				json.append(',');
+			appendString(json, names[i]);
+			json.append(':');
+			appendValue(json, values[i]);
+		}
+		return json.append('}').toString();
+	}
+
+	private static void appendValue(StringBuilder json, Object value) {
+		if (value == null)
+			json.append("null");
+		else if (value instanceof Boolean || value instanceof Long || value instanceof Integer)
+			json.append(value.toString());
+		else if (value instanceof Double) {
+			double number = ((Double) value).doubleValue();
+			if (Double.isNaN(number) || Double.isInfinite(number))
+				json.append("null");
+			else
+				json.append(BigDecimal.valueOf(number).toPlainString());
+		} else if (value instanceof BigDecimal)
+			json.append(((BigDecimal) value).toPlainString());
+		else
+			appendString(json, value.toString());
+	}
+
+	private static void appendString(StringBuilder json, String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					String hex = Integer.toHexString(c);
+					json.append("\\u");
+					for (int j = hex.length(); j < 4; j++)
+						json.append('0');
+					json.append(hex);
+				} else
+					json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * Reads a JSON object
+	 * 
+	 * @return the entries of the object, with their values as strings, in the order of the text
+	 * @throws IllegalArgumentException if the text is not a JSON object
+	 */
+	public static Map<String, String> parseObject(String json) {
+		Parser parser = new Parser(json);
+		Map<String, String> entries = new LinkedHashMap<String, String>();
+		parser.skipSpaces();
+		parser.expect('{');
+		parser.skipSpaces();
+		if (parser.peek() == '}') {
+			parser.pos++;
+		} else {
+			while (true) {
+				parser.skipSpaces();
+				String name = parser.readString();
+				parser.skipSpaces();
+				parser.expect(':');
+				parser.skipSpaces();
+				entries.put(name, parser.readValue());
+				parser.skipSpaces();
+				char c = parser.next();
+				if (c == '}')
+					break;
+				if (c != ',')
+					throw parser.error("',' or '}' expected");
+			}
+		}
+		parser.skipSpaces();
+		if (parser.pos < json.length())
+			throw parser.error("end of text expected");
+		return entries;
+	}
+
+	private static class Parser {
+		private final String text;
+		private int pos = 0;
+
+		Parser(String text) {
+			this.text = text;
+		}
+
+		char peek() {
+			if (pos >= text.length())
+				throw error("unexpected end of text");
+			return text.charAt(pos);
+		}
+
+		char next() {
+			char c = peek();
+			pos++;
+			return c;
+		}
+
+		void expect(char c) {
+			if (next() != c)
+				throw error("'" + c + "' expected");
+		}
+
+		void skipSpaces() {
+			while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+				pos++;
+		}
+
+		/**
+		 * @return the value as a string, null for a JSON null, the JSON text of a nested object or array
+		 */
+		String readValue() {
+			char c = peek();
+			if (c == '"')
+				return readString();
+			if (c == '{' || c == '[') {
+				int start = pos;
+				skipNested();
+				return text.substring(start, pos);
+			}
+			int start = pos;
+			while (pos < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0)
+				pos++;
+			String literal = text.substring(start, pos);
+			if (literal.length() == 0)
+				throw error("value expected");
+			return "null".equals(literal) ? null : literal;
+		}
+
+		String readString() {
+			expect('"');
+			StringBuilder value = new StringBuilder();
+			while (true) {
+				char c = next();
+				if (c == '"')
+					return value.toString();
+				if (c != '\\') {
+					value.append(c);
+					continue;
+				}
+				c = next();
+				switch (c) {
+				case 'b':
+					value.append('\b');
+					break;
+				case 'f':
+					value.append('\f');
+					break;
+				case 'n':
+					value.append('\n');
+					break;
+				case 'r':
+					value.append('\r');
+					break;
+				case 't':
+					value.append('\t');
+					break;
+				case 'u':
+					if (pos + 4 > text.length())
+						throw error("unexpected end of text");
+					try {
+						value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+					} catch (NumberFormatException e) {
+						throw error("invalid unicode escape");
+					}
+					pos += 4;
+					break;
+				default:
+					value.append(c);
+				}
+			}
+		}
+
+		/**
+		 * Skips a nested object or array, and the strings it holds
+		 */
+		void skipNested() {
+			int depth = 0;
+			do {
+				char c = peek();
+				if (c == '"') {
+					readString();
+					continue;
+				}
+				pos++;
+				if (c == '{' || c == '[')
+					depth++;
+				else if (c == '}' || c == ']')
+					depth--;
+			} while (depth > 0);
+		}
+
+		IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Invalid JSON object, " + message + " at position " + pos);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Encodes the keys sent as byte[] into buffers kept from one row to the next.
+ * 
+ * Jedis copies the arguments of a command into its output stream as soon as the command is sent, so the
+ * buffer of a slot can be written again by the next key. An ASCII key gets the buffer of its slot when it
+ * has the same length as the previous key of that slot, which is the usual case for keys built from a
+ * prefix and an identifier. The other keys are encoded in a new array.
+ * 
+ * It is used by a single step copy.
+ *
+ */
+public class RedisKeyEncoder {
+
+	private final byte[][] buffers;
+
+	/**
+	 * Keys of the last call to encodeAll, kept while the number of keys does not change
+	 */
+	private byte[][] keys = new byte[0][];
+
+	/**
+	 * @param slots	the number of keys that have to be encoded at the same time
+	 */
+	public RedisKeyEncoder(int slots) {
+		this.buffers = new byte[Math.max(1, slots)][];
+	}
+
+	/**
+	 * @return the UTF-8 bytes of the key, valid until the slot encodes another key
+	 */
+	public byte[] encode(int slot, String key) {
+		int length = key.length();
+		byte[] buffer = buffers[slot];
+		if (buffer == null || buffer.length != length)
+			buffer = new byte[length];
+		for (int i = 0; i < length; i++) {
+			char c = key.charAt(i);
+			if (c >= 0x80)
+				return SafeEncoder.encode(key);
+			buffer[i] = (byte) c;
+		}
+		buffers[slot] = buffer;
+		return buffer;
+	}
+
+	/**
+	 * @param keys	the keys, at most as many as the slots
+	 * @return the UTF-8 bytes of the keys, valid until the next call
+	 */
+	public byte[][] encodeAll(String[] keys) {
+		if (this.keys.length != keys.length)
+			this.keys = new byte[keys.length][];
+		for (int i = 0; i < keys.length; i++)
+			this.keys[i] = encode(i, keys[i]);
+		return this.keys;
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.util.Pool;
+
+/**
+ * Pool of the connections to a Redis endpoint, sized and configured from its pool settings.
+ * 
+ * @see RedisPoolRegistry
+ *
+ */
+public class RedisPool extends Pool<Jedis> {
+
+	public RedisPool(RedisEndpoint endpoint) {
+		super(getConfig(endpoint.getPoolSettings()), new RedisConnectionFactory(endpoint));
+	}
+
+	private static JedisPoolConfig getConfig(RedisPoolSettings settings) {
+		JedisPoolConfig config = new JedisPoolConfig();
+		config.setMaxTotal(settings.getMaxTotal());
+		config.setMaxIdle(settings.getMaxIdle());
+		config.setMinIdle(settings.getMinIdle());
+		config.setMaxWaitMillis(settings.getMaxWait());
+		config.setTestOnBorrow(settings.isTestOnBorrow());
+		return config;
+	}
+
+	/**
+	 * Opens connections until the pool holds its minimum number of idle connections,
+	 * so that the first rows do not pay for the connection setup.
+	 * 
+	 * @throws Exception if a connection can not be opened
+	 */
+	public void prepare() throws Exception {
+		while (internalPool.getNumIdle() < internalPool.getMinIdle())
+			internalPool.addObject();
+	}
+
+	/**
+	 * @return the number of idle connections in the pool
+	 */
+	public int getNumIdle() {
+		return internalPool.getNumIdle();
+	}
+
+	@Override
+	public Jedis getResource() {
+		Jedis jedis = super.getResource();
+		jedis.setDataSource(this);
+		return jedis;
+	}
+
+	@Override
+	public void returnResource(Jedis jedis) {
+		if (jedis != null) {
+			jedis.resetState();
+			returnResourceObject(jedis);
+		}
+	}
+
+	@Override
+	public void returnBrokenResource(Jedis jedis) {
+		if (jedis != null)
+			returnBrokenResourceObject(jedis);
+	}
+}
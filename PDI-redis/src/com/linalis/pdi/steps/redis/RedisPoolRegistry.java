@@ -0,0 +1,89 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import java.util.HashMap;
+
+/**
+ * Registry of the Redis connection pools shared by the steps running in the JVM.
+ * 
+ * There is one pool per endpoint (host, port, database, password and pool settings), so that all the copies
+ * of all the Redis steps, in all the running transformations, reuse the same connections.
+ * Pools are reference counted : each step acquires the pool of its endpoint in init(),
+ * releases it in dispose(), and the pool is destroyed when its last user releases it.
+ *
+ */
+public class RedisPoolRegistry {
+
+	private static class PoolReference {
+		RedisPool pool;
+		int users = 0;
+	}
+
+	private static final HashMap<RedisEndpoint, PoolReference> pools = new HashMap<RedisEndpoint, PoolReference>();
+
+	private RedisPoolRegistry() {
+	}
+
+	/**
+	 * Gets the pool of the endpoint, creating it if no other step uses it.
+	 * Each call must be followed by a call to release() with the same endpoint.
+	 * 
+	 * New pools are filled up to their minimum number of idle connections before being returned.
+	 * 
+	 * @param endpoint the server to connect to
+	 * @return the connection pool of the endpoint
+	 * @throws Exception if the idle connections of a new pool can not be opened
+	 */
+	public static synchronized RedisPool acquire(RedisEndpoint endpoint) throws Exception {
+		PoolReference reference = pools.get(endpoint);
+		if (reference == null) {
+			reference = new PoolReference();
+			reference.pool = new RedisPool(endpoint);
+			try {
+				reference.pool.prepare();
+			} catch (Exception e) {
+				reference.pool.destroy();
+				throw e;
+			}
+			pools.put(endpoint, reference);
+		}
+		reference.users++;
+		return reference.pool;
+	}
+
+	/**
+	 * Releases the pool of the endpoint, and destroys it if no other step uses it anymore.
+	 * 
+	 * @param endpoint the endpoint given to acquire()
+	 */
+	public static synchronized void release(RedisEndpoint endpoint) {
+		PoolReference reference = pools.get(endpoint);
+		if (reference == null)
+			return;
+		reference.users--;
+		if (reference.users <= 0) {
+			pools.remove(endpoint);
+			reference.pool.destroy();
+		}
+	}
+}
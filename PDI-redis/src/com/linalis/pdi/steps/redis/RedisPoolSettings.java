@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import redis.clients.jedis.Protocol;
+
+/**
+ * Sizing and timeouts of a Redis connection pool.
+ * 
+ * The settings are part of the endpoint, so steps configured with different settings
+ * do not share the same pool.
+ * 
+ * @see RedisEndpoint
+ *
+ */
+public class RedisPoolSettings {
+
+	public static final int DEFAULT_MAX_TOTAL = 8;
+	public static final int DEFAULT_MAX_IDLE = 8;
+	public static final int DEFAULT_MIN_IDLE = 0;
+	public static final long DEFAULT_MAX_WAIT = -1;
+	public static final int DEFAULT_CONNECT_TIMEOUT = Protocol.DEFAULT_TIMEOUT;
+	public static final int DEFAULT_SOCKET_TIMEOUT = Protocol.DEFAULT_TIMEOUT;
+
+	private final int maxTotal;
+	private final int maxIdle;
+	private final int minIdle;
+	private final long maxWait;
+	private final int connectTimeout;
+	private final int socketTimeout;
+	private final boolean testOnBorrow;
+
+	/**
+	 * The settings of a pool created with the default configuration of Jedis
+	 */
+	public RedisPoolSettings() {
+		this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_IDLE, DEFAULT_MIN_IDLE, DEFAULT_MAX_WAIT,
+				DEFAULT_CONNECT_TIMEOUT, DEFAULT_SOCKET_TIMEOUT, false);
+	}
+
+	/**
+	 * @param maxTotal			the maximum number of connections, negative for no limit
+	 * @param maxIdle			the maximum number of idle connections kept in the pool
+	 * @param minIdle			the number of connections opened when the pool is created, and kept idle
+	 * @param maxWait			the maximum time to wait for a connection in milliseconds, negative to wait forever
+	 * @param connectTimeout	the timeout to open a connection in milliseconds
+	 * @param socketTimeout		the timeout to read a reply in milliseconds
+	 * @param testOnBorrow		true to ping the connections before handing them out
+	 */
+	public RedisPoolSettings(int maxTotal, int maxIdle, int minIdle, long maxWait,
+			int connectTimeout, int socketTimeout, boolean testOnBorrow) {
+		this.maxTotal = maxTotal;
+		this.maxIdle = maxIdle;
+		this.minIdle = minIdle;
+		this.maxWait = maxWait;
+		this.connectTimeout = connectTimeout;
+		this.socketTimeout = socketTimeout;
+		this.testOnBorrow = testOnBorrow;
+	}
+
+	public int getMaxTotal() {
+		return maxTotal;
+	}
+
+	public int getMaxIdle() {
+		return maxIdle;
+	}
+
+	public int getMinIdle() {
+		return minIdle;
+	}
+
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public int getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	public boolean isTestOnBorrow() {
+		return testOnBorrow;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof RedisPoolSettings))
+			return false;
+		RedisPoolSettings other = (RedisPoolSettings) obj;
+		return maxTotal == other.maxTotal && maxIdle == other.maxIdle && minIdle == other.minIdle
+				&& maxWait == other.maxWait && connectTimeout == other.connectTimeout
+				&& socketTimeout == other.socketTimeout && testOnBorrow == other.testOnBorrow;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = maxTotal;
+		result = 31 * result + maxIdle;
+		result = 31 * result + minIdle;
+		result = 31 * result + (int) (maxWait ^ (maxWait >>> 32));
+		result = 31 * result + connectTimeout;
+		result = 31 * result + socketTimeout;
+		result = 31 * result + (testOnBorrow ? 1 : 0);
+		return result;
+	}
+}
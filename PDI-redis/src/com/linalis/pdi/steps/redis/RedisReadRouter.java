@@ -0,0 +1,291 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+/**
+ * Spreads the reads of a step over the replicas of a master.
+ * 
+ * The replicas are either listed, or discovered through Sentinel along with their master.
+ * Each read picks a replica, in turn or the one with the lowest PING latency, measured again
+ * every few seconds. A replica that can not be reached is put aside for a while, and the reads
+ * fall back on the other replicas, then on the master.
+ * 
+ * A router is used by a single step copy, it is not thread safe.
+ *
+ */
+public class RedisReadRouter {
+
+	/**
+	 * Time a replica that can not be reached is put aside, in milliseconds
+	 */
+	public static final long DOWN_DELAY = 10000;
+
+	/**
+	 * Time between two measures of the latencies, in milliseconds
+	 */
+	public static final long LATENCY_INTERVAL = 10000;
+
+	private final RedisEndpoint master;
+	private final RedisEndpoint[] replicas;
+	private final boolean lowestLatency;
+
+	private RedisPool masterPool;
+	private RedisPool[] replicaPools;
+	private long[] downUntil;
+	private long[] latencies;
+	private long nextLatencyCheck = 0;
+	private int next = 0;
+
+	/**
+	 * @param master		the master, read when no replica can be reached
+	 * @param replicas		the replicas, they share the database, password and pool settings of the master
+	 * @param lowestLatency	true to read from the fastest replica, false to read from the replicas in turn
+	 */
+	public RedisReadRouter(RedisEndpoint master, List<HostAndPort> replicas, boolean lowestLatency) {
+		this.master = master;
+		this.replicas = new RedisEndpoint[replicas.size()];
+		for (int i = 0; i < this.replicas.length; i++)
+			this.replicas[i] = new RedisEndpoint(replicas.get(i).getHost(), replicas.get(i).getPort(),
+					master.getDatabase(), master.getPassword(), master.getPoolSettings());
+		this.lowestLatency = lowestLatency;
+	}
+
+	/**
+	 * Asks the first Sentinel that answers for the address of the master and of its replicas.
+	 * The replicas Sentinel considers down or disconnected are left out.
+	 * 
+	 * @param sentinels		the Sentinels, tried in order
+	 * @param masterName	the name of the master monitored by the Sentinels
+	 * @param master		the database, password and pool settings of the master, its host and port are ignored
+	 * @param lowestLatency	true to read from the fastest replica, false to read from the replicas in turn
+	 * @return a router for the discovered master and replicas
+	 * @throws Exception if no Sentinel knows the master
+	 */
+	public static RedisReadRouter discover(List<HostAndPort> sentinels, String masterName, RedisEndpoint master, boolean lowestLatency) throws Exception {
+		Exception lastError = null;
+		for (HostAndPort sentinel : sentinels) {
+			Jedis jedis = new Jedis(sentinel.getHost(), sentinel.getPort(), master.getPoolSettings().getConnectTimeout());
+			try {
+				List<String> address = jedis.sentinelGetMasterAddrByName(masterName);
+				if (address == null || address.size() < 2) {
+					lastError = new JedisConnectionException("Sentinel " + sentinel + " does not know the master " + masterName);
+					continue;
+				}
+				List<HostAndPort> replicas = new ArrayList<HostAndPort>();
+				for (Map<String, String> replica : jedis.sentinelSlaves(masterName)) {
+					String flags = replica.get("flags");
+					if (flags != null && (flags.contains("s_down") || flags.contains("o_down") || flags.contains("disconnected")))
+						continue;
+					replicas.add(new HostAndPort(replica.get("ip"), Integer.parseInt(replica.get("port"))));
+				}
+				RedisEndpoint discovered = new RedisEndpoint(address.get(0), Integer.parseInt(address.get(1)),
+						master.getDatabase(), master.getPassword(), master.getPoolSettings());
+				return new RedisReadRouter(discovered, replicas, lowestLatency);
+			} catch (JedisConnectionException e) {
+				lastError = e;
+			} finally {
+				jedis.disconnect();
+			}
+		}
+		throw lastError != null ? lastError : new JedisConnectionException("No Sentinel given for the master " + masterName);
+	}
+
+	/**
+	 * Parses a list of servers, separated by commas, as host:port or host
+	 * 
+	 * @param hosts			the list of servers, may be null or empty
+	 * @param defaultPort	the port of the servers given without port
+	 * @return the servers, in order
+	 * @throws NumberFormatException if a port is not a number
+	 */
+	public static List<HostAndPort> parseHosts(String hosts, int defaultPort) {
+		List<HostAndPort> result = new ArrayList<HostAndPort>();
+		if (hosts == null)
+			return result;
+		for (String host : hosts.split(",")) {
+			host = host.trim();
+			if (host.length() == 0)
+				continue;
+			int colon = host.lastIndexOf(':');
+			if (colon < 0)
+				result.add(new HostAndPort(host, defaultPort));
+			else
+				result.add(new HostAndPort(host.substring(0, colon), Integer.parseInt(host.substring(colon + 1).trim())));
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a list of Sentinels, the port defaulting to the Sentinel one
+	 */
+	public static List<HostAndPort> parseSentinels(String hosts) {
+		return parseHosts(hosts, Protocol.DEFAULT_SENTINEL_PORT);
+	}
+
+	/**
+	 * Acquires the pools of the master and of the replicas.
+	 * A replica that can not be reached is put aside like one that fails later, it does not prevent
+	 * the step from starting, and its pool is acquired by the first read after the delay.
+	 * 
+	 * @throws Exception if the master can not be reached
+	 */
+	public void open() throws Exception {
+		masterPool = RedisPoolRegistry.acquire(master);
+		replicaPools = new RedisPool[replicas.length];
+		downUntil = new long[replicas.length];
+		latencies = new long[replicas.length];
+		for (int i = 0; i < replicas.length; i++) {
+			try {
+				replicaPools[i] = RedisPoolRegistry.acquire(replicas[i]);
+			} catch (Exception e) {
+				downUntil[i] = System.currentTimeMillis() + DOWN_DELAY;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the replica can be read, its pool is acquired if it could not be reached when the router was opened
+	 */
+	private boolean isUp(int i, long now) {
+		if (downUntil[i] > now)
+			return false;
+		if (replicaPools[i] == null) {
+			try {
+				replicaPools[i] = RedisPoolRegistry.acquire(replicas[i]);
+			} catch (Exception e) {
+				downUntil[i] = now + DOWN_DELAY;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Releases the pools of the master and of the replicas
+	 */
+	public void close() {
+		if (replicaPools != null) {
+			for (int i = 0; i < replicas.length; i++) {
+				if (replicaPools[i] != null)
+					RedisPoolRegistry.release(replicas[i]);
+			}
+			replicaPools = null;
+		}
+		if (masterPool != null) {
+			RedisPoolRegistry.release(master);
+			masterPool = null;
+		}
+	}
+
+	/**
+	 * @return the pool of the master, used for the writes and as last resort for the reads
+	 */
+	public RedisPool getMasterPool() {
+		return masterPool;
+	}
+
+	/**
+	 * @return the pool the next read should use : a replica that is up, or the master if all of them are down
+	 */
+	public RedisPool getReadPool() {
+		long now = System.currentTimeMillis();
+		if (lowestLatency && now >= nextLatencyCheck) {
+			measureLatencies();
+			nextLatencyCheck = now + LATENCY_INTERVAL;
+		}
+		int chosen = -1;
+		for (int n = 0; n < replicas.length; n++) {
+			int i = (next + n) % replicas.length;
+			if (!isUp(i, now))
+				continue;
+			if (!lowestLatency) {
+				chosen = i;
+				break;
+			}
+			if (chosen < 0 || latencies[i] < latencies[chosen])
+				chosen = i;
+		}
+		if (chosen < 0)
+			return masterPool;
+		next = chosen + 1;
+		return replicaPools[chosen];
+	}
+
+	/**
+	 * Puts the replica aside if the read failed because it could not be reached
+	 * 
+	 * @param pool	the pool the failed read used
+	 * @param e		the error of the read
+	 * @return true if the read can be done again on the pool given by getReadPool(), false if the error is final
+	 */
+	public boolean failover(RedisPool pool, Exception e) {
+		if (!(e instanceof JedisConnectionException))
+			return false;
+		for (int i = 0; i < replicas.length; i++) {
+			if (replicaPools[i] == pool) {
+				downUntil[i] = System.currentTimeMillis() + DOWN_DELAY;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Measures the PING round trip of the replicas that are up, the unreachable ones are put aside
+	 */
+	private void measureLatencies() {
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < replicas.length; i++) {
+			if (!isUp(i, now))
+				continue;
+			Jedis jedis = null;
+			try {
+				jedis = replicaPools[i].getResource();
+				long start = System.nanoTime();
+				jedis.ping();
+				latencies[i] = System.nanoTime() - start;
+				replicaPools[i].returnResource(jedis);
+			} catch (Exception e) {
+				if (jedis != null)
+					replicaPools[i].returnBrokenResource(jedis);
+				downUntil[i] = now + DOWN_DELAY;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder(master.toString());
+		for (RedisEndpoint replica : replicas)
+			result.append(", ").append(replica);
+		return result.toString();
+	}
+}
@@ -0,0 +1,284 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the values written to Redis, and decompresses the values read from it.
+ * 
+ * A value written with a codec always starts with a 9 bytes header : a 3 bytes magic (its first byte
+ * 0xC0 can't start an UTF-8 text), the version of the format, the codec id and the length of the
+ * uncompressed value, so that the readers detect the format of each value. A value that would not get
+ * smaller is stored after a header with the "stored" id rather than as it is.
+ * 
+ * Values without a valid header are read as they are, so plain and compressed values can live side by
+ * side. A header is only valid with a known version and codec id, and with a length that the payload can
+ * hold : the stored length of a value stored as it is, at most MAX_RATIO times the payload for a
+ * compressed one, and never more than the largest Redis string. A binary value written by another client
+ * therefore needs the whole magic, a known codec and a consistent length to be taken for an encoded one,
+ * and a corrupted header can't make the reader allocate more than the payload justifies.
+ * Decoding is only done by the steps given a codec.
+ * 
+ * It is used by a single step copy, and is therefore not thread safe.
+ *
+ */
+public class RedisValueCodec {
+
+	/**
+	 * Codecs : none, gzip, or raw deflate at its fastest level
+	 */
+	public static final String CODEC_NONE = "none";
+	public static final String CODEC_GZIP = "gzip";
+	public static final String CODEC_DEFLATE = "deflate";
+	public static final String[] codecCodes = { CODEC_NONE, CODEC_GZIP, CODEC_DEFLATE };
+
+	public static final int HEADER_SIZE = 9;
+
+	/**
+	 * Largest size of an uncompressed value, the largest Redis string, and largest compression ratio
+	 * of deflate, also used for gzip
+	 */
+	public static final long MAX_RAW_BYTES = 512L * 1024 * 1024;
+	public static final int MAX_RATIO = 1032;
+
+	private static final byte[] MAGIC = { (byte) 0xC0, 'R', 'V' };
+	private static final byte VERSION = 1;
+	private static final byte ID_STORED = 0;
+	private static final byte ID_GZIP = 1;
+	private static final byte ID_DEFLATE = 2;
+
+	private final byte id;
+	private Deflater deflater;
+	private Inflater inflater;
+
+	/**
+	 * Size of the values given to encode() and returned by decode(), and of the values written or read
+	 */
+	private long rawBytes = 0;
+	private long encodedBytes = 0;
+
+	private RedisValueCodec(byte id) {
+		this.id = id;
+	}
+
+	/**
+	 * @param code a codec code
+	 * @return the codec, null for no compression or an unknown code
+	 */
+	public static RedisValueCodec forCode(String code) {
+		if (CODEC_GZIP.equals(code))
+			return new RedisValueCodec(ID_GZIP);
+		if (CODEC_DEFLATE.equals(code))
+			return new RedisValueCodec(ID_DEFLATE);
+		return null;
+	}
+
+	/**
+	 * @return true if the value starts with a valid header : the magic, a known version and codec id,
+	 * and a length consistent with the payload
+	 */
+	public static boolean isEncoded(byte[] value) {
+		if (value == null || value.length < HEADER_SIZE)
+			return false;
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (value[i] != MAGIC[i])
+				return false;
+		}
+		if (value[3] != VERSION)
+			return false;
+		long length = getLength(value);
+		long payload = value.length - HEADER_SIZE;
+		if (value[4] == ID_STORED)
+			return length == payload;
+		if (value[4] == ID_GZIP || value[4] == ID_DEFLATE)
+			return payload > 0 && length <= Math.min(MAX_RAW_BYTES, payload * MAX_RATIO);
+		return false;
+	}
+
+	/**
+	 * @return the length of the uncompressed value written in the header
+	 */
+	private static long getLength(byte[] value) {
+		return ((value[5] & 0xFFL) << 24) | ((value[6] & 0xFFL) << 16) | ((value[7] & 0xFFL) << 8) | (value[8] & 0xFFL);
+	}
+
+	/**
+	 * @return the value, compressed with its header, or stored after a header if compression does not make it smaller
+	 */
+	public byte[] encode(byte[] raw) throws IOException {
+		byte[] encoded = id == ID_GZIP ? gzip(raw) : deflate(raw);
+		byte codecId = id;
+		if (encoded == null) {
+			encoded = new byte[HEADER_SIZE + raw.length];
+			System.arraycopy(raw, 0, encoded, HEADER_SIZE, raw.length);
+			codecId = ID_STORED;
+		}
+		System.arraycopy(MAGIC, 0, encoded, 0, MAGIC.length);
+		encoded[3] = VERSION;
+		encoded[4] = codecId;
+		encoded[5] = (byte) (raw.length >>> 24);
+		encoded[6] = (byte) (raw.length >>> 16);
+		encoded[7] = (byte) (raw.length >>> 8);
+		encoded[8] = (byte) raw.length;
+		rawBytes += raw.length;
+		encodedBytes += encoded.length;
+		return encoded;
+	}
+
+	/**
+	 * @return the uncompressed value, or the value itself if it has no valid header
+	 * @throws IOException if the compressed stream is corrupted
+	 */
+	public byte[] decode(byte[] value) throws IOException {
+		if (!isEncoded(value))
+			return value;
+		// The length was checked against the payload by isEncoded
+		int length = (int) getLength(value);
+		byte[] raw;
+		if (value[4] == ID_STORED) {
+			raw = new byte[length];
+			System.arraycopy(value, HEADER_SIZE, raw, 0, length);
+		} else if (value[4] == ID_GZIP)
+			raw = gunzip(value, length);
+		else
+			raw = inflate(value, length);
+		rawBytes += raw.length;
+		encodedBytes += value.length;
+		return raw;
+	}
+
+	/**
+	 * @return the total size of the uncompressed values
+	 */
+	public long getRawBytes() {
+		return rawBytes;
+	}
+
+	/**
+	 * @return the total size of the values as stored in Redis
+	 */
+	public long getEncodedBytes() {
+		return encodedBytes;
+	}
+
+	/**
+	 * @return the size stored in Redis, in percent of the uncompressed size
+	 */
+	public static long ratio(long rawBytes, long encodedBytes) {
+		return rawBytes == 0 ? 100 : encodedBytes * 100 / rawBytes;
+	}
+
+	/**
+	 * @return the header space followed by the gzip stream, null if it is not smaller than the value
+	 */
+	private byte[] gzip(byte[] raw) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + HEADER_SIZE + 32);
+		out.write(new byte[HEADER_SIZE]);
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		gzip.write(raw);
+		gzip.close();
+		return out.size() < raw.length ? out.toByteArray() : null;
+	}
+
+	/**
+	 * @return the header space followed by the deflate stream, null if it is not smaller than the value
+	 */
+	private byte[] deflate(byte[] raw) {
+		if (deflater == null)
+			deflater = new Deflater(Deflater.BEST_SPEED, true);
+		deflater.reset();
+		deflater.setInput(raw);
+		deflater.finish();
+		// Only worth storing if smaller than the value
+		byte[] buffer = new byte[raw.length];
+		int size = HEADER_SIZE;
+		while (!deflater.finished() && size < buffer.length)
+			size += deflater.deflate(buffer, size, buffer.length - size);
+		if (!deflater.finished())
+			return null;
+		byte[] encoded = new byte[size];
+		System.arraycopy(buffer, 0, encoded, 0, size);
+		return encoded;
+	}
+
+	private byte[] gunzip(byte[] value, int length) throws IOException {
+		InputStream in = new GZIPInputStream(new ByteArrayInputStream(value, HEADER_SIZE, value.length - HEADER_SIZE));
+		try {
+			byte[] raw = new byte[length];
+			int size = 0;
+			while (size < length) {
+				int read = in.read(raw, size, length - size);
+				if (read < 0)
+					throw new IOException("Truncated gzip value");
+				size += read;
+			}
+			return raw;
+		} finally {
+			in.close();
+		}
+	}
+
+	private byte[] inflate(byte[] value, int length) throws IOException {
+		if (inflater == null)
+			inflater = new Inflater(true);
+		inflater.reset();
+		inflater.setInput(value, HEADER_SIZE, value.length - HEADER_SIZE);
+		byte[] raw = new byte[length];
+		try {
+			int size = 0;
+			while (size < length && !inflater.finished()) {
+				int read = inflater.inflate(raw, size, length - size);
+				if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					throw new IOException("Truncated deflate value");
+				size += read;
+			}
+			if (size < length)
+				throw new IOException("Truncated deflate value");
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		}
+		return raw;
+	}
+
+	/**
+	 * Frees the native memory of the compressor and decompressor
+	 */
+	public void close() {
+		if (deflater != null) {
+			deflater.end();
+			deflater = null;
+		}
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+	}
+}
@@ -0,0 +1,429 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redis;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Writes a value to a key, with an optional time to live and an optional NX / XX condition.
+ * 
+ * String and byte[] values are written with one SET ... PX|EX ... NX|XX, so the value, its expiry
+ * and its condition are applied atomically. Hash values (a Map of fields) are written with HMSET,
+ * followed by a PEXPIRE in the same pipeline when they expire, and can't be conditional.
+ * 
+ * In a batch, the consecutive values written without condition nor expiry are grouped in MSET
+ * commands, which set them in the same order as one SET per value would. MSETNX is not used : it
+ * writes all of its keys or none of them, where NX is decided key by key.
+ * 
+ * The value can also be pushed to the list of the key (LPUSH, the consecutive values of a key in one
+ * LPUSH), published on the channel of the key (PUBLISH), or appended to the stream of the key (XADD,
+ * optionally trimming the stream to about a maximum length). Jedis does not know XADD : the stream
+ * entries are not written in a Jedis pipeline but with writeAll, which pipelines the commands itself.
+ * 
+ * Counters take a Long or Double value, added to the key (INCRBY, INCRBYFLOAT) or to a field of the
+ * hash of the key (HINCRBY).
+ *
+ */
+public class RedisWriter {
+
+	/**
+	 * Commands writing the values
+	 */
+	public static final String COMMAND_SET = "set";
+	public static final String COMMAND_XADD = "xadd";
+	public static final String COMMAND_LPUSH = "lpush";
+	public static final String COMMAND_PUBLISH = "publish";
+	public static final String COMMAND_INCRBY = "incrby";
+	public static final String COMMAND_INCRBYFLOAT = "incrbyfloat";
+	public static final String COMMAND_HINCRBY = "hincrby";
+	public static final String[] commandCodes = { COMMAND_SET, COMMAND_XADD, COMMAND_LPUSH, COMMAND_PUBLISH,
+			COMMAND_INCRBY, COMMAND_INCRBYFLOAT, COMMAND_HINCRBY };
+	
+	/**
+	 * Field of the stream entry holding a String or byte[] value, a hash value gives its own fields
+	 */
+	public static final String STREAM_VALUE_FIELD = "value";
+
+	/**
+	 * Conditions : always write, write only if the key does not exist (NX), or only if it exists (XX)
+	 */
+	public static final String CONDITION_NONE = "none";
+	public static final String CONDITION_NX = "nx";
+	public static final String CONDITION_XX = "xx";
+	public static final String[] conditionCodes = { CONDITION_NONE, CONDITION_NX, CONDITION_XX };
+
+	private static final byte[] NX = SafeEncoder.encode("NX");
+	private static final byte[] XX = SafeEncoder.encode("XX");
+	private static final byte[] EX = SafeEncoder.encode("EX");
+	private static final byte[] PX = SafeEncoder.encode("PX");
+
+	/**
+	 * Highest number of keys of one MSET, longer runs are split
+	 */
+	public static final int MSET_MAX_KEYS = 1000;
+
+	/**
+	 * NX, XX, or null for no condition
+	 */
+	private final byte[] nxxx;
+	
+	/**
+	 * One of the command codes, and approximate maximum length of the streams, 0 or less for no trimming
+	 */
+	private final String command;
+	private final long maxLen;
+	
+	/**
+	 * Field of the hashes incremented by HINCRBY
+	 */
+	private final byte[] hashField;
+
+	/**
+	 * @param condition a condition code, no condition when unknown
+	 */
+	public RedisWriter(String condition) {
+		this(COMMAND_SET, condition, 0);
+	}
+
+	/**
+	 * @param command	a command code, SET when unknown
+	 * @param condition	a condition code, no condition when unknown, only used by SET
+	 * @param maxLen	the approximate maximum length of the streams, 0 or less for no trimming, only used by XADD
+	 */
+	public RedisWriter(String command, String condition, long maxLen) {
+		this(command, condition, maxLen, null);
+	}
+
+	/**
+	 * @param command	a command code, SET when unknown
+	 * @param condition	a condition code, no condition when unknown, only used by SET
+	 * @param maxLen	the approximate maximum length of the streams, 0 or less for no trimming, only used by XADD
+	 * @param hashField	the field of the hashes incremented, only used by HINCRBY
+	 */
+	public RedisWriter(String command, String condition, long maxLen, String hashField) {
+		this.command = Arrays.asList(commandCodes).contains(command) ? command : COMMAND_SET;
+		if (!COMMAND_SET.equals(this.command))
+			nxxx = null;
+		else if (CONDITION_NX.equals(condition))
+			nxxx = NX;
+		else if (CONDITION_XX.equals(condition))
+			nxxx = XX;
+		else
+			nxxx = null;
+		this.maxLen = maxLen;
+		this.hashField = hashField == null ? null : SafeEncoder.encode(hashField);
+	}
+
+	public String getCommand() {
+		return command;
+	}
+
+	/**
+	 * @return false if the command is not available in a Jedis pipeline, the values are then written with writeAll
+	 */
+	public boolean isPipelined() {
+		return !COMMAND_XADD.equals(command);
+	}
+
+	/**
+	 * @return true if writing a value twice leaves the key as writing it once (SET, HMSET), false for the
+	 * commands adding an entry, an item, a message or a delta each time
+	 */
+	public boolean isIdempotent() {
+		return COMMAND_SET.equals(command);
+	}
+
+	/**
+	 * @return true if the values are deltas added to counters
+	 */
+	public boolean isCounter() {
+		return COMMAND_INCRBY.equals(command) || COMMAND_INCRBYFLOAT.equals(command) || COMMAND_HINCRBY.equals(command);
+	}
+
+	/**
+	 * @return true if the values are only written when the key exists, or does not exist
+	 */
+	public boolean isConditional() {
+		return nxxx != null;
+	}
+
+	/**
+	 * Adds the write of the value to the pipeline, for the commands available in a Jedis pipeline
+	 * (isPipelined()) : the stream entries are written with writeAll, or one by one with write
+	 * 
+	 * @param encoder	encodes the key in its first slot, owned by the calling thread
+	 * @param value		a String, a byte[], a Map of hash fields, or the Long or Double delta of a counter
+	 * @param ttlMillis	the time to live of the key, 0 or less for no expiry
+	 * @return the reply of the write, null for a value not written because of its condition
+	 */
+	public Response<?> send(Pipeline pipeline, RedisKeyEncoder encoder, String key, Object value, long ttlMillis) {
+		byte[] rawKey = encoder.encode(0, key);
+		if (COMMAND_INCRBY.equals(command))
+			return pipeline.incrBy(rawKey, ((Number) value).longValue());
+		if (COMMAND_INCRBYFLOAT.equals(command))
+			return pipeline.incrByFloat(rawKey, ((Number) value).doubleValue());
+		if (COMMAND_HINCRBY.equals(command))
+			return pipeline.hincrBy(rawKey, hashField, ((Number) value).longValue());
+		if (COMMAND_LPUSH.equals(command))
+			return pipeline.lpush(rawKey, toBytes(value));
+		if (COMMAND_PUBLISH.equals(command))
+			return pipeline.publish(rawKey, toBytes(value));
+		if (value instanceof Map) {
+			Response<?> reply = pipeline.hmset(key, toHash(value));
+			if (ttlMillis > 0)
+				pipeline.pexpire(rawKey, ttlMillis);
+			return reply;
+		}
+		byte[] rawValue = toBytes(value);
+		if (ttlMillis <= 0)
+			return nxxx == null ? pipeline.set(rawKey, rawValue) : pipeline.set(rawKey, rawValue, nxxx);
+		if (nxxx == null)
+			return inSeconds(ttlMillis) ? pipeline.setex(rawKey, toSeconds(ttlMillis), rawValue)
+					: pipeline.psetex(rawKey, (int) ttlMillis, rawValue);
+		return inSeconds(ttlMillis) ? pipeline.set(rawKey, rawValue, nxxx, EX, toSeconds(ttlMillis))
+				: pipeline.set(rawKey, rawValue, nxxx, PX, (int) ttlMillis);
+	}
+
+	/**
+	 * Adds the writes of a batch to the pipeline, grouping the runs of values without condition nor
+	 * expiry in MSET commands. As send, only for the commands available in a Jedis pipeline.
+	 * 
+	 * @param encoder	encodes the keys, with a slot for each key of a MSET (MSET_MAX_KEYS), owned by the calling thread
+	 * @param count		the number of values of the arrays to write
+	 * @return the reply of the write of each value (null for a value not written because of its condition),
+	 * the values of a MSET share its reply
+	 */
+	public Response<?>[] sendAll(Pipeline pipeline, RedisKeyEncoder encoder, String[] keys, Object[] values, long[] ttls,
+			int count) {
+		Response<?>[] replies = new Response<?>[count];
+		if (COMMAND_LPUSH.equals(command)) {
+			sendPushes(pipeline, encoder, keys, values, count, replies);
+			return replies;
+		}
+		if (nxxx != null || !COMMAND_SET.equals(command)) {
+			for (int i = 0; i < count; i++)
+				replies[i] = send(pipeline, encoder, keys[i], values[i], ttls[i]);
+			return replies;
+		}
+		byte[][] run = new byte[2 * Math.min(count, MSET_MAX_KEYS)][];
+		int runLength = 0;
+		for (int i = 0; i < count; i++) {
+			if (values[i] instanceof Map || ttls[i] > 0) {
+				// The run stops before this value, to keep the order of the writes
+				sendRun(pipeline, run, runLength, replies, i);
+				runLength = 0;
+				replies[i] = send(pipeline, encoder, keys[i], values[i], ttls[i]);
+				continue;
+			}
+			// The keys of the run are sent together, each one keeps its own slot until then
+			run[runLength] = encoder.encode(runLength / 2, keys[i]);
+			runLength++;
+			run[runLength++] = toBytes(values[i]);
+			if (runLength == run.length) {
+				sendRun(pipeline, run, runLength, replies, i + 1);
+				runLength = 0;
+			}
+		}
+		sendRun(pipeline, run, runLength, replies, count);
+		return replies;
+	}
+
+	/**
+	 * Sends the keys and values of the run, with a SET for a single key
+	 * 
+	 * @param end	the position of the value following the run, the reply is given to the values of the run
+	 */
+	private static void sendRun(Pipeline pipeline, byte[][] run, int runLength, Response<?>[] replies, int end) {
+		Response<?> reply;
+		if (runLength == 2)
+			reply = pipeline.set(run[0], run[1]);
+		else if (runLength > 2)
+			reply = pipeline.mset(runLength == run.length ? run : Arrays.copyOf(run, runLength));
+		else
+			return;
+		for (int i = end - runLength / 2; i < end; i++)
+			replies[i] = reply;
+	}
+
+	/**
+	 * Pushes the values with one LPUSH per run of values of the same key, the values of a LPUSH share its reply
+	 */
+	private static void sendPushes(Pipeline pipeline, RedisKeyEncoder encoder, String[] keys, Object[] values, int count,
+			Response<?>[] replies) {
+		int start = 0;
+		while (start < count) {
+			int end = start + 1;
+			while (end < count && keys[end] != null && keys[end].equals(keys[start]))
+				end++;
+			byte[][] run = new byte[end - start][];
+			for (int i = start; i < end; i++)
+				run[i - start] = toBytes(values[i]);
+			Response<?> reply = pipeline.lpush(encoder.encode(0, keys[start]), run);
+			for (int i = start; i < end; i++)
+				replies[i] = reply;
+			start = end;
+		}
+	}
+
+	/**
+	 * Writes the values with the commands unknown to the Jedis pipelines (XADD), pipelining them :
+	 * all of them are sent at once, in a MULTI / EXEC transaction if asked, then their replies are read.
+	 * 
+	 * @param count	the number of values of the arrays to write
+	 * @return the reply of the write of each value, and the JedisDataException of the values rejected by the server
+	 * @throws JedisDataException if the transaction is aborted, all the replies are read before
+	 */
+	public Object[] writeAll(Jedis jedis, String[] keys, Object[] values, int count, boolean transactional) {
+		ByteArrayOutputStream commands = new ByteArrayOutputStream(count * 64 + 32);
+		if (transactional)
+			RedisCommands.encode(commands, "MULTI");
+		for (int i = 0; i < count; i++)
+			RedisCommands.encode(commands, getStreamArgs(keys[i], values[i]));
+		if (transactional)
+			RedisCommands.encode(commands, "EXEC");
+		RedisCommands.flush(jedis, commands);
+		Object[] replies = new Object[count];
+		if (!transactional) {
+			for (int i = 0; i < count; i++)
+				replies[i] = readReply(jedis);
+			return replies;
+		}
+		// MULTI and the QUEUED replies, a command refused when queued aborts the transaction
+		readReply(jedis);
+		for (int i = 0; i < count; i++)
+			readReply(jedis);
+		Object exec = readReply(jedis);
+		if (exec instanceof JedisDataException)
+			throw (JedisDataException) exec;
+		List<Object> results = RedisCommands.toList(exec);
+		for (int i = 0; i < count; i++)
+			replies[i] = results.get(i) instanceof JedisDataException ? results.get(i) : RedisCommands.toString(results.get(i));
+		return replies;
+	}
+
+	/**
+	 * @return the next reply as a string, or its error
+	 */
+	private static Object readReply(Jedis jedis) {
+		try {
+			return RedisCommands.toString(RedisCommands.read(jedis));
+		} catch (JedisDataException e) {
+			return e;
+		}
+	}
+
+	/**
+	 * @return the arguments of the XADD of the value : the hash fields, or the value as the value field
+	 */
+	private Object[] getStreamArgs(String key, Object value) {
+		List<Object> args = new ArrayList<Object>(8);
+		args.add("XADD");
+		args.add(key);
+		if (maxLen > 0) {
+			args.add("MAXLEN");
+			args.add("~");
+			args.add(String.valueOf(maxLen));
+		}
+		args.add("*");
+		if (value instanceof Map) {
+			for (Map.Entry<String, String> field : toHash(value).entrySet()) {
+				args.add(field.getKey());
+				args.add(field.getValue());
+			}
+		} else {
+			args.add(STREAM_VALUE_FIELD);
+			args.add(toBytes(value));
+		}
+		return args.toArray();
+	}
+
+	/**
+	 * Writes the value
+	 * 
+	 * @param value		a String, a byte[], a Map of hash fields, or the Long or Double delta of a counter
+	 * @param ttlMillis	the time to live of the key, 0 or less for no expiry
+	 * @return the reply of the write, null for a value not written because of its condition
+	 */
+	public Object write(Jedis jedis, String key, Object value, long ttlMillis) {
+		byte[] rawKey = SafeEncoder.encode(key);
+		if (COMMAND_INCRBY.equals(command))
+			return jedis.incrBy(rawKey, ((Number) value).longValue());
+		if (COMMAND_INCRBYFLOAT.equals(command))
+			return jedis.incrByFloat(rawKey, ((Number) value).doubleValue());
+		if (COMMAND_HINCRBY.equals(command))
+			return jedis.hincrBy(rawKey, hashField, ((Number) value).longValue());
+		if (COMMAND_LPUSH.equals(command))
+			return jedis.lpush(rawKey, toBytes(value));
+		if (COMMAND_PUBLISH.equals(command))
+			return jedis.publish(rawKey, toBytes(value));
+		if (COMMAND_XADD.equals(command))
+			return RedisCommands.toString(RedisCommands.call(jedis, getStreamArgs(key, value)));
+		if (value instanceof Map) {
+			if (ttlMillis <= 0)
+				return jedis.hmset(key, toHash(value));
+			// The hash and its expiry are sent together
+			Pipeline pipeline = jedis.pipelined();
+			Response<?> reply = pipeline.hmset(key, toHash(value));
+			pipeline.pexpire(rawKey, ttlMillis);
+			pipeline.sync();
+			return reply.get();
+		}
+		byte[] rawValue = toBytes(value);
+		if (ttlMillis <= 0)
+			return nxxx == null ? jedis.set(rawKey, rawValue) : jedis.set(rawKey, rawValue, nxxx);
+		if (nxxx == null)
+			return inSeconds(ttlMillis) ? jedis.setex(rawKey, toSeconds(ttlMillis), rawValue)
+					: jedis.psetex(rawKey, (int) ttlMillis, rawValue);
+		return inSeconds(ttlMillis) ? jedis.set(rawKey, rawValue, nxxx, EX, toSeconds(ttlMillis))
+				: jedis.set(rawKey, rawValue, nxxx, PX, (int) ttlMillis);
+	}
+
+	/**
+	 * Times to live in whole seconds are sent in seconds, as the ones too long for milliseconds in an int
+	 */
+	private static boolean inSeconds(long ttlMillis) {
+		return ttlMillis % 1000 == 0 || ttlMillis > Integer.MAX_VALUE;
+	}
+
+	private static int toSeconds(long ttlMillis) {
+		return (int) Math.min((ttlMillis + 999) / 1000, Integer.MAX_VALUE);
+	}
+
+	private static byte[] toBytes(Object value) {
+		return value instanceof byte[] ? (byte[]) value : SafeEncoder.encode((String) value);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, String> toHash(Object value) {
+		return (Map<String, String>) value;
+	}
+}
@@ -21,12 +21,31 @@
  ******************************************************************************/
 package com.linalis.pdi.steps.redisInput;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
 
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaFactory;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -36,6 +55,14 @@ import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 
+import com.linalis.pdi.steps.redis.RedisConnections;
+import com.linalis.pdi.steps.redis.RedisJson;
+import com.linalis.pdi.steps.redis.RedisKeyEncoder;
+import com.linalis.pdi.steps.redis.RedisPool;
+import com.linalis.pdi.steps.redis.RedisPoolRegistry;
+import com.linalis.pdi.steps.redis.RedisReadRouter;
+import com.linalis.pdi.steps.redis.RedisValueCodec;
+
 /**
  * The Redis Input step looks up value objects, from the given key names, from
  * redis server(s).
@@ -46,8 +73,6 @@ public class RedisInput extends BaseStep implements StepInterface {
 														// needed by
 														// Translator2!!
 														// $NON-NLS-1$
-	static protected JedisPool jedisPool = null;
-	static int nbInstance = 0;
 
 	public RedisInput(StepMeta stepMeta, StepDataInterface stepDataInterface,
 			int copyNr, TransMeta transMeta, Trans trans) {
@@ -60,16 +85,245 @@ public class RedisInput extends BaseStep implements StepInterface {
 		RedisInputData data = (RedisInputData) sdi;
 		if (super.init(meta, data)) {
 			try {
-				// initializing pool
-				// WE make sure that the port is an int before initializing the pool
-				Integer.parseInt(environmentSubstitute(meta.getPort()));
-				initPool(environmentSubstitute(meta.getHostname()), environmentSubstitute(meta.getPort()));
-				return true;
+				// Getting the shared pool of the server
+				data.endpoint = RedisConnections.getEndpoint(meta, this);
+				if(meta.isClusterMode())
+				{
+					// One pool per master node, the keys are routed by hash slot
+					data.cluster = RedisConnections.openCluster(data.endpoint);
+				}
+				else if(!RedisInputMeta.READ_ROUTING_MASTER.equals(meta.getReadRouting()))
+				{
+					// Lookups are spread over the replicas, listed or discovered through Sentinel
+					boolean lowestLatency = RedisInputMeta.READ_ROUTING_LATENCY.equals(meta.getReadRouting());
+					List<HostAndPort> sentinels = RedisReadRouter.parseSentinels(environmentSubstitute(meta.getSentinelHosts()));
+					RedisReadRouter replicas;
+					if(sentinels.isEmpty())
+						replicas = new RedisReadRouter(data.endpoint,
+								RedisReadRouter.parseHosts(environmentSubstitute(meta.getReplicaHosts()), data.endpoint.getPort()), lowestLatency);
+					else
+						replicas = RedisReadRouter.discover(sentinels, environmentSubstitute(meta.getSentinelMaster()),
+								data.endpoint, lowestLatency);
+					try
+					{
+						replicas.open();
+					}
+					catch(Exception e)
+					{
+						replicas.close();
+						throw e;
+					}
+					if (log.isBasic())
+						logBasic(BaseMessages.getString(PKG, "RedisInput.Log.ReadRouting", replicas.toString()));
+					data.replicas = replicas;
+					data.pool = replicas.getMasterPool();
+				}
+				else
+					data.pool = RedisPoolRegistry.acquire(data.endpoint);
 			} catch (Exception e) {
 				logError(BaseMessages.getString(PKG,
 						"RedisInput.Error.ConnectError"), e);
 				return false;
 			}
+			// Batch buffers, only used when the keys are resolved with MGET
+			if(RedisInputMeta.LOOKUP_MODE_MGET.equals(meta.getLookupMode())
+					|| RedisInputMeta.LOOKUP_MODE_SCRIPT.equals(meta.getLookupMode()))
+			{
+				data.batchSize = Const.toInt(environmentSubstitute(meta.getBatchSize()), -1);
+				if(data.batchSize < 1)
+				{
+					logError(BaseMessages.getString(PKG,
+							"RedisInput.Error.InvalidBatchSize", meta.getBatchSize()));
+					return false;
+				}
+				data.batchRows = new Object[data.batchSize][];
+				data.batchKeys = new String[data.batchSize];
+				data.batchValues = new Object[data.batchSize];
+				data.batchCount = 0;
+				data.batchKeyIndexes = new int[data.batchSize];
+				data.batchKeyTable = new int[Integer.highestOneBit(data.batchSize) * 4];
+				data.batchUniqueKeys = new String[0];
+			}
+			else
+				data.batchSize = 1;
+			// Ring buffer of the rows waiting for their pipelined reply
+			if(RedisInputMeta.LOOKUP_MODE_PIPELINE.equals(meta.getLookupMode()))
+			{
+				data.windowSize = Const.toInt(environmentSubstitute(meta.getWindowSize()), -1);
+				if(data.windowSize < 1)
+				{
+					logError(BaseMessages.getString(PKG,
+							"RedisInput.Error.InvalidWindowSize", meta.getWindowSize()));
+					return false;
+				}
+				data.windowRows = new Object[data.windowSize][];
+				data.windowKeys = new String[data.windowSize];
+				data.windowValues = new Object[data.windowSize];
+				data.windowSent = new boolean[data.windowSize];
+				data.windowPending = new HashMap<String, int[]>();
+				data.windowReplies = new HashMap<String, Object>();
+				data.windowHead = 0;
+				data.windowCount = 0;
+			}
+			else
+				data.windowSize = 0;
+			// Pipelines can't span the nodes of a cluster, the window is resolved as a batch with one pipeline per node
+			if(data.cluster!=null && data.windowSize > 0)
+			{
+				data.batchSize = data.windowSize;
+				data.batchRows = data.windowRows;
+				data.batchKeys = data.windowKeys;
+				data.batchValues = data.windowValues;
+				data.batchCount = 0;
+				data.batchKeyIndexes = new int[data.batchSize];
+				data.batchKeyTable = new int[Integer.highestOneBit(data.batchSize) * 4];
+				data.batchUniqueKeys = new String[0];
+				data.windowSize = 0;
+				data.windowRows = null;
+				data.windowKeys = null;
+				data.windowValues = null;
+				data.windowSent = null;
+				data.windowPending = null;
+				data.windowReplies = null;
+			}
+			data.keyEncoder = new RedisKeyEncoder(data.batchSize);
+			// Keyspace reader, each copy of the step scans its own master nodes
+			if(RedisInputMeta.LOOKUP_MODE_SCAN.equals(meta.getLookupMode()))
+			{
+				int scanCount = Const.toInt(environmentSubstitute(meta.getScanCount()), -1);
+				if(scanCount < 1)
+				{
+					logError(BaseMessages.getString(PKG,
+							"RedisInput.Error.InvalidScanCount", meta.getScanCount()));
+					return false;
+				}
+				data.scanParams = new ScanParams().count(scanCount);
+				String scanPattern = environmentSubstitute(meta.getScanPattern());
+				if(!Const.isEmpty(scanPattern))
+					data.scanParams.match(scanPattern);
+				data.scanCursor = ScanParams.SCAN_POINTER_START;
+				int copy = getUniqueStepNrAcrossSlaves();
+				int copies = getUniqueStepCountAcrossSlaves();
+				// The cursor of a server can't be shared, every copy scanning it would read all of its keys
+				if(data.cluster==null)
+				{
+					if(copies > 1)
+					{
+						logError(BaseMessages.getString(PKG, "RedisInput.Error.ScanCopies", String.valueOf(copies)));
+						return false;
+					}
+					data.scanPools = Collections.singletonList(getReadPool(data));
+				}
+				else
+				{
+					// Each master of a cluster holds its own part of the keyspace, the masters are dealt out to the copies
+					List<RedisPool> masters = data.cluster.getMasterPools();
+					if(copies > masters.size())
+					{
+						logError(BaseMessages.getString(PKG, "RedisInput.Error.ScanClusterCopies",
+								String.valueOf(copies), String.valueOf(masters.size())));
+						return false;
+					}
+					data.scanPools = new ArrayList<RedisPool>();
+					for(int i=copy; i<masters.size(); i+=copies)
+						data.scanPools.add(masters.get(i));
+				}
+				data.scanPoolIndex = 0;
+			}
+			else
+				data.scanParams = null;
+			// Values are read as byte[] instead of UTF-8 strings
+			data.binary = meta.readsBinaryValues();
+			// Hashes, lists, sets and sorted sets are read with their own commands, page by page
+			data.valueType = meta.getValueType();
+			if(!RedisInputMeta.VALUE_TYPE_STRING.equals(data.valueType) && data.scanParams==null)
+			{
+				data.pageSize = Const.toInt(environmentSubstitute(meta.getPageSize()), -1);
+				if(data.pageSize < 1)
+				{
+					logError(BaseMessages.getString(PKG,
+							"RedisInput.Error.InvalidPageSize", meta.getPageSize()));
+					return false;
+				}
+				data.structureScanParams = new ScanParams().count(data.pageSize);
+				data.scoreMin = Const.NVL(environmentSubstitute(meta.getScoreMin()), "-inf");
+				data.scoreMax = Const.NVL(environmentSubstitute(meta.getScoreMax()), "+inf");
+			}
+			else
+				data.valueType = RedisInputMeta.VALUE_TYPE_STRING;
+			// Local cache in front of the lookups, useless when each key is read once
+			if(meta.isCacheEnabled() && data.scanParams==null)
+			{
+				data.cache = new RedisNearCache(meta.getCacheEviction(),
+						Const.toLong(environmentSubstitute(meta.getCacheMaxEntries()), 0),
+						Const.toLong(environmentSubstitute(meta.getCacheMaxBytes()), 0),
+						Const.toLong(environmentSubstitute(meta.getCacheTtl()), 0) * 1000);
+			}
+			else
+				data.cache = null;
+			// Keys found missing are not looked up again before their time to live
+			long missCacheTtl = Const.toLong(environmentSubstitute(meta.getMissCacheTtl()), 0);
+			if(missCacheTtl > 0 && data.scanParams==null)
+				data.missCache = new RedisMissCache(Const.toLong(environmentSubstitute(meta.getMissCacheMaxEntries()), 0), missCacheTtl * 1000);
+			else
+				data.missCache = null;
+			data.coalescedLookups = 0;
+			// The script is loaded once, then called with EVALSHA for each batch of keys
+			if(RedisInputMeta.LOOKUP_MODE_SCRIPT.equals(meta.getLookupMode()))
+			{
+				if(data.cluster!=null)
+				{
+					logError(BaseMessages.getString(PKG, "RedisInput.Error.ScriptInCluster"));
+					return false;
+				}
+				if(Const.isEmpty(meta.getScript()))
+				{
+					logError(BaseMessages.getString(PKG, "RedisInput.Error.NoScript"));
+					return false;
+				}
+				data.script = meta.getScript();
+				data.scriptArgs = Arrays.asList(RedisInputMeta.splitNames(environmentSubstitute(meta.getScriptArgs())));
+				Jedis jedisClient = null;
+				try
+				{
+					jedisClient = data.pool.getResource();
+					data.scriptSha = jedisClient.scriptLoad(data.script);
+					data.pool.returnResource(jedisClient);
+				}
+				catch(Exception e)
+				{
+					if(jedisClient!=null)
+						data.pool.returnBrokenResource(jedisClient);
+					logError(BaseMessages.getString(PKG, "RedisInput.Error.ScriptLoad", data.endpoint.toString()), e);
+					return false;
+				}
+				// Script replies depend on the script, they are neither cached nor remembered as missing
+				data.valueType = RedisInputMeta.VALUE_TYPE_STRING;
+				data.cache = null;
+				data.missCache = null;
+			}
+			else
+				data.scriptSha = null;
+			// Compressed values are read as byte[], and decompressed when added to the rows,
+			// so the local cache and the preload keep them compressed
+			data.codec = (RedisInputMeta.VALUE_TYPE_STRING.equals(data.valueType) || RedisInputMeta.VALUE_TYPE_JSON.equals(data.valueType))
+					&& data.scriptSha==null ? RedisValueCodec.forCode(meta.getCodec()) : null;
+			if(data.codec!=null && RedisInputMeta.VALUE_TYPE_STRING.equals(data.valueType))
+			{
+				data.stringValues = !data.binary;
+				data.binary = true;
+			}
+			// The whole dimension is read now, the rows are then resolved without any request
+			if(meta.isPreload())
+			{
+				if(!initPreload(meta, data))
+					return false;
+				data.cache = null;
+				data.missCache = null;
+			}
+			else
+				data.preloader = null;
+			return true;
 		} else {
 			return false;
 		}
@@ -81,16 +335,76 @@ public class RedisInput extends BaseStep implements StepInterface {
 		RedisInputMeta meta = (RedisInputMeta) smi;
 		RedisInputData data = (RedisInputData) sdi;
 		
-		nbInstance--;
+		// The pipelined connection is still held if the step stopped before the end of its input
+		releasePipeline(data, true);
 		
-		synchronized(JedisPool.class)
+		if(data.preloader!=null)
 		{
-			if(nbInstance==0 && jedisPool!=null)
-			{
-				jedisPool.destroy();
-				jedisPool=null;
-			}
+			data.preloader.stop();
+			data.preloader = null;
+		}
+		
+		if(data.replicas!=null)
+		{
+			data.replicas.close();
+			data.replicas = null;
+			data.pool = null;
+		}
+		if(data.pool!=null)
+		{
+			RedisPoolRegistry.release(data.endpoint);
+			data.pool = null;
+		}
+		if(data.cluster!=null)
+		{
+			data.cluster.close();
+			data.cluster = null;
+		}
+		data.endpoint = null;
+		data.scanPools = null;
+		
+		data.batchRows = null;
+		data.batchKeys = null;
+		data.batchValues = null;
+		data.windowRows = null;
+		data.windowKeys = null;
+		data.windowValues = null;
+		data.windowSent = null;
+		data.windowPending = null;
+		data.windowReplies = null;
+		data.batchKeyIndexes = null;
+		data.batchKeyTable = null;
+		data.batchUniqueKeys = null;
+		
+		if(data.cache!=null)
+		{
+			if (log.isBasic())
+				logBasic(BaseMessages.getString(PKG, "RedisInput.Log.CacheStats",
+						String.valueOf(data.cache.getHits()), String.valueOf(data.cache.getMisses()),
+						String.valueOf(data.cache.getEvictions()), String.valueOf(data.cache.getExpirations()),
+						String.valueOf(data.cache.getSize()), String.valueOf(data.cache.getBytes())));
+			data.cache.clear();
+			data.cache = null;
+		}
+		if(data.missCache!=null)
+		{
+			if (log.isBasic())
+				logBasic(BaseMessages.getString(PKG, "RedisInput.Log.MissCacheStats",
+						String.valueOf(data.missCache.getHits()), String.valueOf(data.missCache.getSize())));
+			data.missCache.clear();
+			data.missCache = null;
+		}
+		if(data.codec!=null)
+		{
+			if (log.isBasic() && data.codec.getEncodedBytes() > 0)
+				logBasic(BaseMessages.getString(PKG, "RedisInput.Log.CompressionStats",
+						String.valueOf(data.codec.getEncodedBytes()), String.valueOf(data.codec.getRawBytes()),
+						String.valueOf(RedisValueCodec.ratio(data.codec.getRawBytes(), data.codec.getEncodedBytes()))));
+			data.codec.close();
+			data.codec = null;
 		}
+		if(data.coalescedLookups > 0 && log.isBasic())
+			logBasic(BaseMessages.getString(PKG, "RedisInput.Log.CoalescedLookups", String.valueOf(data.coalescedLookups)));
 		
 		super.dispose(meta, data);
 	}
@@ -98,6 +412,9 @@ public class RedisInput extends BaseStep implements StepInterface {
 	public boolean processRow(StepMetaInterface smi, StepDataInterface sdi) throws KettleException {
 		RedisInputMeta meta = (RedisInputMeta) smi;
 		RedisInputData data = (RedisInputData) sdi;
+		if(data.scanParams!=null)
+		// The keyspace reader does not read its input
+			return scanKeyspace(meta, data);
 		Object[] readRow = getRow(); 
 		// If no more input to be expected, stop
 		if (readRow == null) {
@@ -105,6 +422,13 @@ public class RedisInput extends BaseStep implements StepInterface {
 				data.noInputRow = true;
 			else
 			{
+				// Resolving the rows still waiting in the batch
+				if(data.batchCount > 0 && !flushBatch(meta, data))
+					return false;
+				// Waiting for the replies still in flight
+				if(data.windowCount > 0 && !drainWindow(meta, data, 0))
+					return false;
+				releasePipeline(data, false);
 				setOutputDone();
 				return false;
 			}
@@ -124,75 +448,218 @@ public class RedisInput extends BaseStep implements StepInterface {
 			}
 			// Get output field types
 			meta.getFields(data.outputRowMeta, getStepname(), null, null, this, repository, metaStore);
+			prepareFields(meta, data);
+			if(!RedisInputMeta.VALUE_TYPE_STRING.equals(data.valueType))
+				prepareStructureFields(meta, data);
 		}
 		
-		String key;
-		// Get the correct key
-		if(!meta.getKeyFieldCheck())
+		String key = getKey(meta, data, readRow);
+		
+		if(data.preloader!=null)
+		// The value is read from the preloaded dimension
 		{
-			key = meta.getKey();
+			putRowWithValue(meta, data, readRow, key==null ? null : data.preloader.get(key));
+			if(data.noInputRow)
+			{
+				setOutputDone();
+				return false;
+			}
+			return true;
 		}
-		else
-		// Getting the key from the combo box
+		
+		if(!RedisInputMeta.VALUE_TYPE_STRING.equals(data.valueType))
+		// Structures are read key by key, without cache nor batching
 		{
-			int keyFieldIndex = getInputRowMeta().indexOfValue(
-					meta.getKeyFieldCombo());
-			if (keyFieldIndex < 0) {
-				throw new KettleException(BaseMessages.getString(PKG,
-						"RedisInputMeta.Exception.KeyFieldNameNotFound"));
+			if(!readStructure(meta, data, readRow, key))
+				return false;
+			if(data.noInputRow)
+			{
+				setOutputDone();
+				return false;
 			}
-			key = getInputRowMeta().getString( readRow, keyFieldIndex );
+			return true;
+		}
+		
+		// Looking for the value in the local cache first, then for a key known to be missing
+		Object cachedValue = null;
+		boolean resolved = false;
+		if(key!=null && !data.noInputRow)
+		{
+			if(data.cache!=null)
+			{
+				cachedValue = data.cache.get(key);
+				resolved = cachedValue!=null;
+			}
+			if(!resolved && data.missCache!=null)
+				resolved = data.missCache.contains(key);
+		}
+		
+		if(data.scriptSha!=null || (data.batchSize > 1 && !data.noInputRow))
+		// The row waits for the batch to be full, then all the keys are fetched at once
+		{
+			data.batchRows[data.batchCount] = readRow;
+			data.batchKeys[data.batchCount] = resolved ? null : key;
+			data.batchValues[data.batchCount] = cachedValue;
+			data.batchCount++;
+			if(data.noInputRow)
+			{
+				// The script is also run for the fixed key
+				if(!flushBatch(meta, data))
+					return false;
+				setOutputDone();
+				return false;
+			}
+			if(data.batchCount == data.batchSize)
+				return flushBatch(meta, data);
+			return true;
+		}
+		
+		if(data.windowSize > 0 && !data.noInputRow)
+		// The GET is sent without waiting for its reply
+			return pipelineRow(meta, data, readRow, key, resolved, cachedValue);
+		
+		if(resolved)
+		{
+			putRowWithValue(meta, data, readRow, cachedValue);
+			return true;
 		}
 		
-		Jedis jedisClient = jedisPool.getResource();
 		Object fetchedValue;
-		if(jedisClient!=null)
+		if(data.cluster!=null)
 		{
 			try
 			{
-				if(meta.getBase()!=null && !meta.getBase().equals(""))
-					jedisClient.select(Integer.parseInt(environmentSubstitute(meta.getBase())));
-				fetchedValue = jedisClient.get((String) (key));
-				jedisPool.returnResource(jedisClient);
+				fetchedValue = data.cluster.get(key, data.binary);
+				if(!data.noInputRow)
+					storeValue(data, key, fetchedValue);
 			}
 			catch(Exception e)
 			{
-				jedisPool.returnResource(jedisClient);
 				if (log.isError())
-					logError("Base must be an integer or empty");
+					logError(BaseMessages.getString(PKG, "RedisInput.Error.Lookup", data.cluster.toString()), e);
 				return false;
 			}
+			putRowWithValue(meta, data, readRow, fetchedValue);
+			if(data.noInputRow)
+			{
+				setOutputDone();
+				return false;
+			}
+			return true;
 		}
-		else
+		
+		// A replica that can't be reached is put aside, and the GET is sent to the next server
+		RedisPool pool = getReadPool(data);
+		while(true)
 		{
-			if (log.isError())
-				logError("Error connecting to the redis server " + meta.getHostname() + ":" + meta.getPort());
-			return false;
+			Jedis jedisClient = null;
+			try
+			{
+				jedisClient = pool.getResource();
+				if(data.binary)
+					fetchedValue = jedisClient.get(data.keyEncoder.encode(0, key));
+				else
+					fetchedValue = jedisClient.get(key);
+				pool.returnResource(jedisClient);
+				if(!data.noInputRow)
+					storeValue(data, key, fetchedValue);
+				break;
+			}
+			catch(Exception e)
+			{
+				if(jedisClient!=null)
+					pool.returnBrokenResource(jedisClient);
+				if(data.replicas!=null && data.replicas.failover(pool, e))
+				{
+					pool = data.replicas.getReadPool();
+					continue;
+				}
+				if (log.isError())
+					logError(BaseMessages.getString(PKG, "RedisInput.Error.Lookup", data.endpoint.toString()), e);
+				return false;
+			}
 		}
 		
-		// Add Value data name to output, or set value data if already exists
-		Object[] outputRowData = readRow;
-		int valueFieldIndex;
-		int inputSize;
+		putRowWithValue(meta, data, readRow, fetchedValue);
+		
+		if(data.noInputRow)
+		{
+			setOutputDone();
+			return false;
+		}
+		else
+			return true;
+	}
+	
+	/**
+	 * Finds the position of the key and value fields in the input rows, once for all the rows
+	 */
+	private void prepareFields(RedisInputMeta meta, RedisInputData data) throws KettleException
+	{
+		// Getting the key from the combo box
+		if(meta.getKeyFieldCheck())
+		{
+			data.keyFieldIndex = getInputRowMeta()==null ? -1 : getInputRowMeta().indexOfValue(meta.getKeyFieldCombo());
+			if (data.keyFieldIndex < 0) {
+				throw new KettleException(BaseMessages.getString(PKG,
+						"RedisInputMeta.Exception.KeyFieldNameNotFound"));
+			}
+		}
+		else
+			data.keyFieldIndex = -1;
 		
 		if(getInputRowMeta()==null)
 		// Sets some variables if no input is provided
 		{
-			valueFieldIndex = -1;
-			inputSize=0;
+			data.valueFieldIndex = -1;
+			data.inputSize = 0;
 		}
 		else
 		{
-			valueFieldIndex = getInputRowMeta().indexOfValue(meta.getValueField());
-			inputSize=getInputRowMeta().size();
+			data.valueFieldIndex = getInputRowMeta().indexOfValue(meta.getValueField());
+			data.inputSize = getInputRowMeta().size();
 		}
 		
-		if (valueFieldIndex < 0 || valueFieldIndex > outputRowData.length) {
+		String[] scriptFields = meta.getScriptFieldNames();
+		if(data.scriptSha!=null && scriptFields.length > 0)
+		{
+			data.scriptFieldIndexes = new int[scriptFields.length];
+			for(int i=0; i<scriptFields.length; i++)
+				data.scriptFieldIndexes[i] = data.outputRowMeta.indexOfValue(scriptFields[i]);
+		}
+		else
+			data.scriptFieldIndexes = null;
+	}
+	
+	/**
+	 * Gets the key to look up for the given row, either the fixed key or the one read from the key field
+	 */
+	private String getKey(RedisInputMeta meta, RedisInputData data, Object[] readRow) throws KettleException
+	{
+		// Get the correct key
+		if(data.keyFieldIndex < 0)
+		{
+			return meta.getKey();
+		}
+		return getInputRowMeta().getString( readRow, data.keyFieldIndex );
+	}
+	
+	/**
+	 * Adds the fetched value to the row and sends it to the next steps.
+	 * Input rows are allocated with spare room, so adding the value does not copy them.
+	 */
+	private void putRowWithValue(RedisInputMeta meta, RedisInputData data, Object[] readRow, Object fetchedValue) throws KettleException
+	{
+		fetchedValue = decodeValue(data, fetchedValue);
+		// Add Value data name to output, or set value data if already exists
+		Object[] outputRowData = readRow;
+		
+		if (data.valueFieldIndex < 0 || data.valueFieldIndex > outputRowData.length) {
 			// Not found so add it
-			outputRowData = RowDataUtil.addValueData(readRow, inputSize, fetchedValue);
+			outputRowData = RowDataUtil.addValueData(readRow, data.inputSize, fetchedValue);
 		} else {
 			// Update value in place
-			outputRowData[valueFieldIndex] = fetchedValue;
+			outputRowData[data.valueFieldIndex] = fetchedValue;
 		}
 		putRow(data.outputRowMeta, outputRowData); // copy row to possible
 													// alternate rowset(s).
@@ -201,29 +668,772 @@ public class RedisInput extends BaseStep implements StepInterface {
 				logBasic(BaseMessages.getString(PKG,
 						"RedisInput.Log.LineNumber") + getLinesRead());
 		}
+	}
+	
+	/**
+	 * @return the value decompressed if it has the header of a compressed value, as a string unless the values are binary
+	 */
+	private Object decodeValue(RedisInputData data, Object value) throws KettleException
+	{
+		if(data.codec==null || !(value instanceof byte[]))
+			return value;
+		byte[] raw;
+		try
+		{
+			raw = data.codec.decode((byte[]) value);
+		}
+		catch(IOException e)
+		{
+			throw new KettleException(BaseMessages.getString(PKG, "RedisInput.Error.Decode"), e);
+		}
+		return data.stringValues ? SafeEncoder.encode(raw) : raw;
+	}
+	
+	/**
+	 * Resolves all the keys of the pending batch with one MGET, then sends
+	 * the rows to the next steps in their original order.
+	 * Null keys are not sent to the server, their rows get a null value,
+	 * or the value found in the local cache.
+	 * A key appearing in several rows of the batch is fetched once, and its value is given to all of them.
+	 */
+	private boolean flushBatch(RedisInputMeta meta, RedisInputData data) throws KettleException
+	{
+		// Open addressing table of the first row of each key, without an entry or a boxed index per row
+		int[] table = data.batchKeyTable;
+		int mask = table.length - 1;
+		Arrays.fill(table, 0);
+		int keyCount = 0;
+		for(int i=0; i<data.batchCount; i++)
+		{
+			String key = data.batchKeys[i];
+			if(key==null)
+				continue;
+			int h = key.hashCode();
+			int slot = (h ^ (h >>> 16)) & mask;
+			int keyIndex = -1;
+			while(table[slot]!=0)
+			{
+				int row = table[slot] - 1;
+				if(data.batchKeys[row].equals(key))
+				{
+					keyIndex = data.batchKeyIndexes[row];
+					break;
+				}
+				slot = (slot + 1) & mask;
+			}
+			if(keyIndex < 0)
+			{
+				keyIndex = keyCount++;
+				table[slot] = i + 1;
+			}
+			else
+				data.coalescedLookups++;
+			data.batchKeyIndexes[i] = keyIndex;
+		}
+		// The array of the keys is kept while their number does not change
+		if(data.batchUniqueKeys.length!=keyCount)
+			data.batchUniqueKeys = new String[keyCount];
+		String[] keys = data.batchUniqueKeys;
+		for(int i=0; i<data.batchCount; i++)
+		{
+			if(data.batchKeys[i]!=null)
+				keys[data.batchKeyIndexes[i]] = data.batchKeys[i];
+		}
 		
-		if(data.noInputRow)
+		List<?> fetchedValues = null;
+		if(keys.length > 0 && data.cluster!=null)
 		{
-			setOutputDone();
-			return false;
+			// The keys are grouped by node, each node gets its own pipeline
+			try
+			{
+				fetchedValues = Arrays.asList(data.cluster.get(keys, data.binary));
+			}
+			catch(Exception e)
+			{
+				if (log.isError())
+					logError(BaseMessages.getString(PKG, "RedisInput.Error.BatchLookup"), e);
+				return false;
+			}
+		}
+		else if(keys.length > 0)
+		{
+			// A replica that can't be reached is put aside, and the MGET is sent to the next server
+			RedisPool pool = getReadPool(data);
+			while(fetchedValues==null)
+			{
+				Jedis jedisClient = null;
+				try
+				{
+					jedisClient = pool.getResource();
+					if(data.scriptSha!=null)
+						fetchedValues = evalScript(data, jedisClient, keys);
+					else if(data.binary)
+						fetchedValues = jedisClient.mget(data.keyEncoder.encodeAll(keys));
+					else
+						fetchedValues = jedisClient.mget(keys);
+					pool.returnResource(jedisClient);
+				}
+				catch(Exception e)
+				{
+					if(jedisClient!=null)
+						pool.returnBrokenResource(jedisClient);
+					if(data.replicas!=null && data.replicas.failover(pool, e))
+					{
+						pool = data.replicas.getReadPool();
+						continue;
+					}
+					if (log.isError())
+						logError(BaseMessages.getString(PKG, "RedisInput.Error.BatchLookup"), e);
+					return false;
+				}
+			}
+		}
+		
+		// MGET returns the values in the order of the keys
+		for(int i=0; i<keys.length; i++)
+			storeValue(data, keys[i], fetchedValues.get(i));
+		for(int i=0; i<data.batchCount; i++)
+		{
+			Object fetchedValue = data.batchValues[i];
+			if(data.batchKeys[i]!=null)
+				fetchedValue = fetchedValues.get(data.batchKeyIndexes[i]);
+			if(data.scriptSha!=null)
+				putRowWithReply(meta, data, data.batchRows[i], fetchedValue);
+			else
+				putRowWithValue(meta, data, data.batchRows[i], fetchedValue);
+			data.batchRows[i] = null;
+			data.batchKeys[i] = null;
+			data.batchValues[i] = null;
+		}
+		data.batchCount = 0;
+		return true;
+	}
+	
+	/**
+	 * Runs the script on a batch of keys, given as KEYS, with the script arguments as ARGV.
+	 * The script must return one reply per key, in the order of the keys.
+	 * A server that does not know the script, after a restart or on a replica, gets it again.
+	 */
+	private List<?> evalScript(RedisInputData data, Jedis jedisClient, String[] keys)
+	{
+		List<String> keyList = Arrays.asList(keys);
+		Object reply;
+		try
+		{
+			reply = jedisClient.evalsha(data.scriptSha, keyList, data.scriptArgs);
+		}
+		catch(JedisDataException e)
+		{
+			if(e.getMessage()==null || !e.getMessage().startsWith("NOSCRIPT"))
+				throw e;
+			data.scriptSha = jedisClient.scriptLoad(data.script);
+			reply = jedisClient.evalsha(data.scriptSha, keyList, data.scriptArgs);
+		}
+		if(!(reply instanceof List) || ((List<?>) reply).size()!=keys.length)
+			throw new JedisDataException(BaseMessages.getString(PKG, "RedisInput.Error.ScriptReply", String.valueOf(keys.length)));
+		return (List<?>) reply;
+	}
+	
+	/**
+	 * Adds the reply of the script for a row to the output fields and sends the row to the next steps.
+	 * The elements of a multi-bulk reply go to the result fields in order, a single reply to the first one,
+	 * or the whole reply to the value field when no result field is set. Integers are output as strings.
+	 */
+	private void putRowWithReply(RedisInputMeta meta, RedisInputData data, Object[] readRow, Object reply) throws KettleException
+	{
+		if(data.scriptFieldIndexes==null)
+		{
+			putRowWithValue(meta, data, readRow, toReplyString(reply));
+			return;
+		}
+		Object[] outputRowData = RowDataUtil.resizeArray(readRow, data.outputRowMeta.size());
+		List<?> elements = reply instanceof List ? (List<?>) reply : null;
+		for(int i=0; i<data.scriptFieldIndexes.length; i++)
+		{
+			Object element;
+			if(elements!=null)
+				element = i < elements.size() ? elements.get(i) : null;
+			else
+				element = i == 0 ? reply : null;
+			outputRowData[data.scriptFieldIndexes[i]] = toReplyString(element);
+		}
+		putOutputRow(data, outputRowData);
+	}
+	
+	private static String toReplyString(Object reply)
+	{
+		if(reply==null)
+			return null;
+		if(reply instanceof byte[])
+			return SafeEncoder.encode((byte[]) reply);
+		return reply.toString();
+	}
+	
+	/**
+	 * Sends the GET of a row on the pipelined connection, without waiting for its reply.
+	 * Once the window is full, the oldest row waits for its reply and is sent to the next steps,
+	 * so the rows keep their input order. A row whose value was found in the local cache
+	 * goes through the window without sending a GET, as does a row whose key is already
+	 * waiting for its reply in the window : it gets the reply of the earlier row.
+	 */
+	private boolean pipelineRow(RedisInputMeta meta, RedisInputData data, Object[] readRow, String key, boolean resolved, Object cachedValue) throws KettleException
+	{
+		if(data.pipeline == null)
+		{
+			// The whole pipelined lookup reads from one server, a replica that can't be reached is put aside
+			RedisPool pool = getReadPool(data);
+			Jedis jedisClient = null;
+			while(jedisClient==null)
+			{
+				try
+				{
+					jedisClient = pool.getResource();
+				}
+				catch(Exception e)
+				{
+					if(data.replicas!=null && data.replicas.failover(pool, e))
+					{
+						pool = data.replicas.getReadPool();
+						continue;
+					}
+					if (log.isError())
+						logError("Error connecting to the redis server " + data.endpoint, e);
+					return false;
+				}
+			}
+			data.pipelinePool = pool;
+			data.pipelineClient = jedisClient;
+			data.pipeline = new RedisLookupPipeline(jedisClient);
+		}
+		
+		int tail = (data.windowHead + data.windowCount) % data.windowSize;
+		data.windowRows[tail] = readRow;
+		data.windowKeys[tail] = resolved ? null : key;
+		data.windowValues[tail] = cachedValue;
+		data.windowSent[tail] = false;
+		data.windowCount++;
+		if(data.windowKeys[tail]!=null)
+		{
+			int[] pendingRows = data.windowPending.get(key);
+			if(pendingRows!=null)
+			{
+				pendingRows[0]++;
+				data.coalescedLookups++;
+			}
+			else
+			{
+				data.windowPending.put(key, new int[] { 1 });
+				data.windowSent[tail] = true;
+			}
+		}
+		if(data.windowSent[tail])
+		{
+			try
+			{
+				if(data.binary)
+					data.pipeline.get(data.keyEncoder.encode(0, key));
+				else
+					data.pipeline.get(key);
+			}
+			catch(Exception e)
+			{
+				releasePipeline(data, true);
+				if (log.isError())
+					logError(BaseMessages.getString(PKG, "RedisInput.Error.PipelinedLookup"), e);
+				return false;
+			}
+		}
+		
+		if(data.windowCount == data.windowSize)
+		// Window is full, the oldest row has to get its reply before sending more GETs
+			return drainWindow(meta, data, data.windowSize - 1);
+		return true;
+	}
+	
+	/**
+	 * Reads the replies of the oldest rows of the window, and sends these rows to the next steps,
+	 * until only the given number of rows is still waiting.
+	 */
+	private boolean drainWindow(RedisInputMeta meta, RedisInputData data, int keep) throws KettleException
+	{
+		while(data.windowCount > keep)
+		{
+			Object[] row = data.windowRows[data.windowHead];
+			Object fetchedValue = data.windowValues[data.windowHead];
+			String key = data.windowKeys[data.windowHead];
+			if(key!=null)
+			{
+				int[] pendingRows = data.windowPending.get(key);
+				if(data.windowSent[data.windowHead])
+				{
+					try
+					{
+						Response<?> response = data.pipeline.receiveOldest();
+						fetchedValue = response.get();
+						storeValue(data, key, fetchedValue);
+					}
+					catch(Exception e)
+					{
+						releasePipeline(data, true);
+						if (log.isError())
+							logError(BaseMessages.getString(PKG, "RedisInput.Error.PipelinedLookup"), e);
+						return false;
+					}
+					// Later rows of the window with the same key wait for this reply
+					if(pendingRows[0] > 1)
+						data.windowReplies.put(key, fetchedValue);
+				}
+				else
+					fetchedValue = data.windowReplies.get(key);
+				pendingRows[0]--;
+				if(pendingRows[0]==0)
+				{
+					data.windowPending.remove(key);
+					data.windowReplies.remove(key);
+				}
+			}
+			data.windowRows[data.windowHead] = null;
+			data.windowKeys[data.windowHead] = null;
+			data.windowValues[data.windowHead] = null;
+			data.windowHead = (data.windowHead + 1) % data.windowSize;
+			data.windowCount--;
+			putRowWithValue(meta, data, row, fetchedValue);
+		}
+		return true;
+	}
+	
+	/**
+	 * Finds the position of the fields filled from the structures in the output rows
+	 */
+	private void prepareStructureFields(RedisInputMeta meta, RedisInputData data) throws KettleException
+	{
+		if((RedisInputMeta.VALUE_TYPE_HASH.equals(data.valueType) || RedisInputMeta.VALUE_TYPE_JSON.equals(data.valueType))
+				&& meta.getHashFieldName().length > 0)
+		{
+			int nrHashFields = meta.getHashFieldName().length;
+			data.hashFields = new String[nrHashFields];
+			data.hashFieldIndexes = new int[nrHashFields];
+			data.hashFieldMetas = new ValueMetaInterface[nrHashFields];
+			for(int i=0; i<nrHashFields; i++)
+			{
+				data.hashFields[i] = environmentSubstitute(meta.getHashFieldName()[i]);
+				data.hashFieldIndexes[i] = data.outputRowMeta.indexOfValue(meta.getHashFieldOutputName(i));
+				data.hashFieldMetas[i] = data.outputRowMeta.getValueMeta(data.hashFieldIndexes[i]);
+			}
+			data.stringMeta = ValueMetaFactory.createValueMeta("value", ValueMetaInterface.TYPE_STRING);
 		}
 		else
-			return true;
+			data.hashFields = null;
+		data.valueIndex = data.outputRowMeta.indexOfValue(meta.getValueField());
+		data.entryNameIndex = RedisInputMeta.VALUE_TYPE_HASH.equals(data.valueType) && !Const.isEmpty(meta.getEntryNameField())
+				? data.outputRowMeta.indexOfValue(meta.getEntryNameField()) : -1;
+		data.scoreIndex = RedisInputMeta.VALUE_TYPE_ZSET.equals(data.valueType) && !Const.isEmpty(meta.getScoreField())
+				? data.outputRowMeta.indexOfValue(meta.getScoreField()) : -1;
+	}
+	
+	/**
+	 * Reads the hash, list, set, sorted set or JSON object stored at the key.
+	 * The configured hash fields are fetched with one HMGET and converted to their output types,
+	 * the configured JSON entries are read from the object, decompressed if needed.
+	 * The other structures give one output row per element, and are read page by page
+	 * (HSCAN, LRANGE, SSCAN, ZRANGEBYSCORE from the last score read), so that large collections are never
+	 * held in memory at once. A missing or empty structure gives one row with null values.
+	 */
+	private boolean readStructure(RedisInputMeta meta, RedisInputData data, Object[] readRow, String key) throws KettleException
+	{
+		RedisPool pool = getReadPool(data);
+		if(data.cluster!=null)
+		{
+			// The whole structure is stored on the node serving the slot of its key
+			try
+			{
+				pool = data.cluster.getPool(key);
+			}
+			catch(Exception e)
+			{
+				if (log.isError())
+					logError(BaseMessages.getString(PKG, "RedisInput.Error.ReadStructure", key, data.cluster.toString()), e);
+				return false;
+			}
+		}
+		// Rows are sent while the structure is read, so only a replica that can't be reached
+		// before the first command is replaced by the next server
+		Jedis jedisClient = null;
+		while(jedisClient==null)
+		{
+			try
+			{
+				jedisClient = pool.getResource();
+			}
+			catch(Exception e)
+			{
+				if(data.replicas!=null && data.replicas.failover(pool, e))
+				{
+					pool = data.replicas.getReadPool();
+					continue;
+				}
+				if (log.isError())
+					logError("Error connecting to the redis server " + data.endpoint, e);
+				return false;
+			}
+		}
+		List<String> hashValues = null;
+		long nbElements = 0;
+		try
+		{
+			if(key!=null)
+			{
+				if(RedisInputMeta.VALUE_TYPE_JSON.equals(data.valueType))
+				{
+					String json = readJson(data, jedisClient, key);
+					if(data.hashFields==null)
+					{
+						// The whole object goes to the value field
+						if(json!=null)
+						{
+							putElementRow(data, readRow, json, null, null);
+							nbElements = 1;
+						}
+					}
+					else if(json!=null)
+					{
+						Map<String, String> entries = RedisJson.parseObject(json);
+						hashValues = new ArrayList<String>(data.hashFields.length);
+						for(String entry : data.hashFields)
+							hashValues.add(entries.get(entry));
+					}
+				}
+				else if(data.hashFields!=null)
+					hashValues = jedisClient.hmget(key, data.hashFields);
+				else if(RedisInputMeta.VALUE_TYPE_HASH.equals(data.valueType))
+				{
+					String cursor = ScanParams.SCAN_POINTER_START;
+					do
+					{
+						ScanResult<Map.Entry<String, String>> page = jedisClient.hscan(key, cursor, data.structureScanParams);
+						for(Map.Entry<String, String> entry : page.getResult())
+							putElementRow(data, readRow, entry.getValue(), entry.getKey(), null);
+						nbElements += page.getResult().size();
+						cursor = page.getStringCursor();
+					}
+					while(!ScanParams.SCAN_POINTER_START.equals(cursor));
+				}
+				else if(RedisInputMeta.VALUE_TYPE_LIST.equals(data.valueType))
+				{
+					for(long start = 0; ; start += data.pageSize)
+					{
+						List<String> page = jedisClient.lrange(key, start, start + data.pageSize - 1);
+						for(String element : page)
+							putElementRow(data, readRow, element, null, null);
+						nbElements += page.size();
+						if(page.size() < data.pageSize)
+							break;
+					}
+				}
+				else if(RedisInputMeta.VALUE_TYPE_SET.equals(data.valueType))
+				{
+					String cursor = ScanParams.SCAN_POINTER_START;
+					do
+					{
+						ScanResult<String> page = jedisClient.sscan(key, cursor, data.structureScanParams);
+						for(String member : page.getResult())
+							putElementRow(data, readRow, member, null, null);
+						nbElements += page.getResult().size();
+						cursor = page.getStringCursor();
+					}
+					while(!ScanParams.SCAN_POINTER_START.equals(cursor));
+				}
+				else
+				{
+					// Each page starts at the last score read, skipping only the members of that score already read,
+					// a growing LIMIT offset would make the server walk all the previous pages again
+					String min = data.scoreMin;
+					double lastScore = 0;
+					int ties = 0;
+					while(true)
+					{
+						Set<Tuple> page = jedisClient.zrangeByScoreWithScores(key, min, data.scoreMax, ties, data.pageSize);
+						for(Tuple tuple : page)
+						{
+							putElementRow(data, readRow, tuple.getElement(), null, Double.valueOf(tuple.getScore()));
+							if(ties > 0 && tuple.getScore()==lastScore)
+								ties++;
+							else
+							{
+								lastScore = tuple.getScore();
+								ties = 1;
+							}
+						}
+						nbElements += page.size();
+						if(page.size() < data.pageSize)
+							break;
+						min = formatScore(lastScore);
+					}
+				}
+			}
+			pool.returnResource(jedisClient);
+		}
+		catch(Exception e)
+		{
+			pool.returnBrokenResource(jedisClient);
+			if (log.isError())
+				logError(BaseMessages.getString(PKG, "RedisInput.Error.ReadStructure", key, data.endpoint.toString()), e);
+			return false;
+		}
+		
+		if(data.hashFields!=null)
+		{
+			Object[] outputRowData = RowDataUtil.createResizedCopy(readRow, data.outputRowMeta.size());
+			for(int i=0; i<data.hashFields.length; i++)
+			{
+				Object value = hashValues==null ? null : hashValues.get(i);
+				outputRowData[data.hashFieldIndexes[i]] = data.hashFieldMetas[i].convertData(data.stringMeta, value);
+			}
+			putOutputRow(data, outputRowData);
+		}
+		else if(nbElements == 0)
+			putElementRow(data, readRow, null, null, null);
+		return true;
+	}
+	
+	/**
+	 * @return the JSON object stored at the key, decompressed if needed, null if the key does not exist
+	 */
+	private String readJson(RedisInputData data, Jedis jedisClient, String key) throws IOException
+	{
+		if(data.codec==null)
+			return jedisClient.get(key);
+		byte[] packed = jedisClient.get(data.keyEncoder.encode(0, key));
+		return packed==null ? null : SafeEncoder.encode(data.codec.decode(packed));
 	}
 	
-	synchronized private static void initPool(String host, String port)
+	/**
+	 * @return the score as a bound of ZRANGEBYSCORE
+	 */
+	private static String formatScore(double score)
 	{
-		int portInt;
+		if(Double.isInfinite(score))
+			return score > 0 ? "+inf" : "-inf";
+		return Double.toString(score);
+	}
+	
+	/**
+	 * Sends a copy of the input row with one element of a structure to the next steps
+	 */
+	private void putElementRow(RedisInputData data, Object[] readRow, String element, String entryName, Double score) throws KettleException
+	{
+		Object[] outputRowData = RowDataUtil.createResizedCopy(readRow, data.outputRowMeta.size());
+		outputRowData[data.valueIndex] = element;
+		if(data.entryNameIndex >= 0)
+			outputRowData[data.entryNameIndex] = entryName;
+		if(data.scoreIndex >= 0)
+			outputRowData[data.scoreIndex] = score;
+		putOutputRow(data, outputRowData);
+	}
+	
+	private void putOutputRow(RedisInputData data, Object[] outputRowData) throws KettleException
+	{
+		putRow(data.outputRowMeta, outputRowData);
+		if (checkFeedback(getLinesRead())) {
+			if (log.isBasic())
+				logBasic(BaseMessages.getString(PKG,
+						"RedisInput.Log.LineNumber") + getLinesRead());
+		}
+	}
+	
+	/**
+	 * Reads the next page of the keyspace with SCAN, fetches the values of its keys with
+	 * pipelined GETs, and sends one row per key to the next steps.
+	 * When the step runs in several copies on a cluster, each copy scans its own masters,
+	 * so that every key is read by exactly one copy.
+	 * Keys holding another type than a string get a null value.
+	 */
+	private boolean scanKeyspace(RedisInputMeta meta, RedisInputData data) throws KettleException
+	{
+		if (first) {
+			first = false;
+			data.outputRowMeta = new RowMeta();
+			meta.getFields(data.outputRowMeta, getStepname(), null, null, this, repository, metaStore);
+			data.scanKeyIndex = data.outputRowMeta.indexOfValue(meta.getKeyOutputField());
+			data.scanValueIndex = data.outputRowMeta.indexOfValue(meta.getValueField());
+		}
+		
+		RedisPool pool = data.scanPools.get(data.scanPoolIndex);
+		Jedis jedisClient = null;
+		List<String> keys;
+		List<Response<?>> values;
 		try
 		{
-			portInt = Integer.parseInt(port);
-			if(jedisPool==null)
-				jedisPool = new JedisPool(host, portInt);
-			nbInstance++;
+			jedisClient = pool.getResource();
+			if(jedisClient==null)
+				throw new KettleException("Error connecting to the redis server " + data.endpoint);
+			ScanResult<String> page = jedisClient.scan(data.scanCursor, data.scanParams);
+			data.scanCursor = page.getStringCursor();
+			keys = page.getResult();
+			values = new ArrayList<Response<?>>(keys.size());
+			if(!keys.isEmpty())
+			{
+				Pipeline pipeline = jedisClient.pipelined();
+				for(String key : keys)
+				{
+					if(data.binary)
+						values.add(pipeline.get(data.keyEncoder.encode(0, key)));
+					else
+						values.add(pipeline.get(key));
+				}
+				pipeline.sync();
+			}
+			pool.returnResource(jedisClient);
 		}
 		catch(Exception e)
 		{
-			jedisPool = null;
+			if(jedisClient!=null)
+				pool.returnBrokenResource(jedisClient);
+			if (log.isError())
+				logError(BaseMessages.getString(PKG, "RedisInput.Error.Scan", data.endpoint.toString()), e);
+			return false;
+		}
+		
+		for(int i=0; i<keys.size(); i++)
+		{
+			Object fetchedValue;
+			try
+			{
+				fetchedValue = values.get(i).get();
+			}
+			catch(JedisDataException e)
+			{
+				// WRONGTYPE, the key is a hash, a list, a set or a sorted set
+				fetchedValue = null;
+			}
+			Object[] outputRowData = RowDataUtil.allocateRowData(data.outputRowMeta.size());
+			outputRowData[data.scanKeyIndex] = keys.get(i);
+			outputRowData[data.scanValueIndex] = decodeValue(data, fetchedValue);
+			incrementLinesInput();
+			putRow(data.outputRowMeta, outputRowData);
+			if (checkFeedback(getLinesInput())) {
+				if (log.isBasic())
+					logBasic(BaseMessages.getString(PKG,
+							"RedisInput.Log.LineNumber") + getLinesInput());
+			}
+		}
+		
+		// The iteration of a node is over when the server hands back the start cursor,
+		// the next master of a cluster is then scanned from the start
+		if(ScanParams.SCAN_POINTER_START.equals(data.scanCursor))
+		{
+			data.scanPoolIndex++;
+			if(data.scanPoolIndex == data.scanPools.size())
+			{
+				setOutputDone();
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Keeps a fetched value in the local cache, or remembers that its key is missing
+	 */
+	private void storeValue(RedisInputData data, String key, Object fetchedValue)
+	{
+		if(fetchedValue==null)
+		{
+			if(data.missCache!=null)
+				data.missCache.put(key);
+		}
+		else if(data.cache!=null)
+			data.cache.put(key, fetchedValue);
+	}
+	
+	/**
+	 * Loads the keys matching the pattern, or the fields of the hash, in memory, and starts the background refresh
+	 */
+	private boolean initPreload(RedisInputMeta meta, RedisInputData data)
+	{
+		if(data.scanParams!=null || data.scriptSha!=null || !RedisInputMeta.VALUE_TYPE_STRING.equals(data.valueType))
+		{
+			logError(BaseMessages.getString(PKG, "RedisInput.Error.PreloadMode"));
+			return false;
+		}
+		int count = Const.toInt(environmentSubstitute(meta.getScanCount()), -1);
+		if(count < 1)
+		{
+			logError(BaseMessages.getString(PKG,
+					"RedisInput.Error.InvalidScanCount", meta.getScanCount()));
+			return false;
+		}
+		String refresh = environmentSubstitute(meta.getPreloadRefresh());
+		long refreshSeconds = Const.toLong(refresh, -1);
+		if(!Const.isEmpty(refresh) && refreshSeconds < 1)
+		{
+			logError(BaseMessages.getString(PKG, "RedisInput.Error.InvalidPreloadRefresh", refresh));
+			return false;
+		}
+		boolean hash = RedisInputMeta.PRELOAD_SOURCE_HASH.equals(meta.getPreloadSource());
+		String pattern = environmentSubstitute(hash ? meta.getPreloadHashKey() : meta.getPreloadPattern());
+		if(Const.isEmpty(pattern))
+		{
+			logError(BaseMessages.getString(PKG, hash ? "RedisInput.Error.NoPreloadHashKey" : "RedisInput.Error.NoPreloadPattern"));
+			return false;
+		}
+		try
+		{
+			// Each master of a cluster holds its own part of the keys, the hash is on the master of its slot
+			List<RedisPool> pools;
+			if(data.cluster==null)
+				pools = Collections.singletonList(getReadPool(data));
+			else if(hash)
+				pools = Collections.singletonList(data.cluster.getPool(pattern));
+			else
+				pools = data.cluster.getMasterPools();
+			RedisPreloader preloader = new RedisPreloader(pools, hash ? null : pattern, hash ? pattern : null, count, data.binary);
+			long start = System.currentTimeMillis();
+			RedisPreloadMap map = preloader.load();
+			if (log.isBasic())
+				logBasic(BaseMessages.getString(PKG, "RedisInput.Log.Preloaded", String.valueOf(map.size()),
+						String.valueOf(System.currentTimeMillis() - start),
+						String.valueOf(map.getEntryBytes()), String.valueOf(map.getIndexBytes())));
+			if(refreshSeconds > 0)
+				preloader.startRefresh(refreshSeconds * 1000, log, getStepname() + " preload");
+			data.preloader = preloader;
+			return true;
+		}
+		catch(Exception e)
+		{
+			logError(BaseMessages.getString(PKG, "RedisInput.Error.Preload", data.endpoint.toString()), e);
+			return false;
+		}
+	}
+	
+	/**
+	 * Gets the pool the next lookup reads from : a replica when the reads are spread over the replicas,
+	 * the pool of the server otherwise
+	 */
+	private RedisPool getReadPool(RedisInputData data)
+	{
+		if(data.replicas!=null)
+			return data.replicas.getReadPool();
+		return data.pool;
+	}
+	
+	/**
+	 * Gives the pipelined connection back to the pool.
+	 * A connection with unread replies can't be reused, so it is returned as broken.
+	 */
+	private void releasePipeline(RedisInputData data, boolean failed)
+	{
+		if(data.pipelineClient==null)
+			return;
+		if(data.pipelinePool!=null)
+		{
+			if(failed || (data.pipeline!=null && data.pipeline.getPendingCount() > 0))
+				data.pipelinePool.returnBrokenResource(data.pipelineClient);
+			else
+				data.pipelinePool.returnResource(data.pipelineClient);
 		}
+		data.pipelinePool = null;
+		data.pipelineClient = null;
+		data.pipeline = null;
 	}
 }
\ No newline at end of file
@@ -21,10 +21,24 @@
  ******************************************************************************/
 package com.linalis.pdi.steps.redisInput;
 
+import java.util.HashMap;
+import java.util.List;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
+import com.linalis.pdi.steps.redis.RedisClusterRouter;
+import com.linalis.pdi.steps.redis.RedisEndpoint;
+import com.linalis.pdi.steps.redis.RedisKeyEncoder;
+import com.linalis.pdi.steps.redis.RedisPool;
+import com.linalis.pdi.steps.redis.RedisReadRouter;
+import com.linalis.pdi.steps.redis.RedisValueCodec;
+
 /**
  * @author Matt Burgess
  * @author (redis version) Dani Remeseiro
@@ -35,6 +49,180 @@ public class RedisInputData extends BaseStepData implements StepDataInterface {
 
 	protected boolean noInputRow = false;
 	
+	/**
+	 * Position of the key field in the input rows, -1 for the fixed key,
+	 * and position of the value field, -1 when it is added after the input fields
+	 */
+	protected int keyFieldIndex = -1;
+	protected int valueFieldIndex = -1;
+	protected int inputSize = 0;
+	
+	/**
+	 * Server the step reads from, and its shared connection pool
+	 */
+	protected RedisEndpoint endpoint;
+	protected RedisPool pool;
+	
+	/**
+	 * Routes the keys to the nodes of a Redis Cluster, null when the server is a single node.
+	 * The pool is then null.
+	 */
+	protected RedisClusterRouter cluster;
+	
+	/**
+	 * Spreads the lookups over the replicas of the server, null when they are all sent to the server.
+	 * The pool is then the pool of the master.
+	 */
+	protected RedisReadRouter replicas;
+	
+	/**
+	 * True when the values are read and output as byte[], without charset conversion
+	 */
+	protected boolean binary = false;
+	
+	/**
+	 * Decompresses the values, null when they are read as they are. The values are then read as byte[],
+	 * and given to the rows as strings when stringValues is true.
+	 */
+	protected RedisValueCodec codec;
+	protected boolean stringValues = false;
+	
+	/**
+	 * Encodes the keys of the binary reads into buffers reused from one row to the next, one per key of a batch
+	 */
+	protected RedisKeyEncoder keyEncoder;
+	
+	/**
+	 * Number of rows resolved with a single MGET, 1 meaning one GET per row
+	 */
+	protected int batchSize = 1;
+	
+	/**
+	 * Rows waiting for their MGET, in input order, and their keys
+	 */
+	protected Object[][] batchRows;
+	protected String[] batchKeys;
+	protected int batchCount = 0;
+	
+	/**
+	 * Values of the batched rows already resolved by the local cache, their key is not fetched
+	 */
+	protected Object[] batchValues;
+	
+	/**
+	 * Position of the key of each batched row among the distinct keys of the batch, and these keys
+	 */
+	protected int[] batchKeyIndexes;
+	protected String[] batchUniqueKeys;
+	
+	/**
+	 * Open addressing table of the rows of the batch, by key : the position of the first row of each key plus one,
+	 * 0 for a free slot. Its size is a power of two, at least twice the batch size.
+	 */
+	protected int[] batchKeyTable;
+	
+	/**
+	 * Lua script run on each batch of keys, its SHA1 digest on the server, null when no script is run,
+	 * its arguments, and the position of the fields receiving its reply, null for the value field
+	 */
+	protected String script;
+	protected String scriptSha;
+	protected List<String> scriptArgs;
+	protected int[] scriptFieldIndexes;
+	
+	/**
+	 * Number of pipelined GETs kept in flight, 0 when the lookups are not pipelined
+	 */
+	protected int windowSize = 0;
+	
+	/**
+	 * Connection held during the whole pipelined lookup, the pool it comes from, and its pipeline
+	 */
+	protected RedisPool pipelinePool;
+	protected Jedis pipelineClient;
+	protected RedisLookupPipeline pipeline;
+	
+	/**
+	 * Rows waiting for their pipelined reply, in input order, stored as a ring buffer,
+	 * and the key of the GET sent for them (null when no GET was sent : null key, or cached value)
+	 */
+	protected Object[][] windowRows;
+	protected String[] windowKeys;
+	protected Object[] windowValues;
+	protected int windowHead = 0;
+	protected int windowCount = 0;
+	
+	/**
+	 * True for the rows of the window whose GET was sent, false for the ones waiting for the reply of an earlier row
+	 * with the same key. For each key of the window, the number of rows waiting for its value, and its value once received.
+	 */
+	protected boolean[] windowSent;
+	protected HashMap<String, int[]> windowPending;
+	protected HashMap<String, Object> windowReplies;
+	
+	/**
+	 * Local cache of the fetched values, null when disabled
+	 */
+	protected RedisNearCache cache;
+	
+	/**
+	 * Keys recently found missing, null when misses are not remembered
+	 */
+	protected RedisMissCache missCache;
+	
+	/**
+	 * Number of lookups answered by the request of another row with the same key
+	 */
+	protected long coalescedLookups = 0;
+	
+	/**
+	 * Dimension loaded in memory at init, answering all the lookups, null when the keys are read from the server
+	 */
+	protected RedisPreloader preloader;
+	
+	/**
+	 * Keyspace reader : SCAN options, and cursor of the next page, null when the keyspace is not scanned
+	 */
+	protected ScanParams scanParams;
+	protected String scanCursor;
+	
+	/**
+	 * Pools of the servers scanned one after the other, the masters of a cluster given to this copy of the step,
+	 * and the one being scanned
+	 */
+	protected List<RedisPool> scanPools;
+	protected int scanPoolIndex = 0;
+	
+	/**
+	 * Position of the key and of the value in the generated rows
+	 */
+	protected int scanKeyIndex;
+	protected int scanValueIndex;
+	
+	/**
+	 * Type of the values read from the keys, the structures other than strings are read page by page
+	 */
+	protected String valueType;
+	protected int pageSize;
+	protected ScanParams structureScanParams;
+	protected String scoreMin;
+	protected String scoreMax;
+	
+	/**
+	 * Hash fields read with HMGET, with their position and type in the output rows
+	 */
+	protected String[] hashFields;
+	protected int[] hashFieldIndexes;
+	protected ValueMetaInterface[] hashFieldMetas;
+	protected ValueMetaInterface stringMeta;
+	
+	/**
+	 * Position of the element, of the hash field name and of the score in the output rows, -1 if not output
+	 */
+	protected int valueIndex;
+	protected int entryNameIndex;
+	protected int scoreIndex;
+	
 	public RedisInputData() {
 		super();
 	}
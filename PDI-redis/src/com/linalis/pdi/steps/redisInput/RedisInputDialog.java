@@ -23,6 +23,8 @@ package com.linalis.pdi.steps.redisInput;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CCombo;
+import org.eclipse.swt.custom.CTabFolder;
+import org.eclipse.swt.custom.CTabItem;
 import org.eclipse.swt.events.FocusListener;
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
@@ -35,20 +37,27 @@ import org.eclipse.swt.layout.FormAttachment;
 import org.eclipse.swt.layout.FormData;
 import org.eclipse.swt.layout.FormLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.Props;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaFactory;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStepMeta;
 import org.pentaho.di.trans.step.StepDialogInterface;
 import org.pentaho.di.ui.core.dialog.ErrorDialog;
+import org.pentaho.di.ui.core.widget.ColumnInfo;
+import org.pentaho.di.ui.core.widget.PasswordTextVar;
+import org.pentaho.di.ui.core.widget.TableView;
 import org.pentaho.di.ui.core.widget.TextVar;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
 
@@ -67,9 +76,96 @@ public class RedisInputDialog extends BaseStepDialog implements
 	private Label wlPort;
 	private TextVar  wPort;
 	private FormData fdlPort, fdPort;
+	private Label wlPassword;
+	private PasswordTextVar  wPassword;
+	private FormData fdlPassword, fdPassword;
 	private Label wlBase;
 	private TextVar  wBase;
 	private FormData fdlBase, fdBase;
+	private Label wlLookupMode;
+	private CCombo wLookupMode;
+	private FormData fdlLookupMode, fdLookupMode;
+	private Label wlBatchSize;
+	private TextVar  wBatchSize;
+	private FormData fdlBatchSize, fdBatchSize;
+	private Label wlWindowSize;
+	private TextVar  wWindowSize;
+	private FormData fdlWindowSize, fdWindowSize;
+	private Label wlScanPattern;
+	private TextVar  wScanPattern;
+	private FormData fdlScanPattern, fdScanPattern;
+	private Label wlScanCount;
+	private TextVar  wScanCount;
+	private FormData fdlScanCount, fdScanCount;
+	private Label wlKeyOutputField;
+	private Text wKeyOutputField;
+	private FormData fdlKeyOutputField, fdKeyOutputField;
+	private Label wlValueType;
+	private CCombo wValueType;
+	private FormData fdlValueType, fdValueType;
+	private Label wlPageSize;
+	private TextVar  wPageSize;
+	private FormData fdlPageSize, fdPageSize;
+	private Label wlScoreMin;
+	private TextVar  wScoreMin;
+	private FormData fdlScoreMin, fdScoreMin;
+	private Label wlScoreMax;
+	private TextVar  wScoreMax;
+	private FormData fdlScoreMax, fdScoreMax;
+	private Label wlScoreField;
+	private Text wScoreField;
+	private FormData fdlScoreField, fdScoreField;
+	private Label wlEntryNameField;
+	private Text wEntryNameField;
+	private FormData fdlEntryNameField, fdEntryNameField;
+	private Label wlHashFields;
+	private TableView wHashFields;
+	private FormData fdlHashFields, fdHashFields;
+	private Label wlScriptArgs;
+	private TextVar wScriptArgs;
+	private FormData fdlScriptArgs, fdScriptArgs;
+	private Label wlScriptFields;
+	private Text wScriptFields;
+	private FormData fdlScriptFields, fdScriptFields;
+	private Label wlPreload;
+	private Button wPreload;
+	private FormData fdlPreload, fdPreload;
+	private Label wlPreloadSource;
+	private CCombo wPreloadSource;
+	private FormData fdlPreloadSource, fdPreloadSource;
+	private Label wlPreloadPattern;
+	private TextVar wPreloadPattern;
+	private FormData fdlPreloadPattern, fdPreloadPattern;
+	private Label wlPreloadHashKey;
+	private TextVar wPreloadHashKey;
+	private FormData fdlPreloadHashKey, fdPreloadHashKey;
+	private Label wlPreloadRefresh;
+	private TextVar wPreloadRefresh;
+	private FormData fdlPreloadRefresh, fdPreloadRefresh;
+	private Label wlScript;
+	private Text wScript;
+	private FormData fdlScript, fdScript;
+	private Label wlCacheEnabled;
+	private Button wCacheEnabled;
+	private FormData fdlCacheEnabled, fdCacheEnabled;
+	private Label wlCacheEviction;
+	private CCombo wCacheEviction;
+	private FormData fdlCacheEviction, fdCacheEviction;
+	private Label wlCacheMaxEntries;
+	private TextVar  wCacheMaxEntries;
+	private FormData fdlCacheMaxEntries, fdCacheMaxEntries;
+	private Label wlCacheMaxBytes;
+	private TextVar  wCacheMaxBytes;
+	private FormData fdlCacheMaxBytes, fdCacheMaxBytes;
+	private Label wlCacheTtl;
+	private TextVar  wCacheTtl;
+	private FormData fdlCacheTtl, fdCacheTtl;
+	private Label wlMissCacheTtl;
+	private TextVar  wMissCacheTtl;
+	private FormData fdlMissCacheTtl, fdMissCacheTtl;
+	private Label wlMissCacheMaxEntries;
+	private TextVar  wMissCacheMaxEntries;
+	private FormData fdlMissCacheMaxEntries, fdMissCacheMaxEntries;
 	private Label wlKey;
 	private Text wKey;
 	private FormData fdlKey, fdKey;
@@ -82,6 +178,53 @@ public class RedisInputDialog extends BaseStepDialog implements
 	private Label wlValueField;
 	private Text wValueField;
 	private FormData fdlValueField, fdValueField;
+	private Label wlBinaryValue;
+	private Button wBinaryValue;
+	private FormData fdlBinaryValue, fdBinaryValue;
+	private Label wlCodec;
+	private CCombo wCodec;
+	private FormData fdlCodec, fdCodec;
+	private Label wlPoolMaxTotal;
+	private TextVar  wPoolMaxTotal;
+	private FormData fdlPoolMaxTotal, fdPoolMaxTotal;
+	private Label wlPoolMaxIdle;
+	private TextVar  wPoolMaxIdle;
+	private FormData fdlPoolMaxIdle, fdPoolMaxIdle;
+	private Label wlPoolMinIdle;
+	private TextVar  wPoolMinIdle;
+	private FormData fdlPoolMinIdle, fdPoolMinIdle;
+	private Label wlPoolMaxWait;
+	private TextVar  wPoolMaxWait;
+	private FormData fdlPoolMaxWait, fdPoolMaxWait;
+	private Label wlConnectTimeout;
+	private TextVar  wConnectTimeout;
+	private FormData fdlConnectTimeout, fdConnectTimeout;
+	private Label wlSocketTimeout;
+	private TextVar  wSocketTimeout;
+	private FormData fdlSocketTimeout, fdSocketTimeout;
+	private Label wlTestOnBorrow;
+	private Button wTestOnBorrow;
+	private FormData fdlTestOnBorrow, fdTestOnBorrow;
+	private Label wlClusterMode;
+	private Button wClusterMode;
+	private FormData fdlClusterMode, fdClusterMode;
+	private Label wlReadRouting;
+	private CCombo wReadRouting;
+	private FormData fdlReadRouting, fdReadRouting;
+	private Label wlReplicaHosts;
+	private TextVar wReplicaHosts;
+	private FormData fdlReplicaHosts, fdReplicaHosts;
+	private Label wlSentinelHosts;
+	private TextVar wSentinelHosts;
+	private FormData fdlSentinelHosts, fdSentinelHosts;
+	private Label wlSentinelMaster;
+	private TextVar wSentinelMaster;
+	private FormData fdlSentinelMaster, fdSentinelMaster;
+	private CTabFolder wTabFolder;
+	private FormData fdTabFolder;
+	private CTabItem wGeneralTab, wLookupTab, wStructureTab, wPoolTab, wReplicasTab, wScriptTab, wPreloadTab;
+	private Composite wGeneralComp, wLookupComp, wStructureComp, wPoolComp, wReplicasComp, wScriptComp, wPreloadComp;
+	private FormData fdGeneralComp, fdLookupComp, fdStructureComp, fdPoolComp, fdReplicasComp, fdScriptComp, fdPreloadComp;
 
 	public RedisInputDialog(Shell parent, Object in, TransMeta tr, String sname) {
 		super(parent, (BaseStepMeta) in, tr, sname);
@@ -128,27 +271,39 @@ public class RedisInputDialog extends BaseStepDialog implements
 		fdStepname.top = new FormAttachment(0, margin);
 		fdStepname.right = new FormAttachment(100, 0);
 		wStepname.setLayoutData(fdStepname);
+		wTabFolder = new CTabFolder(shell, SWT.BORDER);
+		props.setLook(wTabFolder, Props.WIDGET_STYLE_TAB);
+
+		// General tab
+		wGeneralTab = new CTabItem(wTabFolder, SWT.NONE);
+		wGeneralTab.setText(BaseMessages.getString(PKG, "RedisInputDialog.GeneralTab.Title"));
+		wGeneralComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wGeneralComp);
+		FormLayout generalLayout = new FormLayout();
+		generalLayout.marginWidth = 3;
+		generalLayout.marginHeight = 3;
+		wGeneralComp.setLayout(generalLayout);
 		// Hostname
-		wlHostname = new Label(shell, SWT.RIGHT);
+		wlHostname = new Label(wGeneralComp, SWT.RIGHT);
 		wlHostname.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.Hostname.Label"));
 		props.setLook(wlHostname);
 		fdlHostname = new FormData();
 		fdlHostname.left = new FormAttachment(0, 0);
 		fdlHostname.right = new FormAttachment(middle, -margin);
-		fdlHostname.top = new FormAttachment(wStepname, margin);
+		fdlHostname.top = new FormAttachment(0, margin);
 		wlHostname.setLayoutData(fdlHostname);
-		wHostname = new TextVar(transMeta, shell, SWT.SINGLE | SWT.LEFT
+		wHostname = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
 				| SWT.BORDER);
 		props.setLook(wHostname);
 		wHostname.addModifyListener(lsMod);
 		fdHostname = new FormData();
 		fdHostname.left = new FormAttachment(middle, 0);
-		fdHostname.top = new FormAttachment(wStepname, margin);
+		fdHostname.top = new FormAttachment(0, margin);
 		fdHostname.right = new FormAttachment(100, 0);
 		wHostname.setLayoutData(fdHostname);
 		// Port
-		wlPort = new Label(shell, SWT.RIGHT);
+		wlPort = new Label(wGeneralComp, SWT.RIGHT);
 		wlPort.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.Port.Label"));
 		props.setLook(wlPort);
@@ -157,7 +312,7 @@ public class RedisInputDialog extends BaseStepDialog implements
 		fdlPort.right = new FormAttachment(middle, -margin);
 		fdlPort.top = new FormAttachment(wHostname, margin);
 		wlPort.setLayoutData(fdlPort);
-		wPort = new TextVar(transMeta, shell, SWT.SINGLE | SWT.LEFT
+		wPort = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
 				| SWT.BORDER);
 		props.setLook(wPort);
 		wPort.addModifyListener(lsMod);
@@ -166,27 +321,46 @@ public class RedisInputDialog extends BaseStepDialog implements
 		fdPort.top = new FormAttachment(wHostname, margin);
 		fdPort.right = new FormAttachment(100, 0);
 		wPort.setLayoutData(fdPort);
+		// Password
+		wlPassword = new Label(wGeneralComp, SWT.RIGHT);
+		wlPassword.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.Password.Label"));
+		props.setLook(wlPassword);
+		fdlPassword = new FormData();
+		fdlPassword.left = new FormAttachment(0, 0);
+		fdlPassword.right = new FormAttachment(middle, -margin);
+		fdlPassword.top = new FormAttachment(wPort, margin);
+		wlPassword.setLayoutData(fdlPassword);
+		wPassword = new PasswordTextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPassword);
+		wPassword.addModifyListener(lsMod);
+		fdPassword = new FormData();
+		fdPassword.left = new FormAttachment(middle, 0);
+		fdPassword.top = new FormAttachment(wPort, margin);
+		fdPassword.right = new FormAttachment(100, 0);
+		wPassword.setLayoutData(fdPassword);
 		// Base
-		wlBase = new Label(shell, SWT.RIGHT);
+		wlBase = new Label(wGeneralComp, SWT.RIGHT);
 		wlBase.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.Base.Label"));
 		props.setLook(wlBase);
 		fdlBase = new FormData();
 		fdlBase.left = new FormAttachment(0, 0);
 		fdlBase.right = new FormAttachment(middle, -margin);
-		fdlBase.top = new FormAttachment(wPort, margin);
+		fdlBase.top = new FormAttachment(wPassword, margin);
 		wlBase.setLayoutData(fdlBase);
-		wBase = new TextVar(transMeta, shell, SWT.SINGLE | SWT.LEFT
+		wBase = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
 				| SWT.BORDER);
 		props.setLook(wBase);
 		wBase.addModifyListener(lsMod);
 		fdBase = new FormData();
 		fdBase.left = new FormAttachment(middle, 0);
-		fdBase.top = new FormAttachment(wPort, margin);
+		fdBase.top = new FormAttachment(wPassword, margin);
 		fdBase.right = new FormAttachment(100, 0);
 		wBase.setLayoutData(fdBase);
 		// Key
-		wlKey = new Label(shell, SWT.RIGHT);
+		wlKey = new Label(wGeneralComp, SWT.RIGHT);
 		wlKey.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.Key.Label"));
 		props.setLook(wlKey);
@@ -195,7 +369,7 @@ public class RedisInputDialog extends BaseStepDialog implements
 		fdlKey.right = new FormAttachment(middle, -margin);
 		fdlKey.top = new FormAttachment(wBase, margin);
 		wlKey.setLayoutData(fdlKey);
-		wKey = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		wKey = new Text(wGeneralComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
 		props.setLook(wKey);
 		wKey.addModifyListener(lsMod);
 		fdKey = new FormData();
@@ -204,7 +378,7 @@ public class RedisInputDialog extends BaseStepDialog implements
 		fdKey.right = new FormAttachment(100, 0);
 		wKey.setLayoutData(fdKey);
 		// Key field check
-		wlKeyFieldCheck = new Label(shell, SWT.RIGHT);
+		wlKeyFieldCheck = new Label(wGeneralComp, SWT.RIGHT);
 		wlKeyFieldCheck.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.KeyFieldCheck.Label"));
 		props.setLook(wlKeyFieldCheck);
@@ -213,7 +387,7 @@ public class RedisInputDialog extends BaseStepDialog implements
 		fdlKeyFieldCheck.right = new FormAttachment(middle, -margin);
 		fdlKeyFieldCheck.top = new FormAttachment(wKey, margin);
 		wlKeyFieldCheck.setLayoutData(fdlKeyFieldCheck);
-		wKeyFieldCheck = new Button(shell, SWT.CHECK);
+		wKeyFieldCheck = new Button(wGeneralComp, SWT.CHECK);
 		props.setLook(wKeyFieldCheck);
 		fdKeyFieldCheck = new FormData();
 		fdKeyFieldCheck.left = new FormAttachment(middle, 0);
@@ -244,7 +418,7 @@ public class RedisInputDialog extends BaseStepDialog implements
 		    };
 		wKeyFieldCheck.addSelectionListener( lsxKeyFieldCheck );
 		// Key field combo
-		wlKeyFieldCombo = new Label(shell, SWT.RIGHT);
+		wlKeyFieldCombo = new Label(wGeneralComp, SWT.RIGHT);
 		wlKeyFieldCombo.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.KeyField.Label"));
 		props.setLook(wlKeyFieldCombo);
@@ -253,7 +427,7 @@ public class RedisInputDialog extends BaseStepDialog implements
 		fdlKeyFieldCombo.right = new FormAttachment(middle, -margin);
 		fdlKeyFieldCombo.top = new FormAttachment(wKeyFieldCheck, margin);
 		wlKeyFieldCombo.setLayoutData(fdlKeyFieldCombo);
-		wKeyFieldCombo = new CCombo(shell, SWT.BORDER | SWT.READ_ONLY);
+		wKeyFieldCombo = new CCombo(wGeneralComp, SWT.BORDER | SWT.READ_ONLY);
 		props.setLook(wKeyFieldCombo);
 		wKeyFieldCombo.addModifyListener(lsMod);
 		fdKeyFieldCombo = new FormData();
@@ -274,7 +448,7 @@ public class RedisInputDialog extends BaseStepDialog implements
 			}
 		});
 		// Value field
-		wlValueField = new Label(shell, SWT.RIGHT);
+		wlValueField = new Label(wGeneralComp, SWT.RIGHT);
 		wlValueField.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.ValueField.Label"));
 		props.setLook(wlValueField);
@@ -283,7 +457,7 @@ public class RedisInputDialog extends BaseStepDialog implements
 		fdlValueField.right = new FormAttachment(middle, -margin);
 		fdlValueField.top = new FormAttachment(wKeyFieldCombo, margin);
 		wlValueField.setLayoutData(fdlValueField);
-		wValueField = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		wValueField = new Text(wGeneralComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
 		props.setLook(wValueField);
 		wValueField.addModifyListener(lsMod);
 		fdValueField = new FormData();
@@ -291,13 +465,972 @@ public class RedisInputDialog extends BaseStepDialog implements
 		fdValueField.top = new FormAttachment(wKeyFieldCombo, margin);
 		fdValueField.right = new FormAttachment(100, 0);
 		wValueField.setLayoutData(fdValueField);
+		// Binary value
+		wlBinaryValue = new Label(wGeneralComp, SWT.RIGHT);
+		wlBinaryValue.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.BinaryValue.Label"));
+		props.setLook(wlBinaryValue);
+		fdlBinaryValue = new FormData();
+		fdlBinaryValue.left = new FormAttachment(0, 0);
+		fdlBinaryValue.right = new FormAttachment(middle, -margin);
+		fdlBinaryValue.top = new FormAttachment(wValueField, margin);
+		wlBinaryValue.setLayoutData(fdlBinaryValue);
+		wBinaryValue = new Button(wGeneralComp, SWT.CHECK);
+		props.setLook(wBinaryValue);
+		fdBinaryValue = new FormData();
+		fdBinaryValue.left = new FormAttachment(middle, 0);
+		fdBinaryValue.top = new FormAttachment(wValueField, margin);
+		fdBinaryValue.right = new FormAttachment(100, 0);
+		wBinaryValue.setLayoutData(fdBinaryValue);
+		wBinaryValue.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		// Compression of the values
+		wlCodec = new Label(wGeneralComp, SWT.RIGHT);
+		wlCodec.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.Codec.Label"));
+		props.setLook(wlCodec);
+		fdlCodec = new FormData();
+		fdlCodec.left = new FormAttachment(0, 0);
+		fdlCodec.right = new FormAttachment(middle, -margin);
+		fdlCodec.top = new FormAttachment(wBinaryValue, margin);
+		wlCodec.setLayoutData(fdlCodec);
+		wCodec = new CCombo(wGeneralComp, SWT.BORDER | SWT.READ_ONLY);
+		wCodec.setItems(RedisInputMeta.codecDescs);
+		props.setLook(wCodec);
+		wCodec.addModifyListener(lsMod);
+		fdCodec = new FormData();
+		fdCodec.left = new FormAttachment(middle, 0);
+		fdCodec.top = new FormAttachment(wBinaryValue, margin);
+		fdCodec.right = new FormAttachment(100, 0);
+		wCodec.setLayoutData(fdCodec);
+		fdGeneralComp = new FormData();
+		fdGeneralComp.left = new FormAttachment(0, 0);
+		fdGeneralComp.top = new FormAttachment(0, 0);
+		fdGeneralComp.right = new FormAttachment(100, 0);
+		fdGeneralComp.bottom = new FormAttachment(100, 0);
+		wGeneralComp.setLayoutData(fdGeneralComp);
+		wGeneralComp.layout();
+		wGeneralTab.setControl(wGeneralComp);
+
+		// Lookup tab
+		wLookupTab = new CTabItem(wTabFolder, SWT.NONE);
+		wLookupTab.setText(BaseMessages.getString(PKG, "RedisInputDialog.LookupTab.Title"));
+		wLookupComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wLookupComp);
+		FormLayout lookupLayout = new FormLayout();
+		lookupLayout.marginWidth = 3;
+		lookupLayout.marginHeight = 3;
+		wLookupComp.setLayout(lookupLayout);
+		// Lookup mode
+		wlLookupMode = new Label(wLookupComp, SWT.RIGHT);
+		wlLookupMode.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.LookupMode.Label"));
+		props.setLook(wlLookupMode);
+		fdlLookupMode = new FormData();
+		fdlLookupMode.left = new FormAttachment(0, 0);
+		fdlLookupMode.right = new FormAttachment(middle, -margin);
+		fdlLookupMode.top = new FormAttachment(0, margin);
+		wlLookupMode.setLayoutData(fdlLookupMode);
+		wLookupMode = new CCombo(wLookupComp, SWT.BORDER | SWT.READ_ONLY);
+		wLookupMode.setItems(RedisInputMeta.lookupModeDescs);
+		props.setLook(wLookupMode);
+		wLookupMode.addModifyListener(lsMod);
+		fdLookupMode = new FormData();
+		fdLookupMode.left = new FormAttachment(middle, 0);
+		fdLookupMode.top = new FormAttachment(0, margin);
+		fdLookupMode.right = new FormAttachment(100, 0);
+		wLookupMode.setLayoutData(fdLookupMode);
+		wLookupMode.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				setLookupModeFlags();
+			}
+		});
+		// Batch size
+		wlBatchSize = new Label(wLookupComp, SWT.RIGHT);
+		wlBatchSize.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.BatchSize.Label"));
+		props.setLook(wlBatchSize);
+		fdlBatchSize = new FormData();
+		fdlBatchSize.left = new FormAttachment(0, 0);
+		fdlBatchSize.right = new FormAttachment(middle, -margin);
+		fdlBatchSize.top = new FormAttachment(wLookupMode, margin);
+		wlBatchSize.setLayoutData(fdlBatchSize);
+		wBatchSize = new TextVar(transMeta, wLookupComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wBatchSize);
+		wBatchSize.addModifyListener(lsMod);
+		fdBatchSize = new FormData();
+		fdBatchSize.left = new FormAttachment(middle, 0);
+		fdBatchSize.top = new FormAttachment(wLookupMode, margin);
+		fdBatchSize.right = new FormAttachment(100, 0);
+		wBatchSize.setLayoutData(fdBatchSize);
+		// Pipeline window size
+		wlWindowSize = new Label(wLookupComp, SWT.RIGHT);
+		wlWindowSize.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.WindowSize.Label"));
+		props.setLook(wlWindowSize);
+		fdlWindowSize = new FormData();
+		fdlWindowSize.left = new FormAttachment(0, 0);
+		fdlWindowSize.right = new FormAttachment(middle, -margin);
+		fdlWindowSize.top = new FormAttachment(wBatchSize, margin);
+		wlWindowSize.setLayoutData(fdlWindowSize);
+		wWindowSize = new TextVar(transMeta, wLookupComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wWindowSize);
+		wWindowSize.addModifyListener(lsMod);
+		fdWindowSize = new FormData();
+		fdWindowSize.left = new FormAttachment(middle, 0);
+		fdWindowSize.top = new FormAttachment(wBatchSize, margin);
+		fdWindowSize.right = new FormAttachment(100, 0);
+		wWindowSize.setLayoutData(fdWindowSize);
+		// Scan pattern
+		wlScanPattern = new Label(wLookupComp, SWT.RIGHT);
+		wlScanPattern.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ScanPattern.Label"));
+		props.setLook(wlScanPattern);
+		fdlScanPattern = new FormData();
+		fdlScanPattern.left = new FormAttachment(0, 0);
+		fdlScanPattern.right = new FormAttachment(middle, -margin);
+		fdlScanPattern.top = new FormAttachment(wWindowSize, margin);
+		wlScanPattern.setLayoutData(fdlScanPattern);
+		wScanPattern = new TextVar(transMeta, wLookupComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wScanPattern);
+		wScanPattern.addModifyListener(lsMod);
+		fdScanPattern = new FormData();
+		fdScanPattern.left = new FormAttachment(middle, 0);
+		fdScanPattern.top = new FormAttachment(wWindowSize, margin);
+		fdScanPattern.right = new FormAttachment(100, 0);
+		wScanPattern.setLayoutData(fdScanPattern);
+		// Scan count
+		wlScanCount = new Label(wLookupComp, SWT.RIGHT);
+		wlScanCount.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ScanCount.Label"));
+		props.setLook(wlScanCount);
+		fdlScanCount = new FormData();
+		fdlScanCount.left = new FormAttachment(0, 0);
+		fdlScanCount.right = new FormAttachment(middle, -margin);
+		fdlScanCount.top = new FormAttachment(wScanPattern, margin);
+		wlScanCount.setLayoutData(fdlScanCount);
+		wScanCount = new TextVar(transMeta, wLookupComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wScanCount);
+		wScanCount.addModifyListener(lsMod);
+		fdScanCount = new FormData();
+		fdScanCount.left = new FormAttachment(middle, 0);
+		fdScanCount.top = new FormAttachment(wScanPattern, margin);
+		fdScanCount.right = new FormAttachment(100, 0);
+		wScanCount.setLayoutData(fdScanCount);
+		// Key output field
+		wlKeyOutputField = new Label(wLookupComp, SWT.RIGHT);
+		wlKeyOutputField.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.KeyOutputField.Label"));
+		props.setLook(wlKeyOutputField);
+		fdlKeyOutputField = new FormData();
+		fdlKeyOutputField.left = new FormAttachment(0, 0);
+		fdlKeyOutputField.right = new FormAttachment(middle, -margin);
+		fdlKeyOutputField.top = new FormAttachment(wScanCount, margin);
+		wlKeyOutputField.setLayoutData(fdlKeyOutputField);
+		wKeyOutputField = new Text(wLookupComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		props.setLook(wKeyOutputField);
+		wKeyOutputField.addModifyListener(lsMod);
+		fdKeyOutputField = new FormData();
+		fdKeyOutputField.left = new FormAttachment(middle, 0);
+		fdKeyOutputField.top = new FormAttachment(wScanCount, margin);
+		fdKeyOutputField.right = new FormAttachment(100, 0);
+		wKeyOutputField.setLayoutData(fdKeyOutputField);
+		// Local cache
+		wlCacheEnabled = new Label(wLookupComp, SWT.RIGHT);
+		wlCacheEnabled.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.CacheEnabled.Label"));
+		props.setLook(wlCacheEnabled);
+		fdlCacheEnabled = new FormData();
+		fdlCacheEnabled.left = new FormAttachment(0, 0);
+		fdlCacheEnabled.right = new FormAttachment(middle, -margin);
+		fdlCacheEnabled.top = new FormAttachment(wKeyOutputField, margin);
+		wlCacheEnabled.setLayoutData(fdlCacheEnabled);
+		wCacheEnabled = new Button(wLookupComp, SWT.CHECK);
+		props.setLook(wCacheEnabled);
+		fdCacheEnabled = new FormData();
+		fdCacheEnabled.left = new FormAttachment(middle, 0);
+		fdCacheEnabled.top = new FormAttachment(wKeyOutputField, margin);
+		fdCacheEnabled.right = new FormAttachment(100, 0);
+		wCacheEnabled.setLayoutData(fdCacheEnabled);
+		wCacheEnabled.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				setCacheFlags();
+				input.setChanged();
+			}
+		});
+		// Cache eviction policy
+		wlCacheEviction = new Label(wLookupComp, SWT.RIGHT);
+		wlCacheEviction.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.CacheEviction.Label"));
+		props.setLook(wlCacheEviction);
+		fdlCacheEviction = new FormData();
+		fdlCacheEviction.left = new FormAttachment(0, 0);
+		fdlCacheEviction.right = new FormAttachment(middle, -margin);
+		fdlCacheEviction.top = new FormAttachment(wCacheEnabled, margin);
+		wlCacheEviction.setLayoutData(fdlCacheEviction);
+		wCacheEviction = new CCombo(wLookupComp, SWT.BORDER | SWT.READ_ONLY);
+		wCacheEviction.setItems(RedisInputMeta.cacheEvictionDescs);
+		props.setLook(wCacheEviction);
+		wCacheEviction.addModifyListener(lsMod);
+		fdCacheEviction = new FormData();
+		fdCacheEviction.left = new FormAttachment(middle, 0);
+		fdCacheEviction.top = new FormAttachment(wCacheEnabled, margin);
+		fdCacheEviction.right = new FormAttachment(100, 0);
+		wCacheEviction.setLayoutData(fdCacheEviction);
+		// Cache max entries
+		wlCacheMaxEntries = new Label(wLookupComp, SWT.RIGHT);
+		wlCacheMaxEntries.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.CacheMaxEntries.Label"));
+		props.setLook(wlCacheMaxEntries);
+		fdlCacheMaxEntries = new FormData();
+		fdlCacheMaxEntries.left = new FormAttachment(0, 0);
+		fdlCacheMaxEntries.right = new FormAttachment(middle, -margin);
+		fdlCacheMaxEntries.top = new FormAttachment(wCacheEviction, margin);
+		wlCacheMaxEntries.setLayoutData(fdlCacheMaxEntries);
+		wCacheMaxEntries = new TextVar(transMeta, wLookupComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wCacheMaxEntries);
+		wCacheMaxEntries.addModifyListener(lsMod);
+		fdCacheMaxEntries = new FormData();
+		fdCacheMaxEntries.left = new FormAttachment(middle, 0);
+		fdCacheMaxEntries.top = new FormAttachment(wCacheEviction, margin);
+		fdCacheMaxEntries.right = new FormAttachment(100, 0);
+		wCacheMaxEntries.setLayoutData(fdCacheMaxEntries);
+		// Cache max bytes
+		wlCacheMaxBytes = new Label(wLookupComp, SWT.RIGHT);
+		wlCacheMaxBytes.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.CacheMaxBytes.Label"));
+		props.setLook(wlCacheMaxBytes);
+		fdlCacheMaxBytes = new FormData();
+		fdlCacheMaxBytes.left = new FormAttachment(0, 0);
+		fdlCacheMaxBytes.right = new FormAttachment(middle, -margin);
+		fdlCacheMaxBytes.top = new FormAttachment(wCacheMaxEntries, margin);
+		wlCacheMaxBytes.setLayoutData(fdlCacheMaxBytes);
+		wCacheMaxBytes = new TextVar(transMeta, wLookupComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wCacheMaxBytes);
+		wCacheMaxBytes.addModifyListener(lsMod);
+		fdCacheMaxBytes = new FormData();
+		fdCacheMaxBytes.left = new FormAttachment(middle, 0);
+		fdCacheMaxBytes.top = new FormAttachment(wCacheMaxEntries, margin);
+		fdCacheMaxBytes.right = new FormAttachment(100, 0);
+		wCacheMaxBytes.setLayoutData(fdCacheMaxBytes);
+		// Cache time to live
+		wlCacheTtl = new Label(wLookupComp, SWT.RIGHT);
+		wlCacheTtl.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.CacheTtl.Label"));
+		props.setLook(wlCacheTtl);
+		fdlCacheTtl = new FormData();
+		fdlCacheTtl.left = new FormAttachment(0, 0);
+		fdlCacheTtl.right = new FormAttachment(middle, -margin);
+		fdlCacheTtl.top = new FormAttachment(wCacheMaxBytes, margin);
+		wlCacheTtl.setLayoutData(fdlCacheTtl);
+		wCacheTtl = new TextVar(transMeta, wLookupComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wCacheTtl);
+		wCacheTtl.addModifyListener(lsMod);
+		fdCacheTtl = new FormData();
+		fdCacheTtl.left = new FormAttachment(middle, 0);
+		fdCacheTtl.top = new FormAttachment(wCacheMaxBytes, margin);
+		fdCacheTtl.right = new FormAttachment(100, 0);
+		wCacheTtl.setLayoutData(fdCacheTtl);
+		// Time missing keys are remembered, empty to look them up every time
+		wlMissCacheTtl = new Label(wLookupComp, SWT.RIGHT);
+		wlMissCacheTtl.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.MissCacheTtl.Label"));
+		props.setLook(wlMissCacheTtl);
+		fdlMissCacheTtl = new FormData();
+		fdlMissCacheTtl.left = new FormAttachment(0, 0);
+		fdlMissCacheTtl.right = new FormAttachment(middle, -margin);
+		fdlMissCacheTtl.top = new FormAttachment(wCacheTtl, margin);
+		wlMissCacheTtl.setLayoutData(fdlMissCacheTtl);
+		wMissCacheTtl = new TextVar(transMeta, wLookupComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wMissCacheTtl);
+		wMissCacheTtl.addModifyListener(lsMod);
+		fdMissCacheTtl = new FormData();
+		fdMissCacheTtl.left = new FormAttachment(middle, 0);
+		fdMissCacheTtl.top = new FormAttachment(wCacheTtl, margin);
+		fdMissCacheTtl.right = new FormAttachment(100, 0);
+		wMissCacheTtl.setLayoutData(fdMissCacheTtl);
+		// Maximum number of missing keys remembered
+		wlMissCacheMaxEntries = new Label(wLookupComp, SWT.RIGHT);
+		wlMissCacheMaxEntries.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.MissCacheMaxEntries.Label"));
+		props.setLook(wlMissCacheMaxEntries);
+		fdlMissCacheMaxEntries = new FormData();
+		fdlMissCacheMaxEntries.left = new FormAttachment(0, 0);
+		fdlMissCacheMaxEntries.right = new FormAttachment(middle, -margin);
+		fdlMissCacheMaxEntries.top = new FormAttachment(wMissCacheTtl, margin);
+		wlMissCacheMaxEntries.setLayoutData(fdlMissCacheMaxEntries);
+		wMissCacheMaxEntries = new TextVar(transMeta, wLookupComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wMissCacheMaxEntries);
+		wMissCacheMaxEntries.addModifyListener(lsMod);
+		fdMissCacheMaxEntries = new FormData();
+		fdMissCacheMaxEntries.left = new FormAttachment(middle, 0);
+		fdMissCacheMaxEntries.top = new FormAttachment(wMissCacheTtl, margin);
+		fdMissCacheMaxEntries.right = new FormAttachment(100, 0);
+		wMissCacheMaxEntries.setLayoutData(fdMissCacheMaxEntries);
+		fdLookupComp = new FormData();
+		fdLookupComp.left = new FormAttachment(0, 0);
+		fdLookupComp.top = new FormAttachment(0, 0);
+		fdLookupComp.right = new FormAttachment(100, 0);
+		fdLookupComp.bottom = new FormAttachment(100, 0);
+		wLookupComp.setLayoutData(fdLookupComp);
+		wLookupComp.layout();
+		wLookupTab.setControl(wLookupComp);
+
+		// Script tab
+		wScriptTab = new CTabItem(wTabFolder, SWT.NONE);
+		wScriptTab.setText(BaseMessages.getString(PKG, "RedisInputDialog.ScriptTab.Title"));
+		wScriptComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wScriptComp);
+		FormLayout scriptLayout = new FormLayout();
+		scriptLayout.marginWidth = 3;
+		scriptLayout.marginHeight = 3;
+		wScriptComp.setLayout(scriptLayout);
+		// Arguments of the script, given as ARGV
+		wlScriptArgs = new Label(wScriptComp, SWT.RIGHT);
+		wlScriptArgs.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ScriptArgs.Label"));
+		props.setLook(wlScriptArgs);
+		fdlScriptArgs = new FormData();
+		fdlScriptArgs.left = new FormAttachment(0, 0);
+		fdlScriptArgs.right = new FormAttachment(middle, -margin);
+		fdlScriptArgs.top = new FormAttachment(0, margin);
+		wlScriptArgs.setLayoutData(fdlScriptArgs);
+		wScriptArgs = new TextVar(transMeta, wScriptComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wScriptArgs);
+		wScriptArgs.addModifyListener(lsMod);
+		fdScriptArgs = new FormData();
+		fdScriptArgs.left = new FormAttachment(middle, 0);
+		fdScriptArgs.top = new FormAttachment(0, margin);
+		fdScriptArgs.right = new FormAttachment(100, 0);
+		wScriptArgs.setLayoutData(fdScriptArgs);
+		// Fields receiving the elements of the reply of each key
+		wlScriptFields = new Label(wScriptComp, SWT.RIGHT);
+		wlScriptFields.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ScriptFields.Label"));
+		props.setLook(wlScriptFields);
+		fdlScriptFields = new FormData();
+		fdlScriptFields.left = new FormAttachment(0, 0);
+		fdlScriptFields.right = new FormAttachment(middle, -margin);
+		fdlScriptFields.top = new FormAttachment(wScriptArgs, margin);
+		wlScriptFields.setLayoutData(fdlScriptFields);
+		wScriptFields = new Text(wScriptComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		props.setLook(wScriptFields);
+		wScriptFields.addModifyListener(lsMod);
+		fdScriptFields = new FormData();
+		fdScriptFields.left = new FormAttachment(middle, 0);
+		fdScriptFields.top = new FormAttachment(wScriptArgs, margin);
+		fdScriptFields.right = new FormAttachment(100, 0);
+		wScriptFields.setLayoutData(fdScriptFields);
+		// Lua script, run on each batch of keys
+		wlScript = new Label(wScriptComp, SWT.NONE);
+		wlScript.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.Script.Label"));
+		props.setLook(wlScript);
+		fdlScript = new FormData();
+		fdlScript.left = new FormAttachment(0, 0);
+		fdlScript.top = new FormAttachment(wScriptFields, margin);
+		wlScript.setLayoutData(fdlScript);
+		wScript = new Text(wScriptComp, SWT.MULTI | SWT.LEFT | SWT.BORDER | SWT.H_SCROLL | SWT.V_SCROLL);
+		props.setLook(wScript, Props.WIDGET_STYLE_FIXED);
+		wScript.addModifyListener(lsMod);
+		fdScript = new FormData();
+		fdScript.left = new FormAttachment(0, 0);
+		fdScript.top = new FormAttachment(wlScript, margin);
+		fdScript.right = new FormAttachment(100, 0);
+		fdScript.bottom = new FormAttachment(100, -margin);
+		wScript.setLayoutData(fdScript);
+		fdScriptComp = new FormData();
+		fdScriptComp.left = new FormAttachment(0, 0);
+		fdScriptComp.top = new FormAttachment(0, 0);
+		fdScriptComp.right = new FormAttachment(100, 0);
+		fdScriptComp.bottom = new FormAttachment(100, 0);
+		wScriptComp.setLayoutData(fdScriptComp);
+		wScriptComp.layout();
+		wScriptTab.setControl(wScriptComp);
+
+		// Preload tab
+		wPreloadTab = new CTabItem(wTabFolder, SWT.NONE);
+		wPreloadTab.setText(BaseMessages.getString(PKG, "RedisInputDialog.PreloadTab.Title"));
+		wPreloadComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wPreloadComp);
+		FormLayout preloadLayout = new FormLayout();
+		preloadLayout.marginWidth = 3;
+		preloadLayout.marginHeight = 3;
+		wPreloadComp.setLayout(preloadLayout);
+		// Preload the dimension
+		wlPreload = new Label(wPreloadComp, SWT.RIGHT);
+		wlPreload.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.Preload.Label"));
+		props.setLook(wlPreload);
+		fdlPreload = new FormData();
+		fdlPreload.left = new FormAttachment(0, 0);
+		fdlPreload.right = new FormAttachment(middle, -margin);
+		fdlPreload.top = new FormAttachment(0, margin);
+		wlPreload.setLayoutData(fdlPreload);
+		wPreload = new Button(wPreloadComp, SWT.CHECK);
+		props.setLook(wPreload);
+		fdPreload = new FormData();
+		fdPreload.left = new FormAttachment(middle, 0);
+		fdPreload.top = new FormAttachment(0, margin);
+		fdPreload.right = new FormAttachment(100, 0);
+		wPreload.setLayoutData(fdPreload);
+		wPreload.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				setPreloadFlags();
+				input.setChanged();
+			}
+		});
+		// Source of the dimension
+		wlPreloadSource = new Label(wPreloadComp, SWT.RIGHT);
+		wlPreloadSource.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.PreloadSource.Label"));
+		props.setLook(wlPreloadSource);
+		fdlPreloadSource = new FormData();
+		fdlPreloadSource.left = new FormAttachment(0, 0);
+		fdlPreloadSource.right = new FormAttachment(middle, -margin);
+		fdlPreloadSource.top = new FormAttachment(wPreload, margin);
+		wlPreloadSource.setLayoutData(fdlPreloadSource);
+		wPreloadSource = new CCombo(wPreloadComp, SWT.BORDER | SWT.READ_ONLY);
+		wPreloadSource.setItems(RedisInputMeta.preloadSourceDescs);
+		props.setLook(wPreloadSource);
+		wPreloadSource.addModifyListener(lsMod);
+		fdPreloadSource = new FormData();
+		fdPreloadSource.left = new FormAttachment(middle, 0);
+		fdPreloadSource.top = new FormAttachment(wPreload, margin);
+		fdPreloadSource.right = new FormAttachment(100, 0);
+		wPreloadSource.setLayoutData(fdPreloadSource);
+		wPreloadSource.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				setPreloadFlags();
+			}
+		});
+		// Pattern of the preloaded keys
+		wlPreloadPattern = new Label(wPreloadComp, SWT.RIGHT);
+		wlPreloadPattern.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.PreloadPattern.Label"));
+		props.setLook(wlPreloadPattern);
+		fdlPreloadPattern = new FormData();
+		fdlPreloadPattern.left = new FormAttachment(0, 0);
+		fdlPreloadPattern.right = new FormAttachment(middle, -margin);
+		fdlPreloadPattern.top = new FormAttachment(wPreloadSource, margin);
+		wlPreloadPattern.setLayoutData(fdlPreloadPattern);
+		wPreloadPattern = new TextVar(transMeta, wPreloadComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPreloadPattern);
+		wPreloadPattern.addModifyListener(lsMod);
+		fdPreloadPattern = new FormData();
+		fdPreloadPattern.left = new FormAttachment(middle, 0);
+		fdPreloadPattern.top = new FormAttachment(wPreloadSource, margin);
+		fdPreloadPattern.right = new FormAttachment(100, 0);
+		wPreloadPattern.setLayoutData(fdPreloadPattern);
+		// Key of the preloaded hash
+		wlPreloadHashKey = new Label(wPreloadComp, SWT.RIGHT);
+		wlPreloadHashKey.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.PreloadHashKey.Label"));
+		props.setLook(wlPreloadHashKey);
+		fdlPreloadHashKey = new FormData();
+		fdlPreloadHashKey.left = new FormAttachment(0, 0);
+		fdlPreloadHashKey.right = new FormAttachment(middle, -margin);
+		fdlPreloadHashKey.top = new FormAttachment(wPreloadPattern, margin);
+		wlPreloadHashKey.setLayoutData(fdlPreloadHashKey);
+		wPreloadHashKey = new TextVar(transMeta, wPreloadComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPreloadHashKey);
+		wPreloadHashKey.addModifyListener(lsMod);
+		fdPreloadHashKey = new FormData();
+		fdPreloadHashKey.left = new FormAttachment(middle, 0);
+		fdPreloadHashKey.top = new FormAttachment(wPreloadPattern, margin);
+		fdPreloadHashKey.right = new FormAttachment(100, 0);
+		wPreloadHashKey.setLayoutData(fdPreloadHashKey);
+		// Refresh interval
+		wlPreloadRefresh = new Label(wPreloadComp, SWT.RIGHT);
+		wlPreloadRefresh.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.PreloadRefresh.Label"));
+		props.setLook(wlPreloadRefresh);
+		fdlPreloadRefresh = new FormData();
+		fdlPreloadRefresh.left = new FormAttachment(0, 0);
+		fdlPreloadRefresh.right = new FormAttachment(middle, -margin);
+		fdlPreloadRefresh.top = new FormAttachment(wPreloadHashKey, margin);
+		wlPreloadRefresh.setLayoutData(fdlPreloadRefresh);
+		wPreloadRefresh = new TextVar(transMeta, wPreloadComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPreloadRefresh);
+		wPreloadRefresh.addModifyListener(lsMod);
+		fdPreloadRefresh = new FormData();
+		fdPreloadRefresh.left = new FormAttachment(middle, 0);
+		fdPreloadRefresh.top = new FormAttachment(wPreloadHashKey, margin);
+		fdPreloadRefresh.right = new FormAttachment(100, 0);
+		wPreloadRefresh.setLayoutData(fdPreloadRefresh);
+		fdPreloadComp = new FormData();
+		fdPreloadComp.left = new FormAttachment(0, 0);
+		fdPreloadComp.top = new FormAttachment(0, 0);
+		fdPreloadComp.right = new FormAttachment(100, 0);
+		fdPreloadComp.bottom = new FormAttachment(100, 0);
+		wPreloadComp.setLayoutData(fdPreloadComp);
+		wPreloadComp.layout();
+		wPreloadTab.setControl(wPreloadComp);
+
+		// Structure tab
+		wStructureTab = new CTabItem(wTabFolder, SWT.NONE);
+		wStructureTab.setText(BaseMessages.getString(PKG, "RedisInputDialog.StructureTab.Title"));
+		wStructureComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wStructureComp);
+		FormLayout structureLayout = new FormLayout();
+		structureLayout.marginWidth = 3;
+		structureLayout.marginHeight = 3;
+		wStructureComp.setLayout(structureLayout);
+		// Value type
+		wlValueType = new Label(wStructureComp, SWT.RIGHT);
+		wlValueType.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ValueType.Label"));
+		props.setLook(wlValueType);
+		fdlValueType = new FormData();
+		fdlValueType.left = new FormAttachment(0, 0);
+		fdlValueType.right = new FormAttachment(middle, -margin);
+		fdlValueType.top = new FormAttachment(0, margin);
+		wlValueType.setLayoutData(fdlValueType);
+		wValueType = new CCombo(wStructureComp, SWT.BORDER | SWT.READ_ONLY);
+		wValueType.setItems(RedisInputMeta.valueTypeDescs);
+		props.setLook(wValueType);
+		wValueType.addModifyListener(lsMod);
+		fdValueType = new FormData();
+		fdValueType.left = new FormAttachment(middle, 0);
+		fdValueType.top = new FormAttachment(0, margin);
+		fdValueType.right = new FormAttachment(100, 0);
+		wValueType.setLayoutData(fdValueType);
+		wValueType.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				setValueTypeFlags();
+			}
+		});
+		// Page size
+		wlPageSize = new Label(wStructureComp, SWT.RIGHT);
+		wlPageSize.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.PageSize.Label"));
+		props.setLook(wlPageSize);
+		fdlPageSize = new FormData();
+		fdlPageSize.left = new FormAttachment(0, 0);
+		fdlPageSize.right = new FormAttachment(middle, -margin);
+		fdlPageSize.top = new FormAttachment(wValueType, margin);
+		wlPageSize.setLayoutData(fdlPageSize);
+		wPageSize = new TextVar(transMeta, wStructureComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPageSize);
+		wPageSize.addModifyListener(lsMod);
+		fdPageSize = new FormData();
+		fdPageSize.left = new FormAttachment(middle, 0);
+		fdPageSize.top = new FormAttachment(wValueType, margin);
+		fdPageSize.right = new FormAttachment(100, 0);
+		wPageSize.setLayoutData(fdPageSize);
+		// Min score
+		wlScoreMin = new Label(wStructureComp, SWT.RIGHT);
+		wlScoreMin.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ScoreMin.Label"));
+		props.setLook(wlScoreMin);
+		fdlScoreMin = new FormData();
+		fdlScoreMin.left = new FormAttachment(0, 0);
+		fdlScoreMin.right = new FormAttachment(middle, -margin);
+		fdlScoreMin.top = new FormAttachment(wPageSize, margin);
+		wlScoreMin.setLayoutData(fdlScoreMin);
+		wScoreMin = new TextVar(transMeta, wStructureComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wScoreMin);
+		wScoreMin.addModifyListener(lsMod);
+		fdScoreMin = new FormData();
+		fdScoreMin.left = new FormAttachment(middle, 0);
+		fdScoreMin.top = new FormAttachment(wPageSize, margin);
+		fdScoreMin.right = new FormAttachment(100, 0);
+		wScoreMin.setLayoutData(fdScoreMin);
+		// Max score
+		wlScoreMax = new Label(wStructureComp, SWT.RIGHT);
+		wlScoreMax.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ScoreMax.Label"));
+		props.setLook(wlScoreMax);
+		fdlScoreMax = new FormData();
+		fdlScoreMax.left = new FormAttachment(0, 0);
+		fdlScoreMax.right = new FormAttachment(middle, -margin);
+		fdlScoreMax.top = new FormAttachment(wScoreMin, margin);
+		wlScoreMax.setLayoutData(fdlScoreMax);
+		wScoreMax = new TextVar(transMeta, wStructureComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wScoreMax);
+		wScoreMax.addModifyListener(lsMod);
+		fdScoreMax = new FormData();
+		fdScoreMax.left = new FormAttachment(middle, 0);
+		fdScoreMax.top = new FormAttachment(wScoreMin, margin);
+		fdScoreMax.right = new FormAttachment(100, 0);
+		wScoreMax.setLayoutData(fdScoreMax);
+		// Score field
+		wlScoreField = new Label(wStructureComp, SWT.RIGHT);
+		wlScoreField.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ScoreField.Label"));
+		props.setLook(wlScoreField);
+		fdlScoreField = new FormData();
+		fdlScoreField.left = new FormAttachment(0, 0);
+		fdlScoreField.right = new FormAttachment(middle, -margin);
+		fdlScoreField.top = new FormAttachment(wScoreMax, margin);
+		wlScoreField.setLayoutData(fdlScoreField);
+		wScoreField = new Text(wStructureComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		props.setLook(wScoreField);
+		wScoreField.addModifyListener(lsMod);
+		fdScoreField = new FormData();
+		fdScoreField.left = new FormAttachment(middle, 0);
+		fdScoreField.top = new FormAttachment(wScoreMax, margin);
+		fdScoreField.right = new FormAttachment(100, 0);
+		wScoreField.setLayoutData(fdScoreField);
+		// Hash field name field
+		wlEntryNameField = new Label(wStructureComp, SWT.RIGHT);
+		wlEntryNameField.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.EntryNameField.Label"));
+		props.setLook(wlEntryNameField);
+		fdlEntryNameField = new FormData();
+		fdlEntryNameField.left = new FormAttachment(0, 0);
+		fdlEntryNameField.right = new FormAttachment(middle, -margin);
+		fdlEntryNameField.top = new FormAttachment(wScoreField, margin);
+		wlEntryNameField.setLayoutData(fdlEntryNameField);
+		wEntryNameField = new Text(wStructureComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		props.setLook(wEntryNameField);
+		wEntryNameField.addModifyListener(lsMod);
+		fdEntryNameField = new FormData();
+		fdEntryNameField.left = new FormAttachment(middle, 0);
+		fdEntryNameField.top = new FormAttachment(wScoreField, margin);
+		fdEntryNameField.right = new FormAttachment(100, 0);
+		wEntryNameField.setLayoutData(fdEntryNameField);
+		// Hash fields
+		wlHashFields = new Label(wStructureComp, SWT.NONE);
+		wlHashFields.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.HashFields.Label"));
+		props.setLook(wlHashFields);
+		fdlHashFields = new FormData();
+		fdlHashFields.left = new FormAttachment(0, 0);
+		fdlHashFields.top = new FormAttachment(wEntryNameField, margin);
+		wlHashFields.setLayoutData(fdlHashFields);
+		ColumnInfo[] hashFieldColumns = new ColumnInfo[] {
+				new ColumnInfo(BaseMessages.getString(PKG, "RedisInputDialog.HashFields.Name.Column"),
+						ColumnInfo.COLUMN_TYPE_TEXT, false),
+				new ColumnInfo(BaseMessages.getString(PKG, "RedisInputDialog.HashFields.Rename.Column"),
+						ColumnInfo.COLUMN_TYPE_TEXT, false),
+				new ColumnInfo(BaseMessages.getString(PKG, "RedisInputDialog.HashFields.Type.Column"),
+						ColumnInfo.COLUMN_TYPE_CCOMBO, ValueMetaFactory.getValueMetaNames(), true) };
+		wHashFields = new TableView(transMeta, wStructureComp, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI,
+				hashFieldColumns, input.getHashFieldName().length, lsMod, props);
+		fdHashFields = new FormData();
+		fdHashFields.left = new FormAttachment(0, 0);
+		fdHashFields.top = new FormAttachment(wlHashFields, margin);
+		fdHashFields.right = new FormAttachment(100, 0);
+		fdHashFields.bottom = new FormAttachment(100, -margin);
+		wHashFields.setLayoutData(fdHashFields);
+		fdStructureComp = new FormData();
+		fdStructureComp.left = new FormAttachment(0, 0);
+		fdStructureComp.top = new FormAttachment(0, 0);
+		fdStructureComp.right = new FormAttachment(100, 0);
+		fdStructureComp.bottom = new FormAttachment(100, 0);
+		wStructureComp.setLayoutData(fdStructureComp);
+		wStructureComp.layout();
+		wStructureTab.setControl(wStructureComp);
+
+		// Pool tab
+		wPoolTab = new CTabItem(wTabFolder, SWT.NONE);
+		wPoolTab.setText(BaseMessages.getString(PKG, "RedisInputDialog.PoolTab.Title"));
+		wPoolComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wPoolComp);
+		FormLayout poolLayout = new FormLayout();
+		poolLayout.marginWidth = 3;
+		poolLayout.marginHeight = 3;
+		wPoolComp.setLayout(poolLayout);
+		// Max total connections
+		wlPoolMaxTotal = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMaxTotal.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.PoolMaxTotal.Label"));
+		props.setLook(wlPoolMaxTotal);
+		fdlPoolMaxTotal = new FormData();
+		fdlPoolMaxTotal.left = new FormAttachment(0, 0);
+		fdlPoolMaxTotal.right = new FormAttachment(middle, -margin);
+		fdlPoolMaxTotal.top = new FormAttachment(0, margin);
+		wlPoolMaxTotal.setLayoutData(fdlPoolMaxTotal);
+		wPoolMaxTotal = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMaxTotal);
+		wPoolMaxTotal.addModifyListener(lsMod);
+		fdPoolMaxTotal = new FormData();
+		fdPoolMaxTotal.left = new FormAttachment(middle, 0);
+		fdPoolMaxTotal.top = new FormAttachment(0, margin);
+		fdPoolMaxTotal.right = new FormAttachment(100, 0);
+		wPoolMaxTotal.setLayoutData(fdPoolMaxTotal);
+		// Max idle connections
+		wlPoolMaxIdle = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMaxIdle.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.PoolMaxIdle.Label"));
+		props.setLook(wlPoolMaxIdle);
+		fdlPoolMaxIdle = new FormData();
+		fdlPoolMaxIdle.left = new FormAttachment(0, 0);
+		fdlPoolMaxIdle.right = new FormAttachment(middle, -margin);
+		fdlPoolMaxIdle.top = new FormAttachment(wPoolMaxTotal, margin);
+		wlPoolMaxIdle.setLayoutData(fdlPoolMaxIdle);
+		wPoolMaxIdle = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMaxIdle);
+		wPoolMaxIdle.addModifyListener(lsMod);
+		fdPoolMaxIdle = new FormData();
+		fdPoolMaxIdle.left = new FormAttachment(middle, 0);
+		fdPoolMaxIdle.top = new FormAttachment(wPoolMaxTotal, margin);
+		fdPoolMaxIdle.right = new FormAttachment(100, 0);
+		wPoolMaxIdle.setLayoutData(fdPoolMaxIdle);
+		// Min idle connections
+		wlPoolMinIdle = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMinIdle.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.PoolMinIdle.Label"));
+		props.setLook(wlPoolMinIdle);
+		fdlPoolMinIdle = new FormData();
+		fdlPoolMinIdle.left = new FormAttachment(0, 0);
+		fdlPoolMinIdle.right = new FormAttachment(middle, -margin);
+		fdlPoolMinIdle.top = new FormAttachment(wPoolMaxIdle, margin);
+		wlPoolMinIdle.setLayoutData(fdlPoolMinIdle);
+		wPoolMinIdle = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMinIdle);
+		wPoolMinIdle.addModifyListener(lsMod);
+		fdPoolMinIdle = new FormData();
+		fdPoolMinIdle.left = new FormAttachment(middle, 0);
+		fdPoolMinIdle.top = new FormAttachment(wPoolMaxIdle, margin);
+		fdPoolMinIdle.right = new FormAttachment(100, 0);
+		wPoolMinIdle.setLayoutData(fdPoolMinIdle);
+		// Max wait to borrow a connection
+		wlPoolMaxWait = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMaxWait.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.PoolMaxWait.Label"));
+		props.setLook(wlPoolMaxWait);
+		fdlPoolMaxWait = new FormData();
+		fdlPoolMaxWait.left = new FormAttachment(0, 0);
+		fdlPoolMaxWait.right = new FormAttachment(middle, -margin);
+		fdlPoolMaxWait.top = new FormAttachment(wPoolMinIdle, margin);
+		wlPoolMaxWait.setLayoutData(fdlPoolMaxWait);
+		wPoolMaxWait = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMaxWait);
+		wPoolMaxWait.addModifyListener(lsMod);
+		fdPoolMaxWait = new FormData();
+		fdPoolMaxWait.left = new FormAttachment(middle, 0);
+		fdPoolMaxWait.top = new FormAttachment(wPoolMinIdle, margin);
+		fdPoolMaxWait.right = new FormAttachment(100, 0);
+		wPoolMaxWait.setLayoutData(fdPoolMaxWait);
+		// Connect timeout
+		wlConnectTimeout = new Label(wPoolComp, SWT.RIGHT);
+		wlConnectTimeout.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ConnectTimeout.Label"));
+		props.setLook(wlConnectTimeout);
+		fdlConnectTimeout = new FormData();
+		fdlConnectTimeout.left = new FormAttachment(0, 0);
+		fdlConnectTimeout.right = new FormAttachment(middle, -margin);
+		fdlConnectTimeout.top = new FormAttachment(wPoolMaxWait, margin);
+		wlConnectTimeout.setLayoutData(fdlConnectTimeout);
+		wConnectTimeout = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wConnectTimeout);
+		wConnectTimeout.addModifyListener(lsMod);
+		fdConnectTimeout = new FormData();
+		fdConnectTimeout.left = new FormAttachment(middle, 0);
+		fdConnectTimeout.top = new FormAttachment(wPoolMaxWait, margin);
+		fdConnectTimeout.right = new FormAttachment(100, 0);
+		wConnectTimeout.setLayoutData(fdConnectTimeout);
+		// Socket timeout
+		wlSocketTimeout = new Label(wPoolComp, SWT.RIGHT);
+		wlSocketTimeout.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.SocketTimeout.Label"));
+		props.setLook(wlSocketTimeout);
+		fdlSocketTimeout = new FormData();
+		fdlSocketTimeout.left = new FormAttachment(0, 0);
+		fdlSocketTimeout.right = new FormAttachment(middle, -margin);
+		fdlSocketTimeout.top = new FormAttachment(wConnectTimeout, margin);
+		wlSocketTimeout.setLayoutData(fdlSocketTimeout);
+		wSocketTimeout = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wSocketTimeout);
+		wSocketTimeout.addModifyListener(lsMod);
+		fdSocketTimeout = new FormData();
+		fdSocketTimeout.left = new FormAttachment(middle, 0);
+		fdSocketTimeout.top = new FormAttachment(wConnectTimeout, margin);
+		fdSocketTimeout.right = new FormAttachment(100, 0);
+		wSocketTimeout.setLayoutData(fdSocketTimeout);
+		// Test on borrow
+		wlTestOnBorrow = new Label(wPoolComp, SWT.RIGHT);
+		wlTestOnBorrow.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.TestOnBorrow.Label"));
+		props.setLook(wlTestOnBorrow);
+		fdlTestOnBorrow = new FormData();
+		fdlTestOnBorrow.left = new FormAttachment(0, 0);
+		fdlTestOnBorrow.right = new FormAttachment(middle, -margin);
+		fdlTestOnBorrow.top = new FormAttachment(wSocketTimeout, margin);
+		wlTestOnBorrow.setLayoutData(fdlTestOnBorrow);
+		wTestOnBorrow = new Button(wPoolComp, SWT.CHECK);
+		props.setLook(wTestOnBorrow);
+		fdTestOnBorrow = new FormData();
+		fdTestOnBorrow.left = new FormAttachment(middle, 0);
+		fdTestOnBorrow.top = new FormAttachment(wSocketTimeout, margin);
+		fdTestOnBorrow.right = new FormAttachment(100, 0);
+		wTestOnBorrow.setLayoutData(fdTestOnBorrow);
+		wTestOnBorrow.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		// Cluster mode, the hostname is a seed node of the cluster
+		wlClusterMode = new Label(wPoolComp, SWT.RIGHT);
+		wlClusterMode.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ClusterMode.Label"));
+		props.setLook(wlClusterMode);
+		fdlClusterMode = new FormData();
+		fdlClusterMode.left = new FormAttachment(0, 0);
+		fdlClusterMode.right = new FormAttachment(middle, -margin);
+		fdlClusterMode.top = new FormAttachment(wTestOnBorrow, margin);
+		wlClusterMode.setLayoutData(fdlClusterMode);
+		wClusterMode = new Button(wPoolComp, SWT.CHECK);
+		props.setLook(wClusterMode);
+		fdClusterMode = new FormData();
+		fdClusterMode.left = new FormAttachment(middle, 0);
+		fdClusterMode.top = new FormAttachment(wTestOnBorrow, margin);
+		fdClusterMode.right = new FormAttachment(100, 0);
+		wClusterMode.setLayoutData(fdClusterMode);
+		wClusterMode.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		fdPoolComp = new FormData();
+		fdPoolComp.left = new FormAttachment(0, 0);
+		fdPoolComp.top = new FormAttachment(0, 0);
+		fdPoolComp.right = new FormAttachment(100, 0);
+		fdPoolComp.bottom = new FormAttachment(100, 0);
+		wPoolComp.setLayoutData(fdPoolComp);
+		wPoolComp.layout();
+		wPoolTab.setControl(wPoolComp);
+
+		// Replicas tab
+		wReplicasTab = new CTabItem(wTabFolder, SWT.NONE);
+		wReplicasTab.setText(BaseMessages.getString(PKG, "RedisInputDialog.ReplicasTab.Title"));
+		wReplicasComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wReplicasComp);
+		FormLayout replicasLayout = new FormLayout();
+		replicasLayout.marginWidth = 3;
+		replicasLayout.marginHeight = 3;
+		wReplicasComp.setLayout(replicasLayout);
+		// Servers the lookups are sent to
+		wlReadRouting = new Label(wReplicasComp, SWT.RIGHT);
+		wlReadRouting.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ReadRouting.Label"));
+		props.setLook(wlReadRouting);
+		fdlReadRouting = new FormData();
+		fdlReadRouting.left = new FormAttachment(0, 0);
+		fdlReadRouting.right = new FormAttachment(middle, -margin);
+		fdlReadRouting.top = new FormAttachment(0, margin);
+		wlReadRouting.setLayoutData(fdlReadRouting);
+		wReadRouting = new CCombo(wReplicasComp, SWT.BORDER | SWT.READ_ONLY);
+		wReadRouting.setItems(RedisInputMeta.readRoutingDescs);
+		props.setLook(wReadRouting);
+		wReadRouting.addModifyListener(lsMod);
+		fdReadRouting = new FormData();
+		fdReadRouting.left = new FormAttachment(middle, 0);
+		fdReadRouting.top = new FormAttachment(0, margin);
+		fdReadRouting.right = new FormAttachment(100, 0);
+		wReadRouting.setLayoutData(fdReadRouting);
+		wReadRouting.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				setReadRoutingFlags();
+			}
+		});
+		// Replicas, as host:port separated by commas
+		wlReplicaHosts = new Label(wReplicasComp, SWT.RIGHT);
+		wlReplicaHosts.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.ReplicaHosts.Label"));
+		props.setLook(wlReplicaHosts);
+		fdlReplicaHosts = new FormData();
+		fdlReplicaHosts.left = new FormAttachment(0, 0);
+		fdlReplicaHosts.right = new FormAttachment(middle, -margin);
+		fdlReplicaHosts.top = new FormAttachment(wReadRouting, margin);
+		wlReplicaHosts.setLayoutData(fdlReplicaHosts);
+		wReplicaHosts = new TextVar(transMeta, wReplicasComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wReplicaHosts);
+		wReplicaHosts.addModifyListener(lsMod);
+		fdReplicaHosts = new FormData();
+		fdReplicaHosts.left = new FormAttachment(middle, 0);
+		fdReplicaHosts.top = new FormAttachment(wReadRouting, margin);
+		fdReplicaHosts.right = new FormAttachment(100, 0);
+		wReplicaHosts.setLayoutData(fdReplicaHosts);
+		// Sentinels, the replicas and their master are then discovered
+		wlSentinelHosts = new Label(wReplicasComp, SWT.RIGHT);
+		wlSentinelHosts.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.SentinelHosts.Label"));
+		props.setLook(wlSentinelHosts);
+		fdlSentinelHosts = new FormData();
+		fdlSentinelHosts.left = new FormAttachment(0, 0);
+		fdlSentinelHosts.right = new FormAttachment(middle, -margin);
+		fdlSentinelHosts.top = new FormAttachment(wReplicaHosts, margin);
+		wlSentinelHosts.setLayoutData(fdlSentinelHosts);
+		wSentinelHosts = new TextVar(transMeta, wReplicasComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wSentinelHosts);
+		wSentinelHosts.addModifyListener(lsMod);
+		fdSentinelHosts = new FormData();
+		fdSentinelHosts.left = new FormAttachment(middle, 0);
+		fdSentinelHosts.top = new FormAttachment(wReplicaHosts, margin);
+		fdSentinelHosts.right = new FormAttachment(100, 0);
+		wSentinelHosts.setLayoutData(fdSentinelHosts);
+		// Name of the master monitored by the Sentinels
+		wlSentinelMaster = new Label(wReplicasComp, SWT.RIGHT);
+		wlSentinelMaster.setText(BaseMessages.getString(PKG,
+				"RedisInputDialog.SentinelMaster.Label"));
+		props.setLook(wlSentinelMaster);
+		fdlSentinelMaster = new FormData();
+		fdlSentinelMaster.left = new FormAttachment(0, 0);
+		fdlSentinelMaster.right = new FormAttachment(middle, -margin);
+		fdlSentinelMaster.top = new FormAttachment(wSentinelHosts, margin);
+		wlSentinelMaster.setLayoutData(fdlSentinelMaster);
+		wSentinelMaster = new TextVar(transMeta, wReplicasComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wSentinelMaster);
+		wSentinelMaster.addModifyListener(lsMod);
+		fdSentinelMaster = new FormData();
+		fdSentinelMaster.left = new FormAttachment(middle, 0);
+		fdSentinelMaster.top = new FormAttachment(wSentinelHosts, margin);
+		fdSentinelMaster.right = new FormAttachment(100, 0);
+		wSentinelMaster.setLayoutData(fdSentinelMaster);
+		fdReplicasComp = new FormData();
+		fdReplicasComp.left = new FormAttachment(0, 0);
+		fdReplicasComp.top = new FormAttachment(0, 0);
+		fdReplicasComp.right = new FormAttachment(100, 0);
+		fdReplicasComp.bottom = new FormAttachment(100, 0);
+		wReplicasComp.setLayoutData(fdReplicasComp);
+		wReplicasComp.layout();
+		wReplicasTab.setControl(wReplicasComp);
+
+		fdTabFolder = new FormData();
+		fdTabFolder.left = new FormAttachment(0, 0);
+		fdTabFolder.top = new FormAttachment(wStepname, margin);
+		fdTabFolder.right = new FormAttachment(100, 0);
+		fdTabFolder.bottom = new FormAttachment(100, -50);
+		wTabFolder.setLayoutData(fdTabFolder);
+		wTabFolder.setSelection(0);
 
 		// Some buttons
 		wOK = new Button(shell, SWT.PUSH);
 		wOK.setText(BaseMessages.getString(PKG, "System.Button.OK"));
 		wCancel = new Button(shell, SWT.PUSH);
 		wCancel.setText(BaseMessages.getString(PKG, "System.Button.Cancel"));
-		setButtonPositions(new Button[] { wOK, wCancel }, margin, wValueField);
+		setButtonPositions(new Button[] { wOK, wCancel }, margin, wTabFolder);
 		// Add listeners
 		lsCancel = new Listener() {
 			public void handleEvent(Event e) {
@@ -348,10 +1481,154 @@ public class RedisInputDialog extends BaseStepDialog implements
 			wPort.setText(input.getPort());
 		}
 		
+		if (!Const.isEmpty(input.getPassword())) {
+			wPassword.setText(input.getPassword());
+		}
+		
 		if (!Const.isEmpty(input.getBase())) {
 			wBase.setText(input.getBase());
 		}
 		
+		wLookupMode.setText(RedisInputMeta.getLookupModeDesc(input.getLookupMode()));
+		
+		if (!Const.isEmpty(input.getBatchSize())) {
+			wBatchSize.setText(input.getBatchSize());
+		}
+		
+		if (!Const.isEmpty(input.getWindowSize())) {
+			wWindowSize.setText(input.getWindowSize());
+		}
+		
+		if (!Const.isEmpty(input.getScanPattern())) {
+			wScanPattern.setText(input.getScanPattern());
+		}
+		
+		if (!Const.isEmpty(input.getScanCount())) {
+			wScanCount.setText(input.getScanCount());
+		}
+		
+		if (!Const.isEmpty(input.getKeyOutputField())) {
+			wKeyOutputField.setText(input.getKeyOutputField());
+		}
+		
+		wValueType.setText(RedisInputMeta.getValueTypeDesc(input.getValueType()));
+		
+		if (!Const.isEmpty(input.getPageSize())) {
+			wPageSize.setText(input.getPageSize());
+		}
+		
+		if (!Const.isEmpty(input.getScoreMin())) {
+			wScoreMin.setText(input.getScoreMin());
+		}
+		
+		if (!Const.isEmpty(input.getScoreMax())) {
+			wScoreMax.setText(input.getScoreMax());
+		}
+		
+		if (!Const.isEmpty(input.getScoreField())) {
+			wScoreField.setText(input.getScoreField());
+		}
+		
+		if (!Const.isEmpty(input.getEntryNameField())) {
+			wEntryNameField.setText(input.getEntryNameField());
+		}
+		
+		for (int i = 0; i < input.getHashFieldName().length; i++) {
+			TableItem item = wHashFields.table.getItem(i);
+			item.setText(1, Const.NVL(input.getHashFieldName()[i], ""));
+			item.setText(2, Const.NVL(input.getHashFieldRename()[i], ""));
+			item.setText(3, Const.NVL(ValueMetaFactory.getValueMetaName(input.getHashFieldType()[i]), ""));
+		}
+		wHashFields.setRowNums();
+		wHashFields.optWidth(true);
+		
+		wCacheEnabled.setSelection(input.isCacheEnabled());
+		wCacheEviction.setText(RedisInputMeta.getCacheEvictionDesc(input.getCacheEviction()));
+		
+		if (!Const.isEmpty(input.getCacheMaxEntries())) {
+			wCacheMaxEntries.setText(input.getCacheMaxEntries());
+		}
+		
+		if (!Const.isEmpty(input.getCacheMaxBytes())) {
+			wCacheMaxBytes.setText(input.getCacheMaxBytes());
+		}
+		
+		if (!Const.isEmpty(input.getCacheTtl())) {
+			wCacheTtl.setText(input.getCacheTtl());
+		}
+		
+		if (!Const.isEmpty(input.getScriptArgs())) {
+			wScriptArgs.setText(input.getScriptArgs());
+		}
+		
+		if (!Const.isEmpty(input.getScriptFields())) {
+			wScriptFields.setText(input.getScriptFields());
+		}
+		
+		if (!Const.isEmpty(input.getScript())) {
+			wScript.setText(input.getScript());
+		}
+		
+		wPreload.setSelection(input.isPreload());
+		wPreloadSource.setText(RedisInputMeta.getPreloadSourceDesc(input.getPreloadSource()));
+		
+		if (!Const.isEmpty(input.getPreloadPattern())) {
+			wPreloadPattern.setText(input.getPreloadPattern());
+		}
+		
+		if (!Const.isEmpty(input.getPreloadHashKey())) {
+			wPreloadHashKey.setText(input.getPreloadHashKey());
+		}
+		
+		if (!Const.isEmpty(input.getPreloadRefresh())) {
+			wPreloadRefresh.setText(input.getPreloadRefresh());
+		}
+		
+		if (!Const.isEmpty(input.getMissCacheTtl())) {
+			wMissCacheTtl.setText(input.getMissCacheTtl());
+		}
+		
+		if (!Const.isEmpty(input.getMissCacheMaxEntries())) {
+			wMissCacheMaxEntries.setText(input.getMissCacheMaxEntries());
+		}
+		
+		if (!Const.isEmpty(input.getPoolMaxTotal())) {
+			wPoolMaxTotal.setText(input.getPoolMaxTotal());
+		}
+		
+		if (!Const.isEmpty(input.getPoolMaxIdle())) {
+			wPoolMaxIdle.setText(input.getPoolMaxIdle());
+		}
+		
+		if (!Const.isEmpty(input.getPoolMinIdle())) {
+			wPoolMinIdle.setText(input.getPoolMinIdle());
+		}
+		
+		if (!Const.isEmpty(input.getPoolMaxWait())) {
+			wPoolMaxWait.setText(input.getPoolMaxWait());
+		}
+		
+		if (!Const.isEmpty(input.getConnectTimeout())) {
+			wConnectTimeout.setText(input.getConnectTimeout());
+		}
+		
+		if (!Const.isEmpty(input.getSocketTimeout())) {
+			wSocketTimeout.setText(input.getSocketTimeout());
+		}
+		
+		wTestOnBorrow.setSelection(input.isTestOnBorrow());
+		wClusterMode.setSelection(input.isClusterMode());
+		wReadRouting.setText(RedisInputMeta.getReadRoutingDesc(input.getReadRouting()));
+		if (!Const.isEmpty(input.getReplicaHosts())) {
+			wReplicaHosts.setText(input.getReplicaHosts());
+		}
+		if (!Const.isEmpty(input.getSentinelHosts())) {
+			wSentinelHosts.setText(input.getSentinelHosts());
+		}
+		if (!Const.isEmpty(input.getSentinelMaster())) {
+			wSentinelMaster.setText(input.getSentinelMaster());
+		}
+		
 		if (!Const.isEmpty(input.getKey())) {
 			wKey.setText(input.getKey());
 		}
@@ -366,15 +1643,122 @@ public class RedisInputDialog extends BaseStepDialog implements
 			wValueField.setText(input.getValueField());
 		}
 
+		wBinaryValue.setSelection(input.isBinaryValue());
+		wCodec.setText(RedisInputMeta.getCodecDesc(input.getCodec()));
+		
 		if(input.getKeyFieldCheck())
 			wKey.setEnabled(false);
 		else
 			wKeyFieldCombo.setEnabled(false);
 		
+		setLookupModeFlags();
+		setCacheFlags();
+		setValueTypeFlags();
+		setReadRoutingFlags();
+		setPreloadFlags();
+		
 		wStepname.selectAll();
 		wStepname.setFocus();
 	}
 
+	/**
+	 * The batch size is only used when the keys are fetched with MGET or with the script,
+	 * the window size when they are fetched with pipelined GETs,
+	 * the scan settings when the keyspace is scanned, and the script settings when the script is run
+	 */
+	private void setLookupModeFlags() {
+		String lookupMode = RedisInputMeta.getLookupModeCode(wLookupMode.getText());
+		boolean scripted = RedisInputMeta.LOOKUP_MODE_SCRIPT.equals(lookupMode);
+		boolean batched = RedisInputMeta.LOOKUP_MODE_MGET.equals(lookupMode) || scripted;
+		boolean pipelined = RedisInputMeta.LOOKUP_MODE_PIPELINE.equals(lookupMode);
+		boolean scanned = RedisInputMeta.LOOKUP_MODE_SCAN.equals(lookupMode);
+		wlBatchSize.setEnabled(batched);
+		wBatchSize.setEnabled(batched);
+		wlWindowSize.setEnabled(pipelined);
+		wWindowSize.setEnabled(pipelined);
+		wlScanPattern.setEnabled(scanned);
+		wScanPattern.setEnabled(scanned);
+		wlScanCount.setEnabled(scanned || wPreload.getSelection());
+		wScanCount.setEnabled(scanned || wPreload.getSelection());
+		wlKeyOutputField.setEnabled(scanned);
+		wKeyOutputField.setEnabled(scanned);
+		wlScriptArgs.setEnabled(scripted);
+		wScriptArgs.setEnabled(scripted);
+		wlScriptFields.setEnabled(scripted);
+		wScriptFields.setEnabled(scripted);
+		wlScript.setEnabled(scripted);
+		wScript.setEnabled(scripted);
+	}
+
+	/**
+	 * The cache settings are only used when the local cache is enabled
+	 */
+	private void setCacheFlags() {
+		boolean cached = wCacheEnabled.getSelection();
+		wlCacheEviction.setEnabled(cached);
+		wCacheEviction.setEnabled(cached);
+		wlCacheMaxEntries.setEnabled(cached);
+		wCacheMaxEntries.setEnabled(cached);
+		wlCacheMaxBytes.setEnabled(cached);
+		wCacheMaxBytes.setEnabled(cached);
+		wlCacheTtl.setEnabled(cached);
+		wCacheTtl.setEnabled(cached);
+	}
+
+	/**
+	 * Only the settings of the selected structure are used
+	 */
+	private void setValueTypeFlags() {
+		String valueType = RedisInputMeta.getValueTypeCode(wValueType.getText());
+		boolean string = RedisInputMeta.VALUE_TYPE_STRING.equals(valueType);
+		boolean hash = RedisInputMeta.VALUE_TYPE_HASH.equals(valueType);
+		boolean zset = RedisInputMeta.VALUE_TYPE_ZSET.equals(valueType);
+		boolean json = RedisInputMeta.VALUE_TYPE_JSON.equals(valueType);
+		wlPageSize.setEnabled(!string && !json);
+		wPageSize.setEnabled(!string && !json);
+		wlScoreMin.setEnabled(zset);
+		wScoreMin.setEnabled(zset);
+		wlScoreMax.setEnabled(zset);
+		wScoreMax.setEnabled(zset);
+		wlScoreField.setEnabled(zset);
+		wScoreField.setEnabled(zset);
+		wlEntryNameField.setEnabled(hash);
+		wEntryNameField.setEnabled(hash);
+		wlHashFields.setEnabled(hash || json);
+		wHashFields.setEnabled(hash || json);
+	}
+
+	/**
+	 * The replicas and the Sentinels are only used when the lookups are spread over the replicas
+	 */
+	private void setReadRoutingFlags() {
+		boolean replicas = !RedisInputMeta.READ_ROUTING_MASTER.equals(RedisInputMeta.getReadRoutingCode(wReadRouting.getText()));
+		wlReplicaHosts.setEnabled(replicas);
+		wReplicaHosts.setEnabled(replicas);
+		wlSentinelHosts.setEnabled(replicas);
+		wSentinelHosts.setEnabled(replicas);
+		wlSentinelMaster.setEnabled(replicas);
+		wSentinelMaster.setEnabled(replicas);
+	}
+
+	/**
+	 * The preload settings are only used when the dimension is preloaded, the pattern or the hash key depending on its source,
+	 * the SCAN count of the lookup tab giving the number of keys read at once
+	 */
+	private void setPreloadFlags() {
+		boolean preload = wPreload.getSelection();
+		boolean hash = RedisInputMeta.PRELOAD_SOURCE_HASH.equals(RedisInputMeta.getPreloadSourceCode(wPreloadSource.getText()));
+		wlPreloadSource.setEnabled(preload);
+		wPreloadSource.setEnabled(preload);
+		wlPreloadPattern.setEnabled(preload && !hash);
+		wPreloadPattern.setEnabled(preload && !hash);
+		wlPreloadHashKey.setEnabled(preload && hash);
+		wPreloadHashKey.setEnabled(preload && hash);
+		wlPreloadRefresh.setEnabled(preload);
+		wPreloadRefresh.setEnabled(preload);
+		setLookupModeFlags();
+	}
+
 	private void cancel() {
 		stepname = null;
 		input.setChanged(changed);
@@ -387,11 +1771,61 @@ public class RedisInputDialog extends BaseStepDialog implements
 		stepname = wStepname.getText(); // return value
 		input.setHostname(wHostname.getText());
 		input.setPort(wPort.getText());
+		input.setPassword(wPassword.getText());
 		input.setBase(wBase.getText());
+		input.setLookupMode(RedisInputMeta.getLookupModeCode(wLookupMode.getText()));
+		input.setBatchSize(wBatchSize.getText());
+		input.setWindowSize(wWindowSize.getText());
+		input.setScanPattern(wScanPattern.getText());
+		input.setScanCount(wScanCount.getText());
+		input.setKeyOutputField(wKeyOutputField.getText());
+		input.setValueType(RedisInputMeta.getValueTypeCode(wValueType.getText()));
+		input.setPageSize(wPageSize.getText());
+		input.setScoreMin(wScoreMin.getText());
+		input.setScoreMax(wScoreMax.getText());
+		input.setScoreField(wScoreField.getText());
+		input.setEntryNameField(wEntryNameField.getText());
+		int nrHashFields = wHashFields.nrNonEmpty();
+		input.allocate(nrHashFields);
+		for (int i = 0; i < nrHashFields; i++) {
+			TableItem item = wHashFields.getNonEmpty(i);
+			input.getHashFieldName()[i] = item.getText(1);
+			input.getHashFieldRename()[i] = item.getText(2);
+			input.getHashFieldType()[i] = ValueMetaFactory.getIdForValueMeta(item.getText(3));
+		}
+		input.setCacheEnabled(wCacheEnabled.getSelection());
+		input.setCacheEviction(RedisInputMeta.getCacheEvictionCode(wCacheEviction.getText()));
+		input.setCacheMaxEntries(wCacheMaxEntries.getText());
+		input.setCacheMaxBytes(wCacheMaxBytes.getText());
+		input.setCacheTtl(wCacheTtl.getText());
+		input.setScript(wScript.getText());
+		input.setScriptArgs(wScriptArgs.getText());
+		input.setScriptFields(wScriptFields.getText());
+		input.setPreload(wPreload.getSelection());
+		input.setPreloadSource(RedisInputMeta.getPreloadSourceCode(wPreloadSource.getText()));
+		input.setPreloadPattern(wPreloadPattern.getText());
+		input.setPreloadHashKey(wPreloadHashKey.getText());
+		input.setPreloadRefresh(wPreloadRefresh.getText());
+		input.setMissCacheTtl(wMissCacheTtl.getText());
+		input.setMissCacheMaxEntries(wMissCacheMaxEntries.getText());
+		input.setPoolMaxTotal(wPoolMaxTotal.getText());
+		input.setPoolMaxIdle(wPoolMaxIdle.getText());
+		input.setPoolMinIdle(wPoolMinIdle.getText());
+		input.setPoolMaxWait(wPoolMaxWait.getText());
+		input.setConnectTimeout(wConnectTimeout.getText());
+		input.setSocketTimeout(wSocketTimeout.getText());
+		input.setTestOnBorrow(wTestOnBorrow.getSelection());
+		input.setClusterMode(wClusterMode.getSelection());
+		input.setReadRouting(RedisInputMeta.getReadRoutingCode(wReadRouting.getText()));
+		input.setReplicaHosts(wReplicaHosts.getText());
+		input.setSentinelHosts(wSentinelHosts.getText());
+		input.setSentinelMaster(wSentinelMaster.getText());
 		input.setKey(wKey.getText());
 		input.setKeyFieldCheck(wKeyFieldCheck.getSelection());
 		input.setKeyFieldCombo(wKeyFieldCombo.getText());
 		input.setValueField(wValueField.getText());
+		input.setBinaryValue(wBinaryValue.getSelection());
+		input.setCodec(RedisInputMeta.getCodecCode(wCodec.getText()));
 		dispose();
 	}
 
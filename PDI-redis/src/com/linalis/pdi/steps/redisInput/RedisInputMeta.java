@@ -21,18 +21,19 @@
  ******************************************************************************/
 package com.linalis.pdi.steps.redisInput;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.pentaho.di.core.CheckResult;
 import org.pentaho.di.core.CheckResultInterface;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.annotations.Step;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.encryption.Encr;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettlePluginException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleXMLException;
 import org.pentaho.di.core.row.RowMetaInterface;
-import org.pentaho.di.core.row.ValueMeta;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaFactory;
 import org.pentaho.di.core.variables.VariableSpace;
@@ -50,24 +51,151 @@ import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.metastore.api.IMetaStore;
 import org.w3c.dom.Node;
 
+import com.linalis.pdi.steps.redis.RedisConnectionMeta;
+import com.linalis.pdi.steps.redis.RedisValueCodec;
+
 /**
  * The Redis Input step looks up value objects, from the given key names, from
  * memached server(s).
  *
  */
 @Step(id = "RedisInput", image = "img/redis-input.png", name = "Redis Input", description = "Reads from a Redis instance", categoryDescription = "Input")
-public class RedisInputMeta extends BaseStepMeta implements StepMetaInterface {
+public class RedisInputMeta extends BaseStepMeta implements StepMetaInterface, RedisConnectionMeta {
 	private static Class<?> PKG = RedisInputMeta.class; // for i18n purposes,
 														// needed by
 														// Translator2!!
 														// $NON-NLS-1$
+	/**
+	 * Lookup modes : one GET per row, one MGET per batch of rows, a window
+	 * of pipelined GETs kept in flight while rows are read, or no input at all
+	 * and one row per key of the keyspace, read with SCAN
+	 */
+	public static final String LOOKUP_MODE_GET = "get";
+	public static final String LOOKUP_MODE_MGET = "mget";
+	public static final String LOOKUP_MODE_PIPELINE = "pipeline";
+	public static final String LOOKUP_MODE_SCAN = "scan";
+	public static final String LOOKUP_MODE_SCRIPT = "script";
+	public static final String[] lookupModeCodes = { LOOKUP_MODE_GET, LOOKUP_MODE_MGET, LOOKUP_MODE_PIPELINE, LOOKUP_MODE_SCAN, LOOKUP_MODE_SCRIPT };
+	public static final String[] lookupModeDescs = {
+			BaseMessages.getString(PKG, "RedisInputMeta.LookupMode.Get"),
+			BaseMessages.getString(PKG, "RedisInputMeta.LookupMode.Mget"),
+			BaseMessages.getString(PKG, "RedisInputMeta.LookupMode.Pipeline"),
+			BaseMessages.getString(PKG, "RedisInputMeta.LookupMode.Scan"),
+			BaseMessages.getString(PKG, "RedisInputMeta.LookupMode.Script") };
+
+	/**
+	 * Servers the lookups are sent to : the master only, or its replicas, in turn or the fastest one first
+	 */
+	public static final String READ_ROUTING_MASTER = "master";
+	public static final String READ_ROUTING_ROUND_ROBIN = "roundrobin";
+	public static final String READ_ROUTING_LATENCY = "latency";
+	public static final String[] readRoutingCodes = { READ_ROUTING_MASTER, READ_ROUTING_ROUND_ROBIN, READ_ROUTING_LATENCY };
+	public static final String[] readRoutingDescs = {
+			BaseMessages.getString(PKG, "RedisInputMeta.ReadRouting.Master"),
+			BaseMessages.getString(PKG, "RedisInputMeta.ReadRouting.RoundRobin"),
+			BaseMessages.getString(PKG, "RedisInputMeta.ReadRouting.Latency") };
+
+	/**
+	 * Dimensions loaded in memory by the preload : the string keys matching a pattern, or the fields of a hash
+	 */
+	public static final String PRELOAD_SOURCE_PATTERN = "pattern";
+	public static final String PRELOAD_SOURCE_HASH = "hash";
+	public static final String[] preloadSourceCodes = { PRELOAD_SOURCE_PATTERN, PRELOAD_SOURCE_HASH };
+	public static final String[] preloadSourceDescs = {
+			BaseMessages.getString(PKG, "RedisInputMeta.PreloadSource.Pattern"),
+			BaseMessages.getString(PKG, "RedisInputMeta.PreloadSource.Hash") };
+
+	/**
+	 * Types of the values read from the keys : strings are read with GET,
+	 * the other structures with their own commands, page by page,
+	 * and the JSON objects written by Redis Output are read with GET and unpacked into fields
+	 */
+	public static final String VALUE_TYPE_STRING = "string";
+	public static final String VALUE_TYPE_HASH = "hash";
+	public static final String VALUE_TYPE_LIST = "list";
+	public static final String VALUE_TYPE_SET = "set";
+	public static final String VALUE_TYPE_ZSET = "zset";
+	public static final String VALUE_TYPE_JSON = "json";
+	public static final String[] valueTypeCodes = { VALUE_TYPE_STRING, VALUE_TYPE_HASH, VALUE_TYPE_LIST, VALUE_TYPE_SET, VALUE_TYPE_ZSET, VALUE_TYPE_JSON };
+	public static final String[] valueTypeDescs = {
+			BaseMessages.getString(PKG, "RedisInputMeta.ValueType.String"),
+			BaseMessages.getString(PKG, "RedisInputMeta.ValueType.Hash"),
+			BaseMessages.getString(PKG, "RedisInputMeta.ValueType.List"),
+			BaseMessages.getString(PKG, "RedisInputMeta.ValueType.Set"),
+			BaseMessages.getString(PKG, "RedisInputMeta.ValueType.Zset"),
+			BaseMessages.getString(PKG, "RedisInputMeta.ValueType.Json") };
+
+	/**
+	 * Compression of the values, see RedisValueCodec
+	 */
+	public static final String[] codecDescs = {
+			BaseMessages.getString(PKG, "RedisInputMeta.Codec.None"),
+			BaseMessages.getString(PKG, "RedisInputMeta.Codec.Gzip"),
+			BaseMessages.getString(PKG, "RedisInputMeta.Codec.Deflate") };
+
+	/**
+	 * Eviction policies of the local cache
+	 */
+	public static final String[] cacheEvictionCodes = { RedisNearCache.EVICTION_LRU, RedisNearCache.EVICTION_LFU };
+	public static final String[] cacheEvictionDescs = {
+			BaseMessages.getString(PKG, "RedisInputMeta.CacheEviction.Lru"),
+			BaseMessages.getString(PKG, "RedisInputMeta.CacheEviction.Lfu") };
+
 	private String hostname;
 	private String port;
+	private String password;
 	private String base;
+	private String lookupMode = LOOKUP_MODE_GET;
+	private String batchSize = "100";
+	private String windowSize = "100";
+	private String script;
+	private String scriptArgs;
+	private String scriptFields;
+	private boolean preload = false;
+	private String preloadSource = PRELOAD_SOURCE_PATTERN;
+	private String preloadPattern;
+	private String preloadHashKey;
+	private String preloadRefresh;
+	private String scanPattern;
+	private String scanCount = "1000";
+	private String keyOutputField = "key";
+	private String valueType = VALUE_TYPE_STRING;
+	private String pageSize = "1000";
+	private String scoreMin = "-inf";
+	private String scoreMax = "+inf";
+	private String scoreField;
+	private String entryNameField;
+	/**
+	 * Hash fields read with HMGET : name in the hash, name of the output field, and output type
+	 */
+	private String[] hashFieldName = new String[0];
+	private String[] hashFieldRename = new String[0];
+	private int[] hashFieldType = new int[0];
+	private boolean cacheEnabled = false;
+	private String cacheEviction = RedisNearCache.EVICTION_LRU;
+	private String cacheMaxEntries = "10000";
+	private String cacheMaxBytes;
+	private String cacheTtl;
+	private String missCacheTtl;
+	private String missCacheMaxEntries = "100000";
+	private String poolMaxTotal = "8";
+	private String poolMaxIdle = "8";
+	private String poolMinIdle = "0";
+	private String poolMaxWait = "-1";
+	private String connectTimeout = "2000";
+	private String socketTimeout = "2000";
+	private boolean testOnBorrow = false;
+	private boolean clusterMode = false;
+	private String readRouting = READ_ROUTING_MASTER;
+	private String replicaHosts;
+	private String sentinelHosts;
+	private String sentinelMaster;
 	private String key;
 	private boolean keyFieldCheck = false;
 	private String keyFieldCombo;
 	private String valueField;
+	private boolean binaryValue = false;
+	private String codec = RedisValueCodec.CODEC_NONE;
 
 	public RedisInputMeta() {
 		super(); // allocate BaseStepMeta
@@ -82,49 +210,179 @@ public class RedisInputMeta extends BaseStepMeta implements StepMetaInterface {
 		RedisInputMeta retval = (RedisInputMeta) super.clone();
 		retval.setHostname(this.hostname);
 		retval.setPort(this.port);
+		retval.setPassword(this.password);
 		retval.setBase(this.base);
+		retval.setLookupMode(this.lookupMode);
+		retval.setBatchSize(this.batchSize);
+		retval.setWindowSize(this.windowSize);
+		retval.setScript(this.script);
+		retval.setScriptArgs(this.scriptArgs);
+		retval.setScriptFields(this.scriptFields);
+		retval.setPreload(this.preload);
+		retval.setPreloadSource(this.preloadSource);
+		retval.setPreloadPattern(this.preloadPattern);
+		retval.setPreloadHashKey(this.preloadHashKey);
+		retval.setPreloadRefresh(this.preloadRefresh);
+		retval.setScanPattern(this.scanPattern);
+		retval.setScanCount(this.scanCount);
+		retval.setKeyOutputField(this.keyOutputField);
+		retval.setValueType(this.valueType);
+		retval.setPageSize(this.pageSize);
+		retval.setScoreMin(this.scoreMin);
+		retval.setScoreMax(this.scoreMax);
+		retval.setScoreField(this.scoreField);
+		retval.setEntryNameField(this.entryNameField);
+		retval.allocate(this.hashFieldName.length);
+		System.arraycopy(this.hashFieldName, 0, retval.hashFieldName, 0, this.hashFieldName.length);
+		System.arraycopy(this.hashFieldRename, 0, retval.hashFieldRename, 0, this.hashFieldRename.length);
+		System.arraycopy(this.hashFieldType, 0, retval.hashFieldType, 0, this.hashFieldType.length);
+		retval.setCacheEnabled(this.cacheEnabled);
+		retval.setCacheEviction(this.cacheEviction);
+		retval.setCacheMaxEntries(this.cacheMaxEntries);
+		retval.setCacheMaxBytes(this.cacheMaxBytes);
+		retval.setCacheTtl(this.cacheTtl);
+		retval.setMissCacheTtl(this.missCacheTtl);
+		retval.setMissCacheMaxEntries(this.missCacheMaxEntries);
+		retval.setPoolMaxTotal(this.poolMaxTotal);
+		retval.setPoolMaxIdle(this.poolMaxIdle);
+		retval.setPoolMinIdle(this.poolMinIdle);
+		retval.setPoolMaxWait(this.poolMaxWait);
+		retval.setConnectTimeout(this.connectTimeout);
+		retval.setSocketTimeout(this.socketTimeout);
+		retval.setTestOnBorrow(this.testOnBorrow);
+		retval.setClusterMode(this.clusterMode);
+		retval.setReadRouting(this.readRouting);
+		retval.setReplicaHosts(this.replicaHosts);
+		retval.setSentinelHosts(this.sentinelHosts);
+		retval.setSentinelMaster(this.sentinelMaster);
 		retval.setKey(key);
 		retval.setKeyFieldCheck(this.keyFieldCheck);
 		retval.setKeyFieldCombo(this.keyFieldCombo);
 		retval.setValueField(valueField);
+		retval.setBinaryValue(this.binaryValue);
+		retval.setCodec(this.codec);
 		return retval;
 	}
 
 	public void setDefault() {
 		this.hostname=null;
 		this.port=null;
+		this.password=null;
 		this.base=null;
+		this.lookupMode=LOOKUP_MODE_GET;
+		this.batchSize="100";
+		this.windowSize="100";
+		this.script=null;
+		this.scriptArgs=null;
+		this.scriptFields=null;
+		this.preload=false;
+		this.preloadSource=PRELOAD_SOURCE_PATTERN;
+		this.preloadPattern=null;
+		this.preloadHashKey=null;
+		this.preloadRefresh=null;
+		this.scanPattern=null;
+		this.scanCount="1000";
+		this.keyOutputField="key";
+		this.valueType=VALUE_TYPE_STRING;
+		this.pageSize="1000";
+		this.scoreMin="-inf";
+		this.scoreMax="+inf";
+		this.scoreField=null;
+		this.entryNameField=null;
+		allocate(0);
+		this.cacheEnabled=false;
+		this.cacheEviction=RedisNearCache.EVICTION_LRU;
+		this.cacheMaxEntries="10000";
+		this.cacheMaxBytes=null;
+		this.cacheTtl=null;
+		this.missCacheTtl=null;
+		this.missCacheMaxEntries="100000";
+		this.poolMaxTotal="8";
+		this.poolMaxIdle="8";
+		this.poolMinIdle="0";
+		this.poolMaxWait="-1";
+		this.connectTimeout="2000";
+		this.socketTimeout="2000";
+		this.testOnBorrow=false;
+		this.clusterMode=false;
+		this.readRouting=READ_ROUTING_MASTER;
+		this.replicaHosts=null;
+		this.sentinelHosts=null;
+		this.sentinelMaster=null;
 		this.key=null;
 		this.keyFieldCheck=false;
 		this.keyFieldCombo=null;
 		this.valueField=null;
+		this.binaryValue=false;
+		this.codec=RedisValueCodec.CODEC_NONE;
 	}
 
 	public void getFields(RowMetaInterface inputRowMeta, String origin,
 			RowMetaInterface[] info, StepMeta nextStep, VariableSpace space,
 			Repository repository, IMetaStore metaStore)
 			throws KettleStepException {
-		if (!Const.isEmpty(this.valueField)) {
-			// Add value field meta if not found, else set it
-			ValueMetaInterface v;
-			try {
-				v = ValueMetaFactory.createValueMeta(this.valueField, ValueMeta.TYPE_STRING);
-			} catch (KettlePluginException e) {
+		if (LOOKUP_MODE_SCAN.equals(this.lookupMode)) {
+			// The keyspace reader ignores its input, its rows are made of a key and its value
+			inputRowMeta.clear();
+			if (Const.isEmpty(this.keyOutputField)) {
 				throw new KettleStepException(BaseMessages.getString(PKG,
-						"RedisInputMeta.Exception.ValueTypeNameNotFound"), e);
+						"RedisInputMeta.Exception.KeyOutputFieldNameNotFound"));
+			}
+			addField(inputRowMeta, this.keyOutputField, ValueMetaInterface.TYPE_STRING, origin);
+		}
+		else if (LOOKUP_MODE_SCRIPT.equals(this.lookupMode)) {
+			// Each element of the reply of the script goes to its own field, or the whole reply to the value field
+			String[] resultFields = getScriptFieldNames();
+			if (resultFields.length > 0) {
+				for (int i = 0; i < resultFields.length; i++)
+					addField(inputRowMeta, resultFields[i], ValueMetaInterface.TYPE_STRING, origin);
+				return;
 			}
-			v.setOrigin(origin);
-			int valueFieldIndex = inputRowMeta
-					.indexOfValue(this.valueField);
-			if (valueFieldIndex < 0) {
-				inputRowMeta.addValueMeta(v);
-			} else {
-				inputRowMeta.setValueMeta(valueFieldIndex, v);
+		}
+		else if ((VALUE_TYPE_HASH.equals(this.valueType) || VALUE_TYPE_JSON.equals(this.valueType)) && this.hashFieldName.length > 0) {
+			// One typed field per hash field or JSON entry, no value field
+			for (int i = 0; i < this.hashFieldName.length; i++) {
+				int type = this.hashFieldType[i] == ValueMetaInterface.TYPE_NONE ? ValueMetaInterface.TYPE_STRING : this.hashFieldType[i];
+				addField(inputRowMeta, getHashFieldOutputName(i), type, origin);
 			}
+			return;
+		}
+		else if (VALUE_TYPE_HASH.equals(this.valueType) && !Const.isEmpty(this.entryNameField)) {
+			// The whole hash is read, one row per hash field
+			addField(inputRowMeta, this.entryNameField, ValueMetaInterface.TYPE_STRING, origin);
+		}
+		if (!Const.isEmpty(this.valueField)) {
+			// Add value field meta if not found, else set it
+			addField(inputRowMeta, this.valueField,
+					readsBinaryValues() ? ValueMetaInterface.TYPE_BINARY : ValueMetaInterface.TYPE_STRING, origin);
 		} else {
 			throw new KettleStepException(BaseMessages.getString(PKG,
 					"RedisInputMeta.Exception.ValueFieldNameNotFound"));
 		}
+		if (VALUE_TYPE_ZSET.equals(this.valueType) && !LOOKUP_MODE_SCAN.equals(this.lookupMode)
+				&& !LOOKUP_MODE_SCRIPT.equals(this.lookupMode) && !Const.isEmpty(this.scoreField)) {
+			addField(inputRowMeta, this.scoreField, ValueMetaInterface.TYPE_NUMBER, origin);
+		}
+	}
+	
+	/**
+	 * Adds the field to the row if not found, else replaces it
+	 */
+	private static void addField(RowMetaInterface rowMeta, String name, int type, String origin) throws KettleStepException {
+		ValueMetaInterface v;
+		try {
+			v = ValueMetaFactory.createValueMeta(name, type);
+		} catch (KettlePluginException e) {
+			throw new KettleStepException(BaseMessages.getString(PKG,
+					"RedisInputMeta.Exception.ValueTypeNameNotFound"), e);
+		}
+		v.setOrigin(origin);
+		int index = rowMeta.indexOfValue(name);
+		if (index < 0) {
+			rowMeta.addValueMeta(v);
+		} else {
+			rowMeta.setValueMeta(index, v);
+		}
 	}
 
 	public void check(List<CheckResultInterface> remarks, TransMeta transMeta,
@@ -193,6 +451,16 @@ public class RedisInputMeta extends BaseStepMeta implements StepMetaInterface {
 		this.port=port;
 	}
 	
+	public String getPassword()
+	{
+		return password;
+	}
+	
+	public void setPassword(String password)
+	{
+		this.password=password;
+	}
+	
 	public String getBase()
 	{
 		return base;
@@ -203,6 +471,559 @@ public class RedisInputMeta extends BaseStepMeta implements StepMetaInterface {
 		this.base=base;
 	}
 	
+	public String getLookupMode()
+	{
+		return lookupMode;
+	}
+	
+	public void setLookupMode(String lookupMode)
+	{
+		this.lookupMode=lookupMode;
+	}
+	
+	public String getBatchSize()
+	{
+		return batchSize;
+	}
+	
+	public void setBatchSize(String batchSize)
+	{
+		this.batchSize=batchSize;
+	}
+	
+	public String getWindowSize()
+	{
+		return windowSize;
+	}
+	
+	public void setWindowSize(String windowSize)
+	{
+		this.windowSize=windowSize;
+	}
+	
+	public String getScript()
+	{
+		return script;
+	}
+	
+	public void setScript(String script)
+	{
+		this.script=script;
+	}
+	
+	public String getScriptArgs()
+	{
+		return scriptArgs;
+	}
+	
+	public void setScriptArgs(String scriptArgs)
+	{
+		this.scriptArgs=scriptArgs;
+	}
+	
+	public String getScriptFields()
+	{
+		return scriptFields;
+	}
+	
+	public void setScriptFields(String scriptFields)
+	{
+		this.scriptFields=scriptFields;
+	}
+	
+	public boolean isPreload()
+	{
+		return preload;
+	}
+	
+	public void setPreload(boolean preload)
+	{
+		this.preload=preload;
+	}
+	
+	public String getPreloadSource()
+	{
+		return preloadSource;
+	}
+	
+	public void setPreloadSource(String preloadSource)
+	{
+		this.preloadSource=preloadSource;
+	}
+	
+	public String getPreloadPattern()
+	{
+		return preloadPattern;
+	}
+	
+	public void setPreloadPattern(String preloadPattern)
+	{
+		this.preloadPattern=preloadPattern;
+	}
+	
+	public String getPreloadHashKey()
+	{
+		return preloadHashKey;
+	}
+	
+	public void setPreloadHashKey(String preloadHashKey)
+	{
+		this.preloadHashKey=preloadHashKey;
+	}
+	
+	public String getPreloadRefresh()
+	{
+		return preloadRefresh;
+	}
+	
+	public void setPreloadRefresh(String preloadRefresh)
+	{
+		this.preloadRefresh=preloadRefresh;
+	}
+	
+	public String getScanPattern()
+	{
+		return scanPattern;
+	}
+	
+	public void setScanPattern(String scanPattern)
+	{
+		this.scanPattern=scanPattern;
+	}
+	
+	public String getScanCount()
+	{
+		return scanCount;
+	}
+	
+	public void setScanCount(String scanCount)
+	{
+		this.scanCount=scanCount;
+	}
+	
+	public String getKeyOutputField()
+	{
+		return keyOutputField;
+	}
+	
+	public void setKeyOutputField(String keyOutputField)
+	{
+		this.keyOutputField=keyOutputField;
+	}
+	
+	public String getValueType()
+	{
+		return valueType;
+	}
+	
+	public void setValueType(String valueType)
+	{
+		this.valueType=valueType;
+	}
+	
+	public String getPageSize()
+	{
+		return pageSize;
+	}
+	
+	public void setPageSize(String pageSize)
+	{
+		this.pageSize=pageSize;
+	}
+	
+	public String getScoreMin()
+	{
+		return scoreMin;
+	}
+	
+	public void setScoreMin(String scoreMin)
+	{
+		this.scoreMin=scoreMin;
+	}
+	
+	public String getScoreMax()
+	{
+		return scoreMax;
+	}
+	
+	public void setScoreMax(String scoreMax)
+	{
+		this.scoreMax=scoreMax;
+	}
+	
+	public String getScoreField()
+	{
+		return scoreField;
+	}
+	
+	public void setScoreField(String scoreField)
+	{
+		this.scoreField=scoreField;
+	}
+	
+	public String getEntryNameField()
+	{
+		return entryNameField;
+	}
+	
+	public void setEntryNameField(String entryNameField)
+	{
+		this.entryNameField=entryNameField;
+	}
+	
+	/**
+	 * @return true if the values are read as byte[] into a Binary field : only the string values,
+	 * fetched from the input rows or from the keyspace, can be read as binary. Script replies are
+	 * always read as strings.
+	 */
+	public boolean readsBinaryValues()
+	{
+		return binaryValue && !LOOKUP_MODE_SCRIPT.equals(lookupMode)
+				&& (LOOKUP_MODE_SCAN.equals(lookupMode) || VALUE_TYPE_STRING.equals(valueType));
+	}
+	
+	/**
+	 * @return the names of the fields receiving the elements of the script replies, in order,
+	 * empty when the whole reply goes to the value field
+	 */
+	public String[] getScriptFieldNames()
+	{
+		return splitNames(scriptFields);
+	}
+	
+	/**
+	 * @return the non empty names of a comma separated list, trimmed
+	 */
+	public static String[] splitNames(String names)
+	{
+		List<String> result = new ArrayList<String>();
+		if (names != null) {
+			for (String name : names.split(",")) {
+				if (name.trim().length() > 0)
+					result.add(name.trim());
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+	
+	public void allocate(int nrHashFields)
+	{
+		hashFieldName = new String[nrHashFields];
+		hashFieldRename = new String[nrHashFields];
+		hashFieldType = new int[nrHashFields];
+	}
+	
+	public String[] getHashFieldName()
+	{
+		return hashFieldName;
+	}
+	
+	public void setHashFieldName(String[] hashFieldName)
+	{
+		this.hashFieldName=hashFieldName;
+	}
+	
+	public String[] getHashFieldRename()
+	{
+		return hashFieldRename;
+	}
+	
+	public void setHashFieldRename(String[] hashFieldRename)
+	{
+		this.hashFieldRename=hashFieldRename;
+	}
+	
+	public int[] getHashFieldType()
+	{
+		return hashFieldType;
+	}
+	
+	public void setHashFieldType(int[] hashFieldType)
+	{
+		this.hashFieldType=hashFieldType;
+	}
+	
+	/**
+	 * @return the name of the output field of the given hash field, its own name when it is not renamed
+	 */
+	public String getHashFieldOutputName(int i)
+	{
+		return Const.isEmpty(hashFieldRename[i]) ? hashFieldName[i] : hashFieldRename[i];
+	}
+	
+	public boolean isCacheEnabled()
+	{
+		return cacheEnabled;
+	}
+	
+	public void setCacheEnabled(boolean cacheEnabled)
+	{
+		this.cacheEnabled=cacheEnabled;
+	}
+	
+	public String getCacheEviction()
+	{
+		return cacheEviction;
+	}
+	
+	public void setCacheEviction(String cacheEviction)
+	{
+		this.cacheEviction=cacheEviction;
+	}
+	
+	public String getCacheMaxEntries()
+	{
+		return cacheMaxEntries;
+	}
+	
+	public void setCacheMaxEntries(String cacheMaxEntries)
+	{
+		this.cacheMaxEntries=cacheMaxEntries;
+	}
+	
+	public String getCacheMaxBytes()
+	{
+		return cacheMaxBytes;
+	}
+	
+	public void setCacheMaxBytes(String cacheMaxBytes)
+	{
+		this.cacheMaxBytes=cacheMaxBytes;
+	}
+	
+	/**
+	 * @return the time to live of the cached values, in seconds
+	 */
+	public String getCacheTtl()
+	{
+		return cacheTtl;
+	}
+	
+	public void setCacheTtl(String cacheTtl)
+	{
+		this.cacheTtl=cacheTtl;
+	}
+	
+	public String getMissCacheTtl()
+	{
+		return missCacheTtl;
+	}
+	
+	public void setMissCacheTtl(String missCacheTtl)
+	{
+		this.missCacheTtl=missCacheTtl;
+	}
+	
+	public String getMissCacheMaxEntries()
+	{
+		return missCacheMaxEntries;
+	}
+	
+	public void setMissCacheMaxEntries(String missCacheMaxEntries)
+	{
+		this.missCacheMaxEntries=missCacheMaxEntries;
+	}
+	
+	public String getPoolMaxTotal()
+	{
+		return poolMaxTotal;
+	}
+	
+	public void setPoolMaxTotal(String poolMaxTotal)
+	{
+		this.poolMaxTotal=poolMaxTotal;
+	}
+	
+	public String getPoolMaxIdle()
+	{
+		return poolMaxIdle;
+	}
+	
+	public void setPoolMaxIdle(String poolMaxIdle)
+	{
+		this.poolMaxIdle=poolMaxIdle;
+	}
+	
+	public String getPoolMinIdle()
+	{
+		return poolMinIdle;
+	}
+	
+	public void setPoolMinIdle(String poolMinIdle)
+	{
+		this.poolMinIdle=poolMinIdle;
+	}
+	
+	public String getPoolMaxWait()
+	{
+		return poolMaxWait;
+	}
+	
+	public void setPoolMaxWait(String poolMaxWait)
+	{
+		this.poolMaxWait=poolMaxWait;
+	}
+	
+	public String getConnectTimeout()
+	{
+		return connectTimeout;
+	}
+	
+	public void setConnectTimeout(String connectTimeout)
+	{
+		this.connectTimeout=connectTimeout;
+	}
+	
+	public String getSocketTimeout()
+	{
+		return socketTimeout;
+	}
+	
+	public void setSocketTimeout(String socketTimeout)
+	{
+		this.socketTimeout=socketTimeout;
+	}
+	
+	public boolean isTestOnBorrow()
+	{
+		return testOnBorrow;
+	}
+	
+	public void setTestOnBorrow(boolean testOnBorrow)
+	{
+		this.testOnBorrow=testOnBorrow;
+	}
+	
+	public boolean isClusterMode()
+	{
+		return clusterMode;
+	}
+	
+	public void setClusterMode(boolean clusterMode)
+	{
+		this.clusterMode=clusterMode;
+	}
+	
+	public String getReadRouting()
+	{
+		return readRouting;
+	}
+	
+	public void setReadRouting(String readRouting)
+	{
+		this.readRouting=readRouting;
+	}
+	
+	public String getReplicaHosts()
+	{
+		return replicaHosts;
+	}
+	
+	public void setReplicaHosts(String replicaHosts)
+	{
+		this.replicaHosts=replicaHosts;
+	}
+	
+	public String getSentinelHosts()
+	{
+		return sentinelHosts;
+	}
+	
+	public void setSentinelHosts(String sentinelHosts)
+	{
+		this.sentinelHosts=sentinelHosts;
+	}
+	
+	public String getSentinelMaster()
+	{
+		return sentinelMaster;
+	}
+	
+	public void setSentinelMaster(String sentinelMaster)
+	{
+		this.sentinelMaster=sentinelMaster;
+	}
+	
+	/**
+	 * @param code a lookup mode code, as stored in the step XML
+	 * @return the localized description of the lookup mode, or the first one if the code is unknown
+	 */
+	public static String getLookupModeDesc(String code)
+	{
+		int index = Const.indexOfString(code, lookupModeCodes);
+		return lookupModeDescs[index < 0 ? 0 : index];
+	}
+	
+	/**
+	 * @param desc a localized lookup mode description, as shown in the dialog
+	 * @return the matching lookup mode code, or the GET mode if the description is unknown
+	 */
+	public static String getLookupModeCode(String desc)
+	{
+		int index = Const.indexOfString(desc, lookupModeDescs);
+		return lookupModeCodes[index < 0 ? 0 : index];
+	}
+	
+	public static String getCodecDesc(String code)
+	{
+		int index = Const.indexOfString(code, RedisValueCodec.codecCodes);
+		return codecDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getCodecCode(String desc)
+	{
+		int index = Const.indexOfString(desc, codecDescs);
+		return RedisValueCodec.codecCodes[index < 0 ? 0 : index];
+	}
+	
+	public static String getReadRoutingDesc(String code)
+	{
+		int index = Const.indexOfString(code, readRoutingCodes);
+		return readRoutingDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getReadRoutingCode(String desc)
+	{
+		int index = Const.indexOfString(desc, readRoutingDescs);
+		return readRoutingCodes[index < 0 ? 0 : index];
+	}
+	
+	public static String getPreloadSourceDesc(String code)
+	{
+		int index = Const.indexOfString(code, preloadSourceCodes);
+		return preloadSourceDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getPreloadSourceCode(String desc)
+	{
+		int index = Const.indexOfString(desc, preloadSourceDescs);
+		return preloadSourceCodes[index < 0 ? 0 : index];
+	}
+	
+	public static String getValueTypeDesc(String code)
+	{
+		int index = Const.indexOfString(code, valueTypeCodes);
+		return valueTypeDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getValueTypeCode(String desc)
+	{
+		int index = Const.indexOfString(desc, valueTypeDescs);
+		return valueTypeCodes[index < 0 ? 0 : index];
+	}
+	
+	public static String getCacheEvictionDesc(String code)
+	{
+		int index = Const.indexOfString(code, cacheEvictionCodes);
+		return cacheEvictionDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getCacheEvictionCode(String desc)
+	{
+		int index = Const.indexOfString(desc, cacheEvictionDescs);
+		return cacheEvictionCodes[index < 0 ? 0 : index];
+	}
+	
 	public String getKey() {
 		return key;
 	}
@@ -235,17 +1056,88 @@ public class RedisInputMeta extends BaseStepMeta implements StepMetaInterface {
 		this.valueField = valueField;
 	}
 	
+	public boolean isBinaryValue()
+	{
+		return binaryValue;
+	}
+	
+	public void setBinaryValue(boolean binaryValue)
+	{
+		this.binaryValue=binaryValue;
+	}
+	
+	public String getCodec()
+	{
+		return codec;
+	}
+	
+	public void setCodec(String codec)
+	{
+		this.codec=codec;
+	}
+	
 
 	@Override
 	public String getXML() throws KettleException {
 		StringBuffer retval = new StringBuffer();
 		retval.append(XMLHandler.addTagValue("hostname", this.getHostname()));
 		retval.append(XMLHandler.addTagValue("port", this.getPort()));
+		retval.append(XMLHandler.addTagValue("password", Encr.encryptPasswordIfNotUsingVariables(this.getPassword())));
 		retval.append(XMLHandler.addTagValue("base", this.getBase()));
+		retval.append(XMLHandler.addTagValue("lookupMode", this.getLookupMode()));
+		retval.append(XMLHandler.addTagValue("batchSize", this.getBatchSize()));
+		retval.append(XMLHandler.addTagValue("windowSize", this.getWindowSize()));
+		retval.append(XMLHandler.addTagValue("script", this.getScript()));
+		retval.append(XMLHandler.addTagValue("scriptArgs", this.getScriptArgs()));
+		retval.append(XMLHandler.addTagValue("scriptFields", this.getScriptFields()));
+		retval.append(XMLHandler.addTagValue("preload", this.isPreload()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("preloadSource", this.getPreloadSource()));
+		retval.append(XMLHandler.addTagValue("preloadPattern", this.getPreloadPattern()));
+		retval.append(XMLHandler.addTagValue("preloadHashKey", this.getPreloadHashKey()));
+		retval.append(XMLHandler.addTagValue("preloadRefresh", this.getPreloadRefresh()));
+		retval.append(XMLHandler.addTagValue("scanPattern", this.getScanPattern()));
+		retval.append(XMLHandler.addTagValue("scanCount", this.getScanCount()));
+		retval.append(XMLHandler.addTagValue("keyOutputField", this.getKeyOutputField()));
+		retval.append(XMLHandler.addTagValue("valueType", this.getValueType()));
+		retval.append(XMLHandler.addTagValue("pageSize", this.getPageSize()));
+		retval.append(XMLHandler.addTagValue("scoreMin", this.getScoreMin()));
+		retval.append(XMLHandler.addTagValue("scoreMax", this.getScoreMax()));
+		retval.append(XMLHandler.addTagValue("scoreField", this.getScoreField()));
+		retval.append(XMLHandler.addTagValue("entryNameField", this.getEntryNameField()));
+		retval.append("    ").append(XMLHandler.openTag("hashFields")).append(Const.CR);
+		for (int i = 0; i < hashFieldName.length; i++) {
+			retval.append("      ").append(XMLHandler.openTag("hashField")).append(Const.CR);
+			retval.append(XMLHandler.addTagValue("name", hashFieldName[i]));
+			retval.append(XMLHandler.addTagValue("rename", hashFieldRename[i]));
+			retval.append(XMLHandler.addTagValue("type", ValueMetaFactory.getValueMetaName(hashFieldType[i])));
+			retval.append("      ").append(XMLHandler.closeTag("hashField")).append(Const.CR);
+		}
+		retval.append("    ").append(XMLHandler.closeTag("hashFields")).append(Const.CR);
+		retval.append(XMLHandler.addTagValue("cacheEnabled", this.isCacheEnabled()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("cacheEviction", this.getCacheEviction()));
+		retval.append(XMLHandler.addTagValue("cacheMaxEntries", this.getCacheMaxEntries()));
+		retval.append(XMLHandler.addTagValue("cacheMaxBytes", this.getCacheMaxBytes()));
+		retval.append(XMLHandler.addTagValue("cacheTtl", this.getCacheTtl()));
+		retval.append(XMLHandler.addTagValue("missCacheTtl", this.getMissCacheTtl()));
+		retval.append(XMLHandler.addTagValue("missCacheMaxEntries", this.getMissCacheMaxEntries()));
+		retval.append(XMLHandler.addTagValue("poolMaxTotal", this.getPoolMaxTotal()));
+		retval.append(XMLHandler.addTagValue("poolMaxIdle", this.getPoolMaxIdle()));
+		retval.append(XMLHandler.addTagValue("poolMinIdle", this.getPoolMinIdle()));
+		retval.append(XMLHandler.addTagValue("poolMaxWait", this.getPoolMaxWait()));
+		retval.append(XMLHandler.addTagValue("connectTimeout", this.getConnectTimeout()));
+		retval.append(XMLHandler.addTagValue("socketTimeout", this.getSocketTimeout()));
+		retval.append(XMLHandler.addTagValue("testOnBorrow", this.isTestOnBorrow()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("clusterMode", this.isClusterMode()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("readRouting", this.getReadRouting()));
+		retval.append(XMLHandler.addTagValue("replicaHosts", this.getReplicaHosts()));
+		retval.append(XMLHandler.addTagValue("sentinelHosts", this.getSentinelHosts()));
+		retval.append(XMLHandler.addTagValue("sentinelMaster", this.getSentinelMaster()));
 		retval.append(XMLHandler.addTagValue("key", this.getKey()));
 		retval.append(XMLHandler.addTagValue("keyFieldCheck", this.getKeyFieldCheck()==true?"true":"false"));
 		retval.append(XMLHandler.addTagValue("keyFieldCombo", this.getKeyFieldCombo()));
 		retval.append(XMLHandler.addTagValue("valueField", this.getValueField()));
+		retval.append(XMLHandler.addTagValue("binaryValue", this.isBinaryValue()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("codec", this.getCodec()));
 		return retval.toString();
 	}
 
@@ -253,11 +1145,62 @@ public class RedisInputMeta extends BaseStepMeta implements StepMetaInterface {
 		try {
 			this.hostname = XMLHandler.getTagValue(stepnode, "hostname");
 			this.port = XMLHandler.getTagValue(stepnode, "port");
+			this.password = Encr.decryptPasswordOptionallyEncrypted(XMLHandler.getTagValue(stepnode, "password"));
 			this.base = XMLHandler.getTagValue(stepnode, "base");
+			this.lookupMode = Const.NVL(XMLHandler.getTagValue(stepnode, "lookupMode"), LOOKUP_MODE_GET);
+			this.batchSize = Const.NVL(XMLHandler.getTagValue(stepnode, "batchSize"), "100");
+			this.windowSize = Const.NVL(XMLHandler.getTagValue(stepnode, "windowSize"), "100");
+			this.script = XMLHandler.getTagValue(stepnode, "script");
+			this.scriptArgs = XMLHandler.getTagValue(stepnode, "scriptArgs");
+			this.scriptFields = XMLHandler.getTagValue(stepnode, "scriptFields");
+			this.preload = "true".equals(XMLHandler.getTagValue(stepnode, "preload"));
+			this.preloadSource = Const.NVL(XMLHandler.getTagValue(stepnode, "preloadSource"), PRELOAD_SOURCE_PATTERN);
+			this.preloadPattern = XMLHandler.getTagValue(stepnode, "preloadPattern");
+			this.preloadHashKey = XMLHandler.getTagValue(stepnode, "preloadHashKey");
+			this.preloadRefresh = XMLHandler.getTagValue(stepnode, "preloadRefresh");
+			this.scanPattern = XMLHandler.getTagValue(stepnode, "scanPattern");
+			this.scanCount = Const.NVL(XMLHandler.getTagValue(stepnode, "scanCount"), "1000");
+			this.keyOutputField = Const.NVL(XMLHandler.getTagValue(stepnode, "keyOutputField"), "key");
+			this.valueType = Const.NVL(XMLHandler.getTagValue(stepnode, "valueType"), VALUE_TYPE_STRING);
+			this.pageSize = Const.NVL(XMLHandler.getTagValue(stepnode, "pageSize"), "1000");
+			this.scoreMin = Const.NVL(XMLHandler.getTagValue(stepnode, "scoreMin"), "-inf");
+			this.scoreMax = Const.NVL(XMLHandler.getTagValue(stepnode, "scoreMax"), "+inf");
+			this.scoreField = XMLHandler.getTagValue(stepnode, "scoreField");
+			this.entryNameField = XMLHandler.getTagValue(stepnode, "entryNameField");
+			Node hashFields = XMLHandler.getSubNode(stepnode, "hashFields");
+			int nrHashFields = XMLHandler.countNodes(hashFields, "hashField");
+			allocate(nrHashFields);
+			for (int i = 0; i < nrHashFields; i++) {
+				Node hashField = XMLHandler.getSubNodeByNr(hashFields, "hashField", i);
+				this.hashFieldName[i] = XMLHandler.getTagValue(hashField, "name");
+				this.hashFieldRename[i] = XMLHandler.getTagValue(hashField, "rename");
+				this.hashFieldType[i] = ValueMetaFactory.getIdForValueMeta(XMLHandler.getTagValue(hashField, "type"));
+			}
+			this.cacheEnabled = "true".equals(XMLHandler.getTagValue(stepnode, "cacheEnabled"));
+			this.cacheEviction = Const.NVL(XMLHandler.getTagValue(stepnode, "cacheEviction"), RedisNearCache.EVICTION_LRU);
+			this.cacheMaxEntries = XMLHandler.getTagValue(stepnode, "cacheMaxEntries");
+			this.cacheMaxBytes = XMLHandler.getTagValue(stepnode, "cacheMaxBytes");
+			this.cacheTtl = XMLHandler.getTagValue(stepnode, "cacheTtl");
+			this.missCacheTtl = XMLHandler.getTagValue(stepnode, "missCacheTtl");
+			this.missCacheMaxEntries = Const.NVL(XMLHandler.getTagValue(stepnode, "missCacheMaxEntries"), "100000");
+			this.poolMaxTotal = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMaxTotal"), "8");
+			this.poolMaxIdle = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMaxIdle"), "8");
+			this.poolMinIdle = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMinIdle"), "0");
+			this.poolMaxWait = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMaxWait"), "-1");
+			this.connectTimeout = Const.NVL(XMLHandler.getTagValue(stepnode, "connectTimeout"), "2000");
+			this.socketTimeout = Const.NVL(XMLHandler.getTagValue(stepnode, "socketTimeout"), "2000");
+			this.testOnBorrow = "true".equals(XMLHandler.getTagValue(stepnode, "testOnBorrow"));
+			this.clusterMode = "true".equals(XMLHandler.getTagValue(stepnode, "clusterMode"));
+			this.readRouting = Const.NVL(XMLHandler.getTagValue(stepnode, "readRouting"), READ_ROUTING_MASTER);
+			this.replicaHosts = XMLHandler.getTagValue(stepnode, "replicaHosts");
+			this.sentinelHosts = XMLHandler.getTagValue(stepnode, "sentinelHosts");
+			this.sentinelMaster = XMLHandler.getTagValue(stepnode, "sentinelMaster");
 			this.key = XMLHandler.getTagValue(stepnode, "key");
 			this.keyFieldCheck = (XMLHandler.getTagValue(stepnode, "keyFieldCheck")!=null && XMLHandler.getTagValue(stepnode, "keyFieldCheck").equals("true")?true:false);
 			this.keyFieldCombo = XMLHandler.getTagValue(stepnode, "keyFieldCombo");
 			this.valueField = XMLHandler.getTagValue(stepnode, "valueField");
+			this.binaryValue = "true".equals(XMLHandler.getTagValue(stepnode, "binaryValue"));
+			this.codec = Const.NVL(XMLHandler.getTagValue(stepnode, "codec"), RedisValueCodec.CODEC_NONE);
 		} catch (Exception e) {
 			throw new KettleXMLException(BaseMessages.getString(PKG,
 					"RedisInputMeta.Exception.UnableToReadStepInfo"), e);
@@ -268,11 +1211,60 @@ public class RedisInputMeta extends BaseStepMeta implements StepMetaInterface {
 		try {
 			this.hostname = rep.getStepAttributeString(id_step, "hostname");
 			this.port = rep.getStepAttributeString(id_step, "port");
+			this.password = Encr.decryptPasswordOptionallyEncrypted(rep.getStepAttributeString(id_step, "password"));
 			this.base = rep.getStepAttributeString(id_step, "base");
+			this.lookupMode = Const.NVL(rep.getStepAttributeString(id_step, "lookupMode"), LOOKUP_MODE_GET);
+			this.batchSize = Const.NVL(rep.getStepAttributeString(id_step, "batchSize"), "100");
+			this.windowSize = Const.NVL(rep.getStepAttributeString(id_step, "windowSize"), "100");
+			this.script = rep.getStepAttributeString(id_step, "script");
+			this.scriptArgs = rep.getStepAttributeString(id_step, "scriptArgs");
+			this.scriptFields = rep.getStepAttributeString(id_step, "scriptFields");
+			this.preload = rep.getStepAttributeBoolean(id_step, "preload");
+			this.preloadSource = Const.NVL(rep.getStepAttributeString(id_step, "preloadSource"), PRELOAD_SOURCE_PATTERN);
+			this.preloadPattern = rep.getStepAttributeString(id_step, "preloadPattern");
+			this.preloadHashKey = rep.getStepAttributeString(id_step, "preloadHashKey");
+			this.preloadRefresh = rep.getStepAttributeString(id_step, "preloadRefresh");
+			this.scanPattern = rep.getStepAttributeString(id_step, "scanPattern");
+			this.scanCount = Const.NVL(rep.getStepAttributeString(id_step, "scanCount"), "1000");
+			this.keyOutputField = Const.NVL(rep.getStepAttributeString(id_step, "keyOutputField"), "key");
+			this.valueType = Const.NVL(rep.getStepAttributeString(id_step, "valueType"), VALUE_TYPE_STRING);
+			this.pageSize = Const.NVL(rep.getStepAttributeString(id_step, "pageSize"), "1000");
+			this.scoreMin = Const.NVL(rep.getStepAttributeString(id_step, "scoreMin"), "-inf");
+			this.scoreMax = Const.NVL(rep.getStepAttributeString(id_step, "scoreMax"), "+inf");
+			this.scoreField = rep.getStepAttributeString(id_step, "scoreField");
+			this.entryNameField = rep.getStepAttributeString(id_step, "entryNameField");
+			int nrHashFields = rep.countNrStepAttributes(id_step, "hash_field_name");
+			allocate(nrHashFields);
+			for (int i = 0; i < nrHashFields; i++) {
+				this.hashFieldName[i] = rep.getStepAttributeString(id_step, i, "hash_field_name");
+				this.hashFieldRename[i] = rep.getStepAttributeString(id_step, i, "hash_field_rename");
+				this.hashFieldType[i] = ValueMetaFactory.getIdForValueMeta(rep.getStepAttributeString(id_step, i, "hash_field_type"));
+			}
+			this.cacheEnabled = rep.getStepAttributeBoolean(id_step, "cacheEnabled");
+			this.cacheEviction = Const.NVL(rep.getStepAttributeString(id_step, "cacheEviction"), RedisNearCache.EVICTION_LRU);
+			this.cacheMaxEntries = rep.getStepAttributeString(id_step, "cacheMaxEntries");
+			this.cacheMaxBytes = rep.getStepAttributeString(id_step, "cacheMaxBytes");
+			this.cacheTtl = rep.getStepAttributeString(id_step, "cacheTtl");
+			this.missCacheTtl = rep.getStepAttributeString(id_step, "missCacheTtl");
+			this.missCacheMaxEntries = Const.NVL(rep.getStepAttributeString(id_step, "missCacheMaxEntries"), "100000");
+			this.poolMaxTotal = Const.NVL(rep.getStepAttributeString(id_step, "poolMaxTotal"), "8");
+			this.poolMaxIdle = Const.NVL(rep.getStepAttributeString(id_step, "poolMaxIdle"), "8");
+			this.poolMinIdle = Const.NVL(rep.getStepAttributeString(id_step, "poolMinIdle"), "0");
+			this.poolMaxWait = Const.NVL(rep.getStepAttributeString(id_step, "poolMaxWait"), "-1");
+			this.connectTimeout = Const.NVL(rep.getStepAttributeString(id_step, "connectTimeout"), "2000");
+			this.socketTimeout = Const.NVL(rep.getStepAttributeString(id_step, "socketTimeout"), "2000");
+			this.testOnBorrow = rep.getStepAttributeBoolean(id_step, "testOnBorrow");
+			this.clusterMode = rep.getStepAttributeBoolean(id_step, "clusterMode");
+			this.readRouting = Const.NVL(rep.getStepAttributeString(id_step, "readRouting"), READ_ROUTING_MASTER);
+			this.replicaHosts = rep.getStepAttributeString(id_step, "replicaHosts");
+			this.sentinelHosts = rep.getStepAttributeString(id_step, "sentinelHosts");
+			this.sentinelMaster = rep.getStepAttributeString(id_step, "sentinelMaster");
 			this.key = rep.getStepAttributeString(id_step, "key");
 			this.keyFieldCheck = rep.getStepAttributeBoolean(id_step, "keyFieldCheck");
 			this.keyFieldCombo = rep.getStepAttributeString(id_step, "keyFieldCombo");
 			this.valueField = rep.getStepAttributeString(id_step, "valueField");
+			this.binaryValue = rep.getStepAttributeBoolean(id_step, "binaryValue");
+			this.codec = Const.NVL(rep.getStepAttributeString(id_step, "codec"), RedisValueCodec.CODEC_NONE);
 		} catch (Exception e) {
 			throw new KettleException(BaseMessages.getString(PKG,
 					"RedisInputMeta.Exception.UnexpectedErrorReadingStepInfo"),
@@ -285,11 +1277,58 @@ public class RedisInputMeta extends BaseStepMeta implements StepMetaInterface {
 		try {
 			rep.saveStepAttribute(id_transformation, id_step, "hostname", this.hostname);
 			rep.saveStepAttribute(id_transformation, id_step, "port", this.port);
+			rep.saveStepAttribute(id_transformation, id_step, "password", Encr.encryptPasswordIfNotUsingVariables(this.password));
 			rep.saveStepAttribute(id_transformation, id_step, "base", this.base);
+			rep.saveStepAttribute(id_transformation, id_step, "lookupMode", this.lookupMode);
+			rep.saveStepAttribute(id_transformation, id_step, "batchSize", this.batchSize);
+			rep.saveStepAttribute(id_transformation, id_step, "windowSize", this.windowSize);
+			rep.saveStepAttribute(id_transformation, id_step, "script", this.script);
+			rep.saveStepAttribute(id_transformation, id_step, "scriptArgs", this.scriptArgs);
+			rep.saveStepAttribute(id_transformation, id_step, "scriptFields", this.scriptFields);
+			rep.saveStepAttribute(id_transformation, id_step, "preload", this.preload);
+			rep.saveStepAttribute(id_transformation, id_step, "preloadSource", this.preloadSource);
+			rep.saveStepAttribute(id_transformation, id_step, "preloadPattern", this.preloadPattern);
+			rep.saveStepAttribute(id_transformation, id_step, "preloadHashKey", this.preloadHashKey);
+			rep.saveStepAttribute(id_transformation, id_step, "preloadRefresh", this.preloadRefresh);
+			rep.saveStepAttribute(id_transformation, id_step, "scanPattern", this.scanPattern);
+			rep.saveStepAttribute(id_transformation, id_step, "scanCount", this.scanCount);
+			rep.saveStepAttribute(id_transformation, id_step, "keyOutputField", this.keyOutputField);
+			rep.saveStepAttribute(id_transformation, id_step, "valueType", this.valueType);
+			rep.saveStepAttribute(id_transformation, id_step, "pageSize", this.pageSize);
+			rep.saveStepAttribute(id_transformation, id_step, "scoreMin", this.scoreMin);
+			rep.saveStepAttribute(id_transformation, id_step, "scoreMax", this.scoreMax);
+			rep.saveStepAttribute(id_transformation, id_step, "scoreField", this.scoreField);
+			rep.saveStepAttribute(id_transformation, id_step, "entryNameField", this.entryNameField);
+			for (int i = 0; i < hashFieldName.length; i++) {
+				rep.saveStepAttribute(id_transformation, id_step, i, "hash_field_name", hashFieldName[i]);
+				rep.saveStepAttribute(id_transformation, id_step, i, "hash_field_rename", hashFieldRename[i]);
+				rep.saveStepAttribute(id_transformation, id_step, i, "hash_field_type", ValueMetaFactory.getValueMetaName(hashFieldType[i]));
+			}
+			rep.saveStepAttribute(id_transformation, id_step, "cacheEnabled", this.cacheEnabled);
+			rep.saveStepAttribute(id_transformation, id_step, "cacheEviction", this.cacheEviction);
+			rep.saveStepAttribute(id_transformation, id_step, "cacheMaxEntries", this.cacheMaxEntries);
+			rep.saveStepAttribute(id_transformation, id_step, "cacheMaxBytes", this.cacheMaxBytes);
+			rep.saveStepAttribute(id_transformation, id_step, "cacheTtl", this.cacheTtl);
+			rep.saveStepAttribute(id_transformation, id_step, "missCacheTtl", this.missCacheTtl);
+			rep.saveStepAttribute(id_transformation, id_step, "missCacheMaxEntries", this.missCacheMaxEntries);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMaxTotal", this.poolMaxTotal);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMaxIdle", this.poolMaxIdle);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMinIdle", this.poolMinIdle);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMaxWait", this.poolMaxWait);
+			rep.saveStepAttribute(id_transformation, id_step, "connectTimeout", this.connectTimeout);
+			rep.saveStepAttribute(id_transformation, id_step, "socketTimeout", this.socketTimeout);
+			rep.saveStepAttribute(id_transformation, id_step, "testOnBorrow", this.testOnBorrow);
+			rep.saveStepAttribute(id_transformation, id_step, "clusterMode", this.clusterMode);
+			rep.saveStepAttribute(id_transformation, id_step, "readRouting", this.readRouting);
+			rep.saveStepAttribute(id_transformation, id_step, "replicaHosts", this.replicaHosts);
+			rep.saveStepAttribute(id_transformation, id_step, "sentinelHosts", this.sentinelHosts);
+			rep.saveStepAttribute(id_transformation, id_step, "sentinelMaster", this.sentinelMaster);
 			rep.saveStepAttribute(id_transformation, id_step, "key", this.key);
 			rep.saveStepAttribute(id_transformation, id_step, "keyFieldCheck", this.keyFieldCheck);
 			rep.saveStepAttribute(id_transformation, id_step, "keyFieldCombo", this.keyFieldCombo);
 			rep.saveStepAttribute(id_transformation, id_step, "valuefield", this.valueField);
+			rep.saveStepAttribute(id_transformation, id_step, "binaryValue", this.binaryValue);
+			rep.saveStepAttribute(id_transformation, id_step, "codec", this.codec);
 		} catch (Exception e) {
 			throw new KettleException(BaseMessages.getString(PKG,
 					"RedisInputMeta.Exception.UnexpectedErrorSavingStepInfo"),
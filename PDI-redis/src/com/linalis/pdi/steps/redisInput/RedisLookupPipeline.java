@@ -0,0 +1,64 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisInput;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * A Jedis pipeline whose replies can be read one at a time, oldest first.
+ * 
+ * Jedis only reads pipelined replies all at once with sync(), which makes the
+ * caller wait for every command sent so far. Reading the oldest reply only
+ * lets new commands keep being queued while the previous ones are in flight.
+ *
+ */
+public class RedisLookupPipeline extends Pipeline {
+
+	public RedisLookupPipeline(Jedis jedisClient) {
+		super();
+		setClient(jedisClient.getClient());
+	}
+
+	/**
+	 * @return the number of commands sent whose reply has not been read yet
+	 */
+	public int getPendingCount() {
+		return getPipelinedResponseLength();
+	}
+
+	/**
+	 * Waits for the reply of the oldest pending command, and returns its response.
+	 * An error reply from the server is kept in the response, and thrown by Response.get()
+	 */
+	public Response<?> receiveOldest() {
+		Object reply;
+		try {
+			reply = client.getOne();
+		} catch (JedisDataException e) {
+			reply = e;
+		}
+		return generateResponse(reply);
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisInput;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Bounded in-memory set of the keys recently found missing on the server, so that
+ * the rows looking up a key that does not exist do not all reach the server.
+ * 
+ * Keys are remembered for a fixed time to live, and the oldest key is forgotten first
+ * when the maximum number of keys is reached. Keys are never refreshed when read,
+ * so a key created on the server is seen at most one time to live later.
+ * 
+ * It is used by a single step copy, and is therefore not thread safe.
+ *
+ */
+public class RedisMissCache {
+
+	private final long maxEntries;
+	private final long ttlMillis;
+
+	/**
+	 * Expiry time of each missing key, from the oldest to the newest one
+	 */
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>();
+
+	private long hits = 0;
+
+	/**
+	 * @param maxEntries	maximum number of keys, 0 or less for no limit
+	 * @param ttlMillis		time a missing key is remembered, in milliseconds
+	 */
+	public RedisMissCache(long maxEntries, long ttlMillis) {
+		this.maxEntries = maxEntries;
+		this.ttlMillis = ttlMillis;
+	}
+
+	/**
+	 * @return true if the key was found missing less than a time to live ago
+	 */
+	public boolean contains(String key) {
+		Long expiresAt = entries.get(key);
+		if (expiresAt == null)
+			return false;
+		if (expiresAt.longValue() <= System.currentTimeMillis()) {
+			entries.remove(key);
+			return false;
+		}
+		hits++;
+		return true;
+	}
+
+	/**
+	 * Remembers that the key does not exist on the server
+	 */
+	public void put(String key) {
+		if (key == null)
+			return;
+		long now = System.currentTimeMillis();
+		entries.remove(key);
+		// Expired keys are the oldest ones, they go first
+		Iterator<Long> oldest = entries.values().iterator();
+		while (oldest.hasNext()) {
+			Long expiresAt = oldest.next();
+			if (expiresAt.longValue() > now && (maxEntries <= 0 || entries.size() < maxEntries))
+				break;
+			oldest.remove();
+		}
+		entries.put(key, Long.valueOf(now + ttlMillis));
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public int getSize() {
+		return entries.size();
+	}
+}
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisInput;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * Bounded in-memory cache of the values fetched from Redis, keyed by Redis key.
+ * 
+ * The cache is bounded by a maximum number of entries and/or an estimated size in bytes,
+ * and evicts either the least recently used (LRU) or the least frequently used (LFU) entry
+ * when a bound is exceeded. Entries older than the time to live are dropped when read.
+ * 
+ * It is used by a single step copy, and is therefore not thread safe.
+ *
+ */
+public class RedisNearCache {
+
+	public static final String EVICTION_LRU = "lru";
+	public static final String EVICTION_LFU = "lfu";
+
+	/**
+	 * Estimated memory used by an entry besides its key and value characters
+	 */
+	private static final long ENTRY_OVERHEAD = 96;
+
+	private static class Entry {
+		String key;
+		Object value;
+		long size;
+		long expiresAt;
+		int frequency = 1;
+	}
+
+	private final boolean lfu;
+	private final long maxEntries;
+	private final long maxBytes;
+	private final long ttlMillis;
+
+	/**
+	 * For LRU, the map iterates from the least to the most recently used entry
+	 */
+	private final HashMap<String, Entry> entries;
+
+	/**
+	 * For LFU, the keys of each frequency, from the oldest to the newest one
+	 */
+	private HashMap<Integer, LinkedHashSet<String>> frequencies;
+	private int minFrequency = 0;
+
+	private long bytes = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+	private long expirations = 0;
+
+	/**
+	 * @param eviction		EVICTION_LRU or EVICTION_LFU
+	 * @param maxEntries	maximum number of entries, 0 or less for no limit
+	 * @param maxBytes		maximum estimated size of the entries, 0 or less for no limit
+	 * @param ttlMillis		time to live of an entry in milliseconds, 0 or less for no expiry
+	 */
+	public RedisNearCache(String eviction, long maxEntries, long maxBytes, long ttlMillis) {
+		this.lfu = EVICTION_LFU.equals(eviction);
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.ttlMillis = ttlMillis;
+		if (lfu) {
+			entries = new HashMap<String, Entry>();
+			frequencies = new HashMap<Integer, LinkedHashSet<String>>();
+		} else {
+			entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+		}
+	}
+
+	/**
+	 * @return the cached value of the key, a String or a byte[], or null if it is not cached or has expired
+	 */
+	public Object get(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		if (ttlMillis > 0 && entry.expiresAt <= System.currentTimeMillis()) {
+			remove(entry);
+			expirations++;
+			misses++;
+			return null;
+		}
+		if (lfu)
+			touch(entry);
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Caches the value of the key, a String or a byte[], evicting other entries if a bound is exceeded.
+	 * Null values are not cached.
+	 */
+	public void put(String key, Object value) {
+		if (key == null || value == null)
+			return;
+		Entry entry = entries.get(key);
+		if (entry != null)
+			remove(entry);
+		entry = new Entry();
+		entry.key = key;
+		entry.value = value;
+		entry.size = ENTRY_OVERHEAD + 2L * key.length()
+				+ (value instanceof byte[] ? ((byte[]) value).length : 2L * value.toString().length());
+		if (ttlMillis > 0)
+			entry.expiresAt = System.currentTimeMillis() + ttlMillis;
+		// An entry bigger than the whole cache is never kept
+		if (maxBytes > 0 && entry.size > maxBytes)
+			return;
+		while (!entries.isEmpty()
+				&& ((maxEntries > 0 && entries.size() >= maxEntries) || (maxBytes > 0 && bytes + entry.size > maxBytes))) {
+			remove(entries.get(eldestKey()));
+			evictions++;
+		}
+		entries.put(key, entry);
+		bytes += entry.size;
+		if (lfu) {
+			frequencySet(1).add(key);
+			minFrequency = 1;
+		}
+	}
+
+	public void clear() {
+		entries.clear();
+		if (lfu)
+			frequencies.clear();
+		bytes = 0;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getEvictions() {
+		return evictions;
+	}
+
+	public long getExpirations() {
+		return expirations;
+	}
+
+	public int getSize() {
+		return entries.size();
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return the key to evict : the least recently used one for LRU,
+	 * the oldest of the least frequently used ones for LFU
+	 */
+	private String eldestKey() {
+		if (!lfu)
+			return entries.keySet().iterator().next();
+		LinkedHashSet<String> keys = frequencies.get(minFrequency);
+		while (keys == null || keys.isEmpty()) {
+			// Can only happen after an expired entry was removed
+			minFrequency++;
+			keys = frequencies.get(minFrequency);
+		}
+		return keys.iterator().next();
+	}
+
+	private void remove(Entry entry) {
+		entries.remove(entry.key);
+		bytes -= entry.size;
+		if (lfu) {
+			LinkedHashSet<String> keys = frequencies.get(entry.frequency);
+			keys.remove(entry.key);
+			if (keys.isEmpty())
+				frequencies.remove(entry.frequency);
+		}
+	}
+
+	/**
+	 * Moves a read entry to the next frequency
+	 */
+	private void touch(Entry entry) {
+		LinkedHashSet<String> keys = frequencies.get(entry.frequency);
+		keys.remove(entry.key);
+		if (keys.isEmpty()) {
+			frequencies.remove(entry.frequency);
+			if (minFrequency == entry.frequency)
+				minFrequency++;
+		}
+		entry.frequency++;
+		frequencySet(entry.frequency).add(entry.key);
+	}
+
+	private LinkedHashSet<String> frequencySet(int frequency) {
+		LinkedHashSet<String> keys = frequencies.get(frequency);
+		if (keys == null) {
+			keys = new LinkedHashSet<String>();
+			frequencies.put(frequency, keys);
+		}
+		return keys;
+	}
+}
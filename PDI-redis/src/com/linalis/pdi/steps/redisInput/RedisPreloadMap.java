@@ -0,0 +1,205 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisInput;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Compact read-only map of the keys and values preloaded from Redis.
+ * 
+ * Keys and values are stored as UTF-8 bytes, one after the other, in a direct buffer outside
+ * of the Java heap. The index is an open addressing table made of two int arrays, the hash of
+ * each key and the position of its entry in the buffer, so that a lookup allocates nothing but
+ * the returned value.
+ * 
+ * The map is filled by a single thread, then only read. It holds up to 2 GB of entries.
+ *
+ */
+public class RedisPreloadMap {
+
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Entries : key length, key bytes, value length, value bytes
+	 */
+	private ByteBuffer entries;
+	private int used = 0;
+
+	/**
+	 * For each slot of the table, the hash of its key and the position of its entry plus one, 0 for an empty slot
+	 */
+	private int[] hashes;
+	private int[] positions;
+	private int size = 0;
+
+	/**
+	 * @param expectedEntries the number of entries the map is sized for, it grows beyond if needed
+	 */
+	public RedisPreloadMap(int expectedEntries) {
+		int capacity = 16;
+		while (capacity * 3 / 4 < expectedEntries)
+			capacity <<= 1;
+		hashes = new int[capacity];
+		positions = new int[capacity];
+		entries = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+	}
+
+	/**
+	 * Adds an entry, replacing the value of a key already present
+	 */
+	public void put(String key, byte[] value) {
+		byte[] keyBytes = SafeEncoder.encode(key);
+		int entrySize = 8 + keyBytes.length + value.length;
+		if (entrySize > Integer.MAX_VALUE - used - 1)
+			throw new IllegalStateException("Preloaded values exceed 2 GB");
+		ensureBuffer(entrySize);
+		int position = used;
+		entries.putInt(used, keyBytes.length);
+		used += 4;
+		for (int i = 0; i < keyBytes.length; i++)
+			entries.put(used++, keyBytes[i]);
+		entries.putInt(used, value.length);
+		used += 4;
+		for (int i = 0; i < value.length; i++)
+			entries.put(used++, value[i]);
+
+		int hash = hash(key);
+		int slot = find(key, hash);
+		if (positions[slot] == 0) {
+			size++;
+			hashes[slot] = hash;
+		}
+		positions[slot] = position + 1;
+		if (size > positions.length * 3 / 4)
+			grow();
+	}
+
+	/**
+	 * @param key		the key to look up
+	 * @param binary	true to get the value as a byte[], false as a String
+	 * @return the value of the key, null if it was not preloaded
+	 */
+	public Object get(String key, boolean binary) {
+		if (key == null)
+			return null;
+		int slot = find(key, hash(key));
+		if (positions[slot] == 0)
+			return null;
+		int position = positions[slot] - 1;
+		int valuePosition = position + 4 + entries.getInt(position);
+		byte[] value = new byte[entries.getInt(valuePosition)];
+		for (int i = 0; i < value.length; i++)
+			value[i] = entries.get(valuePosition + 4 + i);
+		return binary ? value : SafeEncoder.encode(value);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the bytes used by the entries, outside of the heap
+	 */
+	public long getEntryBytes() {
+		return used;
+	}
+
+	/**
+	 * @return the bytes used by the index, on the heap
+	 */
+	public long getIndexBytes() {
+		return 8L * positions.length;
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @return the slot of the key, or the empty slot where it would go
+	 */
+	private int find(String key, int hash) {
+		int mask = positions.length - 1;
+		int slot = hash & mask;
+		while (positions[slot] != 0 && (hashes[slot] != hash || !keyEquals(positions[slot] - 1, key)))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	/**
+	 * Compares the key of an entry with the given key, encoding the ASCII characters on the fly
+	 */
+	private boolean keyEquals(int position, String key) {
+		int length = entries.getInt(position);
+		int start = position + 4;
+		int end = start + length;
+		int current = start;
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if (c >= 0x80) {
+				// Multi-byte characters are rare in keys, the key is encoded
+				byte[] keyBytes = new byte[length];
+				for (int j = 0; j < length; j++)
+					keyBytes[j] = entries.get(start + j);
+				return Arrays.equals(keyBytes, SafeEncoder.encode(key));
+			}
+			if (current >= end || entries.get(current++) != (byte) c)
+				return false;
+		}
+		return current == end;
+	}
+
+	private void ensureBuffer(int entrySize) {
+		if (used + entrySize <= entries.capacity())
+			return;
+		long capacity = entries.capacity();
+		while (capacity < (long) used + entrySize)
+			capacity <<= 1;
+		ByteBuffer bigger = ByteBuffer.allocateDirect((int) Math.min(capacity, Integer.MAX_VALUE));
+		ByteBuffer current = entries.duplicate();
+		current.position(0);
+		current.limit(used);
+		bigger.put(current);
+		entries = bigger;
+	}
+
+	private void grow() {
+		int[] oldHashes = hashes;
+		int[] oldPositions = positions;
+		hashes = new int[oldPositions.length << 1];
+		positions = new int[oldPositions.length << 1];
+		int mask = positions.length - 1;
+		for (int i = 0; i < oldPositions.length; i++) {
+			if (oldPositions[i] == 0)
+				continue;
+			int slot = oldHashes[i] & mask;
+			while (positions[slot] != 0)
+				slot = (slot + 1) & mask;
+			hashes[slot] = oldHashes[i];
+			positions[slot] = oldPositions[i];
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisInput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.i18n.BaseMessages;
+
+import com.linalis.pdi.steps.redis.RedisPool;
+
+/**
+ * Loads a whole Redis dimension into a RedisPreloadMap, so that the lookups are answered locally.
+ * 
+ * The dimension is either the string keys matching a pattern, read with SCAN and pipelined GETs,
+ * or the fields of a hash, read with HSCAN. It can be loaded again in the background at a fixed
+ * interval : the new map replaces the old one once complete, the lookups never wait for a load.
+ *
+ */
+public class RedisPreloader {
+	private static Class<?> PKG = RedisInputMeta.class; // for i18n purposes
+
+	private final List<RedisPool> pools;
+	private final String pattern;
+	private final String hashKey;
+	private final int count;
+	private final boolean binary;
+
+	private volatile RedisPreloadMap map;
+	private volatile boolean stopped = false;
+	private Thread refresher;
+
+	/**
+	 * @param pools		the servers holding the keys, all of them are scanned for a pattern, the first one holds the hash
+	 * @param pattern	the pattern of the keys to load, null to load a hash
+	 * @param hashKey	the key of the hash to load, null to load the keys matching the pattern
+	 * @param count		the number of keys asked to each SCAN or HSCAN
+	 * @param binary	true to give the values as byte[], false as strings
+	 */
+	public RedisPreloader(List<RedisPool> pools, String pattern, String hashKey, int count, boolean binary) {
+		this.pools = new ArrayList<RedisPool>(pools);
+		this.pattern = pattern;
+		this.hashKey = hashKey;
+		this.count = count;
+		this.binary = binary;
+	}
+
+	/**
+	 * @return the value of the key (or hash field), null if it was not loaded
+	 */
+	public Object get(String key) {
+		return map.get(key, binary);
+	}
+
+	/**
+	 * @return the map currently used for the lookups
+	 */
+	public RedisPreloadMap getMap() {
+		return map;
+	}
+
+	/**
+	 * Loads the dimension into a new map, and uses it for the next lookups
+	 * 
+	 * @return the new map
+	 * @throws Exception if a server fails
+	 */
+	public RedisPreloadMap load() throws Exception {
+		RedisPreloadMap loaded = hashKey != null ? loadHash() : loadKeys();
+		map = loaded;
+		return loaded;
+	}
+
+	/**
+	 * Starts loading the dimension again in a daemon thread, after each interval
+	 * 
+	 * @param intervalMillis	the time between the end of a load and the start of the next one
+	 * @param log				the log of the step, for the load times and errors
+	 * @param name				the name of the thread
+	 */
+	public void startRefresh(final long intervalMillis, final LogChannelInterface log, String name) {
+		refresher = new Thread(new Runnable() {
+			public void run() {
+				while (!stopped) {
+					try {
+						Thread.sleep(intervalMillis);
+					} catch (InterruptedException e) {
+						return;
+					}
+					long start = System.currentTimeMillis();
+					try {
+						RedisPreloadMap loaded = load();
+						if (log.isDetailed())
+							log.logDetailed(BaseMessages.getString(PKG, "RedisInput.Log.PreloadRefreshed",
+									String.valueOf(loaded.size()), String.valueOf(System.currentTimeMillis() - start)));
+					} catch (Exception e) {
+						// The previous map is kept
+						if (!stopped)
+							log.logError(BaseMessages.getString(PKG, "RedisInput.Error.PreloadRefresh"), e);
+					}
+				}
+			}
+		}, name);
+		refresher.setDaemon(true);
+		refresher.start();
+	}
+
+	/**
+	 * Stops the background loads, a load in progress is abandoned
+	 */
+	public void stop() {
+		stopped = true;
+		if (refresher != null) {
+			refresher.interrupt();
+			refresher = null;
+		}
+	}
+
+	private RedisPreloadMap loadKeys() throws Exception {
+		RedisPreloadMap loaded = new RedisPreloadMap(count);
+		ScanParams params = new ScanParams().match(pattern).count(count);
+		for (RedisPool pool : pools) {
+			Jedis jedis = pool.getResource();
+			try {
+				String cursor = ScanParams.SCAN_POINTER_START;
+				do {
+					if (stopped)
+						throw new InterruptedException();
+					ScanResult<String> page = jedis.scan(cursor, params);
+					List<String> keys = page.getResult();
+					List<Response<byte[]>> values = new ArrayList<Response<byte[]>>(keys.size());
+					Pipeline pipeline = jedis.pipelined();
+					for (String key : keys)
+						values.add(pipeline.get(SafeEncoder.encode(key)));
+					pipeline.sync();
+					for (int i = 0; i < keys.size(); i++) {
+						byte[] value;
+						try {
+							value = values.get(i).get();
+						} catch (JedisDataException e) {
+							// WRONGTYPE, only the string keys are loaded
+							continue;
+						}
+						if (value != null)
+							loaded.put(keys.get(i), value);
+					}
+					cursor = page.getStringCursor();
+				} while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+				pool.returnResource(jedis);
+			} catch (Exception e) {
+				pool.returnBrokenResource(jedis);
+				throw e;
+			}
+		}
+		return loaded;
+	}
+
+	private RedisPreloadMap loadHash() throws Exception {
+		RedisPool pool = pools.get(0);
+		Jedis jedis = pool.getResource();
+		try {
+			byte[] key = SafeEncoder.encode(hashKey);
+			RedisPreloadMap loaded = new RedisPreloadMap(jedis.hlen(key).intValue());
+			ScanParams params = new ScanParams().count(count);
+			byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+			do {
+				if (stopped)
+					throw new InterruptedException();
+				ScanResult<Map.Entry<byte[], byte[]>> page = jedis.hscan(key, cursor, params);
+				for (Map.Entry<byte[], byte[]> entry : page.getResult())
+					loaded.put(SafeEncoder.encode(entry.getKey()), entry.getValue());
+				cursor = page.getCursorAsBytes();
+			} while (!ScanParams.SCAN_POINTER_START.equals(SafeEncoder.encode(cursor)));
+			pool.returnResource(jedis);
+			return loaded;
+		} catch (Exception e) {
+			pool.returnBrokenResource(jedis);
+			throw e;
+		}
+	}
+}
@@ -21,10 +21,11 @@
  ******************************************************************************/
 package com.linalis.pdi.steps.redisOutput;
 
-import java.util.ArrayList;
-
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -34,9 +35,26 @@ import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 
+import com.linalis.pdi.steps.redis.RedisBatchSizer;
+import com.linalis.pdi.steps.redis.RedisCommands;
+import com.linalis.pdi.steps.redis.RedisConnections;
+import com.linalis.pdi.steps.redis.RedisJson;
+import com.linalis.pdi.steps.redis.RedisPoolRegistry;
+import com.linalis.pdi.steps.redis.RedisPoolSettings;
+import com.linalis.pdi.steps.redis.RedisValueCodec;
+import com.linalis.pdi.steps.redis.RedisWriter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisClusterMaxRedirectionsException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
 
 /**
  * The Redis Output step stores value objects, for the given key names, to
@@ -50,11 +68,33 @@ public class RedisOutput extends BaseStep implements StepInterface {
 																// Translator2!!
 																// $NON-NLS-1$
 	
-	static protected JedisPool jedisPool = null;
-	static int nbInstance = 0;
-	private ArrayList<String[]> redisCache = null;
+	/**
+	 * Longest delay between two retries of a batch, in milliseconds
+	 */
+	private static final long MAX_RETRY_DELAY = 60000;
+	
+	/**
+	 * Errors of the server which go away by themselves, the batch is sent again
+	 */
+	private static final String[] RETRYABLE_ERRORS = { "LOADING", "BUSY", "TRYAGAIN", "CLUSTERDOWN", "MASTERDOWN" };
+	
+	/**
+	 * The rows absorbed by coalescing wait for the write of their key : a batch is also written once it holds
+	 * this many times its row limit in rows, so that a few hot keys don't keep all the rows in memory
+	 */
+	private static final int COALESCED_ROWS_FACTOR = 16;
+	
+	/**
+	 * Keys and values waiting to be pipelined, reused from one pipeline to the next,
+	 * the single key being written when there is no pipeline
+	 */
+	private RedisOutputBatch cache = null;
 	private boolean useCache = false;
-	private int cacheSize;
+	
+	/**
+	 * Writes the full batches in the background, null when they are written by processRow
+	 */
+	private RedisOutputFlusher flusher = null;
 
 	public RedisOutput(StepMeta stepMeta,
 			StepDataInterface stepDataInterface, int copyNr,
@@ -66,20 +106,183 @@ public class RedisOutput extends BaseStep implements StepInterface {
 	public boolean init(StepMetaInterface smi, StepDataInterface sdi) {
 		// Casting to step-specific implementation classes is safe
 		RedisOutputMeta meta = (RedisOutputMeta) smi;
-		RedisOutputData data = (RedisOutputData) sdi;
+		final RedisOutputData data = (RedisOutputData) sdi;
 		if (super.init(meta, data)) {
+			// The hash and JSON modes write the selected fields of the row
+			data.writeMode = meta.getWriteMode();
+			if(!RedisOutputMeta.WRITE_MODE_STRING.equals(data.writeMode) && meta.getRowFieldName().length == 0)
+			{
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.NoRowFields"));
+				return false;
+			}
+			// The values are set, appended to a stream, pushed to a list, published or added to counters,
+			// streams being trimmed to about their maximum length
+			String streamMaxLen = environmentSubstitute(meta.getStreamMaxLen());
+			long maxLen = Const.isEmpty(streamMaxLen) ? 0 : Const.toLong(streamMaxLen, -1);
+			if(maxLen < 0)
+			{
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.InvalidStreamMaxLen", streamMaxLen));
+				return false;
+			}
+			// Expiry and condition, sent in the same command as the value
+			data.writer = new RedisWriter(meta.getCommand(), meta.getCondition(), maxLen, environmentSubstitute(meta.getHashField()));
+			if(data.writer.isConditional() && RedisOutputMeta.WRITE_MODE_HASH.equals(data.writeMode))
+			{
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.ConditionalHash"));
+				return false;
+			}
+			if(!RedisWriter.COMMAND_SET.equals(data.writer.getCommand()))
+			{
+				if(!Const.isEmpty(meta.getTtl()) || !Const.isEmpty(meta.getTtlField())
+						|| !RedisWriter.CONDITION_NONE.equals(Const.NVL(meta.getCondition(), RedisWriter.CONDITION_NONE)))
+				{
+					logError(BaseMessages.getString(PKG, "RedisOutput.Error.CommandExpiry",
+							RedisOutputMeta.getCommandDesc(data.writer.getCommand())));
+					return false;
+				}
+				// Lists and channels take one value per row, only streams take the fields of a hash
+				if(RedisOutputMeta.WRITE_MODE_HASH.equals(data.writeMode) && !RedisWriter.COMMAND_XADD.equals(data.writer.getCommand()))
+				{
+					logError(BaseMessages.getString(PKG, "RedisOutput.Error.CommandHash",
+							RedisOutputMeta.getCommandDesc(data.writer.getCommand())));
+					return false;
+				}
+			}
+			if(data.writer.isCounter())
+			{
+				// The deltas are numbers, from the value field or the fixed value
+				if(!RedisOutputMeta.WRITE_MODE_STRING.equals(data.writeMode))
+				{
+					logError(BaseMessages.getString(PKG, "RedisOutput.Error.CounterMode"));
+					return false;
+				}
+				if(RedisWriter.COMMAND_HINCRBY.equals(data.writer.getCommand()) && Const.isEmpty(environmentSubstitute(meta.getHashField())))
+				{
+					logError(BaseMessages.getString(PKG, "RedisOutput.Error.NoHashField"));
+					return false;
+				}
+			}
+			data.ttlFactor = RedisOutputMeta.TTL_UNIT_MILLISECONDS.equals(meta.getTtlUnit()) ? 1 : 1000;
+			String ttl = environmentSubstitute(meta.getTtl());
+			data.ttlMillis = Const.toLong(ttl, -1);
+			if(Const.isEmpty(ttl))
+				data.ttlMillis = 0;
+			else if(data.ttlMillis < 0)
+			{
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.InvalidTtl", ttl));
+				return false;
+			}
+			data.ttlMillis *= data.ttlFactor;
+			data.skippedWrites = 0;
+			// Batches written atomically, and sent again when they fail
+			data.transactional = meta.isTransactional();
+			if(data.transactional && meta.isClusterMode())
+			{
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.TransactionalCluster"));
+				return false;
+			}
+			// Coalesced writes only keep the last value of each key, which is what a sequence of SET
+			// leaves on the server, but not of NX, where the first one wins
+			data.coalesce = meta.isCoalesceWrites();
+			data.coalescedRows = 0;
+			if(data.coalesce && (!RedisWriter.COMMAND_SET.equals(data.writer.getCommand())
+					|| RedisWriter.CONDITION_NX.equals(meta.getCondition())))
+			{
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.CoalesceCommand"));
+				return false;
+			}
+			String flushInterval = environmentSubstitute(meta.getFlushInterval());
+			data.flushInterval = Const.isEmpty(flushInterval) ? 0 : Const.toLong(flushInterval, -1);
+			if(data.flushInterval < 0)
+			{
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.InvalidFlushInterval", flushInterval));
+				return false;
+			}
+			data.retries = Math.max(0, Const.toInt(environmentSubstitute(meta.getRetries()), RedisOutputMeta.DEFAULT_RETRIES));
+			data.retryDelay = Math.max(0, Const.toLong(environmentSubstitute(meta.getRetryDelay()), RedisOutputMeta.DEFAULT_RETRY_DELAY));
+			String connections = environmentSubstitute(meta.getConnections());
+			data.connections = Const.isEmpty(connections) ? 1 : Const.toInt(connections, -1);
+			if(data.connections < 1)
+			{
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.InvalidConnections", connections));
+				return false;
+			}
+			// A batch failing midway, or timing out once written, can only be sent again when writing it twice
+			// leaves the same keys : not for the stream entries, list items, messages and counter deltas
+			// it already added. Only a single transaction aborted by the server added none of them, the parts
+			// of a batch written on several connections are each committed on their own.
+			if(!data.writer.isIdempotent() && (!data.transactional || data.connections > 1))
+				data.retries = 0;
 			try {
-				// initializing pool
-				Integer.parseInt(environmentSubstitute(meta.getPort()));
-				initPool(environmentSubstitute(meta.getHostname()), environmentSubstitute(meta.getPort()));
+				// Getting the shared pool of the server
+				data.endpoint = RedisConnections.getEndpoint(meta, this);
+				RedisPoolSettings poolSettings = data.endpoint.getPoolSettings();
+				// The parts of a batch are written at the same time, each one needs a connection of the pool
+				if(poolSettings.getMaxTotal() >= 0 && data.connections > poolSettings.getMaxTotal())
+				{
+					logError(BaseMessages.getString(PKG, "RedisOutput.Error.TooManyConnections",
+							String.valueOf(data.connections), String.valueOf(poolSettings.getMaxTotal())));
+					return false;
+				}
+				// The pipeline size is the number of rows of the first batch, adapted to the targets when there are some
+				data.batchSizer = new RedisBatchSizer(Integer.parseInt(meta.getPipelineSize()),
+						Const.toLong(environmentSubstitute(meta.getPipelineBytes()), 0),
+						Const.toLong(environmentSubstitute(meta.getPipelineLatency()), 0));
+				if(meta.isClusterMode())
+				{
+					// One pool per master node, the keys are routed by hash slot
+					data.cluster = RedisConnections.openCluster(data.endpoint);
+				}
+				else
+				{
+					data.pool = RedisPoolRegistry.acquire(data.endpoint);
+					if(data.connections > 1)
+					// Each batch is split by key hash, and its parts are written in parallel on their own connection.
+					// The parts are sized from the row limit of the batches, and grow with it when it is adapted.
+					{
+						data.shards = new RedisOutputShards(new RedisOutputFlusher.BatchWriter() {
+							public void write(RedisOutputBatch part) throws Exception {
+								writePipeline(data, part);
+							}
+						}, data.connections, data.batchSizer.getRowLimit() / data.connections + 1,
+								getStepname() + " - Redis connection ");
+					}
+				}
+				
+				// Values are compressed before being written, null when they are written as they are
+				// Hash fields and counter deltas are written as they are
+				data.codec = RedisOutputMeta.WRITE_MODE_HASH.equals(data.writeMode) || data.writer.isCounter() ? null
+						: RedisValueCodec.forCode(meta.getCodec());
 				
 				//Initializing the cache, if needed
-				if(!meta.getPipelineSize().equals("1"))
+				if(!meta.getPipelineSize().equals("1") || data.batchSizer.isAdaptive() || meta.isAsyncWrite()
+						|| data.coalesce || data.flushInterval > 0 || data.writer.isCounter())
 				{
 					
-					redisCache = new ArrayList<String[]>();
 					useCache = true;
-					cacheSize = Integer.parseInt(meta.getPipelineSize());
+					if(meta.isAsyncWrite())
+					// The full batches are written by a background thread, while the next one is filled
+					{
+						flusher = new RedisOutputFlusher(new RedisOutputFlusher.BatchWriter() {
+							public void write(RedisOutputBatch batch) throws Exception {
+								writeBatch(data, batch);
+							}
+						}, Const.toInt(environmentSubstitute(meta.getAsyncQueueSize()), RedisOutputMeta.DEFAULT_ASYNC_QUEUE_SIZE),
+								data.batchSizer.getRowLimit());
+						cache = flusher.start(getStepname() + " - Redis writer " + getCopy());
+					}
+					else
+						cache = new RedisOutputBatch(data.batchSizer.getRowLimit());
+				}
+				else
+					cache = new RedisOutputBatch(1);
+				
+				// The deltas are summed by key, and the sums written as a batch
+				if(data.writer.isCounter())
+				{
+					data.counters = new RedisOutputCounters(data.batchSizer.getRowLimit(),
+							RedisWriter.COMMAND_INCRBYFLOAT.equals(data.writer.getCommand()));
+					data.countedDeltas = 0;
 				}
 				return true;
 			} catch (Exception e) {
@@ -98,18 +301,58 @@ public class RedisOutput extends BaseStep implements StepInterface {
 		RedisOutputMeta meta = (RedisOutputMeta) smi;
 		RedisOutputData data = (RedisOutputData) sdi;
 		
-		nbInstance--;
+		// The writer thread is stopped before its connections are closed
+		if(flusher!=null)
+		{
+			flusher.stop();
+			flusher = null;
+		}
 		
-		synchronized(JedisPool.class)
+		if(data.shards!=null)
 		{
-			if(nbInstance==0 && jedisPool!=null)
-			{
-				jedisPool.destroy();
-				jedisPool=null;
-			}
+			data.shards.stop();
+			data.shards = null;
+		}
+		if(data.batchesWritten > 0 && log.isBasic())
+			logBasic(BaseMessages.getString(PKG, "RedisOutput.Log.WriteStats", String.valueOf(data.batchesWritten),
+					String.valueOf(data.writeMillis), String.valueOf(data.rowsWritten * 1000 / Math.max(1, data.writeMillis)),
+					String.valueOf(data.connections)));
+		
+		if(data.pool!=null)
+		{
+			RedisPoolRegistry.release(data.endpoint);
+			data.pool = null;
+		}
+		if(data.cluster!=null)
+		{
+			data.cluster.close();
+			data.cluster = null;
+		}
+		data.endpoint = null;
+		
+		if(data.codec!=null)
+		{
+			if (log.isBasic())
+				logBasic(BaseMessages.getString(PKG, "RedisOutput.Log.CompressionStats",
+						String.valueOf(data.rawBytes), String.valueOf(data.encodedBytes),
+						String.valueOf(RedisValueCodec.ratio(data.rawBytes, data.encodedBytes))));
+			data.codec.close();
+			data.codec = null;
+		}
+		
+		if(data.writer!=null && data.writer.isConditional() && log.isBasic())
+			logBasic(BaseMessages.getString(PKG, "RedisOutput.Log.SkippedWrites", String.valueOf(data.skippedWrites)));
+		if(data.counters!=null)
+		{
+			if (log.isBasic())
+				logBasic(BaseMessages.getString(PKG, "RedisOutput.Log.Counters", String.valueOf(data.countedDeltas),
+						String.valueOf(data.rowsWritten)));
+			data.counters = null;
 		}
+		if(data.coalesce && log.isBasic())
+			logBasic(BaseMessages.getString(PKG, "RedisOutput.Log.CoalescedRows", String.valueOf(data.coalescedRows)));
 		
-		redisCache = null;
+		cache = null;
 		useCache = false;
 		
 		super.dispose(meta, data);
@@ -125,13 +368,32 @@ public class RedisOutput extends BaseStep implements StepInterface {
 				data.noInputRow = true;
 			else
 			{
+				// The last sums of the counters are written with the cache
+				if(data.counters!=null && !data.counters.isEmpty())
+					data.counters.drainTo(cache);
 				// Emptying the cache into redisServer
-				if(useCache && redisCache.size()!=0)
+				if(useCache && !cache.isEmpty())
+				{
+					if(!sendCacheToRedis(data))
+						return false;
+				}
+				// Waiting for the batches still queued
+				if(flusher!=null)
 				{
-					if(!sendCacheToRedis())
+					try
+					{
+						flusher.finish();
+						RedisOutputBatch written;
+						while((written = flusher.poll())!=null)
+						{
+							completeBatch(data, written);
+							written.clear();
+						}
+					}
+					catch(Exception e)
 					{
 						if (log.isError())
-							logError("Error connecting to the redis server " + meta.getHostname() + ":" + meta.getPort());
+							logError(BaseMessages.getString(PKG, "RedisOutput.Error.Write", getTarget(data)), e);
 						return false;
 					}
 				}
@@ -154,94 +416,133 @@ public class RedisOutput extends BaseStep implements StepInterface {
 			}
 			// Get output field types
 			meta.getFields(data.outputRowMeta, getStepname(), null, null, this, repository, metaStore);
+			prepareFields(meta, data);
 		}
 		
 		String key;
 		// Get the correct key
-		if(!meta.getKeyFieldCheck())
+		if(data.keyFieldIndex < 0)
 		{
 			key = meta.getKey();
 		}
 		else
 		// Getting the key from the combo box
 		{
-			int keyFieldIndex = getInputRowMeta().indexOfValue(
-					meta.getKeyFieldCombo());
-			if (keyFieldIndex < 0) {
-				throw new KettleException(BaseMessages.getString(PKG,
-						"RedisInputMeta.Exception.KeyFieldNameNotFound"));
+			key = getInputRowMeta().getString( readRow, data.keyFieldIndex );
+		}
+		
+		if(data.counters!=null)
+		// The delta is summed with the other ones of the key, the row is passed on before the sum is written
+		{
+			if(!addDelta(data, key, readRow))
+				return false;
+			putRow(data.outputRowMeta, readRow);
+			if(data.batchSizer.isFull(data.counters.size(), 0)
+					|| (data.flushInterval > 0 && System.currentTimeMillis() - data.counters.started >= data.flushInterval))
+			{
+				data.counters.drainTo(cache);
+				if(!sendCacheToRedis(data))
+					return false;
 			}
-			
-			key = getInputRowMeta().getString( readRow, keyFieldIndex );
+			if (checkFeedback(getLinesRead())) {
+				if (log.isBasic())
+					logBasic(BaseMessages.getString(PKG,
+							"RedisOutput.Log.LineNumber") + getLinesRead());
+			}
+			return true;
 		}
 		
-		String value;
+		// The value is a String, or a byte[] written without charset conversion in binary mode,
+		// or the selected fields of the row, as a Map of hash fields or a JSON String
+		Object value;
 		// Get the correct key
-		if(!meta.getValueFieldCheck())
+		if(data.rowFieldIndexes!=null)
 		{
-			value = meta.getValue();
+			value = packRow(data, readRow);
 		}
+		else if(data.valueFieldIndex < 0)
+		{
+			value = data.fixedValue;
+		}
+		else if(meta.isBinaryValue())
+			value = getInputRowMeta().getBinary( readRow, data.valueFieldIndex );
 		else
-		// Getting the key from the combo box
+			value = getInputRowMeta().getString( readRow, data.valueFieldIndex );
+		
+		// Compressed values are written as byte[], with the header telling the readers their codec
+		if(data.codec!=null && value!=null)
 		{
-			int valueFieldIndex = getInputRowMeta().indexOfValue(
-					meta.getValueFieldCombo());
-			if (valueFieldIndex < 0) {
-				throw new KettleException(BaseMessages.getString(PKG, "RedisInputMeta.Exception.KeyFieldNameNotFound"));
+			if(value==data.fixedValue)
+				countBytes(data, data.fixedRawSize, ((byte[]) value).length);
+			else
+			{
+				try
+				{
+					value = encodeValue(data, value);
+				}
+				catch(IOException e)
+				{
+					if (log.isError())
+						logError(BaseMessages.getString(PKG, "RedisOutput.Error.Encode", key), e);
+					return false;
+				}
 			}
-			value = getInputRowMeta().getString( readRow, valueFieldIndex );
 		}
 		
-		if(useCache)
+		// Time to live of the key, from its field or the fixed one
+		long ttlMillis = data.ttlMillis;
+		if(data.ttlFieldIndex >= 0)
+		{
+			Long fieldTtl = getInputRowMeta().getInteger( readRow, data.ttlFieldIndex );
+			if(fieldTtl!=null)
+				ttlMillis = fieldTtl.longValue() * data.ttlFactor;
+		}
+		
+		if(value==null && data.rowFieldIndexes!=null)
 		{
-			String keyAndValue[] = new String[2];
-			keyAndValue[0] = key;
-			keyAndValue[1] = value;
-			redisCache.add(keyAndValue);
+			// All the fields of the row are null, and a hash can't be empty : nothing is written, the row is passed on
+			putRow(data.outputRowMeta, readRow);
+		}
+		else if(useCache)
+		// The row is passed on once its batch is written
+		{
+			if(!data.coalesce)
+				cache.add(key, value, ttlMillis, sizeOf(key, value), readRow);
+			else if(cache.coalesce(key, value, ttlMillis, sizeOf(key, value), readRow))
+			// The row is written by the last value of its key, it counts as skipped in the step metrics
+			{
+				data.coalescedRows++;
+				incrementLinesSkipped();
+			}
 			
-			if(redisCache.size()==cacheSize)
+			if(data.batchSizer.isFull(cache.count, cache.bytes) || isDue(data))
 			// Cache is full, le'ts load it into redis
 			{
-				if(!sendCacheToRedis())
-				{
-					if (log.isError())
-						logError("Error connecting to the redis server " + meta.getHostname() + ":" + meta.getPort());
+				if(!sendCacheToRedis(data))
 					return false;
-				}
 			}
 		}
 		else
+		// The row is written alone, and passed on once written
 		{
-			Jedis jedisClient = jedisPool.getResource();
-			if(jedisClient!=null)
+			cache.add(key, value, ttlMillis, 0, readRow);
+			try
 			{
-				try
-				{
-					if(meta.getBase()!=null && !meta.getBase().equals(""))
-						jedisClient.select(Integer.parseInt(environmentSubstitute(meta.getBase())));
-					jedisClient.set(key, value);
-					jedisPool.returnResource(jedisClient);
-				}
-				catch(Exception e)
-				{
-					jedisPool.returnResource(jedisClient);
-					if (log.isError())
-						logError("Base must be an integer or empty");
-					return false;
-				}
+				writeBatch(data, cache);
+				completeBatch(data, cache);
 			}
-			else
+			catch(Exception e)
 			{
 				if (log.isError())
-					logError("Error connecting to the redis server " + meta.getHostname() + ":" + meta.getPort());
+					logError(BaseMessages.getString(PKG, "RedisOutput.Error.Write", getTarget(data)), e);
 				return false;
 			}
+			finally
+			{
+				cache.clear();
+			}
 		}
 		
-		// No value added to the output line
-		Object[] outputRowData = readRow;
-		putRow(data.outputRowMeta, outputRowData); // copy row to possible
-													// alternate rowset(s).
 		if (checkFeedback(getLinesRead())) {
 			if (log.isBasic())
 				logBasic(BaseMessages.getString(PKG,
@@ -250,42 +551,446 @@ public class RedisOutput extends BaseStep implements StepInterface {
 		return true;
 	}
 	
-	synchronized private static void initPool(String host, String port)
+	/**
+	 * Adds the delta of the row, from its field or the fixed one, to the counter of the key. A null delta adds nothing.
+	 */
+	private boolean addDelta(RedisOutputData data, String key, Object[] readRow) throws KettleException
+	{
+		if(key==null)
+		{
+			if (log.isError())
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.NullCounterKey"));
+			return false;
+		}
+		if(data.counters.isFloating())
+		{
+			Double delta = data.valueFieldIndex < 0 ? (Double) data.fixedDelta : getInputRowMeta().getNumber( readRow, data.valueFieldIndex );
+			if(delta!=null)
+				data.counters.add(key, delta.doubleValue());
+		}
+		else
+		{
+			Long delta = data.valueFieldIndex < 0 ? (Long) data.fixedDelta : getInputRowMeta().getInteger( readRow, data.valueFieldIndex );
+			if(delta!=null)
+				data.counters.add(key, delta.longValue());
+		}
+		data.countedDeltas++;
+		return true;
+	}
+	
+	/**
+	 * @return true when the first row of the cache waited for the flush interval, or when the cache holds
+	 * too many rows absorbed by coalescing. The time is checked as the rows come.
+	 */
+	private boolean isDue(RedisOutputData data)
+	{
+		if(data.coalesce && cache.rowCount >= (long) data.batchSizer.getRowLimit() * COALESCED_ROWS_FACTOR)
+			return true;
+		return data.flushInterval > 0 && System.currentTimeMillis() - cache.started >= data.flushInterval;
+	}
+	
+	/**
+	 * Finds the position of the key and value fields in the input rows, once for all the rows
+	 */
+	private void prepareFields(RedisOutputMeta meta, RedisOutputData data) throws KettleException
+	{
+		if(!Const.isEmpty(meta.getTtlField()))
+		// Getting the time to live of each key from its field
+		{
+			data.ttlFieldIndex = getInputRowMeta()==null ? -1 : getInputRowMeta().indexOfValue(meta.getTtlField());
+			if (data.ttlFieldIndex < 0) {
+				throw new KettleException(BaseMessages.getString(PKG,
+						"RedisOutput.Error.NotFound.RowField", meta.getTtlField()));
+			}
+		}
+		else
+			data.ttlFieldIndex = -1;
+		
+		if(meta.getKeyFieldCheck())
+		// Getting the key from the combo box
+		{
+			data.keyFieldIndex = getInputRowMeta()==null ? -1 : getInputRowMeta().indexOfValue(meta.getKeyFieldCombo());
+			if (data.keyFieldIndex < 0) {
+				throw new KettleException(BaseMessages.getString(PKG,
+						"RedisInputMeta.Exception.KeyFieldNameNotFound"));
+			}
+		}
+		else
+			data.keyFieldIndex = -1;
+		
+		if(!RedisOutputMeta.WRITE_MODE_STRING.equals(data.writeMode))
+		// The selected fields of the row are written, in place of the value
+		{
+			int nrRowFields = meta.getRowFieldName().length;
+			data.rowFieldIndexes = new int[nrRowFields];
+			data.rowFieldMetas = new ValueMetaInterface[nrRowFields];
+			data.rowFieldEntries = new String[nrRowFields];
+			for(int i=0; i<nrRowFields; i++)
+			{
+				data.rowFieldIndexes[i] = getInputRowMeta()==null ? -1 : getInputRowMeta().indexOfValue(meta.getRowFieldName()[i]);
+				if (data.rowFieldIndexes[i] < 0) {
+					throw new KettleException(BaseMessages.getString(PKG,
+							"RedisOutput.Error.NotFound.RowField", meta.getRowFieldName()[i]));
+				}
+				data.rowFieldMetas[i] = getInputRowMeta().getValueMeta(data.rowFieldIndexes[i]);
+				data.rowFieldEntries[i] = environmentSubstitute(meta.getRowFieldEntryName(i));
+			}
+			data.valueFieldIndex = -1;
+			data.fixedValue = null;
+		}
+		else if(meta.getValueFieldCheck())
+		// Getting the value from the combo box
+		{
+			data.valueFieldIndex = getInputRowMeta()==null ? -1 : getInputRowMeta().indexOfValue(meta.getValueFieldCombo());
+			if (data.valueFieldIndex < 0) {
+				throw new KettleException(BaseMessages.getString(PKG, "RedisInputMeta.Exception.KeyFieldNameNotFound"));
+			}
+			data.fixedValue = null;
+		}
+		else
+		{
+			data.valueFieldIndex = -1;
+			data.fixedValue = meta.isBinaryValue() ? SafeEncoder.encode(meta.getValue()) : meta.getValue();
+			// The fixed value is compressed once for all the rows
+			if(data.codec!=null && data.fixedValue!=null)
+			{
+				try
+				{
+					byte[] raw = toBytes(data.fixedValue);
+					data.fixedRawSize = raw.length;
+					data.fixedValue = data.codec.encode(raw);
+				}
+				catch(IOException e)
+				{
+					throw new KettleException(BaseMessages.getString(PKG, "RedisOutput.Error.Encode", meta.getKey()), e);
+				}
+			}
+		}
+		
+		if(data.counters!=null && data.valueFieldIndex < 0)
+		// The fixed delta is parsed once for all the rows, an empty one counts the rows
+		{
+			String delta = Const.NVL(meta.getValue(), "").trim();
+			try
+			{
+				if(data.counters.isFloating())
+					data.fixedDelta = Double.valueOf(delta.length()==0 ? "1" : delta);
+				else
+					data.fixedDelta = Long.valueOf(delta.length()==0 ? "1" : delta);
+			}
+			catch(NumberFormatException e)
+			{
+				throw new KettleException(BaseMessages.getString(PKG, "RedisOutput.Error.InvalidDelta", delta), e);
+			}
+		}
+	}
+	
+	/**
+	 * @return the selected fields of the row, as a Map of hash fields without the null fields (null if all of them are null),
+	 * or as a JSON object where numbers and booleans keep their JSON type
+	 */
+	private Object packRow(RedisOutputData data, Object[] readRow) throws KettleException
+	{
+		int nrRowFields = data.rowFieldIndexes.length;
+		if(RedisOutputMeta.WRITE_MODE_HASH.equals(data.writeMode))
+		{
+			Map<String, String> hash = new LinkedHashMap<String, String>(nrRowFields * 2);
+			for(int i=0; i<nrRowFields; i++)
+			{
+				String fieldValue = data.rowFieldMetas[i].getString(readRow[data.rowFieldIndexes[i]]);
+				if(fieldValue!=null)
+					hash.put(data.rowFieldEntries[i], fieldValue);
+			}
+			return hash.isEmpty() ? null : hash;
+		}
+		Object[] values = new Object[nrRowFields];
+		for(int i=0; i<nrRowFields; i++)
+		{
+			ValueMetaInterface valueMeta = data.rowFieldMetas[i];
+			Object fieldValue = readRow[data.rowFieldIndexes[i]];
+			if(valueMeta.isNull(fieldValue))
+				continue;
+			switch(valueMeta.getType())
+			{
+			case ValueMetaInterface.TYPE_INTEGER:
+				values[i] = valueMeta.getInteger(fieldValue);
+				break;
+			case ValueMetaInterface.TYPE_NUMBER:
+				values[i] = valueMeta.getNumber(fieldValue);
+				break;
+			case ValueMetaInterface.TYPE_BIGNUMBER:
+				values[i] = valueMeta.getBigNumber(fieldValue);
+				break;
+			case ValueMetaInterface.TYPE_BOOLEAN:
+				values[i] = valueMeta.getBoolean(fieldValue);
+				break;
+			default:
+				values[i] = valueMeta.getString(fieldValue);
+			}
+		}
+		return RedisJson.toJson(data.rowFieldEntries, values);
+	}
+	
+	/**
+	 * @return the value as written to the server, compressed with its header when it gets smaller
+	 */
+	private Object encodeValue(RedisOutputData data, Object value) throws IOException
+	{
+		byte[] raw = toBytes(value);
+		byte[] encoded = data.codec.encode(raw);
+		countBytes(data, raw.length, encoded.length);
+		return encoded;
+	}
+	
+	private static byte[] toBytes(Object value)
+	{
+		return value instanceof byte[] ? (byte[]) value : SafeEncoder.encode((String) value);
+	}
+	
+	private void countBytes(RedisOutputData data, long raw, long encoded)
+	{
+		if(cache!=null)
+		{
+			cache.rawBytes += raw;
+			cache.encodedBytes += encoded;
+		}
+		data.rawBytes += raw;
+		data.encodedBytes += encoded;
+	}
+	
+	/**
+	 * Reports the compression ratio of the batch just written
+	 */
+	private void logBatchRatio(RedisOutputData data, RedisOutputBatch batch)
+	{
+		if(useCache && data.codec!=null && log.isDetailed())
+			logDetailed(BaseMessages.getString(PKG, "RedisOutput.Log.BatchCompression", String.valueOf(batch.count),
+					String.valueOf(batch.rawBytes), String.valueOf(batch.encodedBytes),
+					String.valueOf(RedisValueCodec.ratio(batch.rawBytes, batch.encodedBytes))));
+	}
+	
+	/**
+	 * Writes the cache, or gives it to the writer thread and takes back a written one to fill,
+	 * and passes on the rows of the written batch
+	 */
+	private boolean sendCacheToRedis(RedisOutputData data)
 	{
-		int portInt;
 		try
 		{
-			portInt = Integer.parseInt(port);
-			if(jedisPool==null)
-				jedisPool = new JedisPool(host, portInt);
-			nbInstance++;
+			if(flusher!=null)
+			{
+				RedisOutputBatch written = flusher.submit(cache);
+				completeBatch(data, written);
+				written.clear();
+				cache = written;
+			}
+			else
+			{
+				writeBatch(data, cache);
+				completeBatch(data, cache);
+				cache.clear();
+			}
+			return true;
 		}
 		catch(Exception e)
 		{
-			
-			jedisPool = null;
+			if (log.isError())
+				logError(BaseMessages.getString(PKG, "RedisOutput.Error.Write", getTarget(data)), e);
+			return false;
 		}
 	}
 	
-	private boolean sendCacheToRedis()
+	/**
+	 * Writes a batch, sending it again after a growing delay while it fails on errors which go away by themselves,
+	 * and adapts the size of the next batches to the time it took. It is called by the writer thread in the
+	 * asynchronous mode, and only uses data set at init.
+	 * 
+	 * Without transaction, only the batches of idempotent writes (SET, HMSET) are sent again, as a whole : the
+	 * conditional ones already done then count as skipped. The other commands are only retried when they are
+	 * written in a single transaction, and when the server refused its EXEC : after an error of the connection,
+	 * the transaction may have been committed. See init.
+	 * 
+	 * @throws Exception if the batch, or one of its keys, can't be written and the step has no error handling ;
+	 * with error handling the errors are kept in the batch for its rows
+	 */
+	private void writeBatch(RedisOutputData data, RedisOutputBatch batch) throws Exception
 	{
-		Jedis jedisClient = jedisPool.getResource();
-		if(jedisClient!=null)
+		long start = System.currentTimeMillis();
+		long attemptStart = start;
+		// The rows of the counters were passed on when their delta was summed, a failed write fails the step
+		boolean errorHandling = getStepMeta().isDoingErrorHandling() && data.counters==null;
+		for(int attempt=0; ; attempt++)
 		{
-			Pipeline redisPipeline = jedisClient.pipelined();
-			for(String[] keyValue : redisCache)
+			attemptStart = System.currentTimeMillis();
+			try
+			{
+				if(data.cluster!=null)
+				// The keys are grouped by node, each node gets its own pipeline
+				{
+					Object[] replies = data.cluster.set(batch.keys, batch.values, batch.ttls, batch.count, data.writer);
+					System.arraycopy(replies, 0, batch.replies, 0, batch.count);
+				}
+				else if(data.shards!=null)
+					data.shards.write(batch);
+				else
+					writePipeline(data, batch);
+				break;
+			}
+			catch(Exception e)
 			{
-				redisPipeline.set(keyValue[0], keyValue[1]);
+				// Only the error reply of EXEC proves that a transaction added nothing
+				if(attempt >= data.retries || !isRetryable(e)
+						|| (!data.writer.isIdempotent() && !(e instanceof JedisDataException)))
+				{
+					if(!errorHandling)
+						throw e;
+					batch.error = e;
+					break;
+				}
+				long delay = Math.min(data.retryDelay * (1L << Math.min(attempt, 20)), MAX_RETRY_DELAY);
+				if (log.isBasic())
+					logBasic(BaseMessages.getString(PKG, "RedisOutput.Log.Retry", String.valueOf(batch.count),
+							String.valueOf(attempt + 1), String.valueOf(delay), e.getMessage()));
+				Thread.sleep(delay);
 			}
-			redisPipeline.sync();
-			jedisPool.returnResource(jedisClient);
-			redisCache.clear();
+		}
+		long end = System.currentTimeMillis();
+		data.batchesWritten++;
+		data.rowsWritten += batch.count;
+		data.writeMillis += end - start;
+		// The size of the next batches follows the latency of the server, not the delays between the retries
+		if(batch.error==null)
+			data.batchSizer.flushed(batch.count, end - attemptStart);
+		logBatchRatio(data, batch);
+		if(batch.error!=null)
+			return;
+		
+		// The keys rejected by the server fail the step, or go to the error hop with their row
+		for(int i=0; i<batch.count; i++)
+		{
+			Object reply = batch.replies[i];
+			if(reply instanceof Exception)
+			{
+				if(!errorHandling)
+					throw new KettleException(BaseMessages.getString(PKG, "RedisOutput.Error.Rejected", batch.keys[i]), (Exception) reply);
+			}
+			else if(reply==null && data.writer.isConditional())
+				data.skippedWrites++;
+		}
+	}
+	
+	/**
+	 * @return true for the errors of the connection, and the errors of the server which go away by themselves
+	 */
+	private static boolean isRetryable(Exception e)
+	{
+		if(e instanceof JedisConnectionException || e instanceof JedisClusterMaxRedirectionsException)
 			return true;
+		if(e instanceof JedisDataException && e.getMessage()!=null)
+		{
+			for(String error : RETRYABLE_ERRORS)
+			{
+				if(e.getMessage().startsWith(error))
+					return true;
+			}
 		}
-		else
+		return false;
+	}
+	
+	/**
+	 * Passes on the rows of a written batch, and sends the ones whose write failed to the error hop,
+	 * with the rows absorbed by their key
+	 */
+	private void completeBatch(RedisOutputData data, RedisOutputBatch batch) throws KettleException
+	{
+		for(int i=0; i<batch.rowCount; i++)
 		{
-			return false;
+			Exception error = batch.error;
+			Object reply = batch.replies[batch.rowKeys[i]];
+			if(error==null && reply instanceof Exception)
+				error = (Exception) reply;
+			if(error==null)
+				putRow(data.outputRowMeta, batch.rows[i]); // copy row to possible alternate rowset(s).
+			else
+				putError(data.outputRowMeta, batch.rows[i], 1, error.toString(), null, "RedisOutput001");
+		}
+	}
+	
+	/**
+	 * Writes a batch in one pipeline, in a MULTI / EXEC transaction if asked, on a connection of the pool.
+	 * The commands that Jedis can not pipeline are pipelined by the writer.
+	 * The reply of each key is kept in the batch, with the error of the keys rejected by the server.
+	 */
+	private void writePipeline(RedisOutputData data, RedisOutputBatch batch) throws Exception
+	{
+		Jedis jedisClient = data.pool.getResource();
+		if(jedisClient==null)
+			throw new KettleException("Error connecting to the redis server " + data.endpoint);
+		try
+		{
+			if(!data.writer.isPipelined())
+			// The stream entries are pipelined by the writer, without Jedis pipeline
+			{
+				Object[] replies = data.writer.writeAll(jedisClient, batch.keys, batch.values, batch.count, data.transactional);
+				System.arraycopy(replies, 0, batch.replies, 0, batch.count);
+				data.pool.returnResource(jedisClient);
+				return;
+			}
+			Pipeline redisPipeline = jedisClient.pipelined();
+			if(data.transactional)
+				redisPipeline.multi();
+			Response<?>[] responses = batch.send(redisPipeline, data.writer);
+			Response<?> exec = data.transactional ? redisPipeline.exec() : null;
+			redisPipeline.sync();
+			// An aborted transaction fails the whole batch. The errors of the pipeline are unwrapped,
+			// so that the retryable ones are recognized and the rejected keys get the message of the server.
+			try
+			{
+				if(exec!=null)
+					exec.get();
+			}
+			catch(JedisDataException e)
+			{
+				throw RedisCommands.unwrap(e);
+			}
+			batch.setReplies(responses);
+		}
+		catch(JedisDataException e)
+		{
+			// The server answered, the connection can be used again
+			data.pool.returnResource(jedisClient);
+			throw e;
+		}
+		catch(Exception e)
+		{
+			// The connection is dropped from the pool
+			data.pool.returnBrokenResource(jedisClient);
+			throw e;
+		}
+		data.pool.returnResource(jedisClient);
+	}
+	
+	private static String getTarget(RedisOutputData data)
+	{
+		return data.cluster!=null ? data.cluster.toString() : data.endpoint.toString();
+	}
+	
+	/**
+	 * @return the approximate number of bytes sent for the key and its value
+	 */
+	private static long sizeOf(String key, Object value)
+	{
+		long size = key==null ? 0 : key.length();
+		if(value instanceof byte[])
+			size += ((byte[]) value).length;
+		else if(value instanceof String)
+			size += ((String) value).length();
+		else if(value instanceof Map)
+		{
+			for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+				size += entry.getKey().toString().length() + entry.getValue().toString().length();
 		}
+		return size;
 	}
 
 }
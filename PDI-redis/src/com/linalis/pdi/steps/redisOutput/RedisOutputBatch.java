@@ -0,0 +1,251 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisOutput;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import com.linalis.pdi.steps.redis.RedisCommands;
+import com.linalis.pdi.steps.redis.RedisKeyEncoder;
+import com.linalis.pdi.steps.redis.RedisWriter;
+
+/**
+ * Keys, values and times to live waiting to be pipelined, with their rows, their approximate size in bytes
+ * and their size before compression. Once written, the batch holds the reply of each key, or its error.
+ * 
+ * The arrays are reused from one batch to the next, and grow when a batch gets more rows than them.
+ * 
+ * When the writes are coalesced, the batch holds each key once with the value of its last row, and the rows
+ * absorbed by a key already in the batch are passed on with the reply of that key.
+ *
+ */
+public class RedisOutputBatch {
+
+	protected String[] keys;
+	protected Object[] values;
+	protected long[] ttls;
+	protected int count = 0;
+	
+	/**
+	 * Rows of the batch, and the position of the key written for each row
+	 */
+	protected Object[][] rows;
+	protected int[] rowKeys;
+	protected int rowCount = 0;
+	
+	/**
+	 * Position of each key in the batch, null until a write is coalesced
+	 */
+	protected Map<String, Integer> positions;
+	
+	/**
+	 * Time the first row was added, in milliseconds
+	 */
+	protected long started;
+	
+	/**
+	 * Reply of each key once written, the exception of the keys rejected by the server
+	 */
+	protected Object[] replies;
+	
+	/**
+	 * Position of each key in the batch it was split from, for the parts of a batch
+	 */
+	protected int[] sources;
+	
+	/**
+	 * Error of the whole batch, when it could not be written
+	 */
+	protected Exception error;
+	
+	/**
+	 * Approximate number of bytes sent for the keys and values
+	 */
+	protected long bytes = 0;
+	
+	/**
+	 * Size of the values before and after their compression
+	 */
+	protected long rawBytes = 0;
+	protected long encodedBytes = 0;
+	
+	/**
+	 * Encodes the keys of the batch when it is written, created on first use. A batch is written by one thread at a time.
+	 */
+	private RedisKeyEncoder keyEncoder;
+
+	public RedisOutputBatch(int capacity) {
+		capacity = Math.max(1, capacity);
+		keys = new String[capacity];
+		values = new Object[capacity];
+		ttls = new long[capacity];
+		rows = new Object[capacity][];
+		rowKeys = new int[capacity];
+		replies = new Object[capacity];
+	}
+	
+	public void add(String key, Object value, long ttlMillis, long size, Object[] row)
+	{
+		if(count==keys.length)
+		{
+			int capacity = count * 2;
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+			ttls = Arrays.copyOf(ttls, capacity);
+			replies = Arrays.copyOf(replies, capacity);
+			if(sources!=null)
+				sources = Arrays.copyOf(sources, capacity);
+		}
+		keys[count] = key;
+		values[count] = value;
+		ttls[count] = ttlMillis;
+		count++;
+		bytes += size;
+		addRow(row, count - 1);
+	}
+	
+	/**
+	 * Adds a key, or gives the key already in the batch the value and time to live of this row, so that only
+	 * the last value of the key is written. The fields of a hash are merged, the ones of the last row winning.
+	 * 
+	 * @return true if the row was absorbed by the key already in the batch
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean coalesce(String key, Object value, long ttlMillis, long size, Object[] row)
+	{
+		if(positions==null)
+			positions = new HashMap<String, Integer>(keys.length * 2);
+		Integer position = key==null ? null : positions.get(key);
+		if(position==null)
+		{
+			add(key, value, ttlMillis, size, row);
+			if(key!=null)
+				positions.put(key, count - 1);
+			return false;
+		}
+		int index = position.intValue();
+		if(value instanceof Map && values[index] instanceof Map)
+		{
+			// The hash of the batch was built for its first row, it can take the fields of the next ones
+			((Map<String, String>) values[index]).putAll((Map<String, String>) value);
+		}
+		else
+			values[index] = value;
+		ttls[index] = ttlMillis;
+		addRow(row, index);
+		return true;
+	}
+	
+	/**
+	 * Adds the row written by the key at this position, the parts of a batch have no rows
+	 */
+	private void addRow(Object[] row, int keyIndex)
+	{
+		if(row==null)
+			return;
+		if(rowCount==0)
+			started = System.currentTimeMillis();
+		if(rowCount==rows.length)
+		{
+			int capacity = rowCount * 2;
+			rows = Arrays.copyOf(rows, capacity);
+			rowKeys = Arrays.copyOf(rowKeys, capacity);
+		}
+		rows[rowCount] = row;
+		rowKeys[rowCount] = keyIndex;
+		rowCount++;
+	}
+	
+	/**
+	 * Adds a key of another batch to this part of it
+	 */
+	public void addPart(RedisOutputBatch batch, int index)
+	{
+		if(sources==null)
+			sources = new int[keys.length];
+		add(batch.keys[index], batch.values[index], batch.ttls[index], 0, null);
+		sources[count - 1] = index;
+	}
+	
+	/**
+	 * Adds the writes of the keys to the pipeline
+	 * 
+	 * @return the reply of the write of each key
+	 */
+	public Response<?>[] send(Pipeline pipeline, RedisWriter writer)
+	{
+		if(keyEncoder==null)
+			keyEncoder = new RedisKeyEncoder(RedisWriter.MSET_MAX_KEYS);
+		return writer.sendAll(pipeline, keyEncoder, keys, values, ttls, count);
+	}
+	
+	/**
+	 * Keeps the replies of the pipeline once synced, the keys rejected by the server get its error
+	 */
+	public void setReplies(Response<?>[] responses)
+	{
+		for(int i=0; i<count; i++)
+		{
+			try
+			{
+				replies[i] = responses[i].get();
+			}
+			catch(JedisDataException e)
+			{
+				replies[i] = RedisCommands.unwrap(e);
+			}
+		}
+	}
+	
+	public boolean isEmpty()
+	{
+		return count==0;
+	}
+	
+	/**
+	 * Empties the batch, dropping the references to the written keys and values
+	 */
+	public void clear()
+	{
+		for(int i=0; i<count; i++)
+		{
+			keys[i] = null;
+			values[i] = null;
+			replies[i] = null;
+		}
+		for(int i=0; i<rowCount; i++)
+			rows[i] = null;
+		if(positions!=null)
+			positions.clear();
+		count = 0;
+		rowCount = 0;
+		error = null;
+		bytes = 0;
+		rawBytes = 0;
+		encodedBytes = 0;
+	}
+}
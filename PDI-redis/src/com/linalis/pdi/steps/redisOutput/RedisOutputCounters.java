@@ -0,0 +1,187 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisOutput;
+
+import java.util.Arrays;
+
+/**
+ * Sums the deltas of the counters of a Redis Output step copy by key, until they are written in one batch.
+ * 
+ * The sums are kept in primitive arrays with open addressing (linear probing) rather than in a Map of boxed
+ * numbers, so that adding a delta to a known key allocates nothing. The counters are either integers or
+ * floating point numbers, for INCRBY / HINCRBY or INCRBYFLOAT.
+ *
+ */
+public class RedisOutputCounters {
+
+	/**
+	 * Highest part of the slots used before the arrays are doubled
+	 */
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private final boolean floating;
+	private String[] keys;
+	private long[] longSums;
+	private double[] doubleSums;
+	private int size = 0;
+	private int threshold;
+	
+	/**
+	 * Time the first key was added, in milliseconds
+	 */
+	protected long started;
+
+	/**
+	 * @param expected	the number of keys expected, the arrays grow beyond it
+	 * @param floating	true for floating point sums, false for integer ones
+	 */
+	public RedisOutputCounters(int expected, boolean floating) {
+		this.floating = floating;
+		int capacity = Integer.highestOneBit(Math.max(8, (int) Math.min(expected / LOAD_FACTOR, 1 << 29)) - 1) << 1;
+		allocate(capacity);
+	}
+	
+	private void allocate(int capacity)
+	{
+		keys = new String[capacity];
+		if(floating)
+			doubleSums = new double[capacity];
+		else
+			longSums = new long[capacity];
+		threshold = (int) (capacity * LOAD_FACTOR);
+	}
+	
+	public boolean isFloating()
+	{
+		return floating;
+	}
+	
+	/**
+	 * @return the number of keys with a sum
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	public boolean isEmpty()
+	{
+		return size==0;
+	}
+	
+	/**
+	 * Adds a delta to the integer counter of the key
+	 */
+	public void add(String key, long delta)
+	{
+		// The slot is taken first, the arrays may grow for a new key
+		int i = slot(key);
+		longSums[i] += delta;
+	}
+	
+	/**
+	 * Adds a delta to the floating point counter of the key
+	 */
+	public void add(String key, double delta)
+	{
+		// The slot is taken first, the arrays may grow for a new key
+		int i = slot(key);
+		doubleSums[i] += delta;
+	}
+	
+	/**
+	 * @return the slot of the key, taken for it when the key is new
+	 */
+	private int slot(String key)
+	{
+		int mask = keys.length - 1;
+		int h = key.hashCode();
+		int i = (h ^ (h >>> 16)) & mask;
+		while(keys[i]!=null)
+		{
+			if(keys[i].equals(key))
+				return i;
+			i = (i + 1) & mask;
+		}
+		if(size >= threshold)
+		{
+			grow();
+			return slot(key);
+		}
+		if(size==0)
+			started = System.currentTimeMillis();
+		keys[i] = key;
+		size++;
+		return i;
+	}
+	
+	/**
+	 * Doubles the arrays, placing the keys and their sums again
+	 */
+	private void grow()
+	{
+		String[] oldKeys = keys;
+		long[] oldLongSums = longSums;
+		double[] oldDoubleSums = doubleSums;
+		allocate(oldKeys.length * 2);
+		int mask = keys.length - 1;
+		for(int j=0; j<oldKeys.length; j++)
+		{
+			if(oldKeys[j]==null)
+				continue;
+			int h = oldKeys[j].hashCode();
+			int i = (h ^ (h >>> 16)) & mask;
+			while(keys[i]!=null)
+				i = (i + 1) & mask;
+			keys[i] = oldKeys[j];
+			if(floating)
+				doubleSums[i] = oldDoubleSums[j];
+			else
+				longSums[i] = oldLongSums[j];
+		}
+	}
+	
+	/**
+	 * Moves the sums to the batch, as Long or Double values without rows, and empties the counters
+	 */
+	public void drainTo(RedisOutputBatch batch)
+	{
+		for(int i=0; i<keys.length; i++)
+		{
+			if(keys[i]==null)
+				continue;
+			batch.add(keys[i], floating ? (Object) Double.valueOf(doubleSums[i]) : (Object) Long.valueOf(longSums[i]),
+					0, keys[i].length() + 8, null);
+		}
+		clear();
+	}
+	
+	public void clear()
+	{
+		Arrays.fill(keys, null);
+		if(floating)
+			Arrays.fill(doubleSums, 0);
+		else
+			Arrays.fill(longSums, 0);
+		size = 0;
+	}
+}
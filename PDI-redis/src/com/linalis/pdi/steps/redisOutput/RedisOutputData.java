@@ -22,9 +22,17 @@
 package com.linalis.pdi.steps.redisOutput;
 
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
+import com.linalis.pdi.steps.redis.RedisBatchSizer;
+import com.linalis.pdi.steps.redis.RedisClusterRouter;
+import com.linalis.pdi.steps.redis.RedisEndpoint;
+import com.linalis.pdi.steps.redis.RedisPool;
+import com.linalis.pdi.steps.redis.RedisValueCodec;
+import com.linalis.pdi.steps.redis.RedisWriter;
+
 /**
  * @author Matt Burgess
  *
@@ -35,6 +43,110 @@ public class RedisOutputData extends BaseStepData implements
 
 	protected boolean noInputRow = false;
 	
+	/**
+	 * Position of the key and value fields in the input rows, -1 for the fixed key or value,
+	 * and the fixed value, as written to the server
+	 */
+	protected int keyFieldIndex = -1;
+	protected int valueFieldIndex = -1;
+	protected Object fixedValue;
+	
+	/**
+	 * Write mode, and in the hash and JSON modes the position, type and entry name of the written fields,
+	 * null in the string mode
+	 */
+	protected String writeMode;
+	protected int[] rowFieldIndexes;
+	protected ValueMetaInterface[] rowFieldMetas;
+	protected String[] rowFieldEntries;
+	
+	/**
+	 * Server the step writes to, and its shared connection pool
+	 */
+	protected RedisEndpoint endpoint;
+	protected RedisPool pool;
+	
+	/**
+	 * Routes the keys to the nodes of a Redis Cluster, null when the server is a single node.
+	 * The pool is then null.
+	 */
+	protected RedisClusterRouter cluster;
+	
+	/**
+	 * Decides when the pipelined batches are sent
+	 */
+	protected RedisBatchSizer batchSizer;
+	
+	/**
+	 * Writes the values with their expiry and condition
+	 */
+	protected RedisWriter writer;
+	
+	/**
+	 * Fixed time to live of the keys in milliseconds, 0 for no expiry, the position of the field
+	 * giving the time to live of each key (-1 for the fixed one), and the milliseconds in one unit of the field
+	 */
+	protected long ttlMillis = 0;
+	protected int ttlFieldIndex = -1;
+	protected long ttlFactor = 1000;
+	
+	/**
+	 * Number of values not written because of the NX / XX condition
+	 */
+	protected long skippedWrites = 0;
+	
+	/**
+	 * Writes coalesced by key in each batch, so that only the last value of a key is written,
+	 * longest time in milliseconds a row waits in the batch (0 for no limit),
+	 * and number of rows absorbed by a key already in their batch
+	 */
+	protected boolean coalesce = false;
+	protected long flushInterval = 0;
+	protected long coalescedRows = 0;
+	
+	/**
+	 * Sums of the counter deltas by key, null when the values are not counters,
+	 * the fixed delta of the rows (a Long or a Double), and the number of deltas summed
+	 */
+	protected RedisOutputCounters counters;
+	protected Number fixedDelta;
+	protected long countedDeltas = 0;
+	
+	/**
+	 * Batches written in MULTI / EXEC transactions, number of retries of a failed batch,
+	 * and delay before the first retry in milliseconds
+	 */
+	protected boolean transactional = false;
+	protected int retries = 0;
+	protected long retryDelay = 0;
+	
+	/**
+	 * Number of connections a batch is split on by key hash, and the writer of the parts of the batches
+	 * (null with a single connection)
+	 */
+	protected int connections = 1;
+	protected RedisOutputShards shards;
+	
+	/**
+	 * Number of batches written, of their rows, and time spent writing them
+	 */
+	protected long batchesWritten = 0;
+	protected long rowsWritten = 0;
+	protected long writeMillis = 0;
+	
+	/**
+	 * Compresses the values, null when they are written as they are,
+	 * and the size of the fixed value before compression
+	 */
+	protected RedisValueCodec codec;
+	protected int fixedRawSize;
+	
+	/**
+	 * Size of the values before and after compression, for the whole step
+	 */
+	protected long rawBytes = 0;
+	protected long encodedBytes = 0;
+	
 	public RedisOutputData() {
 		super();
 	}
@@ -23,6 +23,8 @@ package com.linalis.pdi.steps.redisOutput;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CCombo;
+import org.eclipse.swt.custom.CTabFolder;
+import org.eclipse.swt.custom.CTabItem;
 import org.eclipse.swt.events.FocusListener;
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
@@ -35,13 +37,16 @@ import org.eclipse.swt.layout.FormAttachment;
 import org.eclipse.swt.layout.FormData;
 import org.eclipse.swt.layout.FormLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.Props;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.i18n.BaseMessages;
@@ -49,9 +54,14 @@ import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStepMeta;
 import org.pentaho.di.trans.step.StepDialogInterface;
 import org.pentaho.di.ui.core.dialog.ErrorDialog;
+import org.pentaho.di.ui.core.widget.ColumnInfo;
+import org.pentaho.di.ui.core.widget.PasswordTextVar;
+import org.pentaho.di.ui.core.widget.TableView;
 import org.pentaho.di.ui.core.widget.TextVar;
 import org.pentaho.di.ui.trans.step.BaseStepDialog;
 
+import com.linalis.pdi.steps.redis.RedisWriter;
+
 public class RedisOutputDialog extends BaseStepDialog implements
 		StepDialogInterface {
 	private static Class<?> PKG = RedisOutputMeta.class; // for i18n purposes,
@@ -67,12 +77,33 @@ public class RedisOutputDialog extends BaseStepDialog implements
 	private Label wlPort;
 	private TextVar  wPort;
 	private FormData fdlPort, fdPort;
+	private Label wlPassword;
+	private PasswordTextVar  wPassword;
+	private FormData fdlPassword, fdPassword;
 	private Label wlBase;
 	private TextVar  wBase;
 	private FormData fdlBase, fdBase;
 	private Label wlPipelineSize;
 	private Text  wPipelineSize;
 	private FormData fdlPipelineSize, fdPipelineSize;
+	private Label wlCoalesceWrites;
+	private Button wCoalesceWrites;
+	private FormData fdlCoalesceWrites, fdCoalesceWrites;
+	private Label wlFlushInterval;
+	private TextVar wFlushInterval;
+	private FormData fdlFlushInterval, fdFlushInterval;
+	private Label wlAsyncWrite;
+	private Button wAsyncWrite;
+	private FormData fdlAsyncWrite, fdAsyncWrite;
+	private Label wlAsyncQueueSize;
+	private TextVar wAsyncQueueSize;
+	private FormData fdlAsyncQueueSize, fdAsyncQueueSize;
+	private Label wlPipelineBytes;
+	private TextVar wPipelineBytes;
+	private FormData fdlPipelineBytes, fdPipelineBytes;
+	private Label wlPipelineLatency;
+	private TextVar wPipelineLatency;
+	private FormData fdlPipelineLatency, fdPipelineLatency;
 	private Label wlKey;
 	private Text wKey;
 	private FormData fdlKey, fdKey;
@@ -91,6 +122,82 @@ public class RedisOutputDialog extends BaseStepDialog implements
 	private Label wlValueFieldCombo;
 	private CCombo wValueFieldCombo;
 	private FormData fdlValueFieldCombo, fdValueFieldCombo;
+	private Label wlBinaryValue;
+	private Button wBinaryValue;
+	private FormData fdlBinaryValue, fdBinaryValue;
+	private Label wlCodec;
+	private CCombo wCodec;
+	private FormData fdlCodec, fdCodec;
+	private Label wlPoolMaxTotal;
+	private TextVar  wPoolMaxTotal;
+	private FormData fdlPoolMaxTotal, fdPoolMaxTotal;
+	private Label wlPoolMaxIdle;
+	private TextVar  wPoolMaxIdle;
+	private FormData fdlPoolMaxIdle, fdPoolMaxIdle;
+	private Label wlPoolMinIdle;
+	private TextVar  wPoolMinIdle;
+	private FormData fdlPoolMinIdle, fdPoolMinIdle;
+	private Label wlPoolMaxWait;
+	private TextVar  wPoolMaxWait;
+	private FormData fdlPoolMaxWait, fdPoolMaxWait;
+	private Label wlConnectTimeout;
+	private TextVar  wConnectTimeout;
+	private FormData fdlConnectTimeout, fdConnectTimeout;
+	private Label wlSocketTimeout;
+	private TextVar  wSocketTimeout;
+	private FormData fdlSocketTimeout, fdSocketTimeout;
+	private Label wlTestOnBorrow;
+	private Button wTestOnBorrow;
+	private FormData fdlTestOnBorrow, fdTestOnBorrow;
+	private Label wlConnections;
+	private TextVar wConnections;
+	private FormData fdlConnections, fdConnections;
+	private Label wlTransactional;
+	private Button wTransactional;
+	private FormData fdlTransactional, fdTransactional;
+	private Label wlRetries;
+	private TextVar wRetries;
+	private FormData fdlRetries, fdRetries;
+	private Label wlRetryDelay;
+	private TextVar wRetryDelay;
+	private FormData fdlRetryDelay, fdRetryDelay;
+	private Label wlClusterMode;
+	private Button wClusterMode;
+	private FormData fdlClusterMode, fdClusterMode;
+	private CTabFolder wTabFolder;
+	private FormData fdTabFolder;
+	private Label wlCommand;
+	private CCombo wCommand;
+	private FormData fdlCommand, fdCommand;
+	private Label wlStreamMaxLen;
+	private TextVar wStreamMaxLen;
+	private FormData fdlStreamMaxLen, fdStreamMaxLen;
+	private Label wlHashField;
+	private TextVar wHashField;
+	private FormData fdlHashField, fdHashField;
+	private Label wlWriteMode;
+	private CCombo wWriteMode;
+	private FormData fdlWriteMode, fdWriteMode;
+	private Label wlRowFields;
+	private TableView wRowFields;
+	private FormData fdlRowFields, fdRowFields;
+	private Button wGetRowFields;
+	private FormData fdGetRowFields;
+	private Label wlTtl;
+	private TextVar wTtl;
+	private FormData fdlTtl, fdTtl;
+	private Label wlTtlField;
+	private CCombo wTtlField;
+	private FormData fdlTtlField, fdTtlField;
+	private Label wlTtlUnit;
+	private CCombo wTtlUnit;
+	private FormData fdlTtlUnit, fdTtlUnit;
+	private Label wlCondition;
+	private CCombo wCondition;
+	private FormData fdlCondition, fdCondition;
+	private CTabItem wGeneralTab, wFieldsTab, wExpiryTab, wPoolTab;
+	private Composite wGeneralComp, wFieldsComp, wExpiryComp, wPoolComp;
+	private FormData fdGeneralComp, fdFieldsComp, fdExpiryComp, fdPoolComp;
 
 	public RedisOutputDialog(Shell parent, Object in, TransMeta tr, String sname) {
 		super(parent, (BaseStepMeta) in, tr, sname);
@@ -137,27 +244,39 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdStepname.top = new FormAttachment(0, margin);
 		fdStepname.right = new FormAttachment(100, 0);
 		wStepname.setLayoutData(fdStepname);
+		wTabFolder = new CTabFolder(shell, SWT.BORDER);
+		props.setLook(wTabFolder, Props.WIDGET_STYLE_TAB);
+
+		// General tab
+		wGeneralTab = new CTabItem(wTabFolder, SWT.NONE);
+		wGeneralTab.setText(BaseMessages.getString(PKG, "RedisOutputDialog.GeneralTab.Title"));
+		wGeneralComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wGeneralComp);
+		FormLayout generalLayout = new FormLayout();
+		generalLayout.marginWidth = 3;
+		generalLayout.marginHeight = 3;
+		wGeneralComp.setLayout(generalLayout);
 		// Hostname
-		wlHostname = new Label(shell, SWT.RIGHT);
+		wlHostname = new Label(wGeneralComp, SWT.RIGHT);
 		wlHostname.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.Hostname.Label"));
 		props.setLook(wlHostname);
 		fdlHostname = new FormData();
 		fdlHostname.left = new FormAttachment(0, 0);
 		fdlHostname.right = new FormAttachment(middle, -margin);
-		fdlHostname.top = new FormAttachment(wStepname, margin);
+		fdlHostname.top = new FormAttachment(0, margin);
 		wlHostname.setLayoutData(fdlHostname);
-		wHostname = new TextVar(transMeta, shell, SWT.SINGLE | SWT.LEFT
+		wHostname = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
 				| SWT.BORDER);
 		props.setLook(wHostname);
 		wHostname.addModifyListener(lsMod);
 		fdHostname = new FormData();
 		fdHostname.left = new FormAttachment(middle, 0);
-		fdHostname.top = new FormAttachment(wStepname, margin);
+		fdHostname.top = new FormAttachment(0, margin);
 		fdHostname.right = new FormAttachment(100, 0);
 		wHostname.setLayoutData(fdHostname);
 		// Port
-		wlPort = new Label(shell, SWT.RIGHT);
+		wlPort = new Label(wGeneralComp, SWT.RIGHT);
 		wlPort.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.Port.Label"));
 		props.setLook(wlPort);
@@ -166,7 +285,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdlPort.right = new FormAttachment(middle, -margin);
 		fdlPort.top = new FormAttachment(wHostname, margin);
 		wlPort.setLayoutData(fdlPort);
-		wPort = new TextVar(transMeta, shell, SWT.SINGLE | SWT.LEFT
+		wPort = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
 				| SWT.BORDER);
 		props.setLook(wPort);
 		wPort.addModifyListener(lsMod);
@@ -175,27 +294,46 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdPort.top = new FormAttachment(wHostname, margin);
 		fdPort.right = new FormAttachment(100, 0);
 		wPort.setLayoutData(fdPort);
+		// Password
+		wlPassword = new Label(wGeneralComp, SWT.RIGHT);
+		wlPassword.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.Password.Label"));
+		props.setLook(wlPassword);
+		fdlPassword = new FormData();
+		fdlPassword.left = new FormAttachment(0, 0);
+		fdlPassword.right = new FormAttachment(middle, -margin);
+		fdlPassword.top = new FormAttachment(wPort, margin);
+		wlPassword.setLayoutData(fdlPassword);
+		wPassword = new PasswordTextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPassword);
+		wPassword.addModifyListener(lsMod);
+		fdPassword = new FormData();
+		fdPassword.left = new FormAttachment(middle, 0);
+		fdPassword.top = new FormAttachment(wPort, margin);
+		fdPassword.right = new FormAttachment(100, 0);
+		wPassword.setLayoutData(fdPassword);
 		// Base
-		wlBase = new Label(shell, SWT.RIGHT);
+		wlBase = new Label(wGeneralComp, SWT.RIGHT);
 		wlBase.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.Base.Label"));
 		props.setLook(wlBase);
 		fdlBase = new FormData();
 		fdlBase.left = new FormAttachment(0, 0);
 		fdlBase.right = new FormAttachment(middle, -margin);
-		fdlBase.top = new FormAttachment(wPort, margin);
+		fdlBase.top = new FormAttachment(wPassword, margin);
 		wlBase.setLayoutData(fdlBase);
-		wBase = new TextVar(transMeta, shell, SWT.SINGLE | SWT.LEFT
+		wBase = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
 				| SWT.BORDER);
 		props.setLook(wBase);
 		wBase.addModifyListener(lsMod);
 		fdBase = new FormData();
 		fdBase.left = new FormAttachment(middle, 0);
-		fdBase.top = new FormAttachment(wPort, margin);
+		fdBase.top = new FormAttachment(wPassword, margin);
 		fdBase.right = new FormAttachment(100, 0);
 		wBase.setLayoutData(fdBase);
 		// Pipeline Size
-		wlPipelineSize = new Label(shell, SWT.RIGHT);
+		wlPipelineSize = new Label(wGeneralComp, SWT.RIGHT);
 		wlPipelineSize.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.PipelineSize.Label"));
 		props.setLook(wlPipelineSize);
@@ -204,7 +342,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdlPipelineSize.right = new FormAttachment(middle, -margin);
 		fdlPipelineSize.top = new FormAttachment(wBase, margin);
 		wlPipelineSize.setLayoutData(fdlPipelineSize);
-		wPipelineSize = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		wPipelineSize = new Text(wGeneralComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
 		props.setLook(wPipelineSize);
 		wPipelineSize.addModifyListener(lsMod);
 		fdPipelineSize = new FormData();
@@ -212,26 +350,147 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdPipelineSize.top = new FormAttachment(wBase, margin);
 		fdPipelineSize.right = new FormAttachment(100, 0);
 		wPipelineSize.setLayoutData(fdPipelineSize);
+		// Target batch size in bytes
+		wlPipelineBytes = new Label(wGeneralComp, SWT.RIGHT);
+		wlPipelineBytes.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.PipelineBytes.Label"));
+		props.setLook(wlPipelineBytes);
+		fdlPipelineBytes = new FormData();
+		fdlPipelineBytes.left = new FormAttachment(0, 0);
+		fdlPipelineBytes.right = new FormAttachment(middle, -margin);
+		fdlPipelineBytes.top = new FormAttachment(wPipelineSize, margin);
+		wlPipelineBytes.setLayoutData(fdlPipelineBytes);
+		wPipelineBytes = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPipelineBytes);
+		wPipelineBytes.addModifyListener(lsMod);
+		fdPipelineBytes = new FormData();
+		fdPipelineBytes.left = new FormAttachment(middle, 0);
+		fdPipelineBytes.top = new FormAttachment(wPipelineSize, margin);
+		fdPipelineBytes.right = new FormAttachment(100, 0);
+		wPipelineBytes.setLayoutData(fdPipelineBytes);
+		// Target flush latency
+		wlPipelineLatency = new Label(wGeneralComp, SWT.RIGHT);
+		wlPipelineLatency.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.PipelineLatency.Label"));
+		props.setLook(wlPipelineLatency);
+		fdlPipelineLatency = new FormData();
+		fdlPipelineLatency.left = new FormAttachment(0, 0);
+		fdlPipelineLatency.right = new FormAttachment(middle, -margin);
+		fdlPipelineLatency.top = new FormAttachment(wPipelineBytes, margin);
+		wlPipelineLatency.setLayoutData(fdlPipelineLatency);
+		wPipelineLatency = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPipelineLatency);
+		wPipelineLatency.addModifyListener(lsMod);
+		fdPipelineLatency = new FormData();
+		fdPipelineLatency.left = new FormAttachment(middle, 0);
+		fdPipelineLatency.top = new FormAttachment(wPipelineBytes, margin);
+		fdPipelineLatency.right = new FormAttachment(100, 0);
+		wPipelineLatency.setLayoutData(fdPipelineLatency);
+		// Coalesced writes, only the last value of a key is written
+		wlCoalesceWrites = new Label(wGeneralComp, SWT.RIGHT);
+		wlCoalesceWrites.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.CoalesceWrites.Label"));
+		props.setLook(wlCoalesceWrites);
+		fdlCoalesceWrites = new FormData();
+		fdlCoalesceWrites.left = new FormAttachment(0, 0);
+		fdlCoalesceWrites.right = new FormAttachment(middle, -margin);
+		fdlCoalesceWrites.top = new FormAttachment(wPipelineLatency, margin);
+		wlCoalesceWrites.setLayoutData(fdlCoalesceWrites);
+		wCoalesceWrites = new Button(wGeneralComp, SWT.CHECK);
+		props.setLook(wCoalesceWrites);
+		fdCoalesceWrites = new FormData();
+		fdCoalesceWrites.left = new FormAttachment(middle, 0);
+		fdCoalesceWrites.top = new FormAttachment(wPipelineLatency, margin);
+		fdCoalesceWrites.right = new FormAttachment(100, 0);
+		wCoalesceWrites.setLayoutData(fdCoalesceWrites);
+		wCoalesceWrites.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		// Longest time a row waits in the batch
+		wlFlushInterval = new Label(wGeneralComp, SWT.RIGHT);
+		wlFlushInterval.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.FlushInterval.Label"));
+		props.setLook(wlFlushInterval);
+		fdlFlushInterval = new FormData();
+		fdlFlushInterval.left = new FormAttachment(0, 0);
+		fdlFlushInterval.right = new FormAttachment(middle, -margin);
+		fdlFlushInterval.top = new FormAttachment(wCoalesceWrites, margin);
+		wlFlushInterval.setLayoutData(fdlFlushInterval);
+		wFlushInterval = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wFlushInterval);
+		wFlushInterval.addModifyListener(lsMod);
+		fdFlushInterval = new FormData();
+		fdFlushInterval.left = new FormAttachment(middle, 0);
+		fdFlushInterval.top = new FormAttachment(wCoalesceWrites, margin);
+		fdFlushInterval.right = new FormAttachment(100, 0);
+		wFlushInterval.setLayoutData(fdFlushInterval);
+		// Asynchronous write
+		wlAsyncWrite = new Label(wGeneralComp, SWT.RIGHT);
+		wlAsyncWrite.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.AsyncWrite.Label"));
+		props.setLook(wlAsyncWrite);
+		fdlAsyncWrite = new FormData();
+		fdlAsyncWrite.left = new FormAttachment(0, 0);
+		fdlAsyncWrite.right = new FormAttachment(middle, -margin);
+		fdlAsyncWrite.top = new FormAttachment(wFlushInterval, margin);
+		wlAsyncWrite.setLayoutData(fdlAsyncWrite);
+		wAsyncWrite = new Button(wGeneralComp, SWT.CHECK);
+		props.setLook(wAsyncWrite);
+		fdAsyncWrite = new FormData();
+		fdAsyncWrite.left = new FormAttachment(middle, 0);
+		fdAsyncWrite.top = new FormAttachment(wFlushInterval, margin);
+		fdAsyncWrite.right = new FormAttachment(100, 0);
+		wAsyncWrite.setLayoutData(fdAsyncWrite);
+		wAsyncWrite.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				wAsyncQueueSize.setEnabled(wAsyncWrite.getSelection());
+				input.setChanged();
+			}
+		});
+		// Queue size of the writer thread
+		wlAsyncQueueSize = new Label(wGeneralComp, SWT.RIGHT);
+		wlAsyncQueueSize.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.AsyncQueueSize.Label"));
+		props.setLook(wlAsyncQueueSize);
+		fdlAsyncQueueSize = new FormData();
+		fdlAsyncQueueSize.left = new FormAttachment(0, 0);
+		fdlAsyncQueueSize.right = new FormAttachment(middle, -margin);
+		fdlAsyncQueueSize.top = new FormAttachment(wAsyncWrite, margin);
+		wlAsyncQueueSize.setLayoutData(fdlAsyncQueueSize);
+		wAsyncQueueSize = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wAsyncQueueSize);
+		wAsyncQueueSize.addModifyListener(lsMod);
+		fdAsyncQueueSize = new FormData();
+		fdAsyncQueueSize.left = new FormAttachment(middle, 0);
+		fdAsyncQueueSize.top = new FormAttachment(wAsyncWrite, margin);
+		fdAsyncQueueSize.right = new FormAttachment(100, 0);
+		wAsyncQueueSize.setLayoutData(fdAsyncQueueSize);
 		// Key
-		wlKey = new Label(shell, SWT.RIGHT);
+		wlKey = new Label(wGeneralComp, SWT.RIGHT);
 		wlKey.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.Key.Label"));
 		props.setLook(wlKey);
 		fdlKey = new FormData();
 		fdlKey.left = new FormAttachment(0, 0);
 		fdlKey.right = new FormAttachment(middle, -margin);
-		fdlKey.top = new FormAttachment(wPipelineSize, margin);
+		fdlKey.top = new FormAttachment(wAsyncQueueSize, margin);
 		wlKey.setLayoutData(fdlKey);
-		wKey = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		wKey = new Text(wGeneralComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
 		props.setLook(wKey);
 		wKey.addModifyListener(lsMod);
 		fdKey = new FormData();
 		fdKey.left = new FormAttachment(middle, 0);
-		fdKey.top = new FormAttachment(wPipelineSize, margin);
+		fdKey.top = new FormAttachment(wAsyncQueueSize, margin);
 		fdKey.right = new FormAttachment(100, 0);
 		wKey.setLayoutData(fdKey);
 		// Key field check
-		wlKeyFieldCheck = new Label(shell, SWT.RIGHT);
+		wlKeyFieldCheck = new Label(wGeneralComp, SWT.RIGHT);
 		wlKeyFieldCheck.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.KeyFieldCheck.Label"));
 		props.setLook(wlKeyFieldCheck);
@@ -240,7 +499,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdlKeyFieldCheck.right = new FormAttachment(middle, -margin);
 		fdlKeyFieldCheck.top = new FormAttachment(wKey, margin);
 		wlKeyFieldCheck.setLayoutData(fdlKeyFieldCheck);
-		wKeyFieldCheck = new Button(shell, SWT.CHECK);
+		wKeyFieldCheck = new Button(wGeneralComp, SWT.CHECK);
 		props.setLook(wKeyFieldCheck);
 		fdKeyFieldCheck = new FormData();
 		fdKeyFieldCheck.left = new FormAttachment(middle, 0);
@@ -271,7 +530,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		    };
 		wKeyFieldCheck.addSelectionListener( lsxKeyFieldCheck );
 		// Key field combo
-		wlKeyFieldCombo = new Label(shell, SWT.RIGHT);
+		wlKeyFieldCombo = new Label(wGeneralComp, SWT.RIGHT);
 		wlKeyFieldCombo.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.KeyField.Label"));
 		props.setLook(wlKeyFieldCombo);
@@ -280,7 +539,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdlKeyFieldCombo.right = new FormAttachment(middle, -margin);
 		fdlKeyFieldCombo.top = new FormAttachment(wKeyFieldCheck, margin);
 		wlKeyFieldCombo.setLayoutData(fdlKeyFieldCombo);
-		wKeyFieldCombo = new CCombo(shell, SWT.BORDER | SWT.READ_ONLY);
+		wKeyFieldCombo = new CCombo(wGeneralComp, SWT.BORDER | SWT.READ_ONLY);
 		props.setLook(wKeyFieldCombo);
 		wKeyFieldCombo.addModifyListener(lsMod);
 		fdKeyFieldCombo = new FormData();
@@ -301,7 +560,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 			}
 		});
 		// Value
-		wlValue = new Label(shell, SWT.RIGHT);
+		wlValue = new Label(wGeneralComp, SWT.RIGHT);
 		wlValue.setText(BaseMessages.getString(PKG, "RedisInputDialog.Value.Label"));
 		props.setLook(wlValue);
 		fdlValue = new FormData();
@@ -309,7 +568,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdlValue.right = new FormAttachment(middle, -margin);
 		fdlValue.top = new FormAttachment(wKeyFieldCombo, margin);
 		wlValue.setLayoutData(fdlValue);
-		wValue = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		wValue = new Text(wGeneralComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
 		props.setLook(wValue);
 		wValue.addModifyListener(lsMod);
 		fdValue = new FormData();
@@ -318,7 +577,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdValue.right = new FormAttachment(100, 0);
 		wValue.setLayoutData(fdValue);
 		// Value field check
-		wlValueFieldCheck = new Label(shell, SWT.RIGHT);
+		wlValueFieldCheck = new Label(wGeneralComp, SWT.RIGHT);
 		wlValueFieldCheck.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.ValueFieldCheck.Label"));
 		props.setLook(wlValueFieldCheck);
@@ -327,7 +586,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdlValueFieldCheck.right = new FormAttachment(middle, -margin);
 		fdlValueFieldCheck.top = new FormAttachment(wValue, margin);
 		wlValueFieldCheck.setLayoutData(fdlValueFieldCheck);
-		wValueFieldCheck = new Button(shell, SWT.CHECK);
+		wValueFieldCheck = new Button(wGeneralComp, SWT.CHECK);
 		props.setLook(wValueFieldCheck);
 		fdValueFieldCheck = new FormData();
 		fdValueFieldCheck.left = new FormAttachment(middle, 0);
@@ -358,7 +617,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		    };
 		wValueFieldCheck.addSelectionListener( lsxValueFieldCheck );
 		// Value field combo
-		wlValueFieldCombo = new Label(shell, SWT.RIGHT);
+		wlValueFieldCombo = new Label(wGeneralComp, SWT.RIGHT);
 		wlValueFieldCombo.setText(BaseMessages.getString(PKG,
 				"RedisInputDialog.ValueField.Label"));
 		props.setLook(wlValueFieldCombo);
@@ -367,7 +626,7 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		fdlValueFieldCombo.right = new FormAttachment(middle, -margin);
 		fdlValueFieldCombo.top = new FormAttachment(wValueFieldCheck, margin);
 		wlValueFieldCombo.setLayoutData(fdlValueFieldCombo);
-		wValueFieldCombo = new CCombo(shell, SWT.BORDER | SWT.READ_ONLY);
+		wValueFieldCombo = new CCombo(wGeneralComp, SWT.BORDER | SWT.READ_ONLY);
 		props.setLook(wValueFieldCombo);
 		wValueFieldCombo.addModifyListener(lsMod);
 		fdValueFieldCombo = new FormData();
@@ -387,13 +646,567 @@ public class RedisOutputDialog extends BaseStepDialog implements
 				busy.dispose();
 			}
 		});
+		// Binary value
+		wlBinaryValue = new Label(wGeneralComp, SWT.RIGHT);
+		wlBinaryValue.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.BinaryValue.Label"));
+		props.setLook(wlBinaryValue);
+		fdlBinaryValue = new FormData();
+		fdlBinaryValue.left = new FormAttachment(0, 0);
+		fdlBinaryValue.right = new FormAttachment(middle, -margin);
+		fdlBinaryValue.top = new FormAttachment(wValueFieldCombo, margin);
+		wlBinaryValue.setLayoutData(fdlBinaryValue);
+		wBinaryValue = new Button(wGeneralComp, SWT.CHECK);
+		props.setLook(wBinaryValue);
+		fdBinaryValue = new FormData();
+		fdBinaryValue.left = new FormAttachment(middle, 0);
+		fdBinaryValue.top = new FormAttachment(wValueFieldCombo, margin);
+		fdBinaryValue.right = new FormAttachment(100, 0);
+		wBinaryValue.setLayoutData(fdBinaryValue);
+		wBinaryValue.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		// Compression of the values
+		wlCodec = new Label(wGeneralComp, SWT.RIGHT);
+		wlCodec.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.Codec.Label"));
+		props.setLook(wlCodec);
+		fdlCodec = new FormData();
+		fdlCodec.left = new FormAttachment(0, 0);
+		fdlCodec.right = new FormAttachment(middle, -margin);
+		fdlCodec.top = new FormAttachment(wBinaryValue, margin);
+		wlCodec.setLayoutData(fdlCodec);
+		wCodec = new CCombo(wGeneralComp, SWT.BORDER | SWT.READ_ONLY);
+		wCodec.setItems(RedisOutputMeta.codecDescs);
+		props.setLook(wCodec);
+		wCodec.addModifyListener(lsMod);
+		fdCodec = new FormData();
+		fdCodec.left = new FormAttachment(middle, 0);
+		fdCodec.top = new FormAttachment(wBinaryValue, margin);
+		fdCodec.right = new FormAttachment(100, 0);
+		wCodec.setLayoutData(fdCodec);
+		fdGeneralComp = new FormData();
+		fdGeneralComp.left = new FormAttachment(0, 0);
+		fdGeneralComp.top = new FormAttachment(0, 0);
+		fdGeneralComp.right = new FormAttachment(100, 0);
+		fdGeneralComp.bottom = new FormAttachment(100, 0);
+		wGeneralComp.setLayoutData(fdGeneralComp);
+		wGeneralComp.layout();
+		wGeneralTab.setControl(wGeneralComp);
+
+		// Fields tab
+		wFieldsTab = new CTabItem(wTabFolder, SWT.NONE);
+		wFieldsTab.setText(BaseMessages.getString(PKG, "RedisOutputDialog.FieldsTab.Title"));
+		wFieldsComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wFieldsComp);
+		FormLayout fieldsLayout = new FormLayout();
+		fieldsLayout.marginWidth = 3;
+		fieldsLayout.marginHeight = 3;
+		wFieldsComp.setLayout(fieldsLayout);
+		// Command writing the values
+		wlCommand = new Label(wFieldsComp, SWT.RIGHT);
+		wlCommand.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.Command.Label"));
+		props.setLook(wlCommand);
+		fdlCommand = new FormData();
+		fdlCommand.left = new FormAttachment(0, 0);
+		fdlCommand.right = new FormAttachment(middle, -margin);
+		fdlCommand.top = new FormAttachment(0, margin);
+		wlCommand.setLayoutData(fdlCommand);
+		wCommand = new CCombo(wFieldsComp, SWT.BORDER | SWT.READ_ONLY);
+		wCommand.setItems(RedisOutputMeta.commandDescs);
+		props.setLook(wCommand);
+		wCommand.addModifyListener(lsMod);
+		fdCommand = new FormData();
+		fdCommand.left = new FormAttachment(middle, 0);
+		fdCommand.top = new FormAttachment(0, margin);
+		fdCommand.right = new FormAttachment(100, 0);
+		wCommand.setLayoutData(fdCommand);
+		wCommand.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				setWriteModeFlags();
+			}
+		});
+		// Approximate maximum length of the streams
+		wlStreamMaxLen = new Label(wFieldsComp, SWT.RIGHT);
+		wlStreamMaxLen.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.StreamMaxLen.Label"));
+		props.setLook(wlStreamMaxLen);
+		fdlStreamMaxLen = new FormData();
+		fdlStreamMaxLen.left = new FormAttachment(0, 0);
+		fdlStreamMaxLen.right = new FormAttachment(middle, -margin);
+		fdlStreamMaxLen.top = new FormAttachment(wCommand, margin);
+		wlStreamMaxLen.setLayoutData(fdlStreamMaxLen);
+		wStreamMaxLen = new TextVar(transMeta, wFieldsComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wStreamMaxLen);
+		wStreamMaxLen.addModifyListener(lsMod);
+		fdStreamMaxLen = new FormData();
+		fdStreamMaxLen.left = new FormAttachment(middle, 0);
+		fdStreamMaxLen.top = new FormAttachment(wCommand, margin);
+		fdStreamMaxLen.right = new FormAttachment(100, 0);
+		wStreamMaxLen.setLayoutData(fdStreamMaxLen);
+		// Field of the hashes incremented by HINCRBY
+		wlHashField = new Label(wFieldsComp, SWT.RIGHT);
+		wlHashField.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.HashField.Label"));
+		props.setLook(wlHashField);
+		fdlHashField = new FormData();
+		fdlHashField.left = new FormAttachment(0, 0);
+		fdlHashField.right = new FormAttachment(middle, -margin);
+		fdlHashField.top = new FormAttachment(wStreamMaxLen, margin);
+		wlHashField.setLayoutData(fdlHashField);
+		wHashField = new TextVar(transMeta, wFieldsComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wHashField);
+		wHashField.addModifyListener(lsMod);
+		fdHashField = new FormData();
+		fdHashField.left = new FormAttachment(middle, 0);
+		fdHashField.top = new FormAttachment(wStreamMaxLen, margin);
+		fdHashField.right = new FormAttachment(100, 0);
+		wHashField.setLayoutData(fdHashField);
+		// Write mode
+		wlWriteMode = new Label(wFieldsComp, SWT.RIGHT);
+		wlWriteMode.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.WriteMode.Label"));
+		props.setLook(wlWriteMode);
+		fdlWriteMode = new FormData();
+		fdlWriteMode.left = new FormAttachment(0, 0);
+		fdlWriteMode.right = new FormAttachment(middle, -margin);
+		fdlWriteMode.top = new FormAttachment(wHashField, margin);
+		wlWriteMode.setLayoutData(fdlWriteMode);
+		wWriteMode = new CCombo(wFieldsComp, SWT.BORDER | SWT.READ_ONLY);
+		wWriteMode.setItems(RedisOutputMeta.writeModeDescs);
+		props.setLook(wWriteMode);
+		wWriteMode.addModifyListener(lsMod);
+		fdWriteMode = new FormData();
+		fdWriteMode.left = new FormAttachment(middle, 0);
+		fdWriteMode.top = new FormAttachment(wHashField, margin);
+		fdWriteMode.right = new FormAttachment(100, 0);
+		wWriteMode.setLayoutData(fdWriteMode);
+		wWriteMode.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				setWriteModeFlags();
+			}
+		});
+		// Fields of the row
+		wlRowFields = new Label(wFieldsComp, SWT.NONE);
+		wlRowFields.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.RowFields.Label"));
+		props.setLook(wlRowFields);
+		fdlRowFields = new FormData();
+		fdlRowFields.left = new FormAttachment(0, 0);
+		fdlRowFields.top = new FormAttachment(wWriteMode, margin);
+		wlRowFields.setLayoutData(fdlRowFields);
+		wGetRowFields = new Button(wFieldsComp, SWT.PUSH);
+		wGetRowFields.setText(BaseMessages.getString(PKG, "RedisOutputDialog.GetFields.Button"));
+		fdGetRowFields = new FormData();
+		fdGetRowFields.left = new FormAttachment(0, 0);
+		fdGetRowFields.bottom = new FormAttachment(100, -margin);
+		wGetRowFields.setLayoutData(fdGetRowFields);
+		wGetRowFields.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				getRowFields();
+			}
+		});
+		ColumnInfo[] rowFieldColumns = new ColumnInfo[] {
+				new ColumnInfo(BaseMessages.getString(PKG, "RedisOutputDialog.RowFields.Name.Column"),
+						ColumnInfo.COLUMN_TYPE_TEXT, false),
+				new ColumnInfo(BaseMessages.getString(PKG, "RedisOutputDialog.RowFields.Entry.Column"),
+						ColumnInfo.COLUMN_TYPE_TEXT, false) };
+		wRowFields = new TableView(transMeta, wFieldsComp, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI,
+				rowFieldColumns, input.getRowFieldName().length, lsMod, props);
+		fdRowFields = new FormData();
+		fdRowFields.left = new FormAttachment(0, 0);
+		fdRowFields.top = new FormAttachment(wlRowFields, margin);
+		fdRowFields.right = new FormAttachment(100, 0);
+		fdRowFields.bottom = new FormAttachment(wGetRowFields, -margin);
+		wRowFields.setLayoutData(fdRowFields);
+		fdFieldsComp = new FormData();
+		fdFieldsComp.left = new FormAttachment(0, 0);
+		fdFieldsComp.top = new FormAttachment(0, 0);
+		fdFieldsComp.right = new FormAttachment(100, 0);
+		fdFieldsComp.bottom = new FormAttachment(100, 0);
+		wFieldsComp.setLayoutData(fdFieldsComp);
+		wFieldsComp.layout();
+		wFieldsTab.setControl(wFieldsComp);
+
+		// Expiry tab
+		wExpiryTab = new CTabItem(wTabFolder, SWT.NONE);
+		wExpiryTab.setText(BaseMessages.getString(PKG, "RedisOutputDialog.ExpiryTab.Title"));
+		wExpiryComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wExpiryComp);
+		FormLayout expiryLayout = new FormLayout();
+		expiryLayout.marginWidth = 3;
+		expiryLayout.marginHeight = 3;
+		wExpiryComp.setLayout(expiryLayout);
+		// Fixed time to live
+		wlTtl = new Label(wExpiryComp, SWT.RIGHT);
+		wlTtl.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.Ttl.Label"));
+		props.setLook(wlTtl);
+		fdlTtl = new FormData();
+		fdlTtl.left = new FormAttachment(0, 0);
+		fdlTtl.right = new FormAttachment(middle, -margin);
+		fdlTtl.top = new FormAttachment(0, margin);
+		wlTtl.setLayoutData(fdlTtl);
+		wTtl = new TextVar(transMeta, wExpiryComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wTtl);
+		wTtl.addModifyListener(lsMod);
+		fdTtl = new FormData();
+		fdTtl.left = new FormAttachment(middle, 0);
+		fdTtl.top = new FormAttachment(0, margin);
+		fdTtl.right = new FormAttachment(100, 0);
+		wTtl.setLayoutData(fdTtl);
+		// Time to live field
+		wlTtlField = new Label(wExpiryComp, SWT.RIGHT);
+		wlTtlField.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.TtlField.Label"));
+		props.setLook(wlTtlField);
+		fdlTtlField = new FormData();
+		fdlTtlField.left = new FormAttachment(0, 0);
+		fdlTtlField.right = new FormAttachment(middle, -margin);
+		fdlTtlField.top = new FormAttachment(wTtl, margin);
+		wlTtlField.setLayoutData(fdlTtlField);
+		wTtlField = new CCombo(wExpiryComp, SWT.BORDER);
+		props.setLook(wTtlField);
+		wTtlField.addModifyListener(lsMod);
+		fdTtlField = new FormData();
+		fdTtlField.left = new FormAttachment(middle, 0);
+		fdTtlField.top = new FormAttachment(wTtl, margin);
+		fdTtlField.right = new FormAttachment(100, 0);
+		wTtlField.setLayoutData(fdTtlField);
+		wTtlField.addFocusListener(new FocusListener() {
+			public void focusLost(org.eclipse.swt.events.FocusEvent e) {
+			}
+
+			public void focusGained(org.eclipse.swt.events.FocusEvent e) {
+				Cursor busy = new Cursor(shell.getDisplay(), SWT.CURSOR_WAIT);
+				shell.setCursor(busy);
+				getFieldsInto(wTtlField);
+				shell.setCursor(null);
+				busy.dispose();
+			}
+		});
+		// Unit of the time to live
+		wlTtlUnit = new Label(wExpiryComp, SWT.RIGHT);
+		wlTtlUnit.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.TtlUnit.Label"));
+		props.setLook(wlTtlUnit);
+		fdlTtlUnit = new FormData();
+		fdlTtlUnit.left = new FormAttachment(0, 0);
+		fdlTtlUnit.right = new FormAttachment(middle, -margin);
+		fdlTtlUnit.top = new FormAttachment(wTtlField, margin);
+		wlTtlUnit.setLayoutData(fdlTtlUnit);
+		wTtlUnit = new CCombo(wExpiryComp, SWT.BORDER | SWT.READ_ONLY);
+		wTtlUnit.setItems(RedisOutputMeta.ttlUnitDescs);
+		props.setLook(wTtlUnit);
+		wTtlUnit.addModifyListener(lsMod);
+		fdTtlUnit = new FormData();
+		fdTtlUnit.left = new FormAttachment(middle, 0);
+		fdTtlUnit.top = new FormAttachment(wTtlField, margin);
+		fdTtlUnit.right = new FormAttachment(100, 0);
+		wTtlUnit.setLayoutData(fdTtlUnit);
+		// Write condition
+		wlCondition = new Label(wExpiryComp, SWT.RIGHT);
+		wlCondition.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.Condition.Label"));
+		props.setLook(wlCondition);
+		fdlCondition = new FormData();
+		fdlCondition.left = new FormAttachment(0, 0);
+		fdlCondition.right = new FormAttachment(middle, -margin);
+		fdlCondition.top = new FormAttachment(wTtlUnit, margin);
+		wlCondition.setLayoutData(fdlCondition);
+		wCondition = new CCombo(wExpiryComp, SWT.BORDER | SWT.READ_ONLY);
+		wCondition.setItems(RedisOutputMeta.conditionDescs);
+		props.setLook(wCondition);
+		wCondition.addModifyListener(lsMod);
+		fdCondition = new FormData();
+		fdCondition.left = new FormAttachment(middle, 0);
+		fdCondition.top = new FormAttachment(wTtlUnit, margin);
+		fdCondition.right = new FormAttachment(100, 0);
+		wCondition.setLayoutData(fdCondition);
+		fdExpiryComp = new FormData();
+		fdExpiryComp.left = new FormAttachment(0, 0);
+		fdExpiryComp.top = new FormAttachment(0, 0);
+		fdExpiryComp.right = new FormAttachment(100, 0);
+		fdExpiryComp.bottom = new FormAttachment(100, 0);
+		wExpiryComp.setLayoutData(fdExpiryComp);
+		wExpiryComp.layout();
+		wExpiryTab.setControl(wExpiryComp);
+
+		// Pool tab
+		wPoolTab = new CTabItem(wTabFolder, SWT.NONE);
+		wPoolTab.setText(BaseMessages.getString(PKG, "RedisOutputDialog.PoolTab.Title"));
+		wPoolComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wPoolComp);
+		FormLayout poolLayout = new FormLayout();
+		poolLayout.marginWidth = 3;
+		poolLayout.marginHeight = 3;
+		wPoolComp.setLayout(poolLayout);
+		// Max total connections
+		wlPoolMaxTotal = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMaxTotal.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.PoolMaxTotal.Label"));
+		props.setLook(wlPoolMaxTotal);
+		fdlPoolMaxTotal = new FormData();
+		fdlPoolMaxTotal.left = new FormAttachment(0, 0);
+		fdlPoolMaxTotal.right = new FormAttachment(middle, -margin);
+		fdlPoolMaxTotal.top = new FormAttachment(0, margin);
+		wlPoolMaxTotal.setLayoutData(fdlPoolMaxTotal);
+		wPoolMaxTotal = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMaxTotal);
+		wPoolMaxTotal.addModifyListener(lsMod);
+		fdPoolMaxTotal = new FormData();
+		fdPoolMaxTotal.left = new FormAttachment(middle, 0);
+		fdPoolMaxTotal.top = new FormAttachment(0, margin);
+		fdPoolMaxTotal.right = new FormAttachment(100, 0);
+		wPoolMaxTotal.setLayoutData(fdPoolMaxTotal);
+		// Max idle connections
+		wlPoolMaxIdle = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMaxIdle.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.PoolMaxIdle.Label"));
+		props.setLook(wlPoolMaxIdle);
+		fdlPoolMaxIdle = new FormData();
+		fdlPoolMaxIdle.left = new FormAttachment(0, 0);
+		fdlPoolMaxIdle.right = new FormAttachment(middle, -margin);
+		fdlPoolMaxIdle.top = new FormAttachment(wPoolMaxTotal, margin);
+		wlPoolMaxIdle.setLayoutData(fdlPoolMaxIdle);
+		wPoolMaxIdle = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMaxIdle);
+		wPoolMaxIdle.addModifyListener(lsMod);
+		fdPoolMaxIdle = new FormData();
+		fdPoolMaxIdle.left = new FormAttachment(middle, 0);
+		fdPoolMaxIdle.top = new FormAttachment(wPoolMaxTotal, margin);
+		fdPoolMaxIdle.right = new FormAttachment(100, 0);
+		wPoolMaxIdle.setLayoutData(fdPoolMaxIdle);
+		// Min idle connections
+		wlPoolMinIdle = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMinIdle.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.PoolMinIdle.Label"));
+		props.setLook(wlPoolMinIdle);
+		fdlPoolMinIdle = new FormData();
+		fdlPoolMinIdle.left = new FormAttachment(0, 0);
+		fdlPoolMinIdle.right = new FormAttachment(middle, -margin);
+		fdlPoolMinIdle.top = new FormAttachment(wPoolMaxIdle, margin);
+		wlPoolMinIdle.setLayoutData(fdlPoolMinIdle);
+		wPoolMinIdle = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMinIdle);
+		wPoolMinIdle.addModifyListener(lsMod);
+		fdPoolMinIdle = new FormData();
+		fdPoolMinIdle.left = new FormAttachment(middle, 0);
+		fdPoolMinIdle.top = new FormAttachment(wPoolMaxIdle, margin);
+		fdPoolMinIdle.right = new FormAttachment(100, 0);
+		wPoolMinIdle.setLayoutData(fdPoolMinIdle);
+		// Max wait to borrow a connection
+		wlPoolMaxWait = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMaxWait.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.PoolMaxWait.Label"));
+		props.setLook(wlPoolMaxWait);
+		fdlPoolMaxWait = new FormData();
+		fdlPoolMaxWait.left = new FormAttachment(0, 0);
+		fdlPoolMaxWait.right = new FormAttachment(middle, -margin);
+		fdlPoolMaxWait.top = new FormAttachment(wPoolMinIdle, margin);
+		wlPoolMaxWait.setLayoutData(fdlPoolMaxWait);
+		wPoolMaxWait = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMaxWait);
+		wPoolMaxWait.addModifyListener(lsMod);
+		fdPoolMaxWait = new FormData();
+		fdPoolMaxWait.left = new FormAttachment(middle, 0);
+		fdPoolMaxWait.top = new FormAttachment(wPoolMinIdle, margin);
+		fdPoolMaxWait.right = new FormAttachment(100, 0);
+		wPoolMaxWait.setLayoutData(fdPoolMaxWait);
+		// Connect timeout
+		wlConnectTimeout = new Label(wPoolComp, SWT.RIGHT);
+		wlConnectTimeout.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.ConnectTimeout.Label"));
+		props.setLook(wlConnectTimeout);
+		fdlConnectTimeout = new FormData();
+		fdlConnectTimeout.left = new FormAttachment(0, 0);
+		fdlConnectTimeout.right = new FormAttachment(middle, -margin);
+		fdlConnectTimeout.top = new FormAttachment(wPoolMaxWait, margin);
+		wlConnectTimeout.setLayoutData(fdlConnectTimeout);
+		wConnectTimeout = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wConnectTimeout);
+		wConnectTimeout.addModifyListener(lsMod);
+		fdConnectTimeout = new FormData();
+		fdConnectTimeout.left = new FormAttachment(middle, 0);
+		fdConnectTimeout.top = new FormAttachment(wPoolMaxWait, margin);
+		fdConnectTimeout.right = new FormAttachment(100, 0);
+		wConnectTimeout.setLayoutData(fdConnectTimeout);
+		// Socket timeout
+		wlSocketTimeout = new Label(wPoolComp, SWT.RIGHT);
+		wlSocketTimeout.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.SocketTimeout.Label"));
+		props.setLook(wlSocketTimeout);
+		fdlSocketTimeout = new FormData();
+		fdlSocketTimeout.left = new FormAttachment(0, 0);
+		fdlSocketTimeout.right = new FormAttachment(middle, -margin);
+		fdlSocketTimeout.top = new FormAttachment(wConnectTimeout, margin);
+		wlSocketTimeout.setLayoutData(fdlSocketTimeout);
+		wSocketTimeout = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wSocketTimeout);
+		wSocketTimeout.addModifyListener(lsMod);
+		fdSocketTimeout = new FormData();
+		fdSocketTimeout.left = new FormAttachment(middle, 0);
+		fdSocketTimeout.top = new FormAttachment(wConnectTimeout, margin);
+		fdSocketTimeout.right = new FormAttachment(100, 0);
+		wSocketTimeout.setLayoutData(fdSocketTimeout);
+		// Test on borrow
+		wlTestOnBorrow = new Label(wPoolComp, SWT.RIGHT);
+		wlTestOnBorrow.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.TestOnBorrow.Label"));
+		props.setLook(wlTestOnBorrow);
+		fdlTestOnBorrow = new FormData();
+		fdlTestOnBorrow.left = new FormAttachment(0, 0);
+		fdlTestOnBorrow.right = new FormAttachment(middle, -margin);
+		fdlTestOnBorrow.top = new FormAttachment(wSocketTimeout, margin);
+		wlTestOnBorrow.setLayoutData(fdlTestOnBorrow);
+		wTestOnBorrow = new Button(wPoolComp, SWT.CHECK);
+		props.setLook(wTestOnBorrow);
+		fdTestOnBorrow = new FormData();
+		fdTestOnBorrow.left = new FormAttachment(middle, 0);
+		fdTestOnBorrow.top = new FormAttachment(wSocketTimeout, margin);
+		fdTestOnBorrow.right = new FormAttachment(100, 0);
+		wTestOnBorrow.setLayoutData(fdTestOnBorrow);
+		wTestOnBorrow.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		// Cluster mode, the hostname is a seed node of the cluster
+		wlClusterMode = new Label(wPoolComp, SWT.RIGHT);
+		wlClusterMode.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.ClusterMode.Label"));
+		props.setLook(wlClusterMode);
+		fdlClusterMode = new FormData();
+		fdlClusterMode.left = new FormAttachment(0, 0);
+		fdlClusterMode.right = new FormAttachment(middle, -margin);
+		fdlClusterMode.top = new FormAttachment(wTestOnBorrow, margin);
+		wlClusterMode.setLayoutData(fdlClusterMode);
+		wClusterMode = new Button(wPoolComp, SWT.CHECK);
+		props.setLook(wClusterMode);
+		fdClusterMode = new FormData();
+		fdClusterMode.left = new FormAttachment(middle, 0);
+		fdClusterMode.top = new FormAttachment(wTestOnBorrow, margin);
+		fdClusterMode.right = new FormAttachment(100, 0);
+		wClusterMode.setLayoutData(fdClusterMode);
+		wClusterMode.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		// Number of connections of a batch write
+		wlConnections = new Label(wPoolComp, SWT.RIGHT);
+		wlConnections.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.Connections.Label"));
+		props.setLook(wlConnections);
+		fdlConnections = new FormData();
+		fdlConnections.left = new FormAttachment(0, 0);
+		fdlConnections.right = new FormAttachment(middle, -margin);
+		fdlConnections.top = new FormAttachment(wClusterMode, margin);
+		wlConnections.setLayoutData(fdlConnections);
+		wConnections = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wConnections);
+		wConnections.addModifyListener(lsMod);
+		fdConnections = new FormData();
+		fdConnections.left = new FormAttachment(middle, 0);
+		fdConnections.top = new FormAttachment(wClusterMode, margin);
+		fdConnections.right = new FormAttachment(100, 0);
+		wConnections.setLayoutData(fdConnections);
+		// Batches in MULTI / EXEC transactions
+		wlTransactional = new Label(wPoolComp, SWT.RIGHT);
+		wlTransactional.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.Transactional.Label"));
+		props.setLook(wlTransactional);
+		fdlTransactional = new FormData();
+		fdlTransactional.left = new FormAttachment(0, 0);
+		fdlTransactional.right = new FormAttachment(middle, -margin);
+		fdlTransactional.top = new FormAttachment(wConnections, margin);
+		wlTransactional.setLayoutData(fdlTransactional);
+		wTransactional = new Button(wPoolComp, SWT.CHECK);
+		props.setLook(wTransactional);
+		fdTransactional = new FormData();
+		fdTransactional.left = new FormAttachment(middle, 0);
+		fdTransactional.top = new FormAttachment(wConnections, margin);
+		fdTransactional.right = new FormAttachment(100, 0);
+		wTransactional.setLayoutData(fdTransactional);
+		wTransactional.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		// Retries of a failed batch
+		wlRetries = new Label(wPoolComp, SWT.RIGHT);
+		wlRetries.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.Retries.Label"));
+		props.setLook(wlRetries);
+		fdlRetries = new FormData();
+		fdlRetries.left = new FormAttachment(0, 0);
+		fdlRetries.right = new FormAttachment(middle, -margin);
+		fdlRetries.top = new FormAttachment(wTransactional, margin);
+		wlRetries.setLayoutData(fdlRetries);
+		wRetries = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wRetries);
+		wRetries.addModifyListener(lsMod);
+		fdRetries = new FormData();
+		fdRetries.left = new FormAttachment(middle, 0);
+		fdRetries.top = new FormAttachment(wTransactional, margin);
+		fdRetries.right = new FormAttachment(100, 0);
+		wRetries.setLayoutData(fdRetries);
+		// Delay before the first retry
+		wlRetryDelay = new Label(wPoolComp, SWT.RIGHT);
+		wlRetryDelay.setText(BaseMessages.getString(PKG,
+				"RedisOutputDialog.RetryDelay.Label"));
+		props.setLook(wlRetryDelay);
+		fdlRetryDelay = new FormData();
+		fdlRetryDelay.left = new FormAttachment(0, 0);
+		fdlRetryDelay.right = new FormAttachment(middle, -margin);
+		fdlRetryDelay.top = new FormAttachment(wRetries, margin);
+		wlRetryDelay.setLayoutData(fdlRetryDelay);
+		wRetryDelay = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wRetryDelay);
+		wRetryDelay.addModifyListener(lsMod);
+		fdRetryDelay = new FormData();
+		fdRetryDelay.left = new FormAttachment(middle, 0);
+		fdRetryDelay.top = new FormAttachment(wRetries, margin);
+		fdRetryDelay.right = new FormAttachment(100, 0);
+		wRetryDelay.setLayoutData(fdRetryDelay);
+		fdPoolComp = new FormData();
+		fdPoolComp.left = new FormAttachment(0, 0);
+		fdPoolComp.top = new FormAttachment(0, 0);
+		fdPoolComp.right = new FormAttachment(100, 0);
+		fdPoolComp.bottom = new FormAttachment(100, 0);
+		wPoolComp.setLayoutData(fdPoolComp);
+		wPoolComp.layout();
+		wPoolTab.setControl(wPoolComp);
+
+		fdTabFolder = new FormData();
+		fdTabFolder.left = new FormAttachment(0, 0);
+		fdTabFolder.top = new FormAttachment(wStepname, margin);
+		fdTabFolder.right = new FormAttachment(100, 0);
+		fdTabFolder.bottom = new FormAttachment(100, -50);
+		wTabFolder.setLayoutData(fdTabFolder);
+		wTabFolder.setSelection(0);
 
 		// Some buttons
 		wOK = new Button(shell, SWT.PUSH);
 		wOK.setText(BaseMessages.getString(PKG, "System.Button.OK"));
 		wCancel = new Button(shell, SWT.PUSH);
 		wCancel.setText(BaseMessages.getString(PKG, "System.Button.Cancel"));
-		setButtonPositions(new Button[] { wOK, wCancel }, margin, wValueFieldCombo);
+		setButtonPositions(new Button[] { wOK, wCancel }, margin, wTabFolder);
 		// Add listeners
 		lsCancel = new Listener() {
 			public void handleEvent(Event e) {
@@ -444,6 +1257,10 @@ public class RedisOutputDialog extends BaseStepDialog implements
 			wPort.setText(input.getPort());
 		}
 		
+		if (!Const.isEmpty(input.getPassword())) {
+			wPassword.setText(input.getPassword());
+		}
+		
 		if (!Const.isEmpty(input.getBase())) {
 			wBase.setText(input.getBase());
 		}
@@ -452,6 +1269,62 @@ public class RedisOutputDialog extends BaseStepDialog implements
 			wPipelineSize.setText(input.getPipelineSize());
 		}
 		
+		if (!Const.isEmpty(input.getPipelineBytes())) {
+			wPipelineBytes.setText(input.getPipelineBytes());
+		}
+		
+		if (!Const.isEmpty(input.getPipelineLatency())) {
+			wPipelineLatency.setText(input.getPipelineLatency());
+		}
+		
+		wCoalesceWrites.setSelection(input.isCoalesceWrites());
+		if (!Const.isEmpty(input.getFlushInterval())) {
+			wFlushInterval.setText(input.getFlushInterval());
+		}
+		
+		wAsyncWrite.setSelection(input.isAsyncWrite());
+		if (!Const.isEmpty(input.getAsyncQueueSize())) {
+			wAsyncQueueSize.setText(input.getAsyncQueueSize());
+		}
+		wAsyncQueueSize.setEnabled(input.isAsyncWrite());
+		
+		if (!Const.isEmpty(input.getPoolMaxTotal())) {
+			wPoolMaxTotal.setText(input.getPoolMaxTotal());
+		}
+		
+		if (!Const.isEmpty(input.getPoolMaxIdle())) {
+			wPoolMaxIdle.setText(input.getPoolMaxIdle());
+		}
+		
+		if (!Const.isEmpty(input.getPoolMinIdle())) {
+			wPoolMinIdle.setText(input.getPoolMinIdle());
+		}
+		
+		if (!Const.isEmpty(input.getPoolMaxWait())) {
+			wPoolMaxWait.setText(input.getPoolMaxWait());
+		}
+		
+		if (!Const.isEmpty(input.getConnectTimeout())) {
+			wConnectTimeout.setText(input.getConnectTimeout());
+		}
+		
+		if (!Const.isEmpty(input.getSocketTimeout())) {
+			wSocketTimeout.setText(input.getSocketTimeout());
+		}
+		
+		wTestOnBorrow.setSelection(input.isTestOnBorrow());
+		wClusterMode.setSelection(input.isClusterMode());
+		if (!Const.isEmpty(input.getConnections())) {
+			wConnections.setText(input.getConnections());
+		}
+		wTransactional.setSelection(input.isTransactional());
+		if (!Const.isEmpty(input.getRetries())) {
+			wRetries.setText(input.getRetries());
+		}
+		if (!Const.isEmpty(input.getRetryDelay())) {
+			wRetryDelay.setText(input.getRetryDelay());
+		}
+		
 		if (!Const.isEmpty(input.getKey())) {
 			wKey.setText(input.getKey());
 		}
@@ -471,6 +1344,9 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		if (!Const.isEmpty(input.getValueFieldCombo())) {
 			wValueFieldCombo.setText(input.getValueFieldCombo());
 		}
+		
+		wBinaryValue.setSelection(input.isBinaryValue());
+		wCodec.setText(RedisOutputMeta.getCodecDesc(input.getCodec()));
 
 		if(input.getKeyFieldCheck())
 			wKey.setEnabled(false);
@@ -482,10 +1358,101 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		else
 			wValueFieldCombo.setEnabled(false);
 		
+		wCommand.setText(RedisOutputMeta.getCommandDesc(input.getCommand()));
+		if (!Const.isEmpty(input.getStreamMaxLen())) {
+			wStreamMaxLen.setText(input.getStreamMaxLen());
+		}
+		if (!Const.isEmpty(input.getHashField())) {
+			wHashField.setText(input.getHashField());
+		}
+		wWriteMode.setText(RedisOutputMeta.getWriteModeDesc(input.getWriteMode()));
+		for (int i = 0; i < input.getRowFieldName().length; i++) {
+			TableItem item = wRowFields.table.getItem(i);
+			item.setText(1, Const.NVL(input.getRowFieldName()[i], ""));
+			item.setText(2, Const.NVL(input.getRowFieldEntry()[i], ""));
+		}
+		wRowFields.setRowNums();
+		wRowFields.optWidth(true);
+		setWriteModeFlags();
+		
+		if(input.getTtl()!=null)
+			wTtl.setText(input.getTtl());
+		if(input.getTtlField()!=null)
+			wTtlField.setText(input.getTtlField());
+		wTtlUnit.setText(RedisOutputMeta.getTtlUnitDesc(input.getTtlUnit()));
+		wCondition.setText(RedisOutputMeta.getConditionDesc(input.getCondition()));
+		
 		wStepname.selectAll();
 		wStepname.setFocus();
 	}
 
+	/**
+	 * The value settings are only used in the string mode, the fields of the row in the hash and JSON modes,
+	 * and the hash fields are never compressed. The maximum length is only used by the streams,
+	 * the hash field by HINCRBY, the expiry and the condition only by SET.
+	 */
+	private void setWriteModeFlags() {
+		String command = RedisOutputMeta.getCommandCode(wCommand.getText());
+		wlStreamMaxLen.setEnabled(RedisWriter.COMMAND_XADD.equals(command));
+		wStreamMaxLen.setEnabled(RedisWriter.COMMAND_XADD.equals(command));
+		wlHashField.setEnabled(RedisWriter.COMMAND_HINCRBY.equals(command));
+		wHashField.setEnabled(RedisWriter.COMMAND_HINCRBY.equals(command));
+		boolean set = RedisWriter.COMMAND_SET.equals(command);
+		wlTtl.setEnabled(set);
+		wTtl.setEnabled(set);
+		wlTtlField.setEnabled(set);
+		wTtlField.setEnabled(set);
+		wlTtlUnit.setEnabled(set);
+		wTtlUnit.setEnabled(set);
+		wlCondition.setEnabled(set);
+		wCondition.setEnabled(set);
+		String writeMode = RedisOutputMeta.getWriteModeCode(wWriteMode.getText());
+		boolean string = RedisOutputMeta.WRITE_MODE_STRING.equals(writeMode);
+		boolean hash = RedisOutputMeta.WRITE_MODE_HASH.equals(writeMode);
+		wlValue.setEnabled(string);
+		wValue.setEnabled(string && !wValueFieldCheck.getSelection());
+		wlValueFieldCheck.setEnabled(string);
+		wValueFieldCheck.setEnabled(string);
+		wlValueFieldCombo.setEnabled(string);
+		wValueFieldCombo.setEnabled(string && wValueFieldCheck.getSelection());
+		wlBinaryValue.setEnabled(string);
+		wBinaryValue.setEnabled(string);
+		wlCodec.setEnabled(!hash);
+		wCodec.setEnabled(!hash);
+		wlRowFields.setEnabled(!string);
+		wRowFields.setEnabled(!string);
+		wGetRowFields.setEnabled(!string);
+	}
+
+	/**
+	 * Fills the row fields with all the fields of the previous steps
+	 */
+	private void getRowFields() {
+		try {
+			RowMetaInterface fields = transMeta.getPrevStepFields(stepname);
+			if (fields != null) {
+				wRowFields.table.removeAll();
+				for (String name : fields.getFieldNames()) {
+					TableItem item = new TableItem(wRowFields.table, SWT.NONE);
+					item.setText(1, name);
+				}
+				wRowFields.removeEmptyRows();
+				wRowFields.setRowNums();
+				wRowFields.optWidth(true);
+				input.setChanged();
+			}
+		} catch (KettleException ke) {
+			new ErrorDialog(
+					shell,
+					BaseMessages.getString(PKG,
+							"RedisOutputDialog.FailedToGetFields.DialogTitle"),
+					BaseMessages
+							.getString(PKG,
+									"RedisOutputDialog.FailedToGetFields.DialogMessage"),
+					ke);
+		}
+	}
+
 	private void cancel() {
 		stepname = null;
 		input.setChanged(changed);
@@ -498,18 +1465,54 @@ public class RedisOutputDialog extends BaseStepDialog implements
 		stepname = wStepname.getText(); // return value
 		input.setHostname(wHostname.getText());
 		input.setPort(wPort.getText());
+		input.setPassword(wPassword.getText());
 		input.setBase(wBase.getText());
 		if(wPipelineSize.getText()!=null && !wPipelineSize.getText().equals(""))
 			input.setPipelineSize(wPipelineSize.getText());
 		else
 			input.setPipelineSize("1");
+		input.setPipelineBytes(wPipelineBytes.getText());
+		input.setPipelineLatency(wPipelineLatency.getText());
+		input.setCoalesceWrites(wCoalesceWrites.getSelection());
+		input.setFlushInterval(wFlushInterval.getText());
+		input.setAsyncWrite(wAsyncWrite.getSelection());
+		input.setAsyncQueueSize(wAsyncQueueSize.getText());
 
+		input.setPoolMaxTotal(wPoolMaxTotal.getText());
+		input.setPoolMaxIdle(wPoolMaxIdle.getText());
+		input.setPoolMinIdle(wPoolMinIdle.getText());
+		input.setPoolMaxWait(wPoolMaxWait.getText());
+		input.setConnectTimeout(wConnectTimeout.getText());
+		input.setSocketTimeout(wSocketTimeout.getText());
+		input.setTestOnBorrow(wTestOnBorrow.getSelection());
+		input.setClusterMode(wClusterMode.getSelection());
+		input.setConnections(wConnections.getText());
+		input.setTransactional(wTransactional.getSelection());
+		input.setRetries(wRetries.getText());
+		input.setRetryDelay(wRetryDelay.getText());
 		input.setKey(wKey.getText());
 		input.setKeyFieldCheck(wKeyFieldCheck.getSelection());
 		input.setKeyFieldCombo(wKeyFieldCombo.getText());
 		input.setValue(wValue.getText());
 		input.setValueFieldCheck(wValueFieldCheck.getSelection());
 		input.setValueFieldCombo(wValueFieldCombo.getText());
+		input.setBinaryValue(wBinaryValue.getSelection());
+		input.setCodec(RedisOutputMeta.getCodecCode(wCodec.getText()));
+		input.setCommand(RedisOutputMeta.getCommandCode(wCommand.getText()));
+		input.setStreamMaxLen(wStreamMaxLen.getText());
+		input.setHashField(wHashField.getText());
+		input.setWriteMode(RedisOutputMeta.getWriteModeCode(wWriteMode.getText()));
+		int nrRowFields = wRowFields.nrNonEmpty();
+		input.allocate(nrRowFields);
+		for (int i = 0; i < nrRowFields; i++) {
+			TableItem item = wRowFields.getNonEmpty(i);
+			input.getRowFieldName()[i] = item.getText(1);
+			input.getRowFieldEntry()[i] = item.getText(2);
+		}
+		input.setTtl(wTtl.getText());
+		input.setTtlField(wTtlField.getText());
+		input.setTtlUnit(RedisOutputMeta.getTtlUnitCode(wTtlUnit.getText()));
+		input.setCondition(RedisOutputMeta.getConditionCode(wCondition.getText()));
 		dispose();
 	}
 
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisOutput;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes the batches of a Redis Output step copy in a background thread, while the step fills the next one.
+ * 
+ * The full batches wait in a bounded queue, and the step takes an empty batch back for each full one it
+ * gives : when the writes are slower than the rows, the step waits for a batch to be written (backpressure),
+ * and the memory used stays bounded to the queue size plus two batches. The batches come back to the step
+ * written, in their order, so that it passes their rows on. The first write error is kept and thrown back
+ * to the step at its next batch, or at the end ; the batches given after it are dropped.
+ *
+ */
+public class RedisOutputFlusher implements Runnable {
+
+	/**
+	 * Writes one batch, in the writer thread
+	 */
+	public interface BatchWriter {
+		void write(RedisOutputBatch batch) throws Exception;
+	}
+
+	/**
+	 * Marks the end of the batches
+	 */
+	private static final RedisOutputBatch END = new RedisOutputBatch(1);
+
+	private final BatchWriter writer;
+	private final BlockingQueue<RedisOutputBatch> pending;
+	private final BlockingQueue<RedisOutputBatch> free;
+	private volatile Exception error = null;
+	private Thread thread;
+
+	/**
+	 * @param writer		writes the batches
+	 * @param queueSize		the number of full batches that can wait for their write
+	 * @param capacity		the initial capacity of the batches
+	 */
+	public RedisOutputFlusher(BatchWriter writer, int queueSize, int capacity) {
+		this.writer = writer;
+		// The queued batches, the one being written and the one being filled
+		int buffers = Math.max(1, queueSize) + 2;
+		pending = new ArrayBlockingQueue<RedisOutputBatch>(buffers + 1);
+		free = new ArrayBlockingQueue<RedisOutputBatch>(buffers);
+		for (int i = 0; i < buffers; i++)
+			free.add(new RedisOutputBatch(capacity));
+	}
+
+	/**
+	 * Starts the writer thread, and returns the first batch to fill
+	 */
+	public RedisOutputBatch start(String name) {
+		thread = new Thread(this, name);
+		thread.setDaemon(true);
+		thread.start();
+		return free.remove();
+	}
+
+	/**
+	 * Queues a full batch for its write
+	 * 
+	 * @return a batch to fill once one is available, to be cleared after its rows written before are passed on
+	 * @throws Exception the error of a previous write
+	 */
+	public RedisOutputBatch submit(RedisOutputBatch batch) throws Exception {
+		checkError();
+		pending.put(batch);
+		RedisOutputBatch next = free.take();
+		checkError();
+		return next;
+	}
+	
+	/**
+	 * @return a written batch not taken back yet once the writer thread is finished, null when there are no more
+	 */
+	public RedisOutputBatch poll() {
+		return free.poll();
+	}
+
+	/**
+	 * Waits for the queued batches to be written
+	 * 
+	 * @throws Exception the error of a write
+	 */
+	public void finish() throws Exception {
+		if (thread == null)
+			return;
+		pending.put(END);
+		thread.join();
+		thread = null;
+		checkError();
+	}
+
+	/**
+	 * Stops the writer thread without writing the queued batches, when the step is stopped
+	 */
+	public void stop() {
+		if (thread == null)
+			return;
+		pending.clear();
+		pending.offer(END);
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		thread = null;
+	}
+
+	private void checkError() throws Exception {
+		if (error != null)
+			throw error;
+	}
+
+	public void run() {
+		try {
+			while (true) {
+				RedisOutputBatch batch = pending.take();
+				if (batch == END)
+					break;
+				if (error == null) {
+					try {
+						writer.write(batch);
+					} catch (Exception e) {
+						error = e;
+					}
+				}
+				if (error != null)
+					batch.clear();
+				free.put(batch);
+			}
+		} catch (InterruptedException e) {
+			if (error == null)
+				error = e;
+		}
+	}
+}
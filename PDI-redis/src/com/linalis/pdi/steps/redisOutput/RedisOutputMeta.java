@@ -25,8 +25,10 @@ import java.util.List;
 
 import org.pentaho.di.core.CheckResult;
 import org.pentaho.di.core.CheckResultInterface;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.annotations.Step;
 import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.encryption.Encr;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleXMLException;
@@ -46,6 +48,10 @@ import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.metastore.api.IMetaStore;
 import org.w3c.dom.Node;
 
+import com.linalis.pdi.steps.redis.RedisConnectionMeta;
+import com.linalis.pdi.steps.redis.RedisValueCodec;
+import com.linalis.pdi.steps.redis.RedisWriter;
+
 /**
  * The Redis Output step writes value objects, for the given key names, to
  * Redis server(s).
@@ -53,22 +59,120 @@ import org.w3c.dom.Node;
  */
 @Step(id = "RedisOutput", image = "img/redis-input.png", name = "Redis Output", description = "Writes to a Redis instance", categoryDescription = "Output")
 public class RedisOutputMeta extends BaseStepMeta implements
-		StepMetaInterface {
+		StepMetaInterface, RedisConnectionMeta {
 	private static Class<?> PKG = RedisOutputMeta.class; // for i18n
 																// purposes,
 																// needed by
 																// Translator2!!
 																// $NON-NLS-1$
+
+	/**
+	 * Compression of the values, see RedisValueCodec
+	 */
+	public static final String[] codecDescs = {
+			BaseMessages.getString(PKG, "RedisOutputMeta.Codec.None"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Codec.Gzip"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Codec.Deflate") };
+
+	/**
+	 * Write modes : one string value per key, or the selected fields of the row,
+	 * as the fields of a hash (HMSET) or packed in one JSON string value
+	 */
+	public static final String WRITE_MODE_STRING = "string";
+	public static final String WRITE_MODE_HASH = "hash";
+	public static final String WRITE_MODE_JSON = "json";
+	public static final String[] writeModeCodes = { WRITE_MODE_STRING, WRITE_MODE_HASH, WRITE_MODE_JSON };
+	public static final String[] writeModeDescs = {
+			BaseMessages.getString(PKG, "RedisOutputMeta.WriteMode.String"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.WriteMode.Hash"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.WriteMode.Json") };
+
+	/**
+	 * Commands writing the values, see RedisWriter
+	 */
+	public static final String[] commandDescs = {
+			BaseMessages.getString(PKG, "RedisOutputMeta.Command.Set"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Command.Xadd"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Command.Lpush"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Command.Publish"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Command.Incrby"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Command.Incrbyfloat"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Command.Hincrby") };
+
+	/**
+	 * Number of full batches waiting for the writer thread, in the asynchronous mode
+	 */
+	public static final int DEFAULT_ASYNC_QUEUE_SIZE = 2;
+	
+	/**
+	 * Number of times a failed batch is sent again, and delay before the first retry in milliseconds,
+	 * doubled at each retry
+	 */
+	public static final int DEFAULT_RETRIES = 3;
+	public static final long DEFAULT_RETRY_DELAY = 100;
+	
+	/**
+	 * Units of the time to live of the keys
+	 */
+	public static final String TTL_UNIT_SECONDS = "s";
+	public static final String TTL_UNIT_MILLISECONDS = "ms";
+	public static final String[] ttlUnitCodes = { TTL_UNIT_SECONDS, TTL_UNIT_MILLISECONDS };
+	public static final String[] ttlUnitDescs = {
+			BaseMessages.getString(PKG, "RedisOutputMeta.TtlUnit.Seconds"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.TtlUnit.Milliseconds") };
+
+	/**
+	 * Conditions of the writes, see RedisWriter
+	 */
+	public static final String[] conditionDescs = {
+			BaseMessages.getString(PKG, "RedisOutputMeta.Condition.None"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Condition.Nx"),
+			BaseMessages.getString(PKG, "RedisOutputMeta.Condition.Xx") };
+
 	private String hostname;
 	private String port;
+	private String password;
 	private String base;
 	private String pipelineSize  ="1";
+	private String pipelineBytes;
+	private String pipelineLatency;
+	private boolean coalesceWrites = false;
+	private String flushInterval;
+	private boolean asyncWrite = false;
+	private String asyncQueueSize = String.valueOf(DEFAULT_ASYNC_QUEUE_SIZE);
+	private String poolMaxTotal = "8";
+	private String poolMaxIdle = "8";
+	private String poolMinIdle = "0";
+	private String poolMaxWait = "-1";
+	private String connectTimeout = "2000";
+	private String socketTimeout = "2000";
+	private boolean testOnBorrow = false;
+	private boolean clusterMode = false;
+	private String connections = "1";
+	private boolean transactional = false;
+	private String retries = String.valueOf(DEFAULT_RETRIES);
+	private String retryDelay = String.valueOf(DEFAULT_RETRY_DELAY);
 	private String key;
 	private boolean keyFieldCheck = false;
 	private String keyFieldCombo;
 	private String value;
 	private boolean valueFieldCheck = false;
 	private String valueFieldCombo;
+	private boolean binaryValue = false;
+	private String codec = RedisValueCodec.CODEC_NONE;
+	private String writeMode = WRITE_MODE_STRING;
+	private String command = RedisWriter.COMMAND_SET;
+	private String streamMaxLen;
+	private String hashField;
+	private String ttl;
+	private String ttlField;
+	private String ttlUnit = TTL_UNIT_SECONDS;
+	private String condition = RedisWriter.CONDITION_NONE;
+	/**
+	 * Fields of the row written in the hash or JSON modes, and the name of their entry, the field name when empty
+	 */
+	private String[] rowFieldName = new String[0];
+	private String[] rowFieldEntry = new String[0];
 
 	public RedisOutputMeta() {
 		super(); // allocate BaseStepMeta
@@ -83,27 +187,90 @@ public class RedisOutputMeta extends BaseStepMeta implements
 		RedisOutputMeta retval = (RedisOutputMeta) super.clone();
 		retval.setHostname(this.hostname);
 		retval.setPort(this.port);
+		retval.setPassword(this.password);
 		retval.setBase(this.base);
+		retval.setPipelineSize(this.pipelineSize);
+		retval.setPipelineBytes(this.pipelineBytes);
+		retval.setPipelineLatency(this.pipelineLatency);
+		retval.setCoalesceWrites(this.coalesceWrites);
+		retval.setFlushInterval(this.flushInterval);
+		retval.setAsyncWrite(this.asyncWrite);
+		retval.setAsyncQueueSize(this.asyncQueueSize);
+		retval.setPoolMaxTotal(this.poolMaxTotal);
+		retval.setPoolMaxIdle(this.poolMaxIdle);
+		retval.setPoolMinIdle(this.poolMinIdle);
+		retval.setPoolMaxWait(this.poolMaxWait);
+		retval.setConnectTimeout(this.connectTimeout);
+		retval.setSocketTimeout(this.socketTimeout);
+		retval.setTestOnBorrow(this.testOnBorrow);
+		retval.setClusterMode(this.clusterMode);
+		retval.setConnections(this.connections);
+		retval.setTransactional(this.transactional);
+		retval.setRetries(this.retries);
+		retval.setRetryDelay(this.retryDelay);
 		retval.setKey(this.key);
 		retval.setKeyFieldCheck(this.keyFieldCheck);
 		retval.setKeyFieldCombo(this.keyFieldCombo);
 		retval.setValue(this.value);
 		retval.setValueFieldCheck(this.valueFieldCheck);
 		retval.setValueFieldCombo(this.valueFieldCombo);
+		retval.setBinaryValue(this.binaryValue);
+		retval.setCodec(this.codec);
+		retval.setWriteMode(this.writeMode);
+		retval.setCommand(this.command);
+		retval.setStreamMaxLen(this.streamMaxLen);
+		retval.setHashField(this.hashField);
+		retval.setTtl(this.ttl);
+		retval.setTtlField(this.ttlField);
+		retval.setTtlUnit(this.ttlUnit);
+		retval.setCondition(this.condition);
+		retval.allocate(this.rowFieldName.length);
+		System.arraycopy(this.rowFieldName, 0, retval.rowFieldName, 0, this.rowFieldName.length);
+		System.arraycopy(this.rowFieldEntry, 0, retval.rowFieldEntry, 0, this.rowFieldEntry.length);
 		return retval;
 	}
 
 	public void setDefault() {
 		this.hostname = null;
 		this.port = null;
+		this.password = null;
 		this.base = null;
 		this.pipelineSize = "1";
+		this.pipelineBytes = null;
+		this.pipelineLatency = null;
+		this.coalesceWrites = false;
+		this.flushInterval = null;
+		this.asyncWrite = false;
+		this.asyncQueueSize = String.valueOf(DEFAULT_ASYNC_QUEUE_SIZE);
+		this.poolMaxTotal = "8";
+		this.poolMaxIdle = "8";
+		this.poolMinIdle = "0";
+		this.poolMaxWait = "-1";
+		this.connectTimeout = "2000";
+		this.socketTimeout = "2000";
+		this.testOnBorrow = false;
+		this.clusterMode = false;
+		this.connections = "1";
+		this.transactional = false;
+		this.retries = String.valueOf(DEFAULT_RETRIES);
+		this.retryDelay = String.valueOf(DEFAULT_RETRY_DELAY);
 		this.key = null;
 		this.keyFieldCheck = false;
 		this.keyFieldCombo = null;
 		this.value = null;
 		this.valueFieldCheck = false;
 		this.valueFieldCombo = null;
+		this.binaryValue = false;
+		this.codec = RedisValueCodec.CODEC_NONE;
+		this.writeMode = WRITE_MODE_STRING;
+		this.command = RedisWriter.COMMAND_SET;
+		this.streamMaxLen = null;
+		this.hashField = null;
+		this.ttl = null;
+		this.ttlField = null;
+		this.ttlUnit = TTL_UNIT_SECONDS;
+		this.condition = RedisWriter.CONDITION_NONE;
+		allocate(0);
 		
 	}
 
@@ -165,6 +332,14 @@ public class RedisOutputMeta extends BaseStepMeta implements
 		return new RedisOutputData();
 	}
 	
+	/**
+	 * The rows whose write fails can be sent to an error hop
+	 */
+	@Override
+	public boolean supportsErrorHandling() {
+		return true;
+	}
+	
 	public String getHostname()
 	{
 		return hostname;
@@ -185,6 +360,16 @@ public class RedisOutputMeta extends BaseStepMeta implements
 		this.port=port;
 	}
 	
+	public String getPassword()
+	{
+		return password;
+	}
+	
+	public void setPassword(String password)
+	{
+		this.password=password;
+	}
+	
 	public String getBase()
 	{
 		return base;
@@ -205,6 +390,186 @@ public class RedisOutputMeta extends BaseStepMeta implements
 		this.pipelineSize=pipelineSize;
 	}
 	
+	public String getPipelineBytes()
+	{
+		return pipelineBytes;
+	}
+	
+	public void setPipelineBytes(String pipelineBytes)
+	{
+		this.pipelineBytes=pipelineBytes;
+	}
+	
+	public String getPipelineLatency()
+	{
+		return pipelineLatency;
+	}
+	
+	public void setPipelineLatency(String pipelineLatency)
+	{
+		this.pipelineLatency=pipelineLatency;
+	}
+	
+	public boolean isCoalesceWrites()
+	{
+		return coalesceWrites;
+	}
+	
+	public void setCoalesceWrites(boolean coalesceWrites)
+	{
+		this.coalesceWrites=coalesceWrites;
+	}
+	
+	public String getFlushInterval()
+	{
+		return flushInterval;
+	}
+	
+	public void setFlushInterval(String flushInterval)
+	{
+		this.flushInterval=flushInterval;
+	}
+	
+	public boolean isAsyncWrite()
+	{
+		return asyncWrite;
+	}
+	
+	public void setAsyncWrite(boolean asyncWrite)
+	{
+		this.asyncWrite=asyncWrite;
+	}
+	
+	public String getAsyncQueueSize()
+	{
+		return asyncQueueSize;
+	}
+	
+	public void setAsyncQueueSize(String asyncQueueSize)
+	{
+		this.asyncQueueSize=asyncQueueSize;
+	}
+	
+	public String getPoolMaxTotal()
+	{
+		return poolMaxTotal;
+	}
+	
+	public void setPoolMaxTotal(String poolMaxTotal)
+	{
+		this.poolMaxTotal=poolMaxTotal;
+	}
+	
+	public String getPoolMaxIdle()
+	{
+		return poolMaxIdle;
+	}
+	
+	public void setPoolMaxIdle(String poolMaxIdle)
+	{
+		this.poolMaxIdle=poolMaxIdle;
+	}
+	
+	public String getPoolMinIdle()
+	{
+		return poolMinIdle;
+	}
+	
+	public void setPoolMinIdle(String poolMinIdle)
+	{
+		this.poolMinIdle=poolMinIdle;
+	}
+	
+	public String getPoolMaxWait()
+	{
+		return poolMaxWait;
+	}
+	
+	public void setPoolMaxWait(String poolMaxWait)
+	{
+		this.poolMaxWait=poolMaxWait;
+	}
+	
+	public String getConnectTimeout()
+	{
+		return connectTimeout;
+	}
+	
+	public void setConnectTimeout(String connectTimeout)
+	{
+		this.connectTimeout=connectTimeout;
+	}
+	
+	public String getSocketTimeout()
+	{
+		return socketTimeout;
+	}
+	
+	public void setSocketTimeout(String socketTimeout)
+	{
+		this.socketTimeout=socketTimeout;
+	}
+	
+	public boolean isTestOnBorrow()
+	{
+		return testOnBorrow;
+	}
+	
+	public void setTestOnBorrow(boolean testOnBorrow)
+	{
+		this.testOnBorrow=testOnBorrow;
+	}
+	
+	public boolean isClusterMode()
+	{
+		return clusterMode;
+	}
+	
+	public void setClusterMode(boolean clusterMode)
+	{
+		this.clusterMode=clusterMode;
+	}
+	
+	public String getConnections()
+	{
+		return connections;
+	}
+	
+	public void setConnections(String connections)
+	{
+		this.connections=connections;
+	}
+	
+	public boolean isTransactional()
+	{
+		return transactional;
+	}
+	
+	public void setTransactional(boolean transactional)
+	{
+		this.transactional=transactional;
+	}
+	
+	public String getRetries()
+	{
+		return retries;
+	}
+	
+	public void setRetries(String retries)
+	{
+		this.retries=retries;
+	}
+	
+	public String getRetryDelay()
+	{
+		return retryDelay;
+	}
+	
+	public void setRetryDelay(String retryDelay)
+	{
+		this.retryDelay=retryDelay;
+	}
+	
 	public String getKey() {
 		return key;
 	}
@@ -252,6 +617,200 @@ public class RedisOutputMeta extends BaseStepMeta implements
 	public void setValueFieldCombo(String valueFieldCombo) {
 		this.valueFieldCombo = valueFieldCombo;
 	}
+	
+	public boolean isBinaryValue()
+	{
+		return binaryValue;
+	}
+	
+	public void setBinaryValue(boolean binaryValue)
+	{
+		this.binaryValue=binaryValue;
+	}
+	
+	public String getCodec()
+	{
+		return codec;
+	}
+	
+	public void setCodec(String codec)
+	{
+		this.codec=codec;
+	}
+	
+	public String getWriteMode()
+	{
+		return writeMode;
+	}
+	
+	public void setWriteMode(String writeMode)
+	{
+		this.writeMode=writeMode;
+	}
+	
+	public String getCommand()
+	{
+		return command;
+	}
+	
+	public void setCommand(String command)
+	{
+		this.command=command;
+	}
+	
+	public String getStreamMaxLen()
+	{
+		return streamMaxLen;
+	}
+	
+	public void setStreamMaxLen(String streamMaxLen)
+	{
+		this.streamMaxLen=streamMaxLen;
+	}
+	
+	public String getHashField()
+	{
+		return hashField;
+	}
+	
+	public void setHashField(String hashField)
+	{
+		this.hashField=hashField;
+	}
+	
+	public String getTtl()
+	{
+		return ttl;
+	}
+	
+	public void setTtl(String ttl)
+	{
+		this.ttl=ttl;
+	}
+	
+	public String getTtlField()
+	{
+		return ttlField;
+	}
+	
+	public void setTtlField(String ttlField)
+	{
+		this.ttlField=ttlField;
+	}
+	
+	public String getTtlUnit()
+	{
+		return ttlUnit;
+	}
+	
+	public void setTtlUnit(String ttlUnit)
+	{
+		this.ttlUnit=ttlUnit;
+	}
+	
+	public String getCondition()
+	{
+		return condition;
+	}
+	
+	public void setCondition(String condition)
+	{
+		this.condition=condition;
+	}
+	
+	public void allocate(int nrRowFields)
+	{
+		rowFieldName = new String[nrRowFields];
+		rowFieldEntry = new String[nrRowFields];
+	}
+	
+	public String[] getRowFieldName()
+	{
+		return rowFieldName;
+	}
+	
+	public void setRowFieldName(String[] rowFieldName)
+	{
+		this.rowFieldName=rowFieldName;
+	}
+	
+	public String[] getRowFieldEntry()
+	{
+		return rowFieldEntry;
+	}
+	
+	public void setRowFieldEntry(String[] rowFieldEntry)
+	{
+		this.rowFieldEntry=rowFieldEntry;
+	}
+	
+	/**
+	 * @return the name of the hash field or JSON entry of the given row field, the field name when it is not renamed
+	 */
+	public String getRowFieldEntryName(int i)
+	{
+		return Const.isEmpty(rowFieldEntry[i]) ? rowFieldName[i] : rowFieldEntry[i];
+	}
+	
+	public static String getTtlUnitDesc(String code)
+	{
+		int index = Const.indexOfString(code, ttlUnitCodes);
+		return ttlUnitDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getTtlUnitCode(String desc)
+	{
+		int index = Const.indexOfString(desc, ttlUnitDescs);
+		return ttlUnitCodes[index < 0 ? 0 : index];
+	}
+	
+	public static String getCommandDesc(String code)
+	{
+		int index = Const.indexOfString(code, RedisWriter.commandCodes);
+		return commandDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getCommandCode(String desc)
+	{
+		int index = Const.indexOfString(desc, commandDescs);
+		return RedisWriter.commandCodes[index < 0 ? 0 : index];
+	}
+	
+	public static String getConditionDesc(String code)
+	{
+		int index = Const.indexOfString(code, RedisWriter.conditionCodes);
+		return conditionDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getConditionCode(String desc)
+	{
+		int index = Const.indexOfString(desc, conditionDescs);
+		return RedisWriter.conditionCodes[index < 0 ? 0 : index];
+	}
+	
+	public static String getWriteModeDesc(String code)
+	{
+		int index = Const.indexOfString(code, writeModeCodes);
+		return writeModeDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getWriteModeCode(String desc)
+	{
+		int index = Const.indexOfString(desc, writeModeDescs);
+		return writeModeCodes[index < 0 ? 0 : index];
+	}
+	
+	public static String getCodecDesc(String code)
+	{
+		int index = Const.indexOfString(code, RedisValueCodec.codecCodes);
+		return codecDescs[index < 0 ? 0 : index];
+	}
+	
+	public static String getCodecCode(String desc)
+	{
+		int index = Const.indexOfString(desc, codecDescs);
+		return RedisValueCodec.codecCodes[index < 0 ? 0 : index];
+	}
 
 
 	@Override
@@ -259,14 +818,51 @@ public class RedisOutputMeta extends BaseStepMeta implements
 		StringBuffer retval = new StringBuffer();
 		retval.append(XMLHandler.addTagValue("hostname", this.getHostname()));
 		retval.append(XMLHandler.addTagValue("port", this.getPort()));
+		retval.append(XMLHandler.addTagValue("password", Encr.encryptPasswordIfNotUsingVariables(this.getPassword())));
 		retval.append(XMLHandler.addTagValue("base", this.getBase()));
 		retval.append(XMLHandler.addTagValue("pipelineSize", this.getPipelineSize()));
+		retval.append(XMLHandler.addTagValue("pipelineBytes", this.getPipelineBytes()));
+		retval.append(XMLHandler.addTagValue("pipelineLatency", this.getPipelineLatency()));
+		retval.append(XMLHandler.addTagValue("coalesceWrites", this.isCoalesceWrites()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("flushInterval", this.getFlushInterval()));
+		retval.append(XMLHandler.addTagValue("asyncWrite", this.isAsyncWrite()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("asyncQueueSize", this.getAsyncQueueSize()));
+		retval.append(XMLHandler.addTagValue("poolMaxTotal", this.getPoolMaxTotal()));
+		retval.append(XMLHandler.addTagValue("poolMaxIdle", this.getPoolMaxIdle()));
+		retval.append(XMLHandler.addTagValue("poolMinIdle", this.getPoolMinIdle()));
+		retval.append(XMLHandler.addTagValue("poolMaxWait", this.getPoolMaxWait()));
+		retval.append(XMLHandler.addTagValue("connectTimeout", this.getConnectTimeout()));
+		retval.append(XMLHandler.addTagValue("socketTimeout", this.getSocketTimeout()));
+		retval.append(XMLHandler.addTagValue("testOnBorrow", this.isTestOnBorrow()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("clusterMode", this.isClusterMode()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("connections", this.getConnections()));
+		retval.append(XMLHandler.addTagValue("transactional", this.isTransactional()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("retries", this.getRetries()));
+		retval.append(XMLHandler.addTagValue("retryDelay", this.getRetryDelay()));
 		retval.append(XMLHandler.addTagValue("key", this.getKey()));
 		retval.append(XMLHandler.addTagValue("keyFieldCheck", this.getKeyFieldCheck()==true?"true":"false"));
 		retval.append(XMLHandler.addTagValue("keyFieldCombo", this.getKeyFieldCombo()));
 		retval.append(XMLHandler.addTagValue("value", this.getValue()));
 		retval.append(XMLHandler.addTagValue("valueFieldCheck", this.getValueFieldCheck()==true?"true":"false"));
 		retval.append(XMLHandler.addTagValue("valueFieldCombo", this.getValueFieldCombo()));
+		retval.append(XMLHandler.addTagValue("binaryValue", this.isBinaryValue()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("codec", this.getCodec()));
+		retval.append(XMLHandler.addTagValue("writeMode", this.getWriteMode()));
+		retval.append(XMLHandler.addTagValue("command", this.getCommand()));
+		retval.append(XMLHandler.addTagValue("streamMaxLen", this.getStreamMaxLen()));
+		retval.append(XMLHandler.addTagValue("hashField", this.getHashField()));
+		retval.append(XMLHandler.addTagValue("ttl", this.getTtl()));
+		retval.append(XMLHandler.addTagValue("ttlField", this.getTtlField()));
+		retval.append(XMLHandler.addTagValue("ttlUnit", this.getTtlUnit()));
+		retval.append(XMLHandler.addTagValue("condition", this.getCondition()));
+		retval.append("    ").append(XMLHandler.openTag("rowFields")).append(Const.CR);
+		for (int i = 0; i < rowFieldName.length; i++) {
+			retval.append("      ").append(XMLHandler.openTag("rowField")).append(Const.CR);
+			retval.append(XMLHandler.addTagValue("name", rowFieldName[i]));
+			retval.append(XMLHandler.addTagValue("entry", rowFieldEntry[i]));
+			retval.append("      ").append(XMLHandler.closeTag("rowField")).append(Const.CR);
+		}
+		retval.append("    ").append(XMLHandler.closeTag("rowFields")).append(Const.CR);
 		return retval.toString();
 	}
 
@@ -274,14 +870,51 @@ public class RedisOutputMeta extends BaseStepMeta implements
 		try {
 			this.hostname = XMLHandler.getTagValue(stepnode, "hostname");
 			this.port = XMLHandler.getTagValue(stepnode, "port");
+			this.password = Encr.decryptPasswordOptionallyEncrypted(XMLHandler.getTagValue(stepnode, "password"));
 			this.base = XMLHandler.getTagValue(stepnode, "base");
 			this.pipelineSize = XMLHandler.getTagValue(stepnode, "pipelineSize");
+			this.pipelineBytes = XMLHandler.getTagValue(stepnode, "pipelineBytes");
+			this.pipelineLatency = XMLHandler.getTagValue(stepnode, "pipelineLatency");
+			this.coalesceWrites = "true".equals(XMLHandler.getTagValue(stepnode, "coalesceWrites"));
+			this.flushInterval = XMLHandler.getTagValue(stepnode, "flushInterval");
+			this.asyncWrite = "true".equals(XMLHandler.getTagValue(stepnode, "asyncWrite"));
+			this.asyncQueueSize = Const.NVL(XMLHandler.getTagValue(stepnode, "asyncQueueSize"), String.valueOf(DEFAULT_ASYNC_QUEUE_SIZE));
+			this.poolMaxTotal = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMaxTotal"), "8");
+			this.poolMaxIdle = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMaxIdle"), "8");
+			this.poolMinIdle = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMinIdle"), "0");
+			this.poolMaxWait = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMaxWait"), "-1");
+			this.connectTimeout = Const.NVL(XMLHandler.getTagValue(stepnode, "connectTimeout"), "2000");
+			this.socketTimeout = Const.NVL(XMLHandler.getTagValue(stepnode, "socketTimeout"), "2000");
+			this.testOnBorrow = "true".equals(XMLHandler.getTagValue(stepnode, "testOnBorrow"));
+			this.clusterMode = "true".equals(XMLHandler.getTagValue(stepnode, "clusterMode"));
+			this.connections = Const.NVL(XMLHandler.getTagValue(stepnode, "connections"), "1");
+			this.transactional = "true".equals(XMLHandler.getTagValue(stepnode, "transactional"));
+			this.retries = Const.NVL(XMLHandler.getTagValue(stepnode, "retries"), String.valueOf(DEFAULT_RETRIES));
+			this.retryDelay = Const.NVL(XMLHandler.getTagValue(stepnode, "retryDelay"), String.valueOf(DEFAULT_RETRY_DELAY));
 			this.key = XMLHandler.getTagValue(stepnode, "key");
 			this.keyFieldCheck = (XMLHandler.getTagValue(stepnode, "keyFieldCheck")!=null && XMLHandler.getTagValue(stepnode, "keyFieldCheck").equals("true")?true:false);
 			this.keyFieldCombo = XMLHandler.getTagValue(stepnode, "keyFieldCombo");
 			this.value = XMLHandler.getTagValue(stepnode, "value");
 			this.valueFieldCheck = (XMLHandler.getTagValue(stepnode, "valueFieldCheck")!=null && XMLHandler.getTagValue(stepnode, "valueFieldCheck").equals("true")?true:false);
 			this.valueFieldCombo = XMLHandler.getTagValue(stepnode, "valueFieldCombo");
+			this.binaryValue = "true".equals(XMLHandler.getTagValue(stepnode, "binaryValue"));
+			this.codec = Const.NVL(XMLHandler.getTagValue(stepnode, "codec"), RedisValueCodec.CODEC_NONE);
+			this.writeMode = Const.NVL(XMLHandler.getTagValue(stepnode, "writeMode"), WRITE_MODE_STRING);
+			this.command = Const.NVL(XMLHandler.getTagValue(stepnode, "command"), RedisWriter.COMMAND_SET);
+			this.streamMaxLen = XMLHandler.getTagValue(stepnode, "streamMaxLen");
+			this.hashField = XMLHandler.getTagValue(stepnode, "hashField");
+			this.ttl = XMLHandler.getTagValue(stepnode, "ttl");
+			this.ttlField = XMLHandler.getTagValue(stepnode, "ttlField");
+			this.ttlUnit = Const.NVL(XMLHandler.getTagValue(stepnode, "ttlUnit"), TTL_UNIT_SECONDS);
+			this.condition = Const.NVL(XMLHandler.getTagValue(stepnode, "condition"), RedisWriter.CONDITION_NONE);
+			Node rowFields = XMLHandler.getSubNode(stepnode, "rowFields");
+			int nrRowFields = XMLHandler.countNodes(rowFields, "rowField");
+			allocate(nrRowFields);
+			for (int i = 0; i < nrRowFields; i++) {
+				Node rowField = XMLHandler.getSubNodeByNr(rowFields, "rowField", i);
+				this.rowFieldName[i] = XMLHandler.getTagValue(rowField, "name");
+				this.rowFieldEntry[i] = XMLHandler.getTagValue(rowField, "entry");
+			}
 		} catch (Exception e) {
 			throw new KettleXMLException(BaseMessages.getString(PKG,
 					"RedisInputMeta.Exception.UnableToReadStepInfo"), e);
@@ -292,14 +925,49 @@ public class RedisOutputMeta extends BaseStepMeta implements
 		try {
 			this.hostname = rep.getStepAttributeString(id_step, "hostname");
 			this.port = rep.getStepAttributeString(id_step, "port");
+			this.password = Encr.decryptPasswordOptionallyEncrypted(rep.getStepAttributeString(id_step, "password"));
 			this.base = rep.getStepAttributeString(id_step, "base");
 			this.pipelineSize = rep.getStepAttributeString(id_step, "pipelineSize");
+			this.pipelineBytes = rep.getStepAttributeString(id_step, "pipelineBytes");
+			this.pipelineLatency = rep.getStepAttributeString(id_step, "pipelineLatency");
+			this.coalesceWrites = rep.getStepAttributeBoolean(id_step, "coalesceWrites");
+			this.flushInterval = rep.getStepAttributeString(id_step, "flushInterval");
+			this.asyncWrite = rep.getStepAttributeBoolean(id_step, "asyncWrite");
+			this.asyncQueueSize = Const.NVL(rep.getStepAttributeString(id_step, "asyncQueueSize"), String.valueOf(DEFAULT_ASYNC_QUEUE_SIZE));
+			this.poolMaxTotal = Const.NVL(rep.getStepAttributeString(id_step, "poolMaxTotal"), "8");
+			this.poolMaxIdle = Const.NVL(rep.getStepAttributeString(id_step, "poolMaxIdle"), "8");
+			this.poolMinIdle = Const.NVL(rep.getStepAttributeString(id_step, "poolMinIdle"), "0");
+			this.poolMaxWait = Const.NVL(rep.getStepAttributeString(id_step, "poolMaxWait"), "-1");
+			this.connectTimeout = Const.NVL(rep.getStepAttributeString(id_step, "connectTimeout"), "2000");
+			this.socketTimeout = Const.NVL(rep.getStepAttributeString(id_step, "socketTimeout"), "2000");
+			this.testOnBorrow = rep.getStepAttributeBoolean(id_step, "testOnBorrow");
+			this.clusterMode = rep.getStepAttributeBoolean(id_step, "clusterMode");
+			this.connections = Const.NVL(rep.getStepAttributeString(id_step, "connections"), "1");
+			this.transactional = rep.getStepAttributeBoolean(id_step, "transactional");
+			this.retries = Const.NVL(rep.getStepAttributeString(id_step, "retries"), String.valueOf(DEFAULT_RETRIES));
+			this.retryDelay = Const.NVL(rep.getStepAttributeString(id_step, "retryDelay"), String.valueOf(DEFAULT_RETRY_DELAY));
 			this.key = rep.getStepAttributeString(id_step, "key");
 			this.keyFieldCheck = rep.getStepAttributeBoolean(id_step, "keyFieldCheck");
 			this.keyFieldCombo = rep.getStepAttributeString(id_step, "keyFieldCombo");
 			this.value = rep.getStepAttributeString(id_step, "value");
 			this.valueFieldCheck = rep.getStepAttributeBoolean(id_step, "valueFieldCheck");
 			this.valueFieldCombo = rep.getStepAttributeString(id_step, "valueFieldCombo");
+			this.binaryValue = rep.getStepAttributeBoolean(id_step, "binaryValue");
+			this.codec = Const.NVL(rep.getStepAttributeString(id_step, "codec"), RedisValueCodec.CODEC_NONE);
+			this.writeMode = Const.NVL(rep.getStepAttributeString(id_step, "writeMode"), WRITE_MODE_STRING);
+			this.command = Const.NVL(rep.getStepAttributeString(id_step, "command"), RedisWriter.COMMAND_SET);
+			this.streamMaxLen = rep.getStepAttributeString(id_step, "streamMaxLen");
+			this.hashField = rep.getStepAttributeString(id_step, "hashField");
+			this.ttl = rep.getStepAttributeString(id_step, "ttl");
+			this.ttlField = rep.getStepAttributeString(id_step, "ttlField");
+			this.ttlUnit = Const.NVL(rep.getStepAttributeString(id_step, "ttlUnit"), TTL_UNIT_SECONDS);
+			this.condition = Const.NVL(rep.getStepAttributeString(id_step, "condition"), RedisWriter.CONDITION_NONE);
+			int nrRowFields = rep.countNrStepAttributes(id_step, "row_field_name");
+			allocate(nrRowFields);
+			for (int i = 0; i < nrRowFields; i++) {
+				this.rowFieldName[i] = rep.getStepAttributeString(id_step, i, "row_field_name");
+				this.rowFieldEntry[i] = rep.getStepAttributeString(id_step, i, "row_field_entry");
+			}
 		} catch (Exception e) {
 			throw new KettleException(BaseMessages.getString(PKG,
 					"RedisInputMeta.Exception.UnexpectedErrorReadingStepInfo"),
@@ -313,14 +981,47 @@ public class RedisOutputMeta extends BaseStepMeta implements
 		try {
 			rep.saveStepAttribute(id_transformation, id_step, "hostname", this.hostname);
 			rep.saveStepAttribute(id_transformation, id_step, "port", this.port);
+			rep.saveStepAttribute(id_transformation, id_step, "password", Encr.encryptPasswordIfNotUsingVariables(this.password));
 			rep.saveStepAttribute(id_transformation, id_step, "base", this.base);
 			rep.saveStepAttribute(id_transformation, id_step, "pipelineSize", this.pipelineSize);
+			rep.saveStepAttribute(id_transformation, id_step, "pipelineBytes", this.pipelineBytes);
+			rep.saveStepAttribute(id_transformation, id_step, "pipelineLatency", this.pipelineLatency);
+			rep.saveStepAttribute(id_transformation, id_step, "coalesceWrites", this.coalesceWrites);
+			rep.saveStepAttribute(id_transformation, id_step, "flushInterval", this.flushInterval);
+			rep.saveStepAttribute(id_transformation, id_step, "asyncWrite", this.asyncWrite);
+			rep.saveStepAttribute(id_transformation, id_step, "asyncQueueSize", this.asyncQueueSize);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMaxTotal", this.poolMaxTotal);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMaxIdle", this.poolMaxIdle);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMinIdle", this.poolMinIdle);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMaxWait", this.poolMaxWait);
+			rep.saveStepAttribute(id_transformation, id_step, "connectTimeout", this.connectTimeout);
+			rep.saveStepAttribute(id_transformation, id_step, "socketTimeout", this.socketTimeout);
+			rep.saveStepAttribute(id_transformation, id_step, "testOnBorrow", this.testOnBorrow);
+			rep.saveStepAttribute(id_transformation, id_step, "clusterMode", this.clusterMode);
+			rep.saveStepAttribute(id_transformation, id_step, "connections", this.connections);
+			rep.saveStepAttribute(id_transformation, id_step, "transactional", this.transactional);
+			rep.saveStepAttribute(id_transformation, id_step, "retries", this.retries);
+			rep.saveStepAttribute(id_transformation, id_step, "retryDelay", this.retryDelay);
 			rep.saveStepAttribute(id_transformation, id_step, "key", this.key);
 			rep.saveStepAttribute(id_transformation, id_step, "keyFieldCheck", this.keyFieldCheck);
 			rep.saveStepAttribute(id_transformation, id_step, "keyFieldCombo", this.keyFieldCombo);
 			rep.saveStepAttribute(id_transformation, id_step, "value", this.value);
 			rep.saveStepAttribute(id_transformation, id_step, "valueFieldCheck", this.valueFieldCheck);
 			rep.saveStepAttribute(id_transformation, id_step, "valueFieldCombo", this.valueFieldCombo);
+			rep.saveStepAttribute(id_transformation, id_step, "binaryValue", this.binaryValue);
+			rep.saveStepAttribute(id_transformation, id_step, "codec", this.codec);
+			rep.saveStepAttribute(id_transformation, id_step, "writeMode", this.writeMode);
+			rep.saveStepAttribute(id_transformation, id_step, "command", this.command);
+			rep.saveStepAttribute(id_transformation, id_step, "streamMaxLen", this.streamMaxLen);
+			rep.saveStepAttribute(id_transformation, id_step, "hashField", this.hashField);
+			rep.saveStepAttribute(id_transformation, id_step, "ttl", this.ttl);
+			rep.saveStepAttribute(id_transformation, id_step, "ttlField", this.ttlField);
+			rep.saveStepAttribute(id_transformation, id_step, "ttlUnit", this.ttlUnit);
+			rep.saveStepAttribute(id_transformation, id_step, "condition", this.condition);
+			for (int i = 0; i < rowFieldName.length; i++) {
+				rep.saveStepAttribute(id_transformation, id_step, i, "row_field_name", rowFieldName[i]);
+				rep.saveStepAttribute(id_transformation, id_step, i, "row_field_entry", rowFieldEntry[i]);
+			}
 		} catch (Exception e) {
 			throw new KettleException(BaseMessages.getString(PKG,
 					"RedisInputMeta.Exception.UnexpectedErrorSavingStepInfo"),
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisOutput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Writes the batches of a Redis Output step copy on several connections at once.
+ * 
+ * Each batch is split by key hash, so that all the writes of a key go through the same connection in their
+ * order, and its parts are written in parallel, the first one in the calling thread and the others in threads
+ * of their own. The batch waits for all of its parts, then gets the reply of each key back. The parts are
+ * reused from one batch to the next.
+ *
+ */
+public class RedisOutputShards {
+
+	private final RedisOutputFlusher.BatchWriter writer;
+	private final RedisOutputBatch[] parts;
+	private final ExecutorService executor;
+
+	/**
+	 * @param writer		writes a part, on a connection of its own
+	 * @param connections	the number of parts of each batch, at least 2
+	 * @param capacity		the initial capacity of the parts
+	 * @param name			the name of the threads, followed by their number
+	 */
+	public RedisOutputShards(RedisOutputFlusher.BatchWriter writer, int connections, int capacity, final String name) {
+		this.writer = writer;
+		parts = new RedisOutputBatch[connections];
+		for (int i = 0; i < connections; i++)
+			parts[i] = new RedisOutputBatch(capacity);
+		executor = Executors.newFixedThreadPool(connections - 1, new ThreadFactory() {
+			private int count = 0;
+
+			public synchronized Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name + (++count));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Writes the batch, its replies are set once all of its parts are written
+	 * 
+	 * @throws Exception the first error of the parts, after all of them are done
+	 */
+	public void write(RedisOutputBatch batch) throws Exception {
+		for (int i = 0; i < batch.count; i++) {
+			String key = batch.keys[i];
+			int part = key == null ? 0 : (key.hashCode() & Integer.MAX_VALUE) % parts.length;
+			parts[part].addPart(batch, i);
+		}
+		List<Future<?>> futures = new ArrayList<Future<?>>(parts.length - 1);
+		for (int i = 1; i < parts.length; i++) {
+			final RedisOutputBatch part = parts[i];
+			if (part.isEmpty())
+				continue;
+			futures.add(executor.submit(new Callable<Void>() {
+				public Void call() throws Exception {
+					writer.write(part);
+					return null;
+				}
+			}));
+		}
+		// All the parts are waited for before the batch is reused, the first error is thrown
+		Exception error = null;
+		try {
+			if (!parts[0].isEmpty())
+				writer.write(parts[0]);
+		} catch (Exception e) {
+			error = e;
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (error == null)
+					error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+			}
+		}
+		for (RedisOutputBatch part : parts) {
+			for (int i = 0; i < part.count; i++)
+				batch.replies[part.sources[i]] = part.replies[i];
+			part.clear();
+		}
+		if (error != null)
+			throw error;
+	}
+
+	/**
+	 * Stops the threads of the parts, when the step is disposed
+	 */
+	public void stop() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,449 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisStreamInput;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStep;
+import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaInterface;
+
+import com.linalis.pdi.steps.redis.RedisClusterRouter;
+import com.linalis.pdi.steps.redis.RedisConnections;
+import com.linalis.pdi.steps.redis.RedisCommands;
+import com.linalis.pdi.steps.redis.RedisJson;
+import com.linalis.pdi.steps.redis.RedisPoolRegistry;
+
+/**
+ * The Redis Stream Input step reads a Redis stream as a consumer of a consumer group, with XREADGROUP,
+ * and acknowledges the entries with XACK once their rows are sent to the next steps. The entries are
+ * read at least once : the entries read and not acknowledged when the step stops are read again
+ * by the same consumer when it restarts, or claimed by another consumer with XAUTOCLAIM.
+ * 
+ * Each copy of the step is its own consumer, named after the number of the copy, so the copies
+ * share the entries of the stream and a restarted copy finds its pending entries again.
+ *
+ */
+public class RedisStreamInput extends BaseStep implements StepInterface {
+	private static Class<?> PKG = RedisStreamInputMeta.class; // for i18n purposes,
+																// needed by
+																// Translator2!!
+																// $NON-NLS-1$
+
+	/**
+	 * Start and end cursor of XAUTOCLAIM
+	 */
+	private static final String CLAIM_START = "0-0";
+
+	public RedisStreamInput(StepMeta stepMeta, StepDataInterface stepDataInterface,
+			int copyNr, TransMeta transMeta, Trans trans) {
+		super(stepMeta, stepDataInterface, copyNr, transMeta, trans);
+	}
+
+	@Override
+	public boolean init(StepMetaInterface smi, StepDataInterface sdi) {
+		RedisStreamInputMeta meta = (RedisStreamInputMeta) smi;
+		RedisStreamInputData data = (RedisStreamInputData) sdi;
+		if (!super.init(meta, data))
+			return false;
+		data.streamKey = environmentSubstitute(meta.getStreamKey());
+		data.group = environmentSubstitute(meta.getGroup());
+		if(Const.isEmpty(data.streamKey) || Const.isEmpty(data.group))
+		{
+			logError(BaseMessages.getString(PKG, "RedisStreamInput.Error.NoStreamOrGroup"));
+			return false;
+		}
+		data.consumer = Const.NVL(environmentSubstitute(meta.getConsumer()), RedisStreamInputMeta.DEFAULT_CONSUMER)
+				+ "-" + getUniqueStepNrAcrossSlaves();
+		data.batchSize = Const.toInt(environmentSubstitute(meta.getBatchSize()), -1);
+		if(data.batchSize < 1)
+		{
+			logError(BaseMessages.getString(PKG,
+					"RedisStreamInput.Error.InvalidBatchSize", meta.getBatchSize()));
+			return false;
+		}
+		data.blockTimeout = Const.toLong(environmentSubstitute(meta.getBlockTimeout()), -1);
+		if(data.blockTimeout < 0)
+		{
+			logError(BaseMessages.getString(PKG,
+					"RedisStreamInput.Error.InvalidBlockTimeout", meta.getBlockTimeout()));
+			return false;
+		}
+		data.claimIdle = Const.toLong(environmentSubstitute(meta.getClaimIdle()), -1);
+		if(data.claimIdle < 0)
+		{
+			logError(BaseMessages.getString(PKG,
+					"RedisStreamInput.Error.InvalidClaimIdle", meta.getClaimIdle()));
+			return false;
+		}
+		data.stopWhenIdle = meta.isStopWhenIdle();
+		data.maxEntries = Const.toLong(environmentSubstitute(meta.getMaxEntries()), 0);
+		try {
+			// Getting the shared pool of the server
+			data.endpoint = RedisConnections.getEndpoint(meta, this);
+			if(meta.isClusterMode())
+			{
+				// The whole stream is on the node serving its hash slot
+				RedisClusterRouter cluster = RedisConnections.openCluster(data.endpoint);
+				try
+				{
+					data.pool = cluster.getPool(data.streamKey);
+				}
+				catch(Exception e)
+				{
+					cluster.close();
+					throw e;
+				}
+				data.cluster = cluster;
+			}
+			else
+				data.pool = RedisPoolRegistry.acquire(data.endpoint);
+		} catch (Exception e) {
+			logError(BaseMessages.getString(PKG,
+					"RedisStreamInput.Error.ConnectError"), e);
+			return false;
+		}
+		if(meta.isCreateGroup() && !createGroup(data, Const.NVL(environmentSubstitute(meta.getStartId()),
+				RedisStreamInputMeta.DEFAULT_START_ID)))
+			return false;
+		// The entries left pending by the previous run of this consumer are read first
+		data.phase = RedisStreamInputData.PHASE_OWN_PENDING;
+		data.pendingId = "0";
+		data.claimCursor = CLAIM_START;
+		data.ackIds.clear();
+		data.entriesRead = 0;
+		data.entriesClaimed = 0;
+		data.entriesAcked = 0;
+		return true;
+	}
+	
+	/**
+	 * Creates the consumer group, and the stream if it does not exist yet.
+	 * A group that already exists keeps its position in the stream.
+	 */
+	private boolean createGroup(RedisStreamInputData data, String startId)
+	{
+		Jedis jedisClient = null;
+		try
+		{
+			jedisClient = data.pool.getResource();
+			try
+			{
+				RedisCommands.call(jedisClient, "XGROUP", "CREATE", data.streamKey, data.group, startId, "MKSTREAM");
+				if (log.isDetailed())
+					logDetailed(BaseMessages.getString(PKG, "RedisStreamInput.Log.GroupCreated", data.group, data.streamKey, startId));
+			}
+			catch(JedisDataException e)
+			{
+				if(e.getMessage()==null || !e.getMessage().startsWith("BUSYGROUP"))
+					throw e;
+			}
+			data.pool.returnResource(jedisClient);
+			return true;
+		}
+		catch(Exception e)
+		{
+			if(jedisClient!=null)
+				data.pool.returnBrokenResource(jedisClient);
+			logError(BaseMessages.getString(PKG, "RedisStreamInput.Error.CreateGroup", data.group, data.streamKey), e);
+			return false;
+		}
+	}
+	
+	public void dispose(StepMetaInterface smi, StepDataInterface sdi) {
+
+		// Casting to step-specific implementation classes is safe
+		RedisStreamInputMeta meta = (RedisStreamInputMeta) smi;
+		RedisStreamInputData data = (RedisStreamInputData) sdi;
+		
+		if(data.cluster!=null)
+		{
+			data.cluster.close();
+			data.cluster = null;
+			data.pool = null;
+		}
+		if(data.pool!=null)
+		{
+			RedisPoolRegistry.release(data.endpoint);
+			data.pool = null;
+		}
+		data.endpoint = null;
+		
+		if (log.isBasic() && data.consumer!=null)
+			logBasic(BaseMessages.getString(PKG, "RedisStreamInput.Log.ConsumerStats", data.consumer,
+					String.valueOf(data.entriesRead), String.valueOf(data.entriesClaimed), String.valueOf(data.entriesAcked)));
+		
+		super.dispose(meta, data);
+	}
+
+	public boolean processRow(StepMetaInterface smi, StepDataInterface sdi) throws KettleException {
+		RedisStreamInputMeta meta = (RedisStreamInputMeta) smi;
+		RedisStreamInputData data = (RedisStreamInputData) sdi;
+		if (first) {
+			first = false;
+			data.outputRowMeta = new RowMeta();
+			meta.getFields(data.outputRowMeta, getStepname(), null, null, this, repository, metaStore);
+			data.idIndex = data.outputRowMeta.indexOfValue(meta.getIdField());
+			if(meta.getEntryName().length > 0)
+			{
+				data.entryNames = meta.getEntryName();
+				data.entryIndexes = new int[data.entryNames.length];
+				for(int i=0; i<data.entryNames.length; i++)
+					data.entryIndexes[i] = data.outputRowMeta.indexOfValue(meta.getEntryFieldName(i));
+				data.jsonIndex = -1;
+			}
+			else
+			{
+				data.entryNames = null;
+				data.entryIndexes = null;
+				data.jsonIndex = data.outputRowMeta.indexOfValue(meta.getJsonField());
+			}
+		}
+		
+		int count = data.batchSize;
+		if(data.maxEntries > 0 && data.maxEntries - data.entriesRead < count)
+			count = (int) (data.maxEntries - data.entriesRead);
+		Jedis jedisClient = null;
+		List<Object> entries;
+		int phase = data.phase;
+		try
+		{
+			jedisClient = data.pool.getResource();
+			if(jedisClient==null)
+				throw new KettleException("Error connecting to the redis server " + data.endpoint);
+			entries = readEntries(data, jedisClient, count);
+			data.pool.returnResource(jedisClient);
+		}
+		catch(Exception e)
+		{
+			if(jedisClient!=null)
+				data.pool.returnBrokenResource(jedisClient);
+			if (log.isError())
+				logError(BaseMessages.getString(PKG, "RedisStreamInput.Error.Read", data.streamKey, data.endpoint.toString()), e);
+			return false;
+		}
+		
+		for(Object entry : entries)
+		{
+			List<Object> parts = RedisCommands.toList(entry);
+			String id = RedisCommands.toString(parts.get(0));
+			data.ackIds.add(id);
+			// An entry deleted from the stream while pending has no fields, it is only acknowledged
+			if(parts.size() < 2 || parts.get(1)==null)
+				continue;
+			Object[] outputRowData = RowDataUtil.allocateRowData(data.outputRowMeta.size());
+			outputRowData[data.idIndex] = id;
+			List<Object> fields = RedisCommands.toList(parts.get(1));
+			if(data.entryNames!=null)
+			{
+				for(int i=0; i<data.entryNames.length; i++)
+					outputRowData[data.entryIndexes[i]] = getEntryValue(fields, data.entryNames[i]);
+			}
+			else
+			{
+				String[] names = new String[fields.size() / 2];
+				Object[] values = new Object[names.length];
+				for(int i=0; i<names.length; i++)
+				{
+					names[i] = RedisCommands.toString(fields.get(2 * i));
+					values[i] = RedisCommands.toString(fields.get(2 * i + 1));
+				}
+				outputRowData[data.jsonIndex] = RedisJson.toJson(names, values);
+			}
+			data.entriesRead++;
+			incrementLinesInput();
+			putRow(data.outputRowMeta, outputRowData);
+			if (checkFeedback(getLinesInput())) {
+				if (log.isBasic())
+					logBasic(BaseMessages.getString(PKG,
+							"RedisStreamInput.Log.LineNumber") + getLinesInput());
+			}
+		}
+		
+		// The rows of the batch are in the row sets of the next steps, their entries are acknowledged
+		if(!data.ackIds.isEmpty() && !acknowledge(data))
+			return false;
+		
+		if((data.maxEntries > 0 && data.entriesRead >= data.maxEntries)
+				|| (data.stopWhenIdle && phase==RedisStreamInputData.PHASE_NEW && entries.isEmpty()))
+		{
+			setOutputDone();
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Reads the next entries of the current phase, and moves to the next phase when the current one is over :
+	 * the own pending entries are read from the history of the consumer with XREADGROUP ... id,
+	 * the pending entries of the other consumers idle for long enough are claimed with XAUTOCLAIM then read with XCLAIM,
+	 * then the new entries are read with XREADGROUP ... &gt;, waiting for them up to the block timeout.
+	 * A block timeout of 0 waits until new entries arrive, as BLOCK 0 does, by blocking reads of the default
+	 * timeout repeated until the step is stopped, so that a stop of the transformation is not held by Redis.
+	 * 
+	 * @return the entries read, each of them a list of its id and of its fields and values
+	 */
+	private List<Object> readEntries(RedisStreamInputData data, Jedis jedisClient, int count)
+	{
+		List<Object> entries;
+		switch(data.phase)
+		{
+		case RedisStreamInputData.PHASE_OWN_PENDING:
+			entries = getStreamEntries(RedisCommands.call(jedisClient, "XREADGROUP", "GROUP", data.group, data.consumer,
+					"COUNT", String.valueOf(count), "STREAMS", data.streamKey, data.pendingId));
+			if(entries.isEmpty())
+				data.phase = data.claimIdle > 0 ? RedisStreamInputData.PHASE_CLAIM : RedisStreamInputData.PHASE_NEW;
+			else
+				data.pendingId = RedisCommands.toString(RedisCommands.toList(entries.get(entries.size() - 1)).get(0));
+			if (log.isDetailed() && !entries.isEmpty())
+				logDetailed(BaseMessages.getString(PKG, "RedisStreamInput.Log.OwnPending", String.valueOf(entries.size()), data.consumer));
+			return entries;
+		case RedisStreamInputData.PHASE_CLAIM:
+			List<Object> reply = RedisCommands.toList(RedisCommands.call(jedisClient, "XAUTOCLAIM", data.streamKey, data.group, data.consumer,
+					String.valueOf(data.claimIdle), data.claimCursor, "COUNT", String.valueOf(count), "JUSTID"));
+			data.claimCursor = RedisCommands.toString(reply.get(0));
+			entries = claimEntries(data, jedisClient, RedisCommands.toList(reply.get(1)));
+			if(CLAIM_START.equals(data.claimCursor))
+				data.phase = RedisStreamInputData.PHASE_NEW;
+			data.entriesClaimed += entries.size();
+			if (log.isDetailed() && !entries.isEmpty())
+				logDetailed(BaseMessages.getString(PKG, "RedisStreamInput.Log.Claimed", String.valueOf(entries.size()), data.consumer));
+			return entries;
+		default:
+			String block = String.valueOf(data.blockTimeout == 0 ? RedisStreamInputMeta.DEFAULT_BLOCK_TIMEOUT : data.blockTimeout);
+			do {
+				RedisCommands.send(jedisClient, "XREADGROUP", "GROUP", data.group, data.consumer,
+						"COUNT", String.valueOf(count), "BLOCK", block, "STREAMS", data.streamKey, ">");
+				entries = getStreamEntries(RedisCommands.readBlocking(jedisClient));
+			} while(entries.isEmpty() && data.blockTimeout == 0 && !isStopped());
+			return entries;
+		}
+	}
+	
+	/**
+	 * Reads the entries whose ids were just claimed. An entry deleted from the stream while pending comes back
+	 * from XAUTOCLAIM and XCLAIM as a nil without its id (Redis 6.2), or not at all : it is returned with its
+	 * claimed id and no fields, so that it is acknowledged and leaves the pending entries of the group.
+	 * 
+	 * @return the claimed entries, in the order of their ids
+	 */
+	private List<Object> claimEntries(RedisStreamInputData data, Jedis jedisClient, List<Object> ids)
+	{
+		List<Object> entries = new ArrayList<Object>(ids.size());
+		if(ids.isEmpty())
+			return entries;
+		Object[] args = new Object[ids.size() + 5];
+		args[0] = "XCLAIM";
+		args[1] = data.streamKey;
+		args[2] = data.group;
+		args[3] = data.consumer;
+		args[4] = "0";
+		for(int i=0; i<ids.size(); i++)
+			args[i + 5] = ids.get(i);
+		Map<String, Object> claimed = new HashMap<String, Object>(ids.size() * 2);
+		for(Object entry : RedisCommands.toList(RedisCommands.call(jedisClient, args)))
+		{
+			if(entry!=null)
+				claimed.put(RedisCommands.toString(RedisCommands.toList(entry).get(0)), entry);
+		}
+		for(Object id : ids)
+		{
+			Object entry = claimed.get(RedisCommands.toString(id));
+			entries.add(entry!=null ? entry : Arrays.asList(id, null));
+		}
+		return entries;
+	}
+	
+	/**
+	 * @return the entries of the only stream of a XREADGROUP reply, an empty list when the reply is nil
+	 */
+	private static List<Object> getStreamEntries(Object reply)
+	{
+		List<Object> streams = RedisCommands.toList(reply);
+		if(streams.isEmpty())
+			return streams;
+		return RedisCommands.toList(RedisCommands.toList(streams.get(0)).get(1));
+	}
+	
+	/**
+	 * @return the value of the named field of an entry, null when the entry does not have it
+	 */
+	private static String getEntryValue(List<Object> fields, String name)
+	{
+		for(int i=0; i+1<fields.size(); i+=2)
+		{
+			if(name.equals(RedisCommands.toString(fields.get(i))))
+				return RedisCommands.toString(fields.get(i + 1));
+		}
+		return null;
+	}
+	
+	/**
+	 * Acknowledges the entries of the last read with one XACK
+	 */
+	private boolean acknowledge(RedisStreamInputData data)
+	{
+		Object[] args = new Object[data.ackIds.size() + 3];
+		args[0] = "XACK";
+		args[1] = data.streamKey;
+		args[2] = data.group;
+		for(int i=0; i<data.ackIds.size(); i++)
+			args[i + 3] = data.ackIds.get(i);
+		Jedis jedisClient = null;
+		try
+		{
+			jedisClient = data.pool.getResource();
+			RedisCommands.send(jedisClient, args);
+			Object acked = RedisCommands.read(jedisClient);
+			data.pool.returnResource(jedisClient);
+			if(acked instanceof Long)
+				data.entriesAcked += ((Long) acked).longValue();
+			data.ackIds.clear();
+			return true;
+		}
+		catch(Exception e)
+		{
+			if(jedisClient!=null)
+				data.pool.returnBrokenResource(jedisClient);
+			if (log.isError())
+				logError(BaseMessages.getString(PKG, "RedisStreamInput.Error.Ack",
+						String.valueOf(data.ackIds.size()), data.streamKey), e);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisStreamInput;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.step.BaseStepData;
+import org.pentaho.di.trans.step.StepDataInterface;
+
+import com.linalis.pdi.steps.redis.RedisClusterRouter;
+import com.linalis.pdi.steps.redis.RedisEndpoint;
+import com.linalis.pdi.steps.redis.RedisPool;
+
+public class RedisStreamInputData extends BaseStepData implements StepDataInterface {
+	public RowMetaInterface outputRowMeta;
+	
+	/**
+	 * Phases of the reads : the entries delivered to this consumer and not acknowledged before a restart,
+	 * then the entries left pending by the other consumers of the group, then the new entries
+	 */
+	protected static final int PHASE_OWN_PENDING = 0;
+	protected static final int PHASE_CLAIM = 1;
+	protected static final int PHASE_NEW = 2;
+	
+	/**
+	 * Server the step reads from, and its shared connection pool
+	 */
+	protected RedisEndpoint endpoint;
+	protected RedisPool pool;
+	
+	/**
+	 * Routes the stream to its node in a Redis Cluster, null when the server is a single node.
+	 * The pool is then the pool of the node of the stream.
+	 */
+	protected RedisClusterRouter cluster;
+	
+	/**
+	 * Stream, consumer group, and name of this consumer in the group
+	 */
+	protected String streamKey;
+	protected String group;
+	protected String consumer;
+	
+	/**
+	 * Number of entries read at once, time a read of the new entries waits for them in milliseconds
+	 * (0 until they arrive), and idle time of the pending entries claimed from the other consumers, 0 when they are not claimed
+	 */
+	protected int batchSize;
+	protected long blockTimeout;
+	protected long claimIdle;
+	
+	/**
+	 * The step ends when a read of the new entries finds none, or after the given number of entries, 0 for no limit
+	 */
+	protected boolean stopWhenIdle;
+	protected long maxEntries;
+	
+	/**
+	 * Current phase, id after which the own pending entries are read, and cursor of XAUTOCLAIM
+	 */
+	protected int phase;
+	protected String pendingId;
+	protected String claimCursor;
+	
+	/**
+	 * Ids of the entries of the last read, acknowledged once their rows are sent to the next steps
+	 */
+	protected List<String> ackIds = new ArrayList<String>();
+	
+	/**
+	 * Positions of the id, of the fields of the listed entries, and of the JSON field in the output rows
+	 */
+	protected int idIndex;
+	protected String[] entryNames;
+	protected int[] entryIndexes;
+	protected int jsonIndex;
+	
+	/**
+	 * Entries read, claimed from the other consumers, and acknowledged
+	 */
+	protected long entriesRead;
+	protected long entriesClaimed;
+	protected long entriesAcked;
+
+	public RedisStreamInputData() {
+		super();
+	}
+}
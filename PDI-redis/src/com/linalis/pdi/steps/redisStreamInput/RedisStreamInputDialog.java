@@ -0,0 +1,931 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisStreamInput;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CTabFolder;
+import org.eclipse.swt.custom.CTabItem;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.events.ShellAdapter;
+import org.eclipse.swt.events.ShellEvent;
+import org.eclipse.swt.layout.FormAttachment;
+import org.eclipse.swt.layout.FormData;
+import org.eclipse.swt.layout.FormLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Text;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.Props;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStepMeta;
+import org.pentaho.di.trans.step.StepDialogInterface;
+import org.pentaho.di.ui.core.widget.ColumnInfo;
+import org.pentaho.di.ui.core.widget.PasswordTextVar;
+import org.pentaho.di.ui.core.widget.TableView;
+import org.pentaho.di.ui.core.widget.TextVar;
+import org.pentaho.di.ui.trans.step.BaseStepDialog;
+
+public class RedisStreamInputDialog extends BaseStepDialog implements
+		StepDialogInterface {
+	private static Class<?> PKG = RedisStreamInputMeta.class; // for i18n purposes,
+																// needed by
+																// Translator2!!
+																// $NON-NLS-1$
+	private RedisStreamInputMeta input;
+	private Label wlHostname;
+	private TextVar wHostname;
+	private FormData fdlHostname, fdHostname;
+	private Label wlPort;
+	private TextVar wPort;
+	private FormData fdlPort, fdPort;
+	private Label wlPassword;
+	private PasswordTextVar wPassword;
+	private FormData fdlPassword, fdPassword;
+	private Label wlBase;
+	private TextVar wBase;
+	private FormData fdlBase, fdBase;
+	private Label wlStreamKey;
+	private TextVar wStreamKey;
+	private FormData fdlStreamKey, fdStreamKey;
+	private Label wlGroup;
+	private TextVar wGroup;
+	private FormData fdlGroup, fdGroup;
+	private Label wlConsumer;
+	private TextVar wConsumer;
+	private FormData fdlConsumer, fdConsumer;
+	private Label wlCreateGroup;
+	private Button wCreateGroup;
+	private FormData fdlCreateGroup, fdCreateGroup;
+	private Label wlStartId;
+	private TextVar wStartId;
+	private FormData fdlStartId, fdStartId;
+	private Label wlBatchSize;
+	private TextVar wBatchSize;
+	private FormData fdlBatchSize, fdBatchSize;
+	private Label wlBlockTimeout;
+	private TextVar wBlockTimeout;
+	private FormData fdlBlockTimeout, fdBlockTimeout;
+	private Label wlClaimIdle;
+	private TextVar wClaimIdle;
+	private FormData fdlClaimIdle, fdClaimIdle;
+	private Label wlStopWhenIdle;
+	private Button wStopWhenIdle;
+	private FormData fdlStopWhenIdle, fdStopWhenIdle;
+	private Label wlMaxEntries;
+	private TextVar wMaxEntries;
+	private FormData fdlMaxEntries, fdMaxEntries;
+	private Label wlIdField;
+	private TextVar wIdField;
+	private FormData fdlIdField, fdIdField;
+	private Label wlJsonField;
+	private TextVar wJsonField;
+	private FormData fdlJsonField, fdJsonField;
+	private Label wlPoolMaxTotal;
+	private TextVar wPoolMaxTotal;
+	private FormData fdlPoolMaxTotal, fdPoolMaxTotal;
+	private Label wlPoolMaxIdle;
+	private TextVar wPoolMaxIdle;
+	private FormData fdlPoolMaxIdle, fdPoolMaxIdle;
+	private Label wlPoolMinIdle;
+	private TextVar wPoolMinIdle;
+	private FormData fdlPoolMinIdle, fdPoolMinIdle;
+	private Label wlPoolMaxWait;
+	private TextVar wPoolMaxWait;
+	private FormData fdlPoolMaxWait, fdPoolMaxWait;
+	private Label wlConnectTimeout;
+	private TextVar wConnectTimeout;
+	private FormData fdlConnectTimeout, fdConnectTimeout;
+	private Label wlSocketTimeout;
+	private TextVar wSocketTimeout;
+	private FormData fdlSocketTimeout, fdSocketTimeout;
+	private Label wlTestOnBorrow;
+	private Button wTestOnBorrow;
+	private FormData fdlTestOnBorrow, fdTestOnBorrow;
+	private Label wlClusterMode;
+	private Button wClusterMode;
+	private FormData fdlClusterMode, fdClusterMode;
+	private Label wlEntries;
+	private TableView wEntries;
+	private FormData fdlEntries, fdEntries;
+	private CTabFolder wTabFolder;
+	private FormData fdTabFolder;
+	private CTabItem wGeneralTab, wStreamTab, wFieldsTab, wPoolTab;
+	private Composite wGeneralComp, wStreamComp, wFieldsComp, wPoolComp;
+	private FormData fdGeneralComp, fdStreamComp, fdFieldsComp, fdPoolComp;
+
+	public RedisStreamInputDialog(Shell parent, Object in, TransMeta tr, String sname) {
+		super(parent, (BaseStepMeta) in, tr, sname);
+		input = (RedisStreamInputMeta) in;
+	}
+
+	public String open() {
+		Shell parent = getParent();
+		Display display = parent.getDisplay();
+		shell = new Shell(parent, SWT.DIALOG_TRIM | SWT.RESIZE | SWT.MIN
+				| SWT.MAX);
+		props.setLook(shell);
+		setShellImage(shell, input);
+		ModifyListener lsMod = new ModifyListener() {
+			public void modifyText(ModifyEvent e) {
+				input.setChanged();
+			}
+		};
+		changed = input.hasChanged();
+		FormLayout formLayout = new FormLayout();
+		formLayout.marginWidth = Const.FORM_MARGIN;
+		formLayout.marginHeight = Const.FORM_MARGIN;
+		shell.setLayout(formLayout);
+		shell.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.Shell.Title"));
+		int middle = props.getMiddlePct();
+		int margin = Const.MARGIN;
+		// Stepname line
+		wlStepname = new Label(shell, SWT.RIGHT);
+		wlStepname.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.Stepname.Label"));
+		props.setLook(wlStepname);
+		fdlStepname = new FormData();
+		fdlStepname.left = new FormAttachment(0, 0);
+		fdlStepname.right = new FormAttachment(middle, -margin);
+		fdlStepname.top = new FormAttachment(0, margin);
+		wlStepname.setLayoutData(fdlStepname);
+		wStepname = new Text(shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER);
+		wStepname.setText(stepname);
+		props.setLook(wStepname);
+		wStepname.addModifyListener(lsMod);
+		fdStepname = new FormData();
+		fdStepname.left = new FormAttachment(middle, 0);
+		fdStepname.top = new FormAttachment(0, margin);
+		fdStepname.right = new FormAttachment(100, 0);
+		wStepname.setLayoutData(fdStepname);
+		wTabFolder = new CTabFolder(shell, SWT.BORDER);
+		props.setLook(wTabFolder, Props.WIDGET_STYLE_TAB);
+
+		// General tab
+		wGeneralTab = new CTabItem(wTabFolder, SWT.NONE);
+		wGeneralTab.setText(BaseMessages.getString(PKG, "RedisStreamInputDialog.GeneralTab.Title"));
+		wGeneralComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wGeneralComp);
+		FormLayout generalLayout = new FormLayout();
+		generalLayout.marginWidth = 3;
+		generalLayout.marginHeight = 3;
+		wGeneralComp.setLayout(generalLayout);
+		// Hostname
+		wlHostname = new Label(wGeneralComp, SWT.RIGHT);
+		wlHostname.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.Hostname.Label"));
+		props.setLook(wlHostname);
+		fdlHostname = new FormData();
+		fdlHostname.left = new FormAttachment(0, 0);
+		fdlHostname.right = new FormAttachment(middle, -margin);
+		fdlHostname.top = new FormAttachment(0, margin);
+		wlHostname.setLayoutData(fdlHostname);
+		wHostname = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wHostname);
+		wHostname.addModifyListener(lsMod);
+		fdHostname = new FormData();
+		fdHostname.left = new FormAttachment(middle, 0);
+		fdHostname.top = new FormAttachment(0, margin);
+		fdHostname.right = new FormAttachment(100, 0);
+		wHostname.setLayoutData(fdHostname);
+		// Port
+		wlPort = new Label(wGeneralComp, SWT.RIGHT);
+		wlPort.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.Port.Label"));
+		props.setLook(wlPort);
+		fdlPort = new FormData();
+		fdlPort.left = new FormAttachment(0, 0);
+		fdlPort.right = new FormAttachment(middle, -margin);
+		fdlPort.top = new FormAttachment(wHostname, margin);
+		wlPort.setLayoutData(fdlPort);
+		wPort = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPort);
+		wPort.addModifyListener(lsMod);
+		fdPort = new FormData();
+		fdPort.left = new FormAttachment(middle, 0);
+		fdPort.top = new FormAttachment(wHostname, margin);
+		fdPort.right = new FormAttachment(100, 0);
+		wPort.setLayoutData(fdPort);
+		// Password
+		wlPassword = new Label(wGeneralComp, SWT.RIGHT);
+		wlPassword.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.Password.Label"));
+		props.setLook(wlPassword);
+		fdlPassword = new FormData();
+		fdlPassword.left = new FormAttachment(0, 0);
+		fdlPassword.right = new FormAttachment(middle, -margin);
+		fdlPassword.top = new FormAttachment(wPort, margin);
+		wlPassword.setLayoutData(fdlPassword);
+		wPassword = new PasswordTextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPassword);
+		wPassword.addModifyListener(lsMod);
+		fdPassword = new FormData();
+		fdPassword.left = new FormAttachment(middle, 0);
+		fdPassword.top = new FormAttachment(wPort, margin);
+		fdPassword.right = new FormAttachment(100, 0);
+		wPassword.setLayoutData(fdPassword);
+		// Base
+		wlBase = new Label(wGeneralComp, SWT.RIGHT);
+		wlBase.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.Base.Label"));
+		props.setLook(wlBase);
+		fdlBase = new FormData();
+		fdlBase.left = new FormAttachment(0, 0);
+		fdlBase.right = new FormAttachment(middle, -margin);
+		fdlBase.top = new FormAttachment(wPassword, margin);
+		wlBase.setLayoutData(fdlBase);
+		wBase = new TextVar(transMeta, wGeneralComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wBase);
+		wBase.addModifyListener(lsMod);
+		fdBase = new FormData();
+		fdBase.left = new FormAttachment(middle, 0);
+		fdBase.top = new FormAttachment(wPassword, margin);
+		fdBase.right = new FormAttachment(100, 0);
+		wBase.setLayoutData(fdBase);
+		fdGeneralComp = new FormData();
+		fdGeneralComp.left = new FormAttachment(0, 0);
+		fdGeneralComp.top = new FormAttachment(0, 0);
+		fdGeneralComp.right = new FormAttachment(100, 0);
+		fdGeneralComp.bottom = new FormAttachment(100, 0);
+		wGeneralComp.setLayoutData(fdGeneralComp);
+		wGeneralComp.layout();
+		wGeneralTab.setControl(wGeneralComp);
+
+		// Stream tab
+		wStreamTab = new CTabItem(wTabFolder, SWT.NONE);
+		wStreamTab.setText(BaseMessages.getString(PKG, "RedisStreamInputDialog.StreamTab.Title"));
+		wStreamComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wStreamComp);
+		FormLayout streamLayout = new FormLayout();
+		streamLayout.marginWidth = 3;
+		streamLayout.marginHeight = 3;
+		wStreamComp.setLayout(streamLayout);
+		// Key of the stream
+		wlStreamKey = new Label(wStreamComp, SWT.RIGHT);
+		wlStreamKey.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.StreamKey.Label"));
+		props.setLook(wlStreamKey);
+		fdlStreamKey = new FormData();
+		fdlStreamKey.left = new FormAttachment(0, 0);
+		fdlStreamKey.right = new FormAttachment(middle, -margin);
+		fdlStreamKey.top = new FormAttachment(0, margin);
+		wlStreamKey.setLayoutData(fdlStreamKey);
+		wStreamKey = new TextVar(transMeta, wStreamComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wStreamKey);
+		wStreamKey.addModifyListener(lsMod);
+		fdStreamKey = new FormData();
+		fdStreamKey.left = new FormAttachment(middle, 0);
+		fdStreamKey.top = new FormAttachment(0, margin);
+		fdStreamKey.right = new FormAttachment(100, 0);
+		wStreamKey.setLayoutData(fdStreamKey);
+		// Consumer group
+		wlGroup = new Label(wStreamComp, SWT.RIGHT);
+		wlGroup.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.Group.Label"));
+		props.setLook(wlGroup);
+		fdlGroup = new FormData();
+		fdlGroup.left = new FormAttachment(0, 0);
+		fdlGroup.right = new FormAttachment(middle, -margin);
+		fdlGroup.top = new FormAttachment(wStreamKey, margin);
+		wlGroup.setLayoutData(fdlGroup);
+		wGroup = new TextVar(transMeta, wStreamComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wGroup);
+		wGroup.addModifyListener(lsMod);
+		fdGroup = new FormData();
+		fdGroup.left = new FormAttachment(middle, 0);
+		fdGroup.top = new FormAttachment(wStreamKey, margin);
+		fdGroup.right = new FormAttachment(100, 0);
+		wGroup.setLayoutData(fdGroup);
+		// Prefix of the consumer names, followed by the number of the step copy
+		wlConsumer = new Label(wStreamComp, SWT.RIGHT);
+		wlConsumer.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.Consumer.Label"));
+		props.setLook(wlConsumer);
+		fdlConsumer = new FormData();
+		fdlConsumer.left = new FormAttachment(0, 0);
+		fdlConsumer.right = new FormAttachment(middle, -margin);
+		fdlConsumer.top = new FormAttachment(wGroup, margin);
+		wlConsumer.setLayoutData(fdlConsumer);
+		wConsumer = new TextVar(transMeta, wStreamComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wConsumer);
+		wConsumer.addModifyListener(lsMod);
+		fdConsumer = new FormData();
+		fdConsumer.left = new FormAttachment(middle, 0);
+		fdConsumer.top = new FormAttachment(wGroup, margin);
+		fdConsumer.right = new FormAttachment(100, 0);
+		wConsumer.setLayoutData(fdConsumer);
+		// Creates the group and the stream when they do not exist
+		wlCreateGroup = new Label(wStreamComp, SWT.RIGHT);
+		wlCreateGroup.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.CreateGroup.Label"));
+		props.setLook(wlCreateGroup);
+		fdlCreateGroup = new FormData();
+		fdlCreateGroup.left = new FormAttachment(0, 0);
+		fdlCreateGroup.right = new FormAttachment(middle, -margin);
+		fdlCreateGroup.top = new FormAttachment(wConsumer, margin);
+		wlCreateGroup.setLayoutData(fdlCreateGroup);
+		wCreateGroup = new Button(wStreamComp, SWT.CHECK);
+		props.setLook(wCreateGroup);
+		fdCreateGroup = new FormData();
+		fdCreateGroup.left = new FormAttachment(middle, 0);
+		fdCreateGroup.top = new FormAttachment(wConsumer, margin);
+		fdCreateGroup.right = new FormAttachment(100, 0);
+		wCreateGroup.setLayoutData(fdCreateGroup);
+		wCreateGroup.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+				wStartId.setEnabled(wCreateGroup.getSelection());
+			}
+		});
+		// Position of a new group in the stream
+		wlStartId = new Label(wStreamComp, SWT.RIGHT);
+		wlStartId.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.StartId.Label"));
+		props.setLook(wlStartId);
+		fdlStartId = new FormData();
+		fdlStartId.left = new FormAttachment(0, 0);
+		fdlStartId.right = new FormAttachment(middle, -margin);
+		fdlStartId.top = new FormAttachment(wCreateGroup, margin);
+		wlStartId.setLayoutData(fdlStartId);
+		wStartId = new TextVar(transMeta, wStreamComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wStartId);
+		wStartId.addModifyListener(lsMod);
+		fdStartId = new FormData();
+		fdStartId.left = new FormAttachment(middle, 0);
+		fdStartId.top = new FormAttachment(wCreateGroup, margin);
+		fdStartId.right = new FormAttachment(100, 0);
+		wStartId.setLayoutData(fdStartId);
+		// Number of entries read at once
+		wlBatchSize = new Label(wStreamComp, SWT.RIGHT);
+		wlBatchSize.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.BatchSize.Label"));
+		props.setLook(wlBatchSize);
+		fdlBatchSize = new FormData();
+		fdlBatchSize.left = new FormAttachment(0, 0);
+		fdlBatchSize.right = new FormAttachment(middle, -margin);
+		fdlBatchSize.top = new FormAttachment(wStartId, margin);
+		wlBatchSize.setLayoutData(fdlBatchSize);
+		wBatchSize = new TextVar(transMeta, wStreamComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wBatchSize);
+		wBatchSize.addModifyListener(lsMod);
+		fdBatchSize = new FormData();
+		fdBatchSize.left = new FormAttachment(middle, 0);
+		fdBatchSize.top = new FormAttachment(wStartId, margin);
+		fdBatchSize.right = new FormAttachment(100, 0);
+		wBatchSize.setLayoutData(fdBatchSize);
+		// Time a read waits for new entries
+		wlBlockTimeout = new Label(wStreamComp, SWT.RIGHT);
+		wlBlockTimeout.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.BlockTimeout.Label"));
+		props.setLook(wlBlockTimeout);
+		fdlBlockTimeout = new FormData();
+		fdlBlockTimeout.left = new FormAttachment(0, 0);
+		fdlBlockTimeout.right = new FormAttachment(middle, -margin);
+		fdlBlockTimeout.top = new FormAttachment(wBatchSize, margin);
+		wlBlockTimeout.setLayoutData(fdlBlockTimeout);
+		wBlockTimeout = new TextVar(transMeta, wStreamComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wBlockTimeout);
+		wBlockTimeout.addModifyListener(lsMod);
+		fdBlockTimeout = new FormData();
+		fdBlockTimeout.left = new FormAttachment(middle, 0);
+		fdBlockTimeout.top = new FormAttachment(wBatchSize, margin);
+		fdBlockTimeout.right = new FormAttachment(100, 0);
+		wBlockTimeout.setLayoutData(fdBlockTimeout);
+		// Idle time of the pending entries claimed from the other consumers
+		wlClaimIdle = new Label(wStreamComp, SWT.RIGHT);
+		wlClaimIdle.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.ClaimIdle.Label"));
+		props.setLook(wlClaimIdle);
+		fdlClaimIdle = new FormData();
+		fdlClaimIdle.left = new FormAttachment(0, 0);
+		fdlClaimIdle.right = new FormAttachment(middle, -margin);
+		fdlClaimIdle.top = new FormAttachment(wBlockTimeout, margin);
+		wlClaimIdle.setLayoutData(fdlClaimIdle);
+		wClaimIdle = new TextVar(transMeta, wStreamComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wClaimIdle);
+		wClaimIdle.addModifyListener(lsMod);
+		fdClaimIdle = new FormData();
+		fdClaimIdle.left = new FormAttachment(middle, 0);
+		fdClaimIdle.top = new FormAttachment(wBlockTimeout, margin);
+		fdClaimIdle.right = new FormAttachment(100, 0);
+		wClaimIdle.setLayoutData(fdClaimIdle);
+		// Ends the step when there are no new entries
+		wlStopWhenIdle = new Label(wStreamComp, SWT.RIGHT);
+		wlStopWhenIdle.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.StopWhenIdle.Label"));
+		props.setLook(wlStopWhenIdle);
+		fdlStopWhenIdle = new FormData();
+		fdlStopWhenIdle.left = new FormAttachment(0, 0);
+		fdlStopWhenIdle.right = new FormAttachment(middle, -margin);
+		fdlStopWhenIdle.top = new FormAttachment(wClaimIdle, margin);
+		wlStopWhenIdle.setLayoutData(fdlStopWhenIdle);
+		wStopWhenIdle = new Button(wStreamComp, SWT.CHECK);
+		props.setLook(wStopWhenIdle);
+		fdStopWhenIdle = new FormData();
+		fdStopWhenIdle.left = new FormAttachment(middle, 0);
+		fdStopWhenIdle.top = new FormAttachment(wClaimIdle, margin);
+		fdStopWhenIdle.right = new FormAttachment(100, 0);
+		wStopWhenIdle.setLayoutData(fdStopWhenIdle);
+		wStopWhenIdle.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		// Number of entries after which the step ends
+		wlMaxEntries = new Label(wStreamComp, SWT.RIGHT);
+		wlMaxEntries.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.MaxEntries.Label"));
+		props.setLook(wlMaxEntries);
+		fdlMaxEntries = new FormData();
+		fdlMaxEntries.left = new FormAttachment(0, 0);
+		fdlMaxEntries.right = new FormAttachment(middle, -margin);
+		fdlMaxEntries.top = new FormAttachment(wStopWhenIdle, margin);
+		wlMaxEntries.setLayoutData(fdlMaxEntries);
+		wMaxEntries = new TextVar(transMeta, wStreamComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wMaxEntries);
+		wMaxEntries.addModifyListener(lsMod);
+		fdMaxEntries = new FormData();
+		fdMaxEntries.left = new FormAttachment(middle, 0);
+		fdMaxEntries.top = new FormAttachment(wStopWhenIdle, margin);
+		fdMaxEntries.right = new FormAttachment(100, 0);
+		wMaxEntries.setLayoutData(fdMaxEntries);
+		fdStreamComp = new FormData();
+		fdStreamComp.left = new FormAttachment(0, 0);
+		fdStreamComp.top = new FormAttachment(0, 0);
+		fdStreamComp.right = new FormAttachment(100, 0);
+		fdStreamComp.bottom = new FormAttachment(100, 0);
+		wStreamComp.setLayoutData(fdStreamComp);
+		wStreamComp.layout();
+		wStreamTab.setControl(wStreamComp);
+
+		// Fields tab
+		wFieldsTab = new CTabItem(wTabFolder, SWT.NONE);
+		wFieldsTab.setText(BaseMessages.getString(PKG, "RedisStreamInputDialog.FieldsTab.Title"));
+		wFieldsComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wFieldsComp);
+		FormLayout fieldsLayout = new FormLayout();
+		fieldsLayout.marginWidth = 3;
+		fieldsLayout.marginHeight = 3;
+		wFieldsComp.setLayout(fieldsLayout);
+		// Output field of the entry id
+		wlIdField = new Label(wFieldsComp, SWT.RIGHT);
+		wlIdField.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.IdField.Label"));
+		props.setLook(wlIdField);
+		fdlIdField = new FormData();
+		fdlIdField.left = new FormAttachment(0, 0);
+		fdlIdField.right = new FormAttachment(middle, -margin);
+		fdlIdField.top = new FormAttachment(0, margin);
+		wlIdField.setLayoutData(fdlIdField);
+		wIdField = new TextVar(transMeta, wFieldsComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wIdField);
+		wIdField.addModifyListener(lsMod);
+		fdIdField = new FormData();
+		fdIdField.left = new FormAttachment(middle, 0);
+		fdIdField.top = new FormAttachment(0, margin);
+		fdIdField.right = new FormAttachment(100, 0);
+		wIdField.setLayoutData(fdIdField);
+		// Output field of the whole entry as JSON, when no entry field is listed
+		wlJsonField = new Label(wFieldsComp, SWT.RIGHT);
+		wlJsonField.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.JsonField.Label"));
+		props.setLook(wlJsonField);
+		fdlJsonField = new FormData();
+		fdlJsonField.left = new FormAttachment(0, 0);
+		fdlJsonField.right = new FormAttachment(middle, -margin);
+		fdlJsonField.top = new FormAttachment(wIdField, margin);
+		wlJsonField.setLayoutData(fdlJsonField);
+		wJsonField = new TextVar(transMeta, wFieldsComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wJsonField);
+		wJsonField.addModifyListener(lsMod);
+		fdJsonField = new FormData();
+		fdJsonField.left = new FormAttachment(middle, 0);
+		fdJsonField.top = new FormAttachment(wIdField, margin);
+		fdJsonField.right = new FormAttachment(100, 0);
+		wJsonField.setLayoutData(fdJsonField);
+		// Fields of the entries
+		wlEntries = new Label(wFieldsComp, SWT.NONE);
+		wlEntries.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.Entries.Label"));
+		props.setLook(wlEntries);
+		fdlEntries = new FormData();
+		fdlEntries.left = new FormAttachment(0, 0);
+		fdlEntries.top = new FormAttachment(wJsonField, margin);
+		wlEntries.setLayoutData(fdlEntries);
+		ColumnInfo[] entryColumns = new ColumnInfo[] {
+				new ColumnInfo(BaseMessages.getString(PKG, "RedisStreamInputDialog.Entries.Name.Column"),
+						ColumnInfo.COLUMN_TYPE_TEXT, false),
+				new ColumnInfo(BaseMessages.getString(PKG, "RedisStreamInputDialog.Entries.Field.Column"),
+						ColumnInfo.COLUMN_TYPE_TEXT, false) };
+		wEntries = new TableView(transMeta, wFieldsComp, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI,
+				entryColumns, input.getEntryName().length, lsMod, props);
+		fdEntries = new FormData();
+		fdEntries.left = new FormAttachment(0, 0);
+		fdEntries.top = new FormAttachment(wlEntries, margin);
+		fdEntries.right = new FormAttachment(100, 0);
+		fdEntries.bottom = new FormAttachment(100, -margin);
+		wEntries.setLayoutData(fdEntries);
+		fdFieldsComp = new FormData();
+		fdFieldsComp.left = new FormAttachment(0, 0);
+		fdFieldsComp.top = new FormAttachment(0, 0);
+		fdFieldsComp.right = new FormAttachment(100, 0);
+		fdFieldsComp.bottom = new FormAttachment(100, 0);
+		wFieldsComp.setLayoutData(fdFieldsComp);
+		wFieldsComp.layout();
+		wFieldsTab.setControl(wFieldsComp);
+
+		// Pool tab
+		wPoolTab = new CTabItem(wTabFolder, SWT.NONE);
+		wPoolTab.setText(BaseMessages.getString(PKG, "RedisStreamInputDialog.PoolTab.Title"));
+		wPoolComp = new Composite(wTabFolder, SWT.NONE);
+		props.setLook(wPoolComp);
+		FormLayout poolLayout = new FormLayout();
+		poolLayout.marginWidth = 3;
+		poolLayout.marginHeight = 3;
+		wPoolComp.setLayout(poolLayout);
+		// Max total connections
+		wlPoolMaxTotal = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMaxTotal.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.PoolMaxTotal.Label"));
+		props.setLook(wlPoolMaxTotal);
+		fdlPoolMaxTotal = new FormData();
+		fdlPoolMaxTotal.left = new FormAttachment(0, 0);
+		fdlPoolMaxTotal.right = new FormAttachment(middle, -margin);
+		fdlPoolMaxTotal.top = new FormAttachment(0, margin);
+		wlPoolMaxTotal.setLayoutData(fdlPoolMaxTotal);
+		wPoolMaxTotal = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMaxTotal);
+		wPoolMaxTotal.addModifyListener(lsMod);
+		fdPoolMaxTotal = new FormData();
+		fdPoolMaxTotal.left = new FormAttachment(middle, 0);
+		fdPoolMaxTotal.top = new FormAttachment(0, margin);
+		fdPoolMaxTotal.right = new FormAttachment(100, 0);
+		wPoolMaxTotal.setLayoutData(fdPoolMaxTotal);
+		// Max idle connections
+		wlPoolMaxIdle = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMaxIdle.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.PoolMaxIdle.Label"));
+		props.setLook(wlPoolMaxIdle);
+		fdlPoolMaxIdle = new FormData();
+		fdlPoolMaxIdle.left = new FormAttachment(0, 0);
+		fdlPoolMaxIdle.right = new FormAttachment(middle, -margin);
+		fdlPoolMaxIdle.top = new FormAttachment(wPoolMaxTotal, margin);
+		wlPoolMaxIdle.setLayoutData(fdlPoolMaxIdle);
+		wPoolMaxIdle = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMaxIdle);
+		wPoolMaxIdle.addModifyListener(lsMod);
+		fdPoolMaxIdle = new FormData();
+		fdPoolMaxIdle.left = new FormAttachment(middle, 0);
+		fdPoolMaxIdle.top = new FormAttachment(wPoolMaxTotal, margin);
+		fdPoolMaxIdle.right = new FormAttachment(100, 0);
+		wPoolMaxIdle.setLayoutData(fdPoolMaxIdle);
+		// Min idle connections
+		wlPoolMinIdle = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMinIdle.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.PoolMinIdle.Label"));
+		props.setLook(wlPoolMinIdle);
+		fdlPoolMinIdle = new FormData();
+		fdlPoolMinIdle.left = new FormAttachment(0, 0);
+		fdlPoolMinIdle.right = new FormAttachment(middle, -margin);
+		fdlPoolMinIdle.top = new FormAttachment(wPoolMaxIdle, margin);
+		wlPoolMinIdle.setLayoutData(fdlPoolMinIdle);
+		wPoolMinIdle = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMinIdle);
+		wPoolMinIdle.addModifyListener(lsMod);
+		fdPoolMinIdle = new FormData();
+		fdPoolMinIdle.left = new FormAttachment(middle, 0);
+		fdPoolMinIdle.top = new FormAttachment(wPoolMaxIdle, margin);
+		fdPoolMinIdle.right = new FormAttachment(100, 0);
+		wPoolMinIdle.setLayoutData(fdPoolMinIdle);
+		// Max wait to borrow a connection
+		wlPoolMaxWait = new Label(wPoolComp, SWT.RIGHT);
+		wlPoolMaxWait.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.PoolMaxWait.Label"));
+		props.setLook(wlPoolMaxWait);
+		fdlPoolMaxWait = new FormData();
+		fdlPoolMaxWait.left = new FormAttachment(0, 0);
+		fdlPoolMaxWait.right = new FormAttachment(middle, -margin);
+		fdlPoolMaxWait.top = new FormAttachment(wPoolMinIdle, margin);
+		wlPoolMaxWait.setLayoutData(fdlPoolMaxWait);
+		wPoolMaxWait = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wPoolMaxWait);
+		wPoolMaxWait.addModifyListener(lsMod);
+		fdPoolMaxWait = new FormData();
+		fdPoolMaxWait.left = new FormAttachment(middle, 0);
+		fdPoolMaxWait.top = new FormAttachment(wPoolMinIdle, margin);
+		fdPoolMaxWait.right = new FormAttachment(100, 0);
+		wPoolMaxWait.setLayoutData(fdPoolMaxWait);
+		// Connect timeout
+		wlConnectTimeout = new Label(wPoolComp, SWT.RIGHT);
+		wlConnectTimeout.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.ConnectTimeout.Label"));
+		props.setLook(wlConnectTimeout);
+		fdlConnectTimeout = new FormData();
+		fdlConnectTimeout.left = new FormAttachment(0, 0);
+		fdlConnectTimeout.right = new FormAttachment(middle, -margin);
+		fdlConnectTimeout.top = new FormAttachment(wPoolMaxWait, margin);
+		wlConnectTimeout.setLayoutData(fdlConnectTimeout);
+		wConnectTimeout = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wConnectTimeout);
+		wConnectTimeout.addModifyListener(lsMod);
+		fdConnectTimeout = new FormData();
+		fdConnectTimeout.left = new FormAttachment(middle, 0);
+		fdConnectTimeout.top = new FormAttachment(wPoolMaxWait, margin);
+		fdConnectTimeout.right = new FormAttachment(100, 0);
+		wConnectTimeout.setLayoutData(fdConnectTimeout);
+		// Socket timeout
+		wlSocketTimeout = new Label(wPoolComp, SWT.RIGHT);
+		wlSocketTimeout.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.SocketTimeout.Label"));
+		props.setLook(wlSocketTimeout);
+		fdlSocketTimeout = new FormData();
+		fdlSocketTimeout.left = new FormAttachment(0, 0);
+		fdlSocketTimeout.right = new FormAttachment(middle, -margin);
+		fdlSocketTimeout.top = new FormAttachment(wConnectTimeout, margin);
+		wlSocketTimeout.setLayoutData(fdlSocketTimeout);
+		wSocketTimeout = new TextVar(transMeta, wPoolComp, SWT.SINGLE | SWT.LEFT
+				| SWT.BORDER);
+		props.setLook(wSocketTimeout);
+		wSocketTimeout.addModifyListener(lsMod);
+		fdSocketTimeout = new FormData();
+		fdSocketTimeout.left = new FormAttachment(middle, 0);
+		fdSocketTimeout.top = new FormAttachment(wConnectTimeout, margin);
+		fdSocketTimeout.right = new FormAttachment(100, 0);
+		wSocketTimeout.setLayoutData(fdSocketTimeout);
+		// Test on borrow
+		wlTestOnBorrow = new Label(wPoolComp, SWT.RIGHT);
+		wlTestOnBorrow.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.TestOnBorrow.Label"));
+		props.setLook(wlTestOnBorrow);
+		fdlTestOnBorrow = new FormData();
+		fdlTestOnBorrow.left = new FormAttachment(0, 0);
+		fdlTestOnBorrow.right = new FormAttachment(middle, -margin);
+		fdlTestOnBorrow.top = new FormAttachment(wSocketTimeout, margin);
+		wlTestOnBorrow.setLayoutData(fdlTestOnBorrow);
+		wTestOnBorrow = new Button(wPoolComp, SWT.CHECK);
+		props.setLook(wTestOnBorrow);
+		fdTestOnBorrow = new FormData();
+		fdTestOnBorrow.left = new FormAttachment(middle, 0);
+		fdTestOnBorrow.top = new FormAttachment(wSocketTimeout, margin);
+		fdTestOnBorrow.right = new FormAttachment(100, 0);
+		wTestOnBorrow.setLayoutData(fdTestOnBorrow);
+		wTestOnBorrow.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		// Cluster mode, the hostname is a seed node of the cluster
+		wlClusterMode = new Label(wPoolComp, SWT.RIGHT);
+		wlClusterMode.setText(BaseMessages.getString(PKG,
+				"RedisStreamInputDialog.ClusterMode.Label"));
+		props.setLook(wlClusterMode);
+		fdlClusterMode = new FormData();
+		fdlClusterMode.left = new FormAttachment(0, 0);
+		fdlClusterMode.right = new FormAttachment(middle, -margin);
+		fdlClusterMode.top = new FormAttachment(wTestOnBorrow, margin);
+		wlClusterMode.setLayoutData(fdlClusterMode);
+		wClusterMode = new Button(wPoolComp, SWT.CHECK);
+		props.setLook(wClusterMode);
+		fdClusterMode = new FormData();
+		fdClusterMode.left = new FormAttachment(middle, 0);
+		fdClusterMode.top = new FormAttachment(wTestOnBorrow, margin);
+		fdClusterMode.right = new FormAttachment(100, 0);
+		wClusterMode.setLayoutData(fdClusterMode);
+		wClusterMode.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent arg0) {
+				input.setChanged();
+			}
+		});
+		fdPoolComp = new FormData();
+		fdPoolComp.left = new FormAttachment(0, 0);
+		fdPoolComp.top = new FormAttachment(0, 0);
+		fdPoolComp.right = new FormAttachment(100, 0);
+		fdPoolComp.bottom = new FormAttachment(100, 0);
+		wPoolComp.setLayoutData(fdPoolComp);
+		wPoolComp.layout();
+		wPoolTab.setControl(wPoolComp);
+
+		fdTabFolder = new FormData();
+		fdTabFolder.left = new FormAttachment(0, 0);
+		fdTabFolder.top = new FormAttachment(wStepname, margin);
+		fdTabFolder.right = new FormAttachment(100, 0);
+		fdTabFolder.bottom = new FormAttachment(100, -50);
+		wTabFolder.setLayoutData(fdTabFolder);
+		wTabFolder.setSelection(0);
+
+		// Some buttons
+		wOK = new Button(shell, SWT.PUSH);
+		wOK.setText(BaseMessages.getString(PKG, "System.Button.OK"));
+		wCancel = new Button(shell, SWT.PUSH);
+		wCancel.setText(BaseMessages.getString(PKG, "System.Button.Cancel"));
+		setButtonPositions(new Button[] { wOK, wCancel }, margin, wTabFolder);
+		// Add listeners
+		lsCancel = new Listener() {
+			public void handleEvent(Event e) {
+				cancel();
+			}
+		};
+		lsOK = new Listener() {
+			public void handleEvent(Event e) {
+				ok();
+			}
+		};
+		wCancel.addListener(SWT.Selection, lsCancel);
+		wOK.addListener(SWT.Selection, lsOK);
+		lsDef = new SelectionAdapter() {
+			public void widgetDefaultSelected(SelectionEvent e) {
+				ok();
+			}
+		};
+		wStepname.addSelectionListener(lsDef);
+		// Detect X or ALT-F4 or something that kills this window...
+		shell.addShellListener(new ShellAdapter() {
+			public void shellClosed(ShellEvent e) {
+				cancel();
+			}
+		});
+		// Set the shell size, based upon previous time...
+		setSize();
+		fillData();
+		input.setChanged(changed);
+		shell.open();
+		while (!shell.isDisposed()) {
+			if (!display.readAndDispatch())
+				display.sleep();
+		}
+		return stepname;
+	}
+
+	/**
+	 * Copy information from the meta-data input to the dialog fields.
+	 */
+	public void fillData() {
+		if (!Const.isEmpty(input.getHostname())) {
+			wHostname.setText(input.getHostname());
+		}
+		if (!Const.isEmpty(input.getPort())) {
+			wPort.setText(input.getPort());
+		}
+		if (!Const.isEmpty(input.getPassword())) {
+			wPassword.setText(input.getPassword());
+		}
+		if (!Const.isEmpty(input.getBase())) {
+			wBase.setText(input.getBase());
+		}
+		if (!Const.isEmpty(input.getStreamKey())) {
+			wStreamKey.setText(input.getStreamKey());
+		}
+		if (!Const.isEmpty(input.getGroup())) {
+			wGroup.setText(input.getGroup());
+		}
+		if (!Const.isEmpty(input.getConsumer())) {
+			wConsumer.setText(input.getConsumer());
+		}
+		if (!Const.isEmpty(input.getStartId())) {
+			wStartId.setText(input.getStartId());
+		}
+		if (!Const.isEmpty(input.getBatchSize())) {
+			wBatchSize.setText(input.getBatchSize());
+		}
+		if (!Const.isEmpty(input.getBlockTimeout())) {
+			wBlockTimeout.setText(input.getBlockTimeout());
+		}
+		if (!Const.isEmpty(input.getClaimIdle())) {
+			wClaimIdle.setText(input.getClaimIdle());
+		}
+		if (!Const.isEmpty(input.getMaxEntries())) {
+			wMaxEntries.setText(input.getMaxEntries());
+		}
+		if (!Const.isEmpty(input.getIdField())) {
+			wIdField.setText(input.getIdField());
+		}
+		if (!Const.isEmpty(input.getJsonField())) {
+			wJsonField.setText(input.getJsonField());
+		}
+		if (!Const.isEmpty(input.getPoolMaxTotal())) {
+			wPoolMaxTotal.setText(input.getPoolMaxTotal());
+		}
+		if (!Const.isEmpty(input.getPoolMaxIdle())) {
+			wPoolMaxIdle.setText(input.getPoolMaxIdle());
+		}
+		if (!Const.isEmpty(input.getPoolMinIdle())) {
+			wPoolMinIdle.setText(input.getPoolMinIdle());
+		}
+		if (!Const.isEmpty(input.getPoolMaxWait())) {
+			wPoolMaxWait.setText(input.getPoolMaxWait());
+		}
+		if (!Const.isEmpty(input.getConnectTimeout())) {
+			wConnectTimeout.setText(input.getConnectTimeout());
+		}
+		if (!Const.isEmpty(input.getSocketTimeout())) {
+			wSocketTimeout.setText(input.getSocketTimeout());
+		}
+		wCreateGroup.setSelection(input.isCreateGroup());
+		wStopWhenIdle.setSelection(input.isStopWhenIdle());
+		wTestOnBorrow.setSelection(input.isTestOnBorrow());
+		wClusterMode.setSelection(input.isClusterMode());
+		wStartId.setEnabled(input.isCreateGroup());
+		for (int i = 0; i < input.getEntryName().length; i++) {
+			TableItem item = wEntries.table.getItem(i);
+			item.setText(1, Const.NVL(input.getEntryName()[i], ""));
+			item.setText(2, Const.NVL(input.getEntryField()[i], ""));
+		}
+		wEntries.setRowNums();
+		wEntries.optWidth(true);
+
+		wStepname.selectAll();
+		wStepname.setFocus();
+	}
+
+	private void cancel() {
+		stepname = null;
+		input.setChanged(changed);
+		dispose();
+	}
+
+	private void ok() {
+		if (Const.isEmpty(wStepname.getText()))
+			return;
+		stepname = wStepname.getText(); // return value
+		input.setHostname(wHostname.getText());
+		input.setPort(wPort.getText());
+		input.setPassword(wPassword.getText());
+		input.setBase(wBase.getText());
+		input.setStreamKey(wStreamKey.getText());
+		input.setGroup(wGroup.getText());
+		input.setConsumer(wConsumer.getText());
+		input.setStartId(wStartId.getText());
+		input.setBatchSize(wBatchSize.getText());
+		input.setBlockTimeout(wBlockTimeout.getText());
+		input.setClaimIdle(wClaimIdle.getText());
+		input.setMaxEntries(wMaxEntries.getText());
+		input.setIdField(wIdField.getText());
+		input.setJsonField(wJsonField.getText());
+		input.setPoolMaxTotal(wPoolMaxTotal.getText());
+		input.setPoolMaxIdle(wPoolMaxIdle.getText());
+		input.setPoolMinIdle(wPoolMinIdle.getText());
+		input.setPoolMaxWait(wPoolMaxWait.getText());
+		input.setConnectTimeout(wConnectTimeout.getText());
+		input.setSocketTimeout(wSocketTimeout.getText());
+		input.setCreateGroup(wCreateGroup.getSelection());
+		input.setStopWhenIdle(wStopWhenIdle.getSelection());
+		input.setTestOnBorrow(wTestOnBorrow.getSelection());
+		input.setClusterMode(wClusterMode.getSelection());
+		int nrEntries = wEntries.nrNonEmpty();
+		input.allocate(nrEntries);
+		for (int i = 0; i < nrEntries; i++) {
+			TableItem item = wEntries.getNonEmpty(i);
+			input.getEntryName()[i] = item.getText(1);
+			input.getEntryField()[i] = item.getText(2);
+		}
+		dispose();
+	}
+}
@@ -0,0 +1,697 @@
+/*******************************************************************************
+ *
+ * Pentaho Data Integration
+ *
+ * Copyright (C) 2002-2012 by Pentaho : http://www.pentaho.com
+ *
+ *******************************************************************************
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package com.linalis.pdi.steps.redisStreamInput;
+
+import java.util.List;
+
+import org.pentaho.di.core.CheckResult;
+import org.pentaho.di.core.CheckResultInterface;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.annotations.Step;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.encryption.Encr;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettlePluginException;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.exception.KettleXMLException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaFactory;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.xml.XMLHandler;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.repository.ObjectId;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStepMeta;
+import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.metastore.api.IMetaStore;
+import org.w3c.dom.Node;
+
+import com.linalis.pdi.steps.redis.RedisConnectionMeta;
+
+/**
+ * The Redis Stream Input step reads the entries of a Redis stream through a consumer group,
+ * and outputs one row per entry. Each copy of the step is a consumer of the group.
+ *
+ */
+@Step(id = "RedisStreamInput", image = "img/redis-input.png", name = "Redis Stream Input", description = "Reads a Redis stream through a consumer group", categoryDescription = "Input")
+public class RedisStreamInputMeta extends BaseStepMeta implements
+		StepMetaInterface, RedisConnectionMeta {
+	private static Class<?> PKG = RedisStreamInputMeta.class; // for i18n
+																// purposes,
+																// needed by
+																// Translator2!!
+																// $NON-NLS-1$
+
+	/**
+	 * Prefix of the consumer names, followed by the number of the step copy
+	 */
+	public static final String DEFAULT_CONSUMER = "pdi";
+	
+	/**
+	 * Position of a new group in the stream : only the entries added from now on
+	 */
+	public static final String DEFAULT_START_ID = "$";
+	
+	/**
+	 * Number of entries read at once, time a read waits for new entries in milliseconds,
+	 * and idle time in milliseconds after which the pending entries of another consumer are claimed
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	public static final long DEFAULT_BLOCK_TIMEOUT = 1000;
+	public static final long DEFAULT_CLAIM_IDLE = 60000;
+
+	private String hostname;
+	private String port;
+	private String password;
+	private String base;
+	private String poolMaxTotal = "8";
+	private String poolMaxIdle = "8";
+	private String poolMinIdle = "0";
+	private String poolMaxWait = "-1";
+	private String connectTimeout = "2000";
+	private String socketTimeout = "2000";
+	private boolean testOnBorrow = false;
+	private boolean clusterMode = false;
+	private String streamKey;
+	private String group;
+	private String consumer = DEFAULT_CONSUMER;
+	private boolean createGroup = true;
+	private String startId = DEFAULT_START_ID;
+	private String batchSize = String.valueOf(DEFAULT_BATCH_SIZE);
+	private String blockTimeout = String.valueOf(DEFAULT_BLOCK_TIMEOUT);
+	private String claimIdle = String.valueOf(DEFAULT_CLAIM_IDLE);
+	private boolean stopWhenIdle = false;
+	private String maxEntries;
+	private String idField = "id";
+	private String jsonField = "fields";
+	/**
+	 * Entries of the stream written to their own field, and the name of their field, the entry name when empty.
+	 * When no entry is listed, the whole entry goes to the JSON field.
+	 */
+	private String[] entryName = new String[0];
+	private String[] entryField = new String[0];
+
+	public RedisStreamInputMeta() {
+		super(); // allocate BaseStepMeta
+	}
+
+	public void loadXML(Node stepnode, List<DatabaseMeta> databases,
+			IMetaStore metaStore) throws KettleXMLException {
+		readData(stepnode);
+	}
+
+	public Object clone() {
+		RedisStreamInputMeta retval = (RedisStreamInputMeta) super.clone();
+		retval.setHostname(this.hostname);
+		retval.setPort(this.port);
+		retval.setPassword(this.password);
+		retval.setBase(this.base);
+		retval.setPoolMaxTotal(this.poolMaxTotal);
+		retval.setPoolMaxIdle(this.poolMaxIdle);
+		retval.setPoolMinIdle(this.poolMinIdle);
+		retval.setPoolMaxWait(this.poolMaxWait);
+		retval.setConnectTimeout(this.connectTimeout);
+		retval.setSocketTimeout(this.socketTimeout);
+		retval.setTestOnBorrow(this.testOnBorrow);
+		retval.setClusterMode(this.clusterMode);
+		retval.setStreamKey(this.streamKey);
+		retval.setGroup(this.group);
+		retval.setConsumer(this.consumer);
+		retval.setCreateGroup(this.createGroup);
+		retval.setStartId(this.startId);
+		retval.setBatchSize(this.batchSize);
+		retval.setBlockTimeout(this.blockTimeout);
+		retval.setClaimIdle(this.claimIdle);
+		retval.setStopWhenIdle(this.stopWhenIdle);
+		retval.setMaxEntries(this.maxEntries);
+		retval.setIdField(this.idField);
+		retval.setJsonField(this.jsonField);
+		retval.allocate(this.entryName.length);
+		System.arraycopy(this.entryName, 0, retval.entryName, 0, this.entryName.length);
+		System.arraycopy(this.entryField, 0, retval.entryField, 0, this.entryField.length);
+		return retval;
+	}
+
+	public void setDefault() {
+		this.hostname = null;
+		this.port = null;
+		this.password = null;
+		this.base = null;
+		this.poolMaxTotal = "8";
+		this.poolMaxIdle = "8";
+		this.poolMinIdle = "0";
+		this.poolMaxWait = "-1";
+		this.connectTimeout = "2000";
+		this.socketTimeout = "2000";
+		this.testOnBorrow = false;
+		this.clusterMode = false;
+		this.streamKey = null;
+		this.group = null;
+		this.consumer = DEFAULT_CONSUMER;
+		this.createGroup = true;
+		this.startId = DEFAULT_START_ID;
+		this.batchSize = String.valueOf(DEFAULT_BATCH_SIZE);
+		this.blockTimeout = String.valueOf(DEFAULT_BLOCK_TIMEOUT);
+		this.claimIdle = String.valueOf(DEFAULT_CLAIM_IDLE);
+		this.stopWhenIdle = false;
+		this.maxEntries = null;
+		this.idField = "id";
+		this.jsonField = "fields";
+		allocate(0);
+	}
+
+	public void getFields(RowMetaInterface inputRowMeta, String origin,
+			RowMetaInterface[] info, StepMeta nextStep, VariableSpace space,
+			Repository repository, IMetaStore metaStore)
+			throws KettleStepException {
+		// The step does not read any input, its rows are made of the id of the entry and its fields
+		inputRowMeta.clear();
+		if (Const.isEmpty(this.idField)) {
+			throw new KettleStepException(BaseMessages.getString(PKG,
+					"RedisStreamInputMeta.Exception.IdFieldNameNotFound"));
+		}
+		addField(inputRowMeta, this.idField, origin);
+		if (this.entryName.length > 0) {
+			for (int i = 0; i < this.entryName.length; i++)
+				addField(inputRowMeta, getEntryFieldName(i), origin);
+		} else if (!Const.isEmpty(this.jsonField)) {
+			addField(inputRowMeta, this.jsonField, origin);
+		} else {
+			throw new KettleStepException(BaseMessages.getString(PKG,
+					"RedisStreamInputMeta.Exception.JsonFieldNameNotFound"));
+		}
+	}
+	
+	/**
+	 * Adds the string field to the row if not found, else replaces it
+	 */
+	private static void addField(RowMetaInterface rowMeta, String name, String origin) throws KettleStepException {
+		ValueMetaInterface v;
+		try {
+			v = ValueMetaFactory.createValueMeta(name, ValueMetaInterface.TYPE_STRING);
+		} catch (KettlePluginException e) {
+			throw new KettleStepException(BaseMessages.getString(PKG,
+					"RedisStreamInputMeta.Exception.ValueTypeNameNotFound"), e);
+		}
+		v.setOrigin(origin);
+		int index = rowMeta.indexOfValue(name);
+		if (index < 0) {
+			rowMeta.addValueMeta(v);
+		} else {
+			rowMeta.setValueMeta(index, v);
+		}
+	}
+
+	public void check(List<CheckResultInterface> remarks, TransMeta transMeta,
+			StepMeta stepMeta, RowMetaInterface prev, String input[],
+			String output[], RowMetaInterface info, VariableSpace space,
+			Repository repository, IMetaStore metaStore) {
+		CheckResult cr;
+		if (Const.isEmpty(this.streamKey) || Const.isEmpty(this.group)) {
+			cr = new CheckResult(CheckResultInterface.TYPE_RESULT_ERROR,
+					BaseMessages.getString(PKG,
+							"RedisStreamInputMeta.CheckResult.NoStreamOrGroup"),
+					stepMeta);
+			remarks.add(cr);
+		} else {
+			cr = new CheckResult(CheckResultInterface.TYPE_RESULT_OK,
+					BaseMessages.getString(PKG,
+							"RedisStreamInputMeta.CheckResult.StreamAndGroup"),
+					stepMeta);
+			remarks.add(cr);
+		}
+		// The rows come from the stream, the input of the step is ignored
+		if (input.length > 0) {
+			cr = new CheckResult(CheckResultInterface.TYPE_RESULT_WARNING,
+					BaseMessages.getString(PKG,
+							"RedisStreamInputMeta.CheckResult.InputIgnored"),
+					stepMeta);
+			remarks.add(cr);
+		}
+	}
+
+	public StepInterface getStep(StepMeta stepMeta,
+			StepDataInterface stepDataInterface, int cnr, TransMeta tr,
+			Trans trans) {
+		return new RedisStreamInput(stepMeta, stepDataInterface, cnr, tr, trans);
+	}
+
+	public StepDataInterface getStepData() {
+		return new RedisStreamInputData();
+	}
+	
+	public String getHostname()
+	{
+		return hostname;
+	}
+	
+	public void setHostname(String hostname)
+	{
+		this.hostname=hostname;
+	}
+	
+	public String getPort()
+	{
+		return port;
+	}
+	
+	public void setPort(String port)
+	{
+		this.port=port;
+	}
+	
+	public String getPassword()
+	{
+		return password;
+	}
+	
+	public void setPassword(String password)
+	{
+		this.password=password;
+	}
+	
+	public String getBase()
+	{
+		return base;
+	}
+	
+	public void setBase(String base)
+	{
+		this.base=base;
+	}
+	
+	public String getPoolMaxTotal()
+	{
+		return poolMaxTotal;
+	}
+	
+	public void setPoolMaxTotal(String poolMaxTotal)
+	{
+		this.poolMaxTotal=poolMaxTotal;
+	}
+	
+	public String getPoolMaxIdle()
+	{
+		return poolMaxIdle;
+	}
+	
+	public void setPoolMaxIdle(String poolMaxIdle)
+	{
+		this.poolMaxIdle=poolMaxIdle;
+	}
+	
+	public String getPoolMinIdle()
+	{
+		return poolMinIdle;
+	}
+	
+	public void setPoolMinIdle(String poolMinIdle)
+	{
+		this.poolMinIdle=poolMinIdle;
+	}
+	
+	public String getPoolMaxWait()
+	{
+		return poolMaxWait;
+	}
+	
+	public void setPoolMaxWait(String poolMaxWait)
+	{
+		this.poolMaxWait=poolMaxWait;
+	}
+	
+	public String getConnectTimeout()
+	{
+		return connectTimeout;
+	}
+	
+	public void setConnectTimeout(String connectTimeout)
+	{
+		this.connectTimeout=connectTimeout;
+	}
+	
+	public String getSocketTimeout()
+	{
+		return socketTimeout;
+	}
+	
+	public void setSocketTimeout(String socketTimeout)
+	{
+		this.socketTimeout=socketTimeout;
+	}
+	
+	public boolean isTestOnBorrow()
+	{
+		return testOnBorrow;
+	}
+	
+	public void setTestOnBorrow(boolean testOnBorrow)
+	{
+		this.testOnBorrow=testOnBorrow;
+	}
+	
+	public boolean isClusterMode()
+	{
+		return clusterMode;
+	}
+	
+	public void setClusterMode(boolean clusterMode)
+	{
+		this.clusterMode=clusterMode;
+	}
+	
+	public String getStreamKey()
+	{
+		return streamKey;
+	}
+	
+	public void setStreamKey(String streamKey)
+	{
+		this.streamKey=streamKey;
+	}
+	
+	public String getGroup()
+	{
+		return group;
+	}
+	
+	public void setGroup(String group)
+	{
+		this.group=group;
+	}
+	
+	public String getConsumer()
+	{
+		return consumer;
+	}
+	
+	public void setConsumer(String consumer)
+	{
+		this.consumer=consumer;
+	}
+	
+	public boolean isCreateGroup()
+	{
+		return createGroup;
+	}
+	
+	public void setCreateGroup(boolean createGroup)
+	{
+		this.createGroup=createGroup;
+	}
+	
+	public String getStartId()
+	{
+		return startId;
+	}
+	
+	public void setStartId(String startId)
+	{
+		this.startId=startId;
+	}
+	
+	public String getBatchSize()
+	{
+		return batchSize;
+	}
+	
+	public void setBatchSize(String batchSize)
+	{
+		this.batchSize=batchSize;
+	}
+	
+	public String getBlockTimeout()
+	{
+		return blockTimeout;
+	}
+	
+	public void setBlockTimeout(String blockTimeout)
+	{
+		this.blockTimeout=blockTimeout;
+	}
+	
+	public String getClaimIdle()
+	{
+		return claimIdle;
+	}
+	
+	public void setClaimIdle(String claimIdle)
+	{
+		this.claimIdle=claimIdle;
+	}
+	
+	public boolean isStopWhenIdle()
+	{
+		return stopWhenIdle;
+	}
+	
+	public void setStopWhenIdle(boolean stopWhenIdle)
+	{
+		this.stopWhenIdle=stopWhenIdle;
+	}
+	
+	public String getMaxEntries()
+	{
+		return maxEntries;
+	}
+	
+	public void setMaxEntries(String maxEntries)
+	{
+		this.maxEntries=maxEntries;
+	}
+	
+	public String getIdField()
+	{
+		return idField;
+	}
+	
+	public void setIdField(String idField)
+	{
+		this.idField=idField;
+	}
+	
+	public String getJsonField()
+	{
+		return jsonField;
+	}
+	
+	public void setJsonField(String jsonField)
+	{
+		this.jsonField=jsonField;
+	}
+	
+	public void allocate(int nrEntries)
+	{
+		entryName = new String[nrEntries];
+		entryField = new String[nrEntries];
+	}
+	
+	public String[] getEntryName()
+	{
+		return entryName;
+	}
+	
+	public void setEntryName(String[] entryName)
+	{
+		this.entryName=entryName;
+	}
+	
+	public String[] getEntryField()
+	{
+		return entryField;
+	}
+	
+	public void setEntryField(String[] entryField)
+	{
+		this.entryField=entryField;
+	}
+	
+	/**
+	 * @return the name of the output field of the given entry, the entry name when it is not renamed
+	 */
+	public String getEntryFieldName(int i)
+	{
+		return Const.isEmpty(entryField[i]) ? entryName[i] : entryField[i];
+	}
+
+	@Override
+	public String getXML() throws KettleException {
+		StringBuffer retval = new StringBuffer();
+		retval.append(XMLHandler.addTagValue("hostname", this.getHostname()));
+		retval.append(XMLHandler.addTagValue("port", this.getPort()));
+		retval.append(XMLHandler.addTagValue("password", Encr.encryptPasswordIfNotUsingVariables(this.getPassword())));
+		retval.append(XMLHandler.addTagValue("base", this.getBase()));
+		retval.append(XMLHandler.addTagValue("poolMaxTotal", this.getPoolMaxTotal()));
+		retval.append(XMLHandler.addTagValue("poolMaxIdle", this.getPoolMaxIdle()));
+		retval.append(XMLHandler.addTagValue("poolMinIdle", this.getPoolMinIdle()));
+		retval.append(XMLHandler.addTagValue("poolMaxWait", this.getPoolMaxWait()));
+		retval.append(XMLHandler.addTagValue("connectTimeout", this.getConnectTimeout()));
+		retval.append(XMLHandler.addTagValue("socketTimeout", this.getSocketTimeout()));
+		retval.append(XMLHandler.addTagValue("testOnBorrow", this.isTestOnBorrow()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("clusterMode", this.isClusterMode()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("streamKey", this.getStreamKey()));
+		retval.append(XMLHandler.addTagValue("group", this.getGroup()));
+		retval.append(XMLHandler.addTagValue("consumer", this.getConsumer()));
+		retval.append(XMLHandler.addTagValue("createGroup", this.isCreateGroup()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("startId", this.getStartId()));
+		retval.append(XMLHandler.addTagValue("batchSize", this.getBatchSize()));
+		retval.append(XMLHandler.addTagValue("blockTimeout", this.getBlockTimeout()));
+		retval.append(XMLHandler.addTagValue("claimIdle", this.getClaimIdle()));
+		retval.append(XMLHandler.addTagValue("stopWhenIdle", this.isStopWhenIdle()==true?"true":"false"));
+		retval.append(XMLHandler.addTagValue("maxEntries", this.getMaxEntries()));
+		retval.append(XMLHandler.addTagValue("idField", this.getIdField()));
+		retval.append(XMLHandler.addTagValue("jsonField", this.getJsonField()));
+		retval.append("    ").append(XMLHandler.openTag("entries")).append(Const.CR);
+		for (int i = 0; i < entryName.length; i++) {
+			retval.append("      ").append(XMLHandler.openTag("entry")).append(Const.CR);
+			retval.append(XMLHandler.addTagValue("name", entryName[i]));
+			retval.append(XMLHandler.addTagValue("field", entryField[i]));
+			retval.append("      ").append(XMLHandler.closeTag("entry")).append(Const.CR);
+		}
+		retval.append("    ").append(XMLHandler.closeTag("entries")).append(Const.CR);
+		return retval.toString();
+	}
+
+	private void readData(Node stepnode) throws KettleXMLException {
+		try {
+			this.hostname = XMLHandler.getTagValue(stepnode, "hostname");
+			this.port = XMLHandler.getTagValue(stepnode, "port");
+			this.password = Encr.decryptPasswordOptionallyEncrypted(XMLHandler.getTagValue(stepnode, "password"));
+			this.base = XMLHandler.getTagValue(stepnode, "base");
+			this.poolMaxTotal = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMaxTotal"), "8");
+			this.poolMaxIdle = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMaxIdle"), "8");
+			this.poolMinIdle = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMinIdle"), "0");
+			this.poolMaxWait = Const.NVL(XMLHandler.getTagValue(stepnode, "poolMaxWait"), "-1");
+			this.connectTimeout = Const.NVL(XMLHandler.getTagValue(stepnode, "connectTimeout"), "2000");
+			this.socketTimeout = Const.NVL(XMLHandler.getTagValue(stepnode, "socketTimeout"), "2000");
+			this.testOnBorrow = "true".equals(XMLHandler.getTagValue(stepnode, "testOnBorrow"));
+			this.clusterMode = "true".equals(XMLHandler.getTagValue(stepnode, "clusterMode"));
+			this.streamKey = XMLHandler.getTagValue(stepnode, "streamKey");
+			this.group = XMLHandler.getTagValue(stepnode, "group");
+			this.consumer = Const.NVL(XMLHandler.getTagValue(stepnode, "consumer"), DEFAULT_CONSUMER);
+			this.createGroup = "true".equals(XMLHandler.getTagValue(stepnode, "createGroup"));
+			this.startId = Const.NVL(XMLHandler.getTagValue(stepnode, "startId"), DEFAULT_START_ID);
+			this.batchSize = Const.NVL(XMLHandler.getTagValue(stepnode, "batchSize"), String.valueOf(DEFAULT_BATCH_SIZE));
+			this.blockTimeout = Const.NVL(XMLHandler.getTagValue(stepnode, "blockTimeout"), String.valueOf(DEFAULT_BLOCK_TIMEOUT));
+			this.claimIdle = Const.NVL(XMLHandler.getTagValue(stepnode, "claimIdle"), String.valueOf(DEFAULT_CLAIM_IDLE));
+			this.stopWhenIdle = "true".equals(XMLHandler.getTagValue(stepnode, "stopWhenIdle"));
+			this.maxEntries = XMLHandler.getTagValue(stepnode, "maxEntries");
+			this.idField = Const.NVL(XMLHandler.getTagValue(stepnode, "idField"), "id");
+			this.jsonField = Const.NVL(XMLHandler.getTagValue(stepnode, "jsonField"), "fields");
+			Node entries = XMLHandler.getSubNode(stepnode, "entries");
+			int nrEntries = XMLHandler.countNodes(entries, "entry");
+			allocate(nrEntries);
+			for (int i = 0; i < nrEntries; i++) {
+				Node entry = XMLHandler.getSubNodeByNr(entries, "entry", i);
+				this.entryName[i] = XMLHandler.getTagValue(entry, "name");
+				this.entryField[i] = XMLHandler.getTagValue(entry, "field");
+			}
+		} catch (Exception e) {
+			throw new KettleXMLException(BaseMessages.getString(PKG,
+					"RedisStreamInputMeta.Exception.UnableToReadStepInfo"), e);
+		}
+	}
+
+	public void readRep(Repository rep, IMetaStore metaStore, ObjectId id_step, List<DatabaseMeta> databases) throws KettleException {
+		try {
+			this.hostname = rep.getStepAttributeString(id_step, "hostname");
+			this.port = rep.getStepAttributeString(id_step, "port");
+			this.password = Encr.decryptPasswordOptionallyEncrypted(rep.getStepAttributeString(id_step, "password"));
+			this.base = rep.getStepAttributeString(id_step, "base");
+			this.poolMaxTotal = Const.NVL(rep.getStepAttributeString(id_step, "poolMaxTotal"), "8");
+			this.poolMaxIdle = Const.NVL(rep.getStepAttributeString(id_step, "poolMaxIdle"), "8");
+			this.poolMinIdle = Const.NVL(rep.getStepAttributeString(id_step, "poolMinIdle"), "0");
+			this.poolMaxWait = Const.NVL(rep.getStepAttributeString(id_step, "poolMaxWait"), "-1");
+			this.connectTimeout = Const.NVL(rep.getStepAttributeString(id_step, "connectTimeout"), "2000");
+			this.socketTimeout = Const.NVL(rep.getStepAttributeString(id_step, "socketTimeout"), "2000");
+			this.testOnBorrow = rep.getStepAttributeBoolean(id_step, "testOnBorrow");
+			this.clusterMode = rep.getStepAttributeBoolean(id_step, "clusterMode");
+			this.streamKey = rep.getStepAttributeString(id_step, "streamKey");
+			this.group = rep.getStepAttributeString(id_step, "group");
+			this.consumer = Const.NVL(rep.getStepAttributeString(id_step, "consumer"), DEFAULT_CONSUMER);
+			this.createGroup = rep.getStepAttributeBoolean(id_step, "createGroup");
+			this.startId = Const.NVL(rep.getStepAttributeString(id_step, "startId"), DEFAULT_START_ID);
+			this.batchSize = Const.NVL(rep.getStepAttributeString(id_step, "batchSize"), String.valueOf(DEFAULT_BATCH_SIZE));
+			this.blockTimeout = Const.NVL(rep.getStepAttributeString(id_step, "blockTimeout"), String.valueOf(DEFAULT_BLOCK_TIMEOUT));
+			this.claimIdle = Const.NVL(rep.getStepAttributeString(id_step, "claimIdle"), String.valueOf(DEFAULT_CLAIM_IDLE));
+			this.stopWhenIdle = rep.getStepAttributeBoolean(id_step, "stopWhenIdle");
+			this.maxEntries = rep.getStepAttributeString(id_step, "maxEntries");
+			this.idField = Const.NVL(rep.getStepAttributeString(id_step, "idField"), "id");
+			this.jsonField = Const.NVL(rep.getStepAttributeString(id_step, "jsonField"), "fields");
+			int nrEntries = rep.countNrStepAttributes(id_step, "entry_name");
+			allocate(nrEntries);
+			for (int i = 0; i < nrEntries; i++) {
+				this.entryName[i] = rep.getStepAttributeString(id_step, i, "entry_name");
+				this.entryField[i] = rep.getStepAttributeString(id_step, i, "entry_field");
+			}
+		} catch (Exception e) {
+			throw new KettleException(BaseMessages.getString(PKG,
+					"RedisStreamInputMeta.Exception.UnexpectedErrorReadingStepInfo"),
+					e);
+		}
+	}
+
+	public void saveRep(Repository rep, IMetaStore metaStore,
+			ObjectId id_transformation, ObjectId id_step)
+			throws KettleException {
+		try {
+			rep.saveStepAttribute(id_transformation, id_step, "hostname", this.hostname);
+			rep.saveStepAttribute(id_transformation, id_step, "port", this.port);
+			rep.saveStepAttribute(id_transformation, id_step, "password", Encr.encryptPasswordIfNotUsingVariables(this.password));
+			rep.saveStepAttribute(id_transformation, id_step, "base", this.base);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMaxTotal", this.poolMaxTotal);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMaxIdle", this.poolMaxIdle);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMinIdle", this.poolMinIdle);
+			rep.saveStepAttribute(id_transformation, id_step, "poolMaxWait", this.poolMaxWait);
+			rep.saveStepAttribute(id_transformation, id_step, "connectTimeout", this.connectTimeout);
+			rep.saveStepAttribute(id_transformation, id_step, "socketTimeout", this.socketTimeout);
+			rep.saveStepAttribute(id_transformation, id_step, "testOnBorrow", this.testOnBorrow);
+			rep.saveStepAttribute(id_transformation, id_step, "clusterMode", this.clusterMode);
+			rep.saveStepAttribute(id_transformation, id_step, "streamKey", this.streamKey);
+			rep.saveStepAttribute(id_transformation, id_step, "group", this.group);
+			rep.saveStepAttribute(id_transformation, id_step, "consumer", this.consumer);
+			rep.saveStepAttribute(id_transformation, id_step, "createGroup", this.createGroup);
+			rep.saveStepAttribute(id_transformation, id_step, "startId", this.startId);
+			rep.saveStepAttribute(id_transformation, id_step, "batchSize", this.batchSize);
+			rep.saveStepAttribute(id_transformation, id_step, "blockTimeout", this.blockTimeout);
+			rep.saveStepAttribute(id_transformation, id_step, "claimIdle", this.claimIdle);
+			rep.saveStepAttribute(id_transformation, id_step, "stopWhenIdle", this.stopWhenIdle);
+			rep.saveStepAttribute(id_transformation, id_step, "maxEntries", this.maxEntries);
+			rep.saveStepAttribute(id_transformation, id_step, "idField", this.idField);
+			rep.saveStepAttribute(id_transformation, id_step, "jsonField", this.jsonField);
+			for (int i = 0; i < entryName.length; i++) {
+				rep.saveStepAttribute(id_transformation, id_step, i, "entry_name", entryName[i]);
+				rep.saveStepAttribute(id_transformation, id_step, i, "entry_field", entryField[i]);
+			}
+		} catch (Exception e) {
+			throw new KettleException(BaseMessages.getString(PKG,
+					"RedisStreamInputMeta.Exception.UnexpectedErrorSavingStepInfo"),
+					e);
+		}
+	}
+}